@@ -19,6 +19,7 @@ import se.de.hu_berlin.informatik.spectra.core.INode;
 import se.de.hu_berlin.informatik.spectra.core.ISpectra;
 import se.de.hu_berlin.informatik.spectra.core.hit.HierarchicalHitSpectra;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.CoberturaSpectraProviderFactory;
+import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaCoverageWrapper;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.HierarchicalCoberturaXMLProvider;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
@@ -107,15 +108,18 @@ public class HierarchicalExperiment implements IExperiment {
         int loadedFailure = 0;
 
         // inject files into cobertura provider
+        final List<CoberturaCoverageWrapper> files = new ArrayList<>();
         for (final Map.Entry<String, Boolean> trace : this.traces(this.bugId).entrySet()) {
             if (trace.getValue()) {
                 loadedSuccess++;
             } else {
                 loadedFailure++;
             }
-            if (!c.addData(trace.getKey(), null, trace.getValue())) {
-                throw new IllegalStateException("Adding coverage trace failed.");
-            }
+            files.add(new CoberturaCoverageWrapper(new File(trace.getKey()), null, trace.getValue()));
+        }
+        // parse the files in parallel
+        if (!c.addData(files, Runtime.getRuntime().availableProcessors())) {
+            throw new IllegalStateException("Adding coverage trace failed.");
         }
 
         // assert we have enough files loaded
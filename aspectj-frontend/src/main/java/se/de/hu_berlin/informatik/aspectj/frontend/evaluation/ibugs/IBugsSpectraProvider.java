@@ -15,11 +15,14 @@ import se.de.hu_berlin.informatik.spectra.core.SourceCodeBlock;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
 import se.de.hu_berlin.informatik.spectra.provider.ISpectraProvider;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.CoberturaSpectraProviderFactory;
+import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaCoverageWrapper;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaXMLProvider;
 import se.de.hu_berlin.informatik.utils.files.FileUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -99,15 +102,18 @@ public class IBugsSpectraProvider implements ISpectraProvider<SourceCodeBlock, H
             int loadedFailure = 0;
 
             // inject files into cobertura provider
+            final List<CoberturaCoverageWrapper> files = new ArrayList<>();
             for (final Map.Entry<String, Boolean> trace : this.traces().entrySet()) {
                 if (trace.getValue()) {
                     loadedSuccess++;
                 } else {
                     loadedFailure++;
                 }
-                if (!c.addData(trace.getKey(), null, trace.getValue())) {
-                    throw new IllegalStateException("Adding coverage trace failed.");
-                }
+                files.add(new CoberturaCoverageWrapper(new File(trace.getKey()), null, trace.getValue()));
+            }
+            // parse the files in parallel
+            if (!c.addData(files, Runtime.getRuntime().availableProcessors())) {
+                throw new IllegalStateException("Adding coverage trace failed.");
             }
 
             // assert we have enough files loaded
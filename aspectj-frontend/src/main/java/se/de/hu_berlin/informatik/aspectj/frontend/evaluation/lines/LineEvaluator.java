@@ -16,6 +16,7 @@ import se.de.hu_berlin.informatik.spectra.core.*;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.CoberturaSpectraProviderFactory;
+import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaCoverageWrapper;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaXMLProvider;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.RankingMetric;
@@ -95,16 +96,19 @@ public final class LineEvaluator {
         final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> provider = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
         int added = 0;
         boolean success = false;
+        final List<CoberturaCoverageWrapper> files = new ArrayList<>();
         for (final String path : traces(pathToTraceFolder + "/" + bugId + "/pre-fix", maxSuccessfulTraces
                 + maxFailingTraces)) {
             if (added == maxFailingTraces) {
                 success = true;
             }
-            if (!provider.addData(path, null, success)) {
-                throw new IllegalStateException("Adding coverage trace failed.");
-            }
+            files.add(new CoberturaCoverageWrapper(new File(path), null, success));
             added++;
         }
+        // parse the files in parallel
+        if (!provider.addData(files, Runtime.getRuntime().availableProcessors())) {
+            throw new IllegalStateException("Adding coverage trace failed.");
+        }
 
         final ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> original = provider.loadSpectra();
         if (!(original instanceof HitSpectra)) {
@@ -108,8 +108,7 @@ public class HyperbolicBucketsEH extends AbstractConsumingProcessor<StatisticsCo
 
             if (!onlyAddLocalizerValues) {
                 // 1. use evo algorithm to get hyperbolic function coefficients
-                EvoItem<Double[], Double, ChangeId> result = new HyperbolicEvoProcessor(threadCount,
-                        cvOutputDir + SEP + "bucket_" + i, suffix, null)
+                EvoItem<Double[], Double, ChangeId> result = new HyperbolicEvoProcessor(threadCount, suffix, null)
                         .submit(bucket)
                         .getResult();
 
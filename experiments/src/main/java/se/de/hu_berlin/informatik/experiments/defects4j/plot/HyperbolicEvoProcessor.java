@@ -1,8 +1,6 @@
 package se.de.hu_berlin.informatik.experiments.defects4j.plot;
 
 import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
-import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD.ToolSpecific;
-import se.de.hu_berlin.informatik.experiments.defects4j.plot.ComputeSBFLRankingsProcessor.ResultCollection;
 import se.de.hu_berlin.informatik.experiments.defects4j.plot.HyperbolicBucketsEH.ChangeId;
 import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.Hyperbolic;
 import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
@@ -12,18 +10,11 @@ import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.KillStrateg
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.ParentSelectionStrategy;
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.PopulationSelectionStrategy;
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.RecombinationStrategy;
-import se.de.hu_berlin.informatik.utils.files.FileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
 import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
-import se.de.hu_berlin.informatik.utils.processors.basics.CollectionSequencer;
-import se.de.hu_berlin.informatik.utils.processors.basics.ItemCollector;
-import se.de.hu_berlin.informatik.utils.processors.sockets.pipe.PipeLinker;
 import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
 
-import java.io.File;
-import java.nio.file.Paths;
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -35,17 +26,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class HyperbolicEvoProcessor extends AbstractProcessor<List<BuggyFixedEntity<?>>, EvoItem<Double[], Double, ChangeId>> {
 
-    private final String outputDir;
     private final String suffix;
     private final ComputationStrategies strategy;
     private final int threadCount;
 
     private final AtomicInteger bucketID = new AtomicInteger(0);
 
-    public HyperbolicEvoProcessor(int threadCount, String outputDir, String suffix, ComputationStrategies strategy) {
+    public HyperbolicEvoProcessor(int threadCount, String suffix, ComputationStrategies strategy) {
         super();
         this.threadCount = threadCount;
-        this.outputDir = outputDir;
         this.suffix = suffix;
         this.strategy = strategy;
     }
@@ -61,6 +50,10 @@ public class HyperbolicEvoProcessor extends AbstractProcessor<List<BuggyFixedEnt
     @Override
     public EvoItem<Double[], Double, ChangeId> processItem(List<BuggyFixedEntity<?>> bucket) {
 
+        // load the counters of all bugs once and evaluate all candidates in memory
+        Log.out(this, "Loading counters of %d bugs...", bucket.size());
+        SBFLCounterCache counterCache = new SBFLCounterCache(bucket, suffix, strategy);
+
         //Integer[] goal = { 1, 2, 3 };
         Random random = new Random();
 
@@ -129,38 +122,15 @@ public class HyperbolicEvoProcessor extends AbstractProcessor<List<BuggyFixedEnt
                 // use coefficients to generate hyperbolic function localizer
                 Hyperbolic<SourceCodeBlock> hyperbolic = new Hyperbolic<>(item[0], item[1], item[2]);
 
-                // generate rankings in separate directory
                 int uniqueBucketID = bucketID.getAndIncrement();
-                String uniqueOutputDir = outputDir + File.separator + uniqueBucketID;
-
-                ItemCollector<ResultCollection> collector = new ItemCollector<>();
-                // compute the rankings and get the mean rankings and so on as a result
-                new PipeLinker().append(
-                        new CollectionSequencer<>(),
-                        new HyperbolicComputeSBFLRankingsEH(Collections.singletonList(hyperbolic),
-                                ToolSpecific.TRACE_COBERTURA, uniqueOutputDir, suffix, strategy),
-                        new ComputeSBFLRankingsProcessor(Paths.get(uniqueOutputDir), suffix, "hyperbolic"),
-                        collector)
-                        .submitAndShutdown(bucket);
-
-                FileUtils.delete(Paths.get(uniqueOutputDir));
-
-                List<ResultCollection> collectedItems = collector.getCollectedItems();
-
-                if (collectedItems.size() != 1) {
-                    Log.err(this, "Fitness computation for '%s' was not successful -> collected items: %d.",
-                            uniqueOutputDir, collectedItems.size());
-
-                    return Double.NEGATIVE_INFINITY;
-                }
 
                 // atm, the bigger the fitness is, the better
                 // so we use negative values here
-                double fitness = -collectedItems.get(0).getMeanAvgRanking();
+                double fitness = -counterCache.getMeanAvgRanking(hyperbolic);
 
                 if (fitness > -1.0 || Double.isNaN(fitness)) {
-                    Log.err(this, "Fitness computation for '%s' was not successful -> fitness: %f.",
-                            uniqueOutputDir, fitness);
+                    Log.err(this, "Fitness computation for item %d was not successful -> fitness: %f.",
+                            uniqueBucketID, fitness);
 
                     return Double.NEGATIVE_INFINITY;
                 }
@@ -0,0 +1,293 @@
+package se.de.hu_berlin.informatik.experiments.defects4j.plot;
+
+import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
+import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
+import se.de.hu_berlin.informatik.benchmark.api.Entity;
+import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractFaultLocalizer;
+import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
+import se.de.hu_berlin.informatik.spectra.core.ILocalizerCache;
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.ISpectra;
+import se.de.hu_berlin.informatik.spectra.core.ITrace;
+import se.de.hu_berlin.informatik.spectra.core.LocalizerCacheFromFile;
+import se.de.hu_berlin.informatik.spectra.core.SourceCodeBlock;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the EF, EP, NF and NP values of all nodes of a set of bugs in memory, together with
+ * the indices of the nodes that contain the changes of each bug. This allows to evaluate
+ * SBFL formulae (e.g., {@link se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.Hyperbolic}
+ * functions with different coefficients) on all bugs without loading trace files and writing
+ * and reading ranking files for each evaluation.
+ *
+ * <p>
+ * The average rankings are computed as in {@link ComputeSBFLRankingsProcessor}: each change
+ * is assigned to the first node in ranking order that contains it, and the average ranking of
+ * such a node is the mean of its best and worst possible ranking among nodes with equal
+ * suspiciousness. The ranking order is the order of descending suspiciousness and, for equal
+ * suspiciousness, the order of the node identifiers.
+ *
+ * @author Simon Heiden
+ */
+public class SBFLCounterCache {
+
+    private final ComputationStrategies strategy;
+    private final List<BugCounters> bugs;
+
+    /**
+     * Loads the trace and metrics files as well as the changes of all given bugs.
+     *
+     * @param entities the bugs
+     * @param suffix   a suffix of the ranking directory that contains the trace and metrics files; may be null
+     * @param strategy the computation strategy to use
+     */
+    public SBFLCounterCache(List<BuggyFixedEntity<?>> entities, String suffix, ComputationStrategies strategy) {
+        this.strategy = strategy;
+        this.bugs = entities.parallelStream()
+                .map(entity -> loadBug(entity, suffix, strategy))
+                .collect(Collectors.toList());
+    }
+
+    private static BugCounters loadBug(BuggyFixedEntity<?> entity, String suffix, ComputationStrategies strategy) {
+        Entity bug = entity.getBuggyVersion();
+        Path rankingDir = bug.getWorkDataDir().resolve(suffix == null ?
+                BugLoRDConstants.DIR_NAME_RANKING : BugLoRDConstants.DIR_NAME_RANKING + "_" + suffix);
+        Path traceFile = rankingDir.resolve(BugLoRDConstants.getTraceFileFileName(null));
+        Path metricsFile = rankingDir.resolve(BugLoRDConstants.getMetricsFileFileName(null));
+        if (!traceFile.toFile().exists() || !metricsFile.toFile().exists()) {
+            Log.abort(SBFLCounterCache.class, "Trace file or metrics file does not exist in '%s'.", rankingDir);
+        }
+
+        ILocalizerCache<SourceCodeBlock> localizer = new LocalizerCacheFromFile<>(SourceCodeBlock.DUMMY,
+                traceFile.toAbsolutePath().toString(), metricsFile.toAbsolutePath().toString());
+        Map<String, List<Modification>> changeInformation = entity.loadChangesFromFile();
+
+        // equal changes are only assigned to a single node (see Modification#getModifications)
+        List<Modification> changes = new ArrayList<>();
+        Map<Modification, Integer> changeIndices = new IdentityHashMap<>();
+        for (List<Modification> fileChanges : changeInformation.values()) {
+            for (Modification change : fileChanges) {
+                int index = changes.indexOf(change);
+                if (index < 0) {
+                    index = changes.size();
+                    changes.add(change);
+                }
+                changeIndices.put(change, index);
+            }
+        }
+
+        List<INode<SourceCodeBlock>> nodes = new ArrayList<>(localizer.getNodes());
+        int[] ef = new int[nodes.size()];
+        int[] ep = new int[nodes.size()];
+        int[] nf = new int[nodes.size()];
+        int[] np = new int[nodes.size()];
+        List<List<Integer>> candidates = new ArrayList<>(changes.size());
+        for (int i = 0; i < changes.size(); ++i) {
+            candidates.add(new ArrayList<>(1));
+        }
+        for (int i = 0; i < nodes.size(); ++i) {
+            INode<SourceCodeBlock> node = nodes.get(i);
+            ef[i] = (int) localizer.getEF(node, strategy);
+            ep[i] = (int) localizer.getEP(node, strategy);
+            nf[i] = (int) localizer.getNF(node, strategy);
+            np[i] = (int) localizer.getNP(node, strategy);
+
+            SourceCodeBlock block = node.getIdentifier();
+            List<Modification> nodeChanges = Modification.getModifications(block.getFilePath(),
+                    block.getStartLineNumber(), block.getEndLineNumber(), true, changeInformation, null);
+            if (nodeChanges != null) {
+                for (Modification change : nodeChanges) {
+                    candidates.get(changeIndices.get(change)).add(i);
+                }
+            }
+        }
+
+        // nodes with equal suspiciousness are ranked in the order of their identifiers
+        for (List<Integer> list : candidates) {
+            list.sort(Comparator.comparing(index -> nodes.get(index).getIdentifier()));
+        }
+
+        // changes that are not contained in any node are ignored
+        int[][] changedNodes = candidates.stream()
+                .filter(list -> !list.isEmpty())
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+
+        if (changedNodes.length == 0) {
+            Log.err(SBFLCounterCache.class, "No changed nodes found for %s.", bug.getUniqueIdentifier());
+        }
+
+        return new BugCounters(ef, ep, nf, np, changedNodes);
+    }
+
+    /**
+     * @return the number of loaded bugs
+     */
+    public int getBugCount() {
+        return bugs.size();
+    }
+
+    /**
+     * Computes the mean average ranking of all changed nodes of all bugs, as computed by
+     * {@link ComputeSBFLRankingsProcessor}. The bugs are evaluated in parallel.
+     *
+     * @param localizer a localizer that ranks nodes independently of each other
+     * @return the mean average ranking; NaN if there are no changed nodes
+     */
+    public double getMeanAvgRanking(AbstractFaultLocalizer<SourceCodeBlock> localizer) {
+        if (!localizer.ranksNodesIndependently()) {
+            Log.abort(this, "Localizer '%s' does not rank nodes independently.", localizer.getName());
+        }
+        double[] sumAndCount = bugs.parallelStream()
+                .map(bug -> bug.getSumOfAvgRankings(localizer, strategy))
+                .reduce(new double[2], (a, b) -> new double[] { a[0] + b[0], a[1] + b[1] });
+        return sumAndCount[1] == 0 ? Double.NaN : sumAndCount[0] / sumAndCount[1];
+    }
+
+    private static class BugCounters {
+
+        private final int[] ef;
+        private final int[] ep;
+        private final int[] nf;
+        private final int[] np;
+        // for each change: the indices of the nodes that contain the change, in the order of their identifiers
+        private final int[][] changedNodes;
+
+        private BugCounters(int[] ef, int[] ep, int[] nf, int[] np, int[][] changedNodes) {
+            this.ef = ef;
+            this.ep = ep;
+            this.nf = nf;
+            this.np = np;
+            this.changedNodes = changedNodes;
+        }
+
+        /**
+         * @return the sum of the average rankings of all marked nodes and the number of marked nodes
+         */
+        private double[] getSumOfAvgRankings(AbstractFaultLocalizer<SourceCodeBlock> localizer,
+                ComputationStrategies strategy) {
+            CounterNode node = new CounterNode(this);
+            double[] scores = new double[ef.length];
+            for (int i = 0; i < scores.length; ++i) {
+                node.index = i;
+                double suspiciousness = localizer.suspiciousness(node, strategy);
+                // NaN values are ranked as negative infinity
+                scores[i] = Double.isNaN(suspiciousness) ? Double.NEGATIVE_INFINITY : suspiciousness;
+            }
+
+            // each change is assigned to the first node in ranking order that contains it
+            int[] marked = new int[changedNodes.length];
+            int markedCount = 0;
+            for (int[] candidates : changedNodes) {
+                int best = candidates[0];
+                for (int candidate : candidates) {
+                    if (scores[candidate] > scores[best]) {
+                        best = candidate;
+                    }
+                }
+                if (!contains(marked, markedCount, best)) {
+                    marked[markedCount++] = best;
+                }
+            }
+
+            // best ranking: 1 + number of nodes with higher score; worst ranking: number of nodes with higher or equal score
+            int[] higher = new int[markedCount];
+            int[] higherOrEqual = new int[markedCount];
+            for (double score : scores) {
+                for (int j = 0; j < markedCount; ++j) {
+                    double markedScore = scores[marked[j]];
+                    if (score > markedScore) {
+                        ++higher[j];
+                        ++higherOrEqual[j];
+                    } else if (score == markedScore) {
+                        ++higherOrEqual[j];
+                    }
+                }
+            }
+
+            double sum = 0;
+            for (int j = 0; j < markedCount; ++j) {
+                sum += (higher[j] + 1 + higherOrEqual[j]) / 2.0;
+            }
+            return new double[] { sum, markedCount };
+        }
+
+        private static boolean contains(int[] array, int length, int value) {
+            for (int i = 0; i < length; ++i) {
+                if (array[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A node that reads its values from the counter arrays of a single bug at a settable index.
+     * Only used by a single thread at a time. There is neither an identifier nor a spectra.
+     */
+    private static class CounterNode implements INode<SourceCodeBlock> {
+
+        private final BugCounters counters;
+        private int index;
+
+        private CounterNode(BugCounters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        public SourceCodeBlock getIdentifier() {
+            return null;
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public double getNP(ComputationStrategies strategy) {
+            return counters.np[index];
+        }
+
+        @Override
+        public double getNF(ComputationStrategies strategy) {
+            return counters.nf[index];
+        }
+
+        @Override
+        public double getEP(ComputationStrategies strategy) {
+            return counters.ep[index];
+        }
+
+        @Override
+        public double getEF(ComputationStrategies strategy) {
+            return counters.ef[index];
+        }
+
+        @Override
+        public void invalidateCachedValues() {
+            // values are fixed
+        }
+
+        @Override
+        public ISpectra<SourceCodeBlock, ? extends ITrace<SourceCodeBlock>> getSpectra() {
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "node " + index;
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package se.de.hu_berlin.informatik.experiments.defects4j.plot;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import se.de.hu_berlin.informatik.benchmark.api.AbstractBuggyFixedEntity;
+import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
+import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
+import se.de.hu_berlin.informatik.benchmark.modification.Change;
+import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.experiments.defects4j.plot.ComputeSBFLRankingsProcessor.ResultCollection;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.Hyperbolic;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.Ochiai;
+import se.de.hu_berlin.informatik.gen.ranking.Spectra2Ranking;
+import se.de.hu_berlin.informatik.rankingplotter.plotter.WorkDataDummyBuggyFixedEntity.WorkDataDummyEntity;
+import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
+import se.de.hu_berlin.informatik.spectra.core.Node.NodeType;
+import se.de.hu_berlin.informatik.spectra.core.SourceCodeBlock;
+import se.de.hu_berlin.informatik.utils.files.csv.CSVUtils;
+import se.de.hu_berlin.informatik.utils.processors.basics.CollectionSequencer;
+import se.de.hu_berlin.informatik.utils.processors.basics.ItemCollector;
+import se.de.hu_berlin.informatik.utils.processors.sockets.pipe.PipeLinker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the mean average rankings computed by the {@link SBFLCounterCache} with the ones
+ * computed from ranking files by the {@link ComputeSBFLRankingsProcessor}.
+ *
+ * @author Simon Heiden
+ */
+public class SBFLCounterCacheTest {
+
+    private static final ComputationStrategies STRATEGY = ComputationStrategies.STANDARD_SBFL;
+    private static final String PACKAGE = "se.test";
+    private static final String FILE = "se/test/Foo.java";
+    private static final int NODE_COUNT = 200;
+    private static final int FAILING = 3;
+    private static final int PASSING = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameMeanAvgRankingAsRankingFiles() throws IOException {
+        List<BuggyFixedEntity<?>> bugs = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            bugs.add(createBug("bug" + i, new Random(i)));
+        }
+        SBFLCounterCache counterCache = new SBFLCounterCache(bugs, null, STRATEGY);
+        Assert.assertEquals(bugs.size(), counterCache.getBugCount());
+
+        List<AbstractFaultLocalizer<SourceCodeBlock>> localizers = Arrays.asList(
+                new Hyperbolic<>(), new Hyperbolic<>(1, 1, 0.5), new Hyperbolic<>(42.0, 7.5, 1.9),
+                new Ochiai<>());
+        for (AbstractFaultLocalizer<SourceCodeBlock> localizer : localizers) {
+            Assert.assertEquals(localizer.getName(),
+                    getMeanAvgRankingFromFiles(bugs, localizer), counterCache.getMeanAvgRanking(localizer), 1E-9);
+        }
+    }
+
+    private double getMeanAvgRankingFromFiles(List<BuggyFixedEntity<?>> bugs,
+                                              AbstractFaultLocalizer<SourceCodeBlock> localizer) throws IOException {
+        Path mainBugDir = folder.newFolder().toPath();
+        for (BuggyFixedEntity<?> bug : bugs) {
+            Path rankingDir = bug.getBuggyVersion().getWorkDataDir().resolve(BugLoRDConstants.DIR_NAME_RANKING);
+            Spectra2Ranking.generateRankingFromTraceFileForLocalizers(SourceCodeBlock.DUMMY,
+                    rankingDir.resolve(BugLoRDConstants.getTraceFileFileName(null)).toString(),
+                    rankingDir.resolve(BugLoRDConstants.getMetricsFileFileName(null)).toString(),
+                    mainBugDir.resolve(bug.getBuggyVersion().getUniqueIdentifier())
+                            .resolve(BugLoRDConstants.DIR_NAME_RANKING).toString(),
+                    Collections.singletonList(localizer), STRATEGY);
+        }
+
+        ItemCollector<ResultCollection> collector = new ItemCollector<>();
+        new PipeLinker().append(
+                new CollectionSequencer<>(),
+                new ComputeSBFLRankingsProcessor(mainBugDir, null, localizer.getName().toLowerCase(Locale.getDefault())),
+                collector)
+                .submitAndShutdown(bugs);
+
+        Assert.assertEquals(1, collector.getCollectedItems().size());
+        return collector.getCollectedItems().get(0).getMeanAvgRanking();
+    }
+
+    private BuggyFixedEntity<?> createBug(String identifier, Random random) throws IOException {
+        int[][] counters = new int[NODE_COUNT + 1][];
+        for (int line = 1; line <= NODE_COUNT; ++line) {
+            // few distinct values, so that there are many nodes with equal suspiciousness
+            int ef = random.nextInt(FAILING + 1);
+            int ep = 5 * random.nextInt(PASSING / 5 + 1);
+            counters[line] = new int[] { ef, ep, FAILING - ef, PASSING - ep };
+        }
+        // pairs of nodes with equal suspiciousness that contain the same change
+        counters[11] = counters[10];
+        counters[21] = counters[20];
+        // a node that is not executed at all
+        counters[40] = new int[] { 0, 0, FAILING, PASSING };
+
+        List<Modification> changes = new ArrayList<>();
+        // the first node of the pair contains another change
+        changes.add(new Change(new int[] { 10, 11 }, FILE));
+        changes.add(new Change(10, FILE));
+        // the second node of the pair contains another change
+        changes.add(new Change(new int[] { 20, 21 }, FILE));
+        changes.add(new Change(21, FILE));
+        // a change that is contained in nodes with different suspiciousness
+        changes.add(new Change(new int[] { 30 + random.nextInt(5), 35 + random.nextInt(5) }, FILE));
+        changes.add(new Change(40, FILE));
+        changes.add(new Change(50 + random.nextInt(NODE_COUNT - 50), FILE));
+        // a change that is not contained in any node
+        changes.add(new Change(NODE_COUNT + 10, FILE));
+        Map<String, List<Modification>> changesMap = new HashMap<>();
+        changesMap.put(FILE, changes);
+
+        Path workDataDir = folder.newFolder(identifier).toPath();
+        Path rankingDir = workDataDir.resolve(BugLoRDConstants.DIR_NAME_RANKING);
+        Files.createDirectories(rankingDir);
+        // nodes in the order of their identifiers (as in trace files)
+        List<String> traceFileLines = new ArrayList<>();
+        List<String> metricsFileLines = new ArrayList<>();
+        for (int line = 1; line <= NODE_COUNT; ++line) {
+            traceFileLines.add(new SourceCodeBlock(PACKAGE, FILE, "foo", line, NodeType.NORMAL).toString());
+            int[] nodeCounters = counters[line];
+            metricsFileLines.add(CSVUtils.toCsvLine(new String[] {
+                    Integer.toString(nodeCounters[0]), Integer.toString(nodeCounters[1]),
+                    Integer.toString(nodeCounters[2]), Integer.toString(nodeCounters[3]) }));
+        }
+        Files.write(rankingDir.resolve(BugLoRDConstants.getTraceFileFileName(null)),
+                traceFileLines, StandardCharsets.UTF_8);
+        Files.write(rankingDir.resolve(BugLoRDConstants.getMetricsFileFileName(null)),
+                metricsFileLines, StandardCharsets.UTF_8);
+        Modification.storeChanges(changesMap, workDataDir.resolve(BugLoRDConstants.CHANGES_FILE_NAME));
+
+        return new TestBug(new WorkDataDummyEntity(workDataDir) {
+            @Override
+            public String getUniqueIdentifier() {
+                return identifier;
+            }
+        }, identifier);
+    }
+
+    private static class TestBug extends AbstractBuggyFixedEntity<WorkDataDummyEntity> {
+
+        private final String identifier;
+
+        private TestBug(WorkDataDummyEntity bug, String identifier) {
+            super(bug, null);
+            this.identifier = identifier;
+        }
+
+        @Override
+        public String getUniqueIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public List<String> getModifiedClasses(boolean executionMode) throws UnsupportedOperationException {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -2,100 +2,50 @@ package se.de.hu_berlin.informatik.faultlocalizer.cfg;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
-import se.de.hu_berlin.informatik.spectra.core.cfg.Node;
+import se.de.hu_berlin.informatik.spectra.core.cfg.CompressedSparseGraph;
 import se.de.hu_berlin.informatik.spectra.core.cfg.ScoredDynamicCFG;
 
 public class BiasedPageRank<T> {
-	
-	private static final int CONVERGENCE_MULTIPLICATOR = 1000000;
-
-	private final ScoredDynamicCFG<T> cfg;
-	private final double dampingFactor;
-	private final double offset;
-
-	final private Map<Integer, Double> originalPageRank = new HashMap<>();
-	private Map<Integer, Double> pageRank = new HashMap<>();
-	private Map<Integer, Double> old_pageRank;
 
-	private int iterations;
-
-	private boolean reverse;
+	private final CompressedSparseGraph graph;
+	private final double[] initialRanks;
+	private final double[] bias;
+	private final PageRankEngine engine;
 
 	public BiasedPageRank(ScoredDynamicCFG<T> cfg, double dampingFactor, int iterations, boolean reverse) {
-
-		this.cfg = cfg;
-		this.dampingFactor = dampingFactor;
-		this.iterations = iterations;
-		this.reverse = reverse;
+		this.graph = cfg.toCompressedSparseGraph();
+		this.engine = new PageRankEngine(graph, dampingFactor, iterations, reverse);
 
 		// initialize the values
-		int nodeCount = cfg.getNodes().size();
-		this.offset = (1 - dampingFactor) / nodeCount;
-		
-		for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
-			Node node = entry.getValue();
-			Double score = cfg.getScore(node.getIndex());
-			this.pageRank.put(node.getIndex(), score);
-			this.originalPageRank.put(node.getIndex(), score / nodeCount);
+		this.initialRanks = cfg.getScores(graph);
+		int nodeCount = graph.getNodeCount();
+		double offset = (1 - dampingFactor) / nodeCount;
+		this.bias = new double[nodeCount];
+		for (int i = 0; i < nodeCount; ++i) {
+			// bias towards the original scores
+			bias[i] = initialRanks[i] / nodeCount + offset;
 		}
-
 	}
-	
-	public Map<Integer, Double> calculate() {
-		// loop until values converge or max iterations reached
-		int count = 0;
-		do {
-			//Calculate the page rank
-			calculatePageRank();
-			++count;
-		} while (!didConverge() && (iterations <= 0 || count < iterations));
 
-		return pageRank;
+	public CompressedSparseGraph getGraph() {
+		return graph;
 	}
-	
+
 	/**
-	 * Calculate the page rank
+	 * @return the page rank of each node, in the order of the nodes in {@link #getGraph()}
 	 */
-	private void calculatePageRank() {
-		Map<Integer, Double> newPageRankArray = new HashMap<>();
-		
-		for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
-			Node node = entry.getValue();
-			double sum = 0;
-			if (reverse) {
-				if (node.hasSuccessors()) {
-					for (int successor : node.getSuccessors()) {
-						sum += pageRank.get(successor) / cfg.getNode(successor).getPredecessorCount();
-					}
-				}
-			} else {
-				if (node.hasPredecessors()) {
-					for (int predecessor : node.getPredecessors()) {
-						sum += pageRank.get(predecessor) / cfg.getNode(predecessor).getSuccessorCount();
-					}
-				}
-			}
-			newPageRankArray.put(node.getIndex(), originalPageRank.get(node.getIndex()) + offset + dampingFactor * sum);
-		}
-		
-		old_pageRank = pageRank;
-		pageRank = newPageRankArray;
+	public double[] calculateScores() {
+		return engine.calculate(initialRanks, bias);
 	}
-	
-	/**
-	 * Check if the values of page rank converged
-	 * @return True if the converge is successful
-	 */
-	public boolean didConverge() {
-		for (Entry<Integer, Double> entry : pageRank.entrySet()) {
-			if ((int) Math.floor(entry.getValue() * CONVERGENCE_MULTIPLICATOR) != 
-					(int) Math.floor(old_pageRank.get(entry.getKey()) * CONVERGENCE_MULTIPLICATOR)) {
-				return false;
-			}
+
+	public Map<Integer, Double> calculate() {
+		double[] scores = calculateScores();
+		Map<Integer, Double> pageRank = new HashMap<>();
+		for (int i = 0; i < scores.length; ++i) {
+			pageRank.put(graph.getNodeIndex(i), scores[i]);
 		}
-		return true;
+		return pageRank;
 	}
 	
-}
\ No newline at end of file
+}
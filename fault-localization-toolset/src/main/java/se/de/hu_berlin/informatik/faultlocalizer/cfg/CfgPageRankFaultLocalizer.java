@@ -2,7 +2,6 @@ package se.de.hu_berlin.informatik.faultlocalizer.cfg;
 
 import java.io.File;
 import java.util.Collection;
-import java.util.Map;
 import java.util.Map.Entry;
 
 import se.de.hu_berlin.informatik.faultlocalizer.IFaultLocalizer;
@@ -12,6 +11,7 @@ import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
 import se.de.hu_berlin.informatik.spectra.core.INode;
 import se.de.hu_berlin.informatik.spectra.core.ISpectra;
 import se.de.hu_berlin.informatik.spectra.core.ITrace;
+import se.de.hu_berlin.informatik.spectra.core.cfg.CompressedSparseGraph;
 import se.de.hu_berlin.informatik.spectra.core.cfg.Node;
 import se.de.hu_berlin.informatik.spectra.core.cfg.ScoredDynamicCFG;
 import se.de.hu_berlin.informatik.spectra.util.SpectraUtils;
@@ -56,7 +56,9 @@ public class CfgPageRankFaultLocalizer<T> extends AbstractFaultLocalizer<T> {
 		}
         
         // calculate scores with PageRank algorithm
-        Map<Integer, Double> pageRank = new PageRank<>(cfg, dampingFactor, iterations, reverse).calculate();
+        PageRank<T> pageRank = new PageRank<>(cfg, dampingFactor, iterations, reverse);
+        double[] scores = pageRank.calculateScores();
+        CompressedSparseGraph graph = pageRank.getGraph();
         
         // ignore nodes from spectra that were only executed by successful test cases;
         // this will lead to the scores for the removed nodes not being added to the ranking;
@@ -68,7 +70,7 @@ public class CfgPageRankFaultLocalizer<T> extends AbstractFaultLocalizer<T> {
         for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
         	Node node = entry.getValue();
 			int index = node.getIndex();
-			Double score = pageRank.get(index);
+			double score = scores[graph.getPosition(index)];
 
 			if (SpectraUtils.isNodeInvolvedInATrace(failingTraces, index)) {
 				ranking.add(spectra.getNode(index), score);
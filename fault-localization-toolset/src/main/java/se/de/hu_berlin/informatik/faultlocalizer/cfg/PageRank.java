@@ -1,98 +1,47 @@
 package se.de.hu_berlin.informatik.faultlocalizer.cfg;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
-import se.de.hu_berlin.informatik.spectra.core.cfg.Node;
+import se.de.hu_berlin.informatik.spectra.core.cfg.CompressedSparseGraph;
 import se.de.hu_berlin.informatik.spectra.core.cfg.ScoredDynamicCFG;
 
 public class PageRank<T> {
-	
-	private static final int CONVERGENCE_MULTIPLICATOR = 1000000;
-
-	private final ScoredDynamicCFG<T> cfg;
-	private final double dampingFactor;
-	private final double offset;
-
-	private Map<Integer, Double> pageRank = new HashMap<>();
-	private Map<Integer, Double> old_pageRank;
 
-	private int iterations;
-
-	private boolean reverse;
+	private final CompressedSparseGraph graph;
+	private final double[] initialRanks;
+	private final double[] bias;
+	private final PageRankEngine engine;
 
 	public PageRank(ScoredDynamicCFG<T> cfg, double dampingFactor, int iterations, boolean reverse) {
-
-		this.cfg = cfg;
-		this.dampingFactor = dampingFactor;
-		this.iterations = iterations;
-		this.reverse = reverse;
+		this.graph = cfg.toCompressedSparseGraph();
+		this.engine = new PageRankEngine(graph, dampingFactor, iterations, reverse);
 
 		// initialize the values
-		this.offset = (1 - dampingFactor) / cfg.getNodes().size();
-		
-		for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
-			Node node = entry.getValue();
-			Double score = cfg.getScore(node.getIndex());
-			this.pageRank.put(node.getIndex(), score);
-		}
-
+		this.initialRanks = cfg.getScores(graph);
+		this.bias = new double[graph.getNodeCount()];
+		Arrays.fill(bias, (1 - dampingFactor) / graph.getNodeCount());
 	}
-	
-	public Map<Integer, Double> calculate() {
-		// loop until values converge or max iterations reached
-		int count = 0;
-		do {
-			//Calculate the page rank
-			calculatePageRank();
-			++count;
-		} while (!didConverge() && (iterations <= 0 || count < iterations));
 
-		return pageRank;
+	public CompressedSparseGraph getGraph() {
+		return graph;
 	}
-	
+
 	/**
-	 * Calculate the page rank
+	 * @return the page rank of each node, in the order of the nodes in {@link #getGraph()}
 	 */
-	private void calculatePageRank() {
-		Map<Integer, Double> newPageRankArray = new HashMap<>();
-		
-		for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
-			Node node = entry.getValue();
-			double sum = 0;
-			if (reverse) {
-				if (node.hasSuccessors()) {
-					for (int successor : node.getSuccessors()) {
-						sum += pageRank.get(successor) / cfg.getNode(successor).getPredecessorCount();
-					}
-				}
-			} else {
-				if (node.hasPredecessors()) {
-					for (int predecessor : node.getPredecessors()) {
-						sum += pageRank.get(predecessor) /  cfg.getNode(predecessor).getSuccessorCount();
-					}
-				}
-			}
-			newPageRankArray.put(node.getIndex(), offset + dampingFactor * sum);
-		}
-		
-		old_pageRank = pageRank;
-		pageRank = newPageRankArray;
+	public double[] calculateScores() {
+		return engine.calculate(initialRanks, bias);
 	}
-	
-	/**
-	 * Check if the values of page rank converged
-	 * @return True if the converge is successful
-	 */
-	public boolean didConverge() {
-		for (Entry<Integer, Double> entry : pageRank.entrySet()) {
-			if ((int) Math.floor(entry.getValue() * CONVERGENCE_MULTIPLICATOR) != 
-					(int) Math.floor(old_pageRank.get(entry.getKey()) * CONVERGENCE_MULTIPLICATOR)) {
-				return false;
-			}
+
+	public Map<Integer, Double> calculate() {
+		double[] scores = calculateScores();
+		Map<Integer, Double> pageRank = new HashMap<>();
+		for (int i = 0; i < scores.length; ++i) {
+			pageRank.put(graph.getNodeIndex(i), scores[i]);
 		}
-		return true;
+		return pageRank;
 	}
 	
-}
\ No newline at end of file
+}
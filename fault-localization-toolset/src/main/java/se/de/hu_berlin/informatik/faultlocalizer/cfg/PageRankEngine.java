@@ -0,0 +1,112 @@
+package se.de.hu_berlin.informatik.faultlocalizer.cfg;
+
+import java.util.stream.IntStream;
+
+import se.de.hu_berlin.informatik.spectra.core.cfg.CompressedSparseGraph;
+
+/**
+ * Power iteration for (biased) PageRank on a {@link CompressedSparseGraph}. The rank vectors
+ * are plain double arrays that are indexed by node position, and each iteration is computed in
+ * parallel over ranges of nodes.
+ *
+ * <p>
+ * In each iteration, the new rank of a node is its bias plus the damped sum of the ranks of its
+ * predecessors, each divided by the respective out-degree (or, in reverse mode, the ranks of its
+ * successors, each divided by the respective in-degree). The iteration stops if the L1 norm of the
+ * difference between two consecutive rank vectors is small relative to the L1 norm of the ranks,
+ * or if the maximum number of iterations is reached.
+ *
+ * <p>
+ * The former implementation stopped as soon as every rank agreed with its previous value in the
+ * first six decimal places. That check is absolute, so it stops after a single iteration if all
+ * ranks are below 1E-6 (as in large graphs), and it may never succeed if a value keeps crossing a
+ * rounding boundary. Since one iteration is a contraction with factor d (the damping factor) in the
+ * L1 norm, stopping at a relative change of at most 1E-6 instead bounds the relative distance to the
+ * fixed point by d/(1-d) * 1E-6. The values computed in each single iteration are the same as before.
+ *
+ * @author Simon Heiden
+ */
+public class PageRankEngine {
+
+	private static final double CONVERGENCE_THRESHOLD = 1E-6;
+	// number of nodes that are processed in one parallel task
+	private static final int RANGE_SIZE = 4096;
+
+	private final CompressedSparseGraph graph;
+	private final double dampingFactor;
+	private final int iterations;
+	private final boolean reverse;
+
+	/**
+	 * @param graph
+	 * the graph
+	 * @param dampingFactor
+	 * the damping factor
+	 * @param iterations
+	 * the maximum number of iterations; no limit if {@code <= 0}
+	 * @param reverse
+	 * whether ranks are propagated from successors to predecessors
+	 */
+	public PageRankEngine(CompressedSparseGraph graph, double dampingFactor, int iterations, boolean reverse) {
+		this.graph = graph;
+		this.dampingFactor = dampingFactor;
+		this.iterations = iterations;
+		this.reverse = reverse;
+	}
+
+	/**
+	 * @param initialRanks
+	 * the initial ranks of the nodes (will not be modified)
+	 * @param bias
+	 * the bias that is added to the rank of each node in each iteration
+	 * @return the computed ranks, in the order of the nodes in the graph
+	 */
+	public double[] calculate(double[] initialRanks, double[] bias) {
+		int nodeCount = graph.getNodeCount();
+		double[] ranks = initialRanks.clone();
+		double[] newRanks = new double[nodeCount];
+		// rank of each node divided by its degree
+		double[] contributions = new double[nodeCount];
+
+		int[] offsets = reverse ? graph.getSuccessorOffsets() : graph.getPredecessorOffsets();
+		int[] neighbors = reverse ? graph.getSuccessors() : graph.getPredecessors();
+		int[] degrees = reverse ? graph.getInDegrees() : graph.getOutDegrees();
+
+		int ranges = (nodeCount + RANGE_SIZE - 1) / RANGE_SIZE;
+		int count = 0;
+		boolean converged;
+		do {
+			final double[] currentRanks = ranks;
+			final double[] nextRanks = newRanks;
+			IntStream.range(0, ranges).parallel().forEach(range -> {
+				int end = Math.min(nodeCount, (range + 1) * RANGE_SIZE);
+				for (int i = range * RANGE_SIZE; i < end; ++i) {
+					contributions[i] = degrees[i] == 0 ? 0 : currentRanks[i] / degrees[i];
+				}
+			});
+			double[] norms = IntStream.range(0, ranges).parallel().mapToObj(range -> {
+				int end = Math.min(nodeCount, (range + 1) * RANGE_SIZE);
+				double difference = 0;
+				double norm = 0;
+				for (int i = range * RANGE_SIZE; i < end; ++i) {
+					double sum = 0;
+					for (int j = offsets[i]; j < offsets[i + 1]; ++j) {
+						sum += contributions[neighbors[j]];
+					}
+					nextRanks[i] = bias[i] + dampingFactor * sum;
+					difference += Math.abs(nextRanks[i] - currentRanks[i]);
+					norm += Math.abs(nextRanks[i]);
+				}
+				return new double[] { difference, norm };
+			}).reduce(new double[2], (a, b) -> new double[] { a[0] + b[0], a[1] + b[1] });
+
+			newRanks = ranks;
+			ranks = nextRanks;
+			++count;
+			converged = norms[0] <= CONVERGENCE_THRESHOLD * norms[1];
+		} while (!converged && (iterations <= 0 || count < iterations));
+
+		return ranks;
+	}
+
+}
@@ -11,6 +11,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 import java.util.ArrayList; //PT
@@ -143,25 +144,27 @@ public class LinearExecutionHitTrace {
             executorService.submit(() -> {
                 for (ExecutionTrace executionTrace : test.getExecutionTraces()) {
                     traceCount.getAndIncrement();
-                    Iterator<Integer> nodeIdIterator = executionTrace.mappedIterator(spectra.getIndexer());
-                    ExecutionGraphNode current, last = null;
-                    int lastId = -1;
-                    while (nodeIdIterator.hasNext()) {
-                        int nodeIndex = nodeIdIterator.next();
-                        // nodeIndex is seen for the first time
-                        // check for repetition
-                        current = getNodeSeq().computeIfAbsent(
-                                nodeIndex,
-                                k -> new ExecutionGraphNode(nodeIndex, spectra));
-                        
-                        if (last != null) {
-                            last.addOutNode(nodeIndex);
+                    executionTrace.forEachMapped(spectra.getIndexer(), new IntConsumer() {
+                        ExecutionGraphNode last = null;
+                        int lastId = -1;
+
+                        @Override
+                        public void accept(int nodeIndex) {
+                            // nodeIndex is seen for the first time
+                            // check for repetition
+                            ExecutionGraphNode current = getNodeSeq().computeIfAbsent(
+                                    nodeIndex,
+                                    k -> new ExecutionGraphNode(nodeIndex, spectra));
+
+                            if (last != null) {
+                                last.addOutNode(nodeIndex);
+                            }
+                            // fix for cases where the same node doesn't is always the starting one
+                            current.addInNode(lastId);
+                            lastId = nodeIndex;
+                            last = current;
                         }
-                        // fix for cases where the same node doesn't is always the starting one
-                        current.addInNode(lastId);
-                        lastId = nodeIndex;
-                        last = current;
-                    }
+                    });
                 }
             });
         }
@@ -190,14 +193,14 @@ public class LinearExecutionHitTrace {
         for (ExecutionTrace executionTrace : test.getExecutionTraces()) {
 
             LinearBlockSequence innerTrace = new LinearBlockSequence();
-            Iterator<Integer> nodeIdIterator = executionTrace.mappedIterator(spectra.getIndexer());
+            PrimitiveIterator.OfInt nodeIdIterator = executionTrace.mappedIterator(spectra.getIndexer());
             HashMap<Integer, HashSet<Integer>> predessor = new HashMap<>();
             int currentBlock = -2;
             int lastBlock = -2;
 
             while (nodeIdIterator.hasNext()) {
 
-                int nodeIndex = nodeIdIterator.next();
+                int nodeIndex = nodeIdIterator.nextInt();
                 ExecutionGraphNode node = nodeSeq.get(nodeIndex);
 
                 synchronized (node) {
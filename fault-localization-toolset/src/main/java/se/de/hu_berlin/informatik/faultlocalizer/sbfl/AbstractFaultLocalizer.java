@@ -34,10 +34,7 @@ public abstract class AbstractFaultLocalizer<T> implements IFaultLocalizer<T> {
             ranking.add(node, suspiciousness);
         }
 
-        // treats NaN values as being negative infinity
-        return Ranking.getRankingWithStrategies(
-                ranking, RankingValueReplacementStrategy.NEGATIVE_INFINITY, RankingValueReplacementStrategy.INFINITY,
-                RankingValueReplacementStrategy.NEGATIVE_INFINITY);
+        return replaceSpecialValues(ranking);
     }
 
     /**
@@ -51,7 +48,44 @@ public abstract class AbstractFaultLocalizer<T> implements IFaultLocalizer<T> {
             ranking.add(node, suspiciousness);
         }
 
-        // treats NaN values as being negative infinity
+        return replaceSpecialValues(ranking);
+    }
+
+    /**
+     * Returns whether the ranking of this localizer is obtained by computing the
+     * suspiciousness of each node independently of all other nodes, as done in
+     * {@link #localize(ILocalizerCache, ComputationStrategies)}. This allows to
+     * compute the rankings of multiple localizers in a single batch (see
+     * {@link BatchFaultLocalizer}). Localizers have to opt in explicitly, usually by
+     * extending {@link AbstractIndependentFaultLocalizer}; localizers whose
+     * suspiciousness scores depend on other nodes or that override the localization
+     * procedure keep the default.
+     *
+     * @return whether the nodes are ranked independently of each other
+     */
+    public boolean ranksNodesIndependently() {
+        return false;
+    }
+
+    /**
+     * @param localizer a fault localizer
+     * @param <T>       type used to identify nodes in the system
+     * @return whether the given localizer ranks nodes independently of each other
+     * @see #ranksNodesIndependently()
+     */
+    public static <T> boolean ranksNodesIndependently(IFaultLocalizer<T> localizer) {
+        return localizer instanceof AbstractFaultLocalizer
+                && ((AbstractFaultLocalizer<T>) localizer).ranksNodesIndependently();
+    }
+
+    /**
+     * Treats NaN values as being negative infinity.
+     *
+     * @param ranking the raw ranking
+     * @param <T>     type used to identify nodes in the system
+     * @return the ranking with replaced special values
+     */
+    static <T> Ranking<INode<T>> replaceSpecialValues(final Ranking<INode<T>> ranking) {
         return Ranking.getRankingWithStrategies(
                 ranking, RankingValueReplacementStrategy.NEGATIVE_INFINITY, RankingValueReplacementStrategy.INFINITY,
                 RankingValueReplacementStrategy.NEGATIVE_INFINITY);
@@ -0,0 +1,24 @@
+/*
+ * This file is part of the "STARDUST" project. (c) Fabian Keller
+ * <hello@fabian-keller.de> For the full copyright and license information,
+ * please view the LICENSE file that was distributed with this source code.
+ */
+
+package se.de.hu_berlin.informatik.faultlocalizer.sbfl;
+
+/**
+ * Base class for (spectrum based) fault localizers that compute the suspiciousness
+ * of each node independently of all other nodes and do not override the localization
+ * procedure, e.g., localizers that apply a formula to the counters of each node.
+ * Their rankings may be computed in a single batch (see {@link BatchFaultLocalizer}).
+ *
+ * @param <T> type used to identify nodes in the system
+ */
+public abstract class AbstractIndependentFaultLocalizer<T> extends AbstractFaultLocalizer<T> {
+
+    @Override
+    public boolean ranksNodesIndependently() {
+        return true;
+    }
+
+}
@@ -0,0 +1,220 @@
+package se.de.hu_berlin.informatik.faultlocalizer.sbfl;
+
+import se.de.hu_berlin.informatik.faultlocalizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.ranking.NodeRanking;
+import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
+import se.de.hu_berlin.informatik.spectra.core.ILocalizerCache;
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.ISpectra;
+import se.de.hu_berlin.informatik.spectra.core.ITrace;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the rankings of multiple fault localizers in a single batch.
+ * <p>
+ * The EF, EP, NF and NP values of all nodes are computed only once and are
+ * shared by all localizers that rank nodes independently of each other (see
+ * {@link AbstractFaultLocalizer#ranksNodesIndependently()}), e.g., all SBFL
+ * formulae. Those localizers are evaluated in parallel. All other localizers
+ * (and all localizers, if not using {@link ComputationStrategies#STANDARD_SBFL})
+ * are computed sequentially with their own localization procedure.
+ *
+ * @param <T> type used to identify nodes in the system
+ * @author Simon Heiden
+ */
+public class BatchFaultLocalizer<T> {
+
+    private final List<IFaultLocalizer<T>> localizers;
+    private final int numberOfThreads;
+
+    /**
+     * @param localizers the fault localizers to compute rankings for
+     */
+    public BatchFaultLocalizer(List<IFaultLocalizer<T>> localizers) {
+        this(localizers, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param localizers      the fault localizers to compute rankings for
+     * @param numberOfThreads the number of threads to use for evaluating the localizers
+     */
+    public BatchFaultLocalizer(List<IFaultLocalizer<T>> localizers, int numberOfThreads) {
+        this.localizers = localizers;
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+    }
+
+    /**
+     * Creates fault location rankings for all nodes in the given spectra.
+     *
+     * @param spectra  the spectra to perform the fault localization on
+     * @param strategy the strategy to use for computation
+     * @return the rankings, in the order of the given localizers
+     */
+    public List<Ranking<INode<T>>> localize(ISpectra<T, ? extends ITrace<T>> spectra, ComputationStrategies strategy) {
+        return localize(spectra.getLocalizer(), spectra, strategy);
+    }
+
+    /**
+     * Creates fault location rankings for all nodes in the given localizer cache.
+     *
+     * @param localizer the localizer
+     * @param strategy  the strategy to use for computation
+     * @return the rankings, in the order of the given localizers
+     */
+    public List<Ranking<INode<T>>> localize(ILocalizerCache<T> localizer, ComputationStrategies strategy) {
+        return localize(localizer, null, strategy);
+    }
+
+    private List<Ranking<INode<T>>> localize(ILocalizerCache<T> localizer,
+                                             ISpectra<T, ? extends ITrace<T>> spectra, ComputationStrategies strategy) {
+        final List<INode<T>> nodes = new ArrayList<>(localizer.getNodes());
+        List<CounterNode<T>> counterNodes = null;
+
+        final List<Future<Ranking<INode<T>>>> futures = new ArrayList<>(localizers.size());
+        ExecutorService executorService = null;
+        try {
+            for (final IFaultLocalizer<T> faultLocalizer : localizers) {
+                if (strategy != ComputationStrategies.STANDARD_SBFL || !AbstractFaultLocalizer.ranksNodesIndependently(faultLocalizer)) {
+                    futures.add(null);
+                    continue;
+                }
+                if (counterNodes == null) {
+                    // compute the counters for all nodes only once
+                    counterNodes = new ArrayList<>(nodes.size());
+                    for (INode<T> node : nodes) {
+                        counterNodes.add(new CounterNode<>(node, strategy));
+                    }
+                    executorService = Executors.newFixedThreadPool(numberOfThreads);
+                }
+                final List<CounterNode<T>> sharedCounterNodes = counterNodes;
+                final AbstractFaultLocalizer<T> sbflLocalizer = (AbstractFaultLocalizer<T>) faultLocalizer;
+                futures.add(executorService.submit(() -> rank(sbflLocalizer, nodes, sharedCounterNodes, strategy)));
+            }
+            if (executorService != null) {
+                executorService.shutdown();
+            }
+
+            final List<Ranking<INode<T>>> rankings = new ArrayList<>(localizers.size());
+            for (int i = 0; i < localizers.size(); ++i) {
+                Future<Ranking<INode<T>>> future = futures.get(i);
+                if (future == null) {
+                    // localizers with their own localization procedure are computed sequentially
+                    IFaultLocalizer<T> faultLocalizer = localizers.get(i);
+                    rankings.add(spectra == null ?
+                            faultLocalizer.localize(localizer, strategy) : faultLocalizer.localize(spectra, strategy));
+                } else {
+                    try {
+                        rankings.add(future.get());
+                    } catch (InterruptedException | ExecutionException e) {
+                        Log.abort(this, e, "Could not compute %s ranking.", localizers.get(i).getName());
+                    }
+                }
+            }
+            return rankings;
+        } finally {
+            if (executorService != null) {
+                // stops the remaining computations if a ranking could not be computed
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    private static <T> Ranking<INode<T>> rank(AbstractFaultLocalizer<T> localizer, List<INode<T>> nodes,
+                                              List<CounterNode<T>> counterNodes, ComputationStrategies strategy) {
+        final Ranking<INode<T>> ranking = new NodeRanking<>();
+        for (int i = 0; i < nodes.size(); ++i) {
+            ranking.add(nodes.get(i), localizer.suspiciousness(counterNodes.get(i), strategy));
+        }
+        return AbstractFaultLocalizer.replaceSpecialValues(ranking);
+    }
+
+    /**
+     * Wraps a node and holds precomputed EF, EP, NF and NP values. All other
+     * requests are delegated to the wrapped node.
+     *
+     * @param <T> type used to identify nodes in the system
+     */
+    private static class CounterNode<T> implements INode<T> {
+
+        private final INode<T> node;
+        private final double ef;
+        private final double ep;
+        private final double nf;
+        private final double np;
+
+        private CounterNode(INode<T> node, ComputationStrategies strategy) {
+            this.node = node;
+            this.ef = node.getEF(strategy);
+            this.ep = node.getEP(strategy);
+            this.nf = node.getNF(strategy);
+            this.np = node.getNP(strategy);
+        }
+
+        @Override
+        public T getIdentifier() {
+            return node.getIdentifier();
+        }
+
+        @Override
+        public int getIndex() {
+            return node.getIndex();
+        }
+
+        @Override
+        public double getNP(ComputationStrategies strategy) {
+            return np;
+        }
+
+        @Override
+        public double getNF(ComputationStrategies strategy) {
+            return nf;
+        }
+
+        @Override
+        public double getEP(ComputationStrategies strategy) {
+            return ep;
+        }
+
+        @Override
+        public double getEF(ComputationStrategies strategy) {
+            return ef;
+        }
+
+        @Override
+        public void invalidateCachedValues() {
+            node.invalidateCachedValues();
+        }
+
+        @Override
+        public ISpectra<T, ? extends ITrace<T>> getSpectra() {
+            return node.getSpectra();
+        }
+
+        @Override
+        public String toString() {
+            return node.toString();
+        }
+
+        @Override
+        public int hashCode() {
+            return node.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof CounterNode) {
+                return node.equals(((CounterNode<?>) obj).node);
+            }
+            return node.equals(obj);
+        }
+    }
+
+}
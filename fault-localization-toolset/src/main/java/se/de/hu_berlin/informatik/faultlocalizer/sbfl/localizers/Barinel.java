@@ -9,7 +9,7 @@
 
 package se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers;
 
-import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractIndependentFaultLocalizer;
 import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
 import se.de.hu_berlin.informatik.spectra.core.INode;
 
@@ -18,7 +18,7 @@ import se.de.hu_berlin.informatik.spectra.core.INode;
  *
  * @param <T> type used to identify nodes in the system
  */
-public class Barinel<T> extends AbstractFaultLocalizer<T> {
+public class Barinel<T> extends AbstractIndependentFaultLocalizer<T> {
 
     /**
      * Create fault localizer
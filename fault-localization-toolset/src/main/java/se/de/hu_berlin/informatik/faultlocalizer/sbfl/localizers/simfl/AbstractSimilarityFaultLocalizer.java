@@ -0,0 +1,157 @@
+package se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl;
+
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractIndependentFaultLocalizer;
+import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.SimilarityMatrix;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Base class for similarity based fault localizers that score a node by summing up
+ * a score for each pair of a failing trace and a trace.
+ * <p>
+ * The score of a pair only depends on whether the node is involved in both traces and
+ * on the similarity of both traces. For each failing trace, the scores of all traces
+ * under the assumption that the node is NOT involved in them are summed up once per
+ * spectra. The suspiciousness of a node is then obtained by correcting these sums for
+ * the traces that actually involve the node, which only requires a few array reads
+ * per involved trace.
+ *
+ * @param <T> type used to identify nodes in the system
+ * @author Simon
+ */
+public abstract class AbstractSimilarityFaultLocalizer<T> extends AbstractIndependentFaultLocalizer<T> {
+
+    private volatile BaseScores<T> baseScores;
+
+    /**
+     * Computes the score of a trace with respect to a primary failing trace. Is only
+     * called for traces that involve at least one node.
+     *
+     * @param nodeInvolvedInFailingTrace whether the node is involved in the primary failing trace
+     * @param nodeInvolvedInTrace        whether the node is involved in the trace
+     * @param successful                 whether the trace is successful
+     * @param sameHitCount               the number of nodes that are involved in both traces
+     * @param traceSize                  the number of nodes that are involved in the trace
+     * @param failingTraceSize           the number of nodes that are involved in the primary failing trace
+     * @return the score
+     */
+    protected abstract double getTraceScore(boolean nodeInvolvedInFailingTrace, boolean nodeInvolvedInTrace,
+                                            boolean successful, int sameHitCount, int traceSize, int failingTraceSize);
+
+    /**
+     * @return whether primary failing traces that did not execute any nodes are skipped
+     */
+    protected boolean skipsEmptyFailingTraces() {
+        return false;
+    }
+
+    /**
+     * @return whether a primary failing trace that does not involve the node contributes a
+     * fixed score of -1 instead of the summed up scores of all traces
+     */
+    protected boolean penalizesNodesNotInFailingTrace() {
+        return false;
+    }
+
+    @Override
+    public double suspiciousness(final INode<T> node, ComputationStrategies strategy) {
+        SimilarityMatrix<T> matrix = node.getSpectra().getSimilarityMatrix();
+        int failingTracesCount = matrix.getFailingTraceCount();
+        if (failingTracesCount == 0) {
+            return 0; // reevaluate this
+        }
+        double[][] scores = getBaseScores(matrix);
+        int[] involvedTraces = matrix.getInvolvedTraces(node.getIndex());
+
+        double sum = 0.0;
+        // have to compute a value for each failing trace (-> primary failing test case)
+        for (int failingIndex = 0; failingIndex < failingTracesCount; ++failingIndex) {
+            int failingTraceIndex = matrix.getFailingTrace(failingIndex);
+            int failingTraceSize = matrix.getTraceSize(failingTraceIndex);
+            if (skipsEmptyFailingTraces() && failingTraceSize <= 0) {
+                // skip traces that did not execute any nodes...
+                continue;
+            }
+            boolean nodeInvolvedInFailingTrace = Arrays.binarySearch(involvedTraces, failingTraceIndex) >= 0;
+            if (!nodeInvolvedInFailingTrace && penalizesNodesNotInFailingTrace()) {
+                sum -= 1;
+                continue;
+            }
+
+            // start with the scores of all traces, assuming that no trace involves the node
+            double count = scores[nodeInvolvedInFailingTrace ? 1 : 0][failingIndex];
+            // traces that involve the node never are empty
+            for (int traceIndex : involvedTraces) {
+                boolean successful = matrix.isSuccessful(traceIndex);
+                int sameHitCount = matrix.getSameHitCount(failingIndex, traceIndex);
+                int traceSize = matrix.getTraceSize(traceIndex);
+                count += getTraceScore(nodeInvolvedInFailingTrace, true,
+                        successful, sameHitCount, traceSize, failingTraceSize)
+                        - getTraceScore(nodeInvolvedInFailingTrace, false,
+                        successful, sameHitCount, traceSize, failingTraceSize);
+            }
+
+            sum += (count / matrix.getTraceCount());
+        }
+        // average over all failing traces
+        sum /= failingTracesCount;
+        return sum;
+    }
+
+    private double[][] getBaseScores(SimilarityMatrix<T> matrix) {
+        BaseScores<T> scores = this.baseScores;
+        if (scores == null || scores.matrix != matrix) {
+            synchronized (this) {
+                scores = this.baseScores;
+                if (scores == null || scores.matrix != matrix) {
+                    scores = new BaseScores<>(matrix, computeBaseScores(matrix));
+                    this.baseScores = scores;
+                }
+            }
+        }
+        return scores.values;
+    }
+
+    private double[][] computeBaseScores(SimilarityMatrix<T> matrix) {
+        // index 0: node not involved in the primary failing trace, index 1: node involved
+        double[][] scores = new double[2][matrix.getFailingTraceCount()];
+        IntStream.range(0, matrix.getFailingTraceCount()).parallel().forEach(failingIndex -> {
+            int failingTraceSize = matrix.getTraceSize(matrix.getFailingTrace(failingIndex));
+            if (skipsEmptyFailingTraces() && failingTraceSize <= 0) {
+                return;
+            }
+            for (int traceIndex = 0; traceIndex < matrix.getTraceCount(); ++traceIndex) {
+                int traceSize = matrix.getTraceSize(traceIndex);
+                if (traceSize <= 0) {
+                    // skip traces that did not execute any nodes...
+                    continue;
+                }
+                boolean successful = matrix.isSuccessful(traceIndex);
+                int sameHitCount = matrix.getSameHitCount(failingIndex, traceIndex);
+                scores[1][failingIndex] += getTraceScore(true, false,
+                        successful, sameHitCount, traceSize, failingTraceSize);
+                if (!penalizesNodesNotInFailingTrace()) {
+                    scores[0][failingIndex] += getTraceScore(false, false,
+                            successful, sameHitCount, traceSize, failingTraceSize);
+                }
+            }
+        });
+        return scores;
+    }
+
+    private static class BaseScores<T> {
+
+        private final SimilarityMatrix<T> matrix;
+        private final double[][] values;
+
+        private BaseScores(SimilarityMatrix<T> matrix, double[][] values) {
+            this.matrix = matrix;
+            this.values = values;
+        }
+
+    }
+
+}
@@ -6,18 +6,12 @@
 
 package se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl;
 
-import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractFaultLocalizer;
-import se.de.hu_berlin.informatik.spectra.core.*;
-import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
-
-import java.util.Collection;
-
 /**
  * Similarity based Fault Localizer
  *
  * @param <T> type used to identify nodes in the system
  */
-public class PwrExtSimilarityFL<T> extends AbstractFaultLocalizer<T> {
+public class PwrExtSimilarityFL<T> extends AbstractSimilarityFaultLocalizer<T> {
 
     private double p;
 
@@ -30,120 +24,33 @@ public class PwrExtSimilarityFL<T> extends AbstractFaultLocalizer<T> {
     }
 
     @Override
-    public double suspiciousness(final INode<T> node, ComputationStrategies strategy) {
-        ISpectra<T, ? extends ITrace<T>> spectra = node.getSpectra();
-        Collection<? extends ITrace<T>> failingTraces = spectra.getFailingTraces();
-        int failingTracesCount = failingTraces.size();
-        if (failingTracesCount == 0) {
-            return 0; // reevaluate this
-        }
-
-        double sum = 0.0;
-        // have to compute a value for each failing trace (-> primary failing test case)
-        for (final ITrace<T> failingTrace : failingTraces) {
-            boolean nodeInvolvedInFailingTrace = failingTrace.isInvolved(node);
-            if (nodeInvolvedInFailingTrace) {
-                // the primary failing test case executed this node -> bug is more likely to be here!
-                double count = 0.0;
-                for (final ITrace<T> trace : spectra.getTraces()) {
-                    // get the info
-                    TraceInfo similarityScore = spectra.getSimilarityMap(failingTrace).get(trace);
-                    if (similarityScore == null) {
-                        Log.abort(this, "Similarity Score is null.");
-                    }
-
-                    if (trace.getInvolvedNodes().size() <= 0) {
-                        // skip traces that did not execute any nodes...
-                        continue;
-                    }
-
-                    if (trace.isSuccessful()) {
-                        // this test case was successful -> bug is less likely to be here if covered!
-                        if (trace.isInvolved(node)) {
-                            // node is involved in the test case -> less suspicious
-                            // -> lower suspiciousness if both traces share more hits
-                            // (i.e. the failing trace shares a lot of functionality with the successful one)
-                            count -= Math.pow(similarityScore.getSameHitCount() / (double) trace.getInvolvedNodes().size(), p);
-                        } else {
-                            // node is NOT involved in the test case -> more suspicious
-                            // -> higher suspiciousness if both traces share more hits
-                            // (i.e. the failing trace shares a lot of functionality with the successful one, 
-                            // but on this node, there is an anomaly...)
-                            count += Math.pow(similarityScore.getSameHitCount() / (double) trace.getInvolvedNodes().size(), p);
-                        }
-                    } else {
-                        // this test case failed -> bug is more likely to be here if covered!
-                        if (trace.isInvolved(node)) {
-                            // node is involved in another failing trace -> more suspicious
-                            // -> higher suspiciousness if both traces are more diverse
-                            // (additional failing traces that are very similar don't provide a lot of new information)
-                            count += Math.pow((1 - similarityScore.getSameHitCount() / (double) trace.getInvolvedNodes().size()), p);
-                        } else {
-                            // node is NOT involved in another failing trace -> less suspicious
-                            // -> lower suspiciousness if both traces are more diverse
-                            // (i.e. the other failing trace covers a bit of the functionality of the failing one,
-                            // but is more diverse. If the trace is more similar to the failing one,
-                            // it doesn't have as much power...)
-                            count -= Math.pow((1 - similarityScore.getSameHitCount() / (double) trace.getInvolvedNodes().size()), p);
-                        }
-                    }
-                }
-
-                // score is between -1 and 1
-                sum += (count / spectra.getTraces().size());
+    protected double getTraceScore(boolean nodeInvolvedInFailingTrace, boolean nodeInvolvedInTrace,
+                                   boolean successful, int sameHitCount, int traceSize, int failingTraceSize) {
+        double similarity = sameHitCount / (double) traceSize;
+        if (nodeInvolvedInFailingTrace) {
+            // the primary failing test case executed this node -> bug is more likely to be here!
+            if (successful) {
+                // this test case was successful -> bug is less likely to be here if covered!
+                // -> lower suspiciousness if both traces share more hits, if involved
+                // -> higher suspiciousness if both traces share more hits, if NOT involved
+                return nodeInvolvedInTrace ? -Math.pow(similarity, p) : Math.pow(similarity, p);
             } else {
-                // node is not covered by the primary failing trace -> the node has less relevance (to be erroneous)
-                double count = 0.0;
-                for (final ITrace<T> trace : spectra.getTraces()) {
-                    // get the info
-                    TraceInfo similarityScore = spectra.getSimilarityMap(failingTrace).get(trace);
-                    if (similarityScore == null) {
-                        Log.abort(this, "Similarity Score is null.");
-                    }
-
-                    if (trace.getInvolvedNodes().size() <= 0) {
-                        // skip traces that did not execute any nodes...
-                        continue;
-                    }
-
-                    if (trace.isSuccessful()) {
-                        // this test case was successful -> bug is less likely to be here if covered!
-                        if (trace.isInvolved(node)) {
-                            // node is involved in the test case -> less suspicious
-                            // -> higher suspiciousness if both traces share more hits
-                            // (i.e. the failing trace shares a lot of functionality with the successful one)
-                            // the idea is that there may be some functionality missing in the primary failing test case
-                            count -= Math.pow((1 - similarityScore.getSameHitCount() / (double) trace.getInvolvedNodes().size()), p);
-                        } else {
-                            // node is NOT involved in the test case -> less suspicious (since not involved in the primary failing test case)
-                            // (node is neither involved in the primary failing test case nor in this test case)
-                            count -= 1;
-                        }
-                    } else {
-                        // this test case failed -> bug is more likely to be here if covered!
-                        if (trace.isInvolved(node)) {
-                            // node is involved in another failing trace -> less suspicious (since not involved in the primary failing test case)
-                            // -> lower suspiciousness if both traces are more diverse
-                            // (i.e. the primary failing trace covers a bit of the functionality of the failing one,
-                            // but is more diverse. If the trace is more similar to the failing one,
-                            // it doesn't have as much power...)
-                            count -= Math.pow((1 - similarityScore.getSameHitCount() / (double) trace.getInvolvedNodes().size()), p);
-                        } else {
-                            // node is NOT involved in another failing trace -> less suspicious
-                            // (node is neither involved in the primary failing test case nor in this test case)
-                            count -= 1;
-                        }
-                    }
-                }
-
-                // score is between -1 and 1
-                sum += (count / spectra.getTraces().size());
+                // this test case failed -> bug is more likely to be here if covered!
+                // -> higher suspiciousness if both traces are more diverse, if involved
+                // -> lower suspiciousness if both traces are more diverse, if NOT involved
+                return nodeInvolvedInTrace ? Math.pow((1 - similarity), p) : -Math.pow((1 - similarity), p);
+            }
+        } else {
+            // node is not covered by the primary failing trace -> the node has less relevance (to be erroneous)
+            if (nodeInvolvedInTrace) {
+                // node is involved in the test case -> less suspicious
+                // (the idea is that there may be some functionality missing in the primary failing test case)
+                return -Math.pow((1 - similarity), p);
+            } else {
+                // node is neither involved in the primary failing test case nor in this test case
+                return -1;
             }
-
         }
-        // average over all failing traces
-        sum /= failingTracesCount;
-        return sum;
     }
 
     @Override
@@ -34,6 +34,11 @@ public class ScoreCombinationFL<T> extends AbstractFaultLocalizer<T> {
 
     }
 
+    @Override
+    public boolean ranksNodesIndependently() {
+        return ranksNodesIndependently(localizer1) && ranksNodesIndependently(localizer2);
+    }
+
     @Override
     public double suspiciousness(final INode<T> node, ComputationStrategies strategy) {
         double score1 = localizer1.suspiciousness(node, strategy);
@@ -35,6 +35,11 @@ public class SimilarityBoostFL<T> extends AbstractFaultLocalizer<T> {
 
     }
 
+    @Override
+    public boolean ranksNodesIndependently() {
+        return ranksNodesIndependently(localizer1) && ranksNodesIndependently(localizer2);
+    }
+
     @Override
     public double suspiciousness(final INode<T> node, ComputationStrategies strategy) {
         double score1 = localizer1.suspiciousness(node, strategy);
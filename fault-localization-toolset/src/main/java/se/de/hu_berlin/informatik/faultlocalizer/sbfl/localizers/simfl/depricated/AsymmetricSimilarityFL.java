@@ -6,7 +6,7 @@
 
 package se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.depricated;
 
-import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.AbstractIndependentFaultLocalizer;
 import se.de.hu_berlin.informatik.spectra.core.*;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
@@ -17,7 +17,7 @@ import java.util.Collection;
  *
  * @param <T> type used to identify nodes in the system
  */
-public class AsymmetricSimilarityFL<T> extends AbstractFaultLocalizer<T> {
+public class AsymmetricSimilarityFL<T> extends AbstractIndependentFaultLocalizer<T> {
 
     /**
      * Create fault localizer
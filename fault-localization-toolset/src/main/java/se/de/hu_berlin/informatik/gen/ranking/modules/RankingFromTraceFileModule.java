@@ -2,6 +2,7 @@ package se.de.hu_berlin.informatik.gen.ranking.modules;
 
 import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
 import se.de.hu_berlin.informatik.faultlocalizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.BatchFaultLocalizer;
 import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
 import se.de.hu_berlin.informatik.spectra.core.ILocalizerCache;
 import se.de.hu_berlin.informatik.spectra.core.INode;
@@ -59,34 +60,30 @@ public class RankingFromTraceFileModule<T extends Indexable<T> & Comparable<T>>
      */
     @Override
     public List<IFaultLocalizer<T>> processItem(final List<IFaultLocalizer<T>> localizers) {
-        final ProgressBarTracker tracker = new ProgressBarTracker(1, localizers.size());
-
         ILocalizerCache<T> localizer = new LocalizerCacheFromFile<>(dummy,
                 traceFilePath.toString(), metricsFilePath.toString());
 
         //calculate the SBFL rankings, if any localizers are given
-        for (final IFaultLocalizer<T> localizer2 : localizers) {
-            final String className = localizer2.getName();
-            tracker.track("...calculating " + className + " ranking.");
-            // Log.out(this, "...calculating " + className + " ranking.");
+        final List<Ranking<INode<T>>> rankings = new BatchFaultLocalizer<>(localizers).localize(localizer, strategy);
 
-            generateRanking(localizer, localizer2, className.toLowerCase(Locale.getDefault()));
+        final ProgressBarTracker tracker = new ProgressBarTracker(1, localizers.size());
+        for (int i = 0; i < localizers.size(); ++i) {
+            final String className = localizers.get(i).getName();
+            tracker.track("...saving " + className + " ranking.");
+            saveRanking(rankings.get(i), className.toLowerCase(Locale.getDefault()));
         }
 
         return localizers;
     }
 
     /**
-     * Generates and saves a specific SBFL ranking.
+     * Saves a specific SBFL ranking.
      *
-     * @param localizer  Cobertura line spectra
-     * @param localizer2 provides specific SBFL formulae
-     * @param subfolder  name of a subfolder to be used
+     * @param ranking   the ranking to save
+     * @param subfolder name of a subfolder to be used
      */
-    private void generateRanking(final ILocalizerCache<T> localizer,
-                                 final IFaultLocalizer<T> localizer2, final String subfolder) {
+    private void saveRanking(final Ranking<INode<T>> ranking, final String subfolder) {
         try {
-            final Ranking<INode<T>> ranking = localizer2.localize(localizer, strategy);
             Paths.get(outputdir + File.separator + subfolder).toFile().mkdirs();
             ranking.saveOnlyScores(Comparator.comparing(INode::getIdentifier), outputdir + File.separator + subfolder + File.separator + BugLoRDConstants.FILENAME_TRACE_RANKING_FILE);
         } catch (IOException e) {
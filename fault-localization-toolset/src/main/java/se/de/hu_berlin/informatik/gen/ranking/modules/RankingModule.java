@@ -2,6 +2,7 @@ package se.de.hu_berlin.informatik.gen.ranking.modules;
 
 import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
 import se.de.hu_berlin.informatik.faultlocalizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.BatchFaultLocalizer;
 import se.de.hu_berlin.informatik.faultlocalizer.sbfl.FaultLocalizerFactory;
 import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
 import se.de.hu_berlin.informatik.spectra.core.INode;
@@ -61,30 +62,27 @@ public class RankingModule<T> extends AbstractProcessor<ISpectra<T, ?>, ISpectra
      */
     @Override
     public ISpectra<T, ?> processItem(final ISpectra<T, ?> spectra) {
-        final ProgressBarTracker tracker = new ProgressBarTracker(1, localizers.size());
-
         //calculate the SBFL rankings, if any localizers are given
-        for (final IFaultLocalizer<T> localizer : localizers) {
-            final String className = localizer.getName();
-            tracker.track("...calculating " + className + " ranking.");
-//			Log.out(this, "...calculating " + className + " ranking.");
-            generateRanking(spectra, localizer, className.toLowerCase(Locale.getDefault()));
+        final List<Ranking<INode<T>>> rankings = new BatchFaultLocalizer<>(localizers).localize(spectra, strategy);
+
+        final ProgressBarTracker tracker = new ProgressBarTracker(1, localizers.size());
+        for (int i = 0; i < localizers.size(); ++i) {
+            final String className = localizers.get(i).getName();
+            tracker.track("...saving " + className + " ranking.");
+            saveRanking(rankings.get(i), className.toLowerCase(Locale.getDefault()));
         }
 
         return spectra;
     }
 
     /**
-     * Generates and saves a specific SBFL ranking.
+     * Saves a specific SBFL ranking.
      *
-     * @param spectra   Cobertura line spectra
-     * @param localizer provides specific SBFL formulae
+     * @param ranking   the ranking to save
      * @param subfolder name of a subfolder to be used
      */
-    private void generateRanking(final ISpectra<T, ?> spectra,
-                                 final IFaultLocalizer<T> localizer, final String subfolder) {
+    private void saveRanking(final Ranking<INode<T>> ranking, final String subfolder) {
         try {
-            final Ranking<INode<T>> ranking = localizer.localize(spectra, strategy);
             Paths.get(outputdir + File.separator + subfolder).toFile().mkdirs();
             ranking.save(outputdir + File.separator + subfolder + File.separator + BugLoRDConstants.FILENAME_RANKING_FILE);
             System.out.println("------- ranking saved -------"); //PT
@@ -0,0 +1,164 @@
+package se.de.hu_berlin.informatik.faultlocalizer.cfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+import se.de.hu_berlin.informatik.spectra.core.cfg.DynamicCFG;
+import se.de.hu_berlin.informatik.spectra.core.cfg.Node;
+import se.de.hu_berlin.informatik.spectra.core.cfg.ScoredDynamicCFG;
+
+/**
+ * Compares {@link PageRank} and {@link BiasedPageRank} with the previous map-based
+ * implementation ({@link MapBasedPageRank}).
+ *
+ * @author Simon Heiden
+ */
+public class PageRankTest {
+
+	private static final double DAMPING_FACTOR = 0.85;
+
+	@Test
+	public void testSameRanksAsMapBasedImplementationPerIteration() {
+		ScoredDynamicCFG<String> cfg = createRandomCFG(new Random(42), 2000, 8000);
+		for (boolean biased : new boolean[] { false, true }) {
+			for (boolean reverse : new boolean[] { false, true }) {
+				for (int iterations = 1; iterations <= 5; ++iterations) {
+					Map<Integer, Double> expected = new MapBasedPageRank<>(cfg, DAMPING_FACTOR, biased, reverse)
+							.iterate(iterations);
+					Map<Integer, Double> actual = calculate(cfg, iterations, biased, reverse);
+
+					assertEquals(expected.size(), actual.size());
+					for (Entry<Integer, Double> entry : expected.entrySet()) {
+						// same operations in the same order, so the values are identical
+						assertEquals("biased: " + biased + ", reverse: " + reverse + ", iterations: " + iterations,
+								entry.getValue(), actual.get(entry.getKey()), 0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConvergedRanksAreCloseToFixedPoint() {
+		ScoredDynamicCFG<String> cfg = createRandomCFG(new Random(7), 2000, 8000);
+		for (boolean biased : new boolean[] { false, true }) {
+			for (boolean reverse : new boolean[] { false, true }) {
+				// (nearly) exact fixed point
+				Map<Integer, Double> fixedPoint = new MapBasedPageRank<>(cfg, DAMPING_FACTOR, biased, reverse)
+						.iterate(500);
+				Map<Integer, Double> actual = calculate(cfg, 0, biased, reverse);
+
+				double error = 0;
+				double norm = 0;
+				for (Entry<Integer, Double> entry : fixedPoint.entrySet()) {
+					error += Math.abs(entry.getValue() - actual.get(entry.getKey()));
+					norm += Math.abs(entry.getValue());
+				}
+				// the iteration is a contraction with factor d in the L1 norm, so stopping at a relative
+				// change of at most 1E-6 bounds the relative error by d/(1-d) * 1E-6
+				double bound = DAMPING_FACTOR / (1 - DAMPING_FACTOR) * 1E-6;
+				assertTrue("biased: " + biased + ", reverse: " + reverse + ", relative error: " + (error / norm),
+						error <= bound * norm);
+			}
+		}
+	}
+
+	private static Map<Integer, Double> calculate(ScoredDynamicCFG<String> cfg, int iterations,
+			boolean biased, boolean reverse) {
+		if (biased) {
+			return new BiasedPageRank<>(cfg, DAMPING_FACTOR, iterations, reverse).calculate();
+		} else {
+			return new PageRank<>(cfg, DAMPING_FACTOR, iterations, reverse).calculate();
+		}
+	}
+
+	private static ScoredDynamicCFG<String> createRandomCFG(Random random, int nodeCount, int edgeCount) {
+		DynamicCFG<String> cfg = new DynamicCFG<>(null);
+		for (int i = 0; i < nodeCount; ++i) {
+			// sparse node indices
+			cfg.getOrCreateNode(3 * i);
+		}
+		for (int i = 0; i < edgeCount; ++i) {
+			Node from = cfg.getNode(3 * random.nextInt(nodeCount));
+			Node to = cfg.getNode(3 * random.nextInt(nodeCount));
+			from.connectTo(to);
+		}
+		ScoredDynamicCFG<String> scoredCfg = new ScoredDynamicCFG<>(cfg);
+		for (int i = 0; i < nodeCount; ++i) {
+			scoredCfg.assignScore(3 * i, random.nextDouble());
+		}
+		return scoredCfg;
+	}
+
+	/**
+	 * The previous implementation of {@link PageRank} and {@link BiasedPageRank}, which
+	 * stores the rank vectors in maps. The iteration is the same, but the number of
+	 * iterations is given by the caller instead of by the convergence check.
+	 */
+	private static class MapBasedPageRank<T> {
+
+		private final ScoredDynamicCFG<T> cfg;
+		private final double dampingFactor;
+		private final double offset;
+		private final boolean reverse;
+
+		final private Map<Integer, Double> originalPageRank = new HashMap<>();
+		private Map<Integer, Double> pageRank = new HashMap<>();
+
+		private MapBasedPageRank(ScoredDynamicCFG<T> cfg, double dampingFactor, boolean biased, boolean reverse) {
+			this.cfg = cfg;
+			this.dampingFactor = dampingFactor;
+			this.reverse = reverse;
+
+			int nodeCount = cfg.getNodes().size();
+			this.offset = (1 - dampingFactor) / nodeCount;
+
+			for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
+				Node node = entry.getValue();
+				Double score = cfg.getScore(node.getIndex());
+				this.pageRank.put(node.getIndex(), score);
+				this.originalPageRank.put(node.getIndex(), biased ? score / nodeCount : 0);
+			}
+		}
+
+		private Map<Integer, Double> iterate(int iterations) {
+			for (int i = 0; i < iterations; ++i) {
+				calculatePageRank();
+			}
+			return pageRank;
+		}
+
+		private void calculatePageRank() {
+			Map<Integer, Double> newPageRankArray = new HashMap<>();
+
+			for (Entry<Integer, Node> entry : cfg.getNodes().entrySet()) {
+				Node node = entry.getValue();
+				double sum = 0;
+				if (reverse) {
+					if (node.hasSuccessors()) {
+						for (int successor : node.getSuccessors()) {
+							sum += pageRank.get(successor) / cfg.getNode(successor).getPredecessorCount();
+						}
+					}
+				} else {
+					if (node.hasPredecessors()) {
+						for (int predecessor : node.getPredecessors()) {
+							sum += pageRank.get(predecessor) / cfg.getNode(predecessor).getSuccessorCount();
+						}
+					}
+				}
+				newPageRankArray.put(node.getIndex(), originalPageRank.get(node.getIndex()) + offset + dampingFactor * sum);
+			}
+
+			pageRank = newPageRankArray;
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package se.de.hu_berlin.informatik.faultlocalizer.sbfl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.faultlocalizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.DStar;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.Ochiai;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.Tarantula;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.ScoreCombinationFL;
+import se.de.hu_berlin.informatik.faultlocalizer.test.data.SimpleSpectraProvider;
+import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchFaultLocalizerTest {
+
+    @Test
+    public void checkSameRankingsAsSingleLocalizers() {
+        final HitSpectra<String> s = new SimpleSpectraProvider().loadHitSpectra();
+        final List<IFaultLocalizer<String>> localizers = new ArrayList<>();
+        localizers.add(new Tarantula<>());
+        localizers.add(new Ochiai<>());
+        localizers.add(new DStar<>());
+
+        final List<Ranking<INode<String>>> rankings = new BatchFaultLocalizer<>(localizers, 2)
+                .localize(s, ComputationStrategies.STANDARD_SBFL);
+        Assert.assertEquals(localizers.size(), rankings.size());
+
+        for (int i = 0; i < localizers.size(); ++i) {
+            final Ranking<INode<String>> expected = localizers.get(i).localize(s);
+            final Ranking<INode<String>> actual = rankings.get(i);
+            for (final INode<String> node : s.getNodes()) {
+                Assert.assertEquals(expected.getRankingValue(node), actual.getRankingValue(node), 0.00001);
+                Assert.assertEquals(expected.wastedEffort(node), actual.wastedEffort(node));
+            }
+        }
+    }
+
+    @Test
+    public void checkLocalizersHaveToOptInToBatchRanking() {
+        final HitSpectra<String> s = new SimpleSpectraProvider().loadHitSpectra();
+        // does not opt in, so it has to be computed with its own localization procedure
+        final AbstractFaultLocalizer<String> custom = new AbstractFaultLocalizer<String>() {
+            @Override
+            public double suspiciousness(INode<String> node, ComputationStrategies strategy) {
+                return node.getEF(strategy) - node.getEP(strategy);
+            }
+        };
+        Assert.assertFalse(custom.ranksNodesIndependently());
+        Assert.assertTrue(new Ochiai<String>().ranksNodesIndependently());
+        Assert.assertTrue(AbstractFaultLocalizer.ranksNodesIndependently(
+                new ScoreCombinationFL<>(new Ochiai<>(), 1, new Tarantula<>(), 1)));
+        Assert.assertFalse(AbstractFaultLocalizer.ranksNodesIndependently(
+                new ScoreCombinationFL<>(new Ochiai<>(), 1, custom, 1)));
+
+        final List<IFaultLocalizer<String>> localizers = new ArrayList<>();
+        localizers.add(custom);
+        localizers.add(new Ochiai<>());
+        final List<Ranking<INode<String>>> rankings = new BatchFaultLocalizer<>(localizers, 2)
+                .localize(s, ComputationStrategies.STANDARD_SBFL);
+        final Ranking<INode<String>> expected = custom.localize(s);
+        for (final INode<String> node : s.getNodes()) {
+            Assert.assertEquals(expected.getRankingValue(node), rankings.get(0).getRankingValue(node), 0.00001);
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package se.de.hu_berlin.informatik.faultlocalizer.sbfl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.faultlocalizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.ExtendedSimilarityFL;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.ExtendedSimilarityFL2;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.ExtendedSimilarityFL3;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.PwrExtSimilarityFL;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.SimilarityFL3;
+import se.de.hu_berlin.informatik.faultlocalizer.sbfl.localizers.simfl.SimpleSimilarityFL;
+import se.de.hu_berlin.informatik.faultlocalizer.test.data.SimpleSpectraProvider;
+import se.de.hu_berlin.informatik.faultlocalizer.test.data.SimpleSpectraProvider2;
+import se.de.hu_berlin.informatik.spectra.core.ComputationStrategies;
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.ISpectra;
+import se.de.hu_berlin.informatik.spectra.core.ITrace;
+import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
+import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compares the similarity based localizers with straightforward implementations of
+ * their previous suspiciousness computations, which iterate over all pairs of a
+ * failing trace and a trace for each node.
+ *
+ * @author Simon Heiden
+ */
+public class SimilarityFaultLocalizerTest {
+
+    private static final double DELTA = 1E-9;
+
+    private interface TraceScore {
+        double score(boolean successful, boolean involved, double sameHitCount, double traceSize, double failingTraceSize);
+    }
+
+    @Test
+    public void checkSimpleSimilarityFL() {
+        checkEquivalence(new SimpleSimilarityFL<>(), false,
+                (successful, involved, s, t, f) -> successful == involved ? -1 : 1,
+                null);
+    }
+
+    @Test
+    public void checkSimilarityFL3() {
+        checkEquivalence(new SimilarityFL3<>(), true,
+                (successful, involved, s, t, f) -> successful
+                        ? (involved ? -s / f : s / f)
+                        : (involved ? (1 - s / f) : -(1 - s / f)),
+                null);
+    }
+
+    @Test
+    public void checkExtendedSimilarityFL() {
+        checkEquivalence(new ExtendedSimilarityFL<>(), false,
+                (successful, involved, s, t, f) -> successful
+                        ? (involved ? -s / t : s / t)
+                        : (involved ? (t - s) / t : -(t - s) / t),
+                (successful, involved, s, t, f) -> successful
+                        ? (involved ? -(1 - s / t) : -1)
+                        : (involved ? -(t - s) / t : -1));
+    }
+
+    @Test
+    public void checkExtendedSimilarityFL2() {
+        checkEquivalence(new ExtendedSimilarityFL2<>(), false,
+                (successful, involved, s, t, f) -> successful
+                        ? (involved ? -s / t : s / t)
+                        : (involved ? (1 - s / t) : -(1 - s / t)),
+                (successful, involved, s, t, f) -> involved ? -(1 - s / t) : -1);
+    }
+
+    @Test
+    public void checkExtendedSimilarityFL3() {
+        checkEquivalence(new ExtendedSimilarityFL3<>(), true,
+                (successful, involved, s, t, f) -> successful
+                        ? (involved ? -s / f : s / f)
+                        : (involved ? (1 - s / f) : -(1 - s / f)),
+                (successful, involved, s, t, f) -> involved ? -(1 - s / f) : -1);
+    }
+
+    @Test
+    public void checkPwrExtSimilarityFL() {
+        for (final double p : new double[]{0.5, 2, 3.5}) {
+            checkEquivalence(new PwrExtSimilarityFL<>(p), false,
+                    (successful, involved, s, t, f) -> successful
+                            ? (involved ? -Math.pow(s / t, p) : Math.pow(s / t, p))
+                            : (involved ? Math.pow(1 - s / t, p) : -Math.pow(1 - s / t, p)),
+                    (successful, involved, s, t, f) -> involved ? -Math.pow(1 - s / t, p) : -1);
+        }
+    }
+
+    private static void checkEquivalence(IFaultLocalizer<String> localizer, boolean skipEmptyFailingTraces,
+                                         TraceScore scoreIfInFailingTrace, TraceScore scoreIfNotInFailingTrace) {
+        for (final HitSpectra<String> spectra : getFixtures()) {
+            for (final INode<String> node : spectra.getNodes()) {
+                final double expected = computeOldSuspiciousness(node, skipEmptyFailingTraces,
+                        scoreIfInFailingTrace, scoreIfNotInFailingTrace);
+                final double actual = localizer.suspiciousness(node, ComputationStrategies.STANDARD_SBFL);
+                Assert.assertEquals(localizer.getName() + ", " + node.getIdentifier(), expected, actual, DELTA);
+            }
+        }
+    }
+
+    /**
+     * The suspiciousness computation of the similarity localizers before they were
+     * based on a precomputed similarity matrix.
+     *
+     * @param scoreIfNotInFailingTrace null if a failing trace that does not involve the node contributes -1
+     */
+    private static double computeOldSuspiciousness(INode<String> node, boolean skipEmptyFailingTraces,
+                                                   TraceScore scoreIfInFailingTrace, TraceScore scoreIfNotInFailingTrace) {
+        final ISpectra<String, ? extends ITrace<String>> spectra = node.getSpectra();
+        final Collection<? extends ITrace<String>> failingTraces = spectra.getFailingTraces();
+        if (failingTraces.isEmpty()) {
+            return 0;
+        }
+
+        double sum = 0.0;
+        for (final ITrace<String> failingTrace : failingTraces) {
+            final double failingTraceSize = failingTrace.getInvolvedNodes().size();
+            if (skipEmptyFailingTraces && failingTraceSize <= 0) {
+                continue;
+            }
+            final boolean nodeInvolvedInFailingTrace = failingTrace.isInvolved(node);
+            if (!nodeInvolvedInFailingTrace && scoreIfNotInFailingTrace == null) {
+                sum -= 1;
+                continue;
+            }
+            final TraceScore score = nodeInvolvedInFailingTrace ? scoreIfInFailingTrace : scoreIfNotInFailingTrace;
+            double count = 0.0;
+            for (final ITrace<String> trace : spectra.getTraces()) {
+                final double traceSize = trace.getInvolvedNodes().size();
+                if (traceSize <= 0) {
+                    continue;
+                }
+                int sameHitCount = 0;
+                for (final int index : failingTrace.getInvolvedNodes()) {
+                    if (trace.isInvolved(index)) {
+                        ++sameHitCount;
+                    }
+                }
+                count += score.score(trace.isSuccessful(), trace.isInvolved(node),
+                        sameHitCount, traceSize, failingTraceSize);
+            }
+            sum += count / spectra.getTraces().size();
+        }
+        return sum / failingTraces.size();
+    }
+
+    private static List<HitSpectra<String>> getFixtures() {
+        final List<HitSpectra<String>> fixtures = new ArrayList<>();
+        fixtures.add(new SimpleSpectraProvider().loadHitSpectra());
+        fixtures.add(new SimpleSpectraProvider2().loadHitSpectra());
+
+        // contains empty successful and failing traces
+        final HitSpectra<String> s = new HitSpectra<>(null);
+        for (final String node : Arrays.asList("S1", "S2", "S3", "S4", "S5")) {
+            s.getOrCreateNode(node);
+        }
+        final HitTrace<String> t1 = s.addTrace("t1", 1, false);
+        t1.setInvolvement("S1", true);
+        t1.setInvolvement("S2", true);
+        t1.setInvolvement("S4", true);
+        final HitTrace<String> t2 = s.addTrace("t2", 2, false);
+        t2.setInvolvement("S2", true);
+        t2.setInvolvement("S5", true);
+        s.addTrace("t3", 3, false);
+        final HitTrace<String> t4 = s.addTrace("t4", 4, true);
+        t4.setInvolvement("S1", true);
+        t4.setInvolvement("S3", true);
+        final HitTrace<String> t5 = s.addTrace("t5", 5, true);
+        t5.setInvolvement("S2", true);
+        t5.setInvolvement("S3", true);
+        t5.setInvolvement("S4", true);
+        s.addTrace("t6", 6, true);
+        fixtures.add(s);
+
+        // no failing traces at all
+        final HitSpectra<String> s2 = new HitSpectra<>(null);
+        final HitTrace<String> t7 = s2.addTrace("t7", 1, true);
+        t7.setInvolvement("S1", true);
+        fixtures.add(s2);
+        return fixtures;
+    }
+
+}
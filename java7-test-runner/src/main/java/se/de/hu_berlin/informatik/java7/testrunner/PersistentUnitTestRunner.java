@@ -0,0 +1,146 @@
+package se.de.hu_berlin.informatik.java7.testrunner;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ExecutionTraceCollector;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ExecutionTraceSpool;
+import se.de.hu_berlin.informatik.java7.testrunner.SimpleServerFramework.FrameChannel;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.TouchCollector;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Runs multiple tests inside a single, persistent JVM. The runner connects to a
+ * server on the loopback interface and then receives test requests over this one
+ * connection until it is told to shut down. This saves the costs of starting a new JVM,
+ * loading classes and initializing the instrumentation runtime for each single test.
+ *
+ * <p>
+ * The protocol uses binary frames (see {@link FrameChannel}) and consists of: 1. the
+ * server sending the test class name and the test method name (an empty class name
+ * tells the runner to shut down), 2. the runner resetting all collected coverage data
+ * and running the test, and 3. the runner sending the execution result (see
+ * {@link UnitTestRunner}), a flag whether coverage data is available and, if so, the
+ * coverage data as encoded by a {@link ProjectDataCodec.Encoder}.
+ *
+ * <p>
+ * If a test times out or throws an exception, the runner exits after sending the
+ * result, since the JVM may be left in an inconsistent state (e.g., with hanging test
+ * threads). The server is expected to start a new runner for the next test, then.
+ *
+ * @author Simon
+ */
+public class PersistentUnitTestRunner {
+
+    final public static String SHUTDOWN = "";
+
+    /**
+     * @param args path/to/outputDir port [timeout]
+     */
+    public static void main(String[] args) {
+
+        if (args.length < 2) {
+            System.err.println("Wrong number of arguments.");
+            System.exit(1);
+        }
+
+        File outputDir = new File(args[0]);
+        if (outputDir.isFile()) {
+            System.err.println(outputDir + " is a file.");
+            System.exit(1);
+        }
+
+        int port = Integer.valueOf(args[1]);
+
+        long timeout = 600L;
+        if (args.length > 2) {
+            timeout = Long.parseLong(args[2]);
+        }
+
+        boolean useCobertura = System.getProperty("net.sourceforge.cobertura.datafile") != null;
+        if (useCobertura) {
+            // initialize!
+            ProjectData.getGlobalProjectData();
+            //turn off auto saving (removes the shutdown hook inside of Cobertura)
+            ProjectData.turnOffAutoSave();
+        }
+
+        Runtime.getRuntime().exit(run(outputDir, port, timeout, useCobertura));
+    }
+
+    /**
+     * Connects to the server on the given port and runs the requested tests until the
+     * server sends a shutdown request or a test does not finish normally.
+     *
+     * @param outputDir    the directory for the test result files
+     * @param port         the port of the server
+     * @param timeout      the timeout for each test (in seconds)
+     * @param useCobertura whether coverage data is collected and sent
+     * @return the exit code of the runner
+     */
+    static int run(File outputDir, int port, long timeout, boolean useCobertura) {
+        int exitCode = 0;
+        try (FrameChannel connection = new FrameChannel(SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port)), 0)) {
+            // layouts of classes are only sent once per connection
+            ProjectDataCodec.Encoder encoder = new ProjectDataCodec.Encoder();
+
+            while (true) {
+                ByteBuffer request = connection.receiveFrame();
+                String testClass = ProjectDataCodec.getString(request);
+                if (SHUTDOWN.equals(testClass)) {
+                    break;
+                }
+                String testMethod = ProjectDataCodec.getString(request);
+
+                if (useCobertura) {
+                    resetCoverage();
+                }
+
+                TestWrapper testWrapper = new TestWrapper(testClass, testMethod);
+                int result = UnitTestRunner.runTest(testWrapper,
+                        outputDir + File.separator + testWrapper.toString().replace(':', '_'), timeout);
+
+                ByteBuffer reply = connection.beginFrame();
+                reply.putInt(result);
+                //see if the test was executed and finished execution normally
+                if (useCobertura && (result == UnitTestRunner.TEST_SUCCESSFUL || result == UnitTestRunner.TEST_FAILED)) {
+                    // wait for some milliseconds
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        // do nothing
+                    }
+                    reply.put((byte) 1);
+                    reply = encoder.encode(reply, ExecutionTraceSpool.newSpoolFile());
+                } else {
+                    reply.put((byte) 0);
+                }
+                connection.sendFrame(reply);
+
+                if (result != UnitTestRunner.TEST_SUCCESSFUL && result != UnitTestRunner.TEST_FAILED) {
+                    // JVM might be in an inconsistent state
+                    exitCode = result;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("runner error: " + e.getMessage());
+            exitCode = UnitTestRunner.TEST_EXCEPTION;
+        }
+        return exitCode;
+    }
+
+    private static void resetCoverage() {
+        // reset hits that were collected in between tests
+        TouchCollector.resetTouchesOnRegisteredClasses();
+        // discard execution traces that were collected in between tests
+        ExecutionTraceCollector.resetExecutionTraces();
+    }
+
+}
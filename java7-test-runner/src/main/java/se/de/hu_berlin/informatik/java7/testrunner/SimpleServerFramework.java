@@ -1,10 +1,16 @@
 package se.de.hu_berlin.informatik.java7.testrunner;
 
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.util.Objects;
 import java.util.Random;
 import java.util.concurrent.Semaphore;
@@ -400,4 +406,149 @@ public class SimpleServerFramework {
 
         return false;
     }
+
+    /**
+     * Exchanges length prefixed binary frames over a socket channel, using direct
+     * buffers. Contrary to the object based protocol of the {@link ServerSideListener},
+     * no Java serialization is involved, and the connection is kept open for multiple
+     * exchanges.
+     *
+     * <p>
+     * If a timeout is given, the channel is switched to non-blocking mode and waiting
+     * for data throws a {@link SocketTimeoutException} after the timeout.
+     */
+    public static class FrameChannel implements Closeable {
+
+        final private static int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+        final private SocketChannel channel;
+        final private Selector selector;
+        final private SelectionKey key;
+        final private long timeout;
+
+        final private ByteBuffer header = ByteBuffer.allocateDirect(4);
+        private ByteBuffer readBuffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+        private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+
+        /**
+         * @param channel the connected socket channel
+         * @param timeout the timeout in milliseconds when waiting for data; 0 to block
+         *                indefinitely
+         * @throws IOException if the channel can not be configured
+         */
+        public FrameChannel(SocketChannel channel, long timeout) throws IOException {
+            this.channel = Objects.requireNonNull(channel);
+            this.timeout = timeout;
+            if (timeout > 0) {
+                channel.configureBlocking(false);
+                selector = Selector.open();
+                key = channel.register(selector, 0);
+            } else {
+                channel.configureBlocking(true);
+                selector = null;
+                key = null;
+            }
+        }
+
+        /**
+         * @return a cleared buffer for the contents of the next frame to send
+         */
+        public ByteBuffer beginFrame() {
+            writeBuffer.clear();
+            // reserve space for the length
+            writeBuffer.position(4);
+            return writeBuffer;
+        }
+
+        /**
+         * Sends the given frame.
+         *
+         * @param frame a buffer obtained from {@link #beginFrame()} (or a larger copy of it),
+         *              positioned after the contents of the frame
+         * @throws IOException if an I/O error occurs or a timeout occurs
+         */
+        public void sendFrame(ByteBuffer frame) throws IOException {
+            frame.flip();
+            frame.putInt(0, frame.limit() - 4);
+            while (frame.hasRemaining()) {
+                if (channel.write(frame) == 0) {
+                    await(SelectionKey.OP_WRITE);
+                }
+            }
+            if (frame.capacity() > writeBuffer.capacity()) {
+                // keep the larger buffer for the next frames
+                writeBuffer = frame;
+            }
+        }
+
+        /**
+         * Receives the next frame. The returned buffer is only valid until the next call.
+         *
+         * @return a buffer with the contents of the received frame
+         * @throws IOException if an I/O error occurs or a timeout occurs
+         */
+        public ByteBuffer receiveFrame() throws IOException {
+            header.clear();
+            readFully(header);
+            int length = header.getInt(0);
+            if (length < 0) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            if (length > readBuffer.capacity()) {
+                readBuffer = ByteBuffer.allocateDirect(Math.max(length, 2 * readBuffer.capacity()));
+            }
+            readBuffer.clear();
+            readBuffer.limit(length);
+            readFully(readBuffer);
+            readBuffer.flip();
+            return readBuffer;
+        }
+
+        private void readFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("Connection closed.");
+                } else if (read == 0) {
+                    await(SelectionKey.OP_READ);
+                }
+            }
+        }
+
+        private void await(int operation) throws IOException {
+            if (selector == null) {
+                return;
+            }
+            key.interestOps(operation);
+            try {
+                // select() may also return without a ready channel, e.g., after a wakeup or an interrupt
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                while (true) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        throw new SocketTimeoutException("No response after " + timeout + " ms.");
+                    }
+                    int ready = selector.select(remaining);
+                    selector.selectedKeys().clear();
+                    if (ready > 0) {
+                        return;
+                    }
+                }
+            } finally {
+                key.interestOps(0);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (selector != null) {
+                    selector.close();
+                }
+            } finally {
+                channel.close();
+            }
+        }
+
+    }
 }
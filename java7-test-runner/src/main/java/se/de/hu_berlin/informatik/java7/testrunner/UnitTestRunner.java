@@ -1,10 +1,17 @@
 package se.de.hu_berlin.informatik.java7.testrunner;
 
 import org.apache.tools.ant.taskdefs.optional.junit.JUnitTest;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ExecutionTraceSpool;
+import se.de.hu_berlin.informatik.java7.testrunner.SimpleServerFramework.FrameChannel;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.TouchCollector;
 
 import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Set;
@@ -63,7 +70,7 @@ public class UnitTestRunner {
         int result = runTest(testWrapper, output.getParent() + File.separator + testWrapper.toString().replace(':', '_'), timeout);
 
         if (System.getProperty("net.sourceforge.cobertura.datafile") != null) {
-            ProjectData projectData = null;
+            boolean successful = false;
             //see if the test was executed and finished execution normally
             if (result == TEST_SUCCESSFUL || result == TEST_FAILED) {
                 // wait for some milliseconds
@@ -72,15 +79,9 @@ public class UnitTestRunner {
                 } catch (InterruptedException e) {
                     // do nothing
                 }
-                projectData = new ProjectData();
-
-                TouchCollector.applyTouchesOnProjectData(projectData);
+                successful = sendCoverage(port);
             }
 
-            // only send if not null...
-            boolean successful = projectData != null
-                    && SimpleServerFramework.sendToServer(projectData, port, 3);
-
             //result.saveToCSV(output);
             //ProjectData.saveGlobalProjectData();
             if (!successful) {
@@ -91,7 +92,27 @@ public class UnitTestRunner {
         System.exit(result);
     }
 
-    private static int runTest(final TestWrapper testWrapper, final String resultFile, final Long timeout) {
+    /**
+     * Sends the collected coverage data to the server on the given port as a single
+     * frame (see {@link ProjectDataCodec.Encoder}).
+     *
+     * @param port the port of the server
+     * @return whether the data was sent successfully
+     */
+    public static boolean sendCoverage(int port) {
+        try (FrameChannel connection = new FrameChannel(SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port)), 0)) {
+            ByteBuffer frame = new ProjectDataCodec.Encoder().encode(
+                    connection.beginFrame(), ExecutionTraceSpool.newSpoolFile());
+            connection.sendFrame(frame);
+            return true;
+        } catch (IOException e) {
+            System.err.println("client error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    static int runTest(final TestWrapper testWrapper, final String resultFile, final Long timeout) {
 //		Log.out(this, "Start Running " + testWrapper);
 
         FutureTask<JUnitTest> task = testWrapper.getTest(testOutputStream);
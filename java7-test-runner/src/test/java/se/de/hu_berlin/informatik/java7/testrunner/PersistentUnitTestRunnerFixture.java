@@ -0,0 +1,28 @@
+package se.de.hu_berlin.informatik.java7.testrunner;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that are executed by the {@link PersistentUnitTestRunnerTest}.
+ *
+ * @author Simon Heiden
+ */
+public class PersistentUnitTestRunnerFixture {
+
+    @Test
+    public void successfulTest() {
+        Assert.assertTrue(true);
+    }
+
+    @Test
+    public void failingTest() {
+        Assert.fail("fails on purpose");
+    }
+
+    @Test
+    public void hangingTest() throws InterruptedException {
+        Thread.sleep(3000);
+    }
+
+}
@@ -0,0 +1,103 @@
+package se.de.hu_berlin.informatik.java7.testrunner;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import se.de.hu_berlin.informatik.java7.testrunner.SimpleServerFramework.FrameChannel;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the persistent test runner in a separate thread and sends it test requests.
+ *
+ * @author Simon Heiden
+ */
+public class PersistentUnitTestRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRunsMultipleTestsOverOneConnection() throws Exception {
+        try (ServerSocketChannel server = openServer()) {
+            RunnerThread runner = new RunnerThread(folder.getRoot(), server.socket().getLocalPort(), 10L);
+            runner.start();
+            try (FrameChannel connection = new FrameChannel(server.accept(), 60000)) {
+                Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(connection, "successfulTest"));
+                // failing tests do not end the runner
+                Assert.assertEquals(UnitTestRunner.TEST_FAILED, runTest(connection, "failingTest"));
+                Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(connection, "successfulTest"));
+
+                connection.sendFrame(ProjectDataCodec.putString(
+                        connection.beginFrame(), PersistentUnitTestRunner.SHUTDOWN));
+            }
+            runner.join(60000);
+            Assert.assertFalse(runner.isAlive());
+            Assert.assertEquals(0, runner.exitCode.get());
+        }
+    }
+
+    @Test
+    public void testEndsAfterTimeout() throws Exception {
+        try (ServerSocketChannel server = openServer()) {
+            RunnerThread runner = new RunnerThread(folder.getRoot(), server.socket().getLocalPort(), 1L);
+            runner.start();
+            try (FrameChannel connection = new FrameChannel(server.accept(), 60000)) {
+                Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(connection, "successfulTest"));
+                Assert.assertEquals(UnitTestRunner.TEST_TIMEOUT, runTest(connection, "hangingTest"));
+            }
+            // the runner ends itself without a shutdown request
+            runner.join(60000);
+            Assert.assertFalse(runner.isAlive());
+            Assert.assertEquals(UnitTestRunner.TEST_TIMEOUT, runner.exitCode.get());
+        }
+    }
+
+    private static ServerSocketChannel openServer() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return server;
+    }
+
+    private static int runTest(FrameChannel connection, String testMethod) throws IOException {
+        ByteBuffer request = connection.beginFrame();
+        request = ProjectDataCodec.putString(request, PersistentUnitTestRunnerFixture.class.getName());
+        request = ProjectDataCodec.putString(request, testMethod);
+        connection.sendFrame(request);
+
+        ByteBuffer reply = connection.receiveFrame();
+        int result = reply.getInt();
+        // no coverage data without Cobertura
+        Assert.assertEquals(0, reply.get());
+        Assert.assertFalse(reply.hasRemaining());
+        return result;
+    }
+
+    private static class RunnerThread extends Thread {
+
+        private final File outputDir;
+        private final int port;
+        private final long timeout;
+        private final AtomicInteger exitCode = new AtomicInteger(-1);
+
+        private RunnerThread(File outputDir, int port, long timeout) {
+            this.outputDir = outputDir;
+            this.port = port;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void run() {
+            exitCode.set(PersistentUnitTestRunner.run(outputDir, port, timeout, false));
+        }
+    }
+
+}
@@ -69,7 +69,8 @@ public abstract class AbstractSpectra<T, K extends ITrace<T>> implements Cloneab
      */
     private final Map<String, K> traces = new ConcurrentHashMap<>();
 
-    private Map<K, Map<K, TraceInfo>> similarities = null;
+    private volatile Map<K, Map<K, TraceInfo>> similarities = null;
+    private volatile SimilarityMatrix<T> similarityMatrix = null;
 
     private LocalizerCache<T> localizer;
     private SequenceIndexerCompressed indexer;
@@ -386,39 +387,59 @@ public abstract class AbstractSpectra<T, K extends ITrace<T>> implements Cloneab
         if (failingTrace.isSuccessful()) {
             return null;
         }
+        Map<K, Map<K, TraceInfo>> similarities = this.similarities;
         if (similarities == null) {
-            computeSimilarities();
+            similarities = computeSimilarities();
         }
         return similarities.get(failingTrace);
     }
 
-    private void computeSimilarities() {
-        similarities = new HashMap<>();
+    private synchronized Map<K, Map<K, TraceInfo>> computeSimilarities() {
+        if (this.similarities != null) {
+            return this.similarities;
+        }
+        SimilarityMatrix<T> matrix = getSimilarityMatrix();
+        Map<K, Map<K, TraceInfo>> similarities = new HashMap<>();
         //have to compute a value for each failing trace
-        for (final K failingTrace : this.getFailingTraces()) {
+        for (int failingIndex = 0; failingIndex < matrix.getFailingTraceCount(); ++failingIndex) {
             Map<K, TraceInfo> similarityScores = new HashMap<>();
-            similarities.put(failingTrace, similarityScores);
+            similarities.put(getTrace(matrix, matrix.getFailingTrace(failingIndex)), similarityScores);
 
-//    		double failingTraceSize = failingTrace.getInvolvedNodes().size();
-            //for every trace, compute a similarity score to the current failing trace
-            for (final K trace : this.getTraces()) {
+            //for every trace, get the similarity score to the current failing trace
+            for (int traceIndex = 0; traceIndex < matrix.getTraceCount(); ++traceIndex) {
                 TraceInfo info = new TraceInfo();
+                info.setSameHitCount(matrix.getSameHitCount(failingIndex, traceIndex));
+                similarityScores.put(getTrace(matrix, traceIndex), info);
+            }
+        }
+        this.similarities = similarities;
+        return similarities;
+    }
 
-                int equallyInvolvedNodes = 0;
-                for (final int index : failingTrace.getInvolvedNodes()) {
-                    if (trace.isInvolved(index)) {
-                        ++equallyInvolvedNodes;
-                    }
+    @SuppressWarnings("unchecked")
+    private K getTrace(SimilarityMatrix<T> matrix, int traceIndex) {
+        return (K) matrix.getTrace(traceIndex);
+    }
+
+    @Override
+    public SimilarityMatrix<T> getSimilarityMatrix() {
+        SimilarityMatrix<T> matrix = this.similarityMatrix;
+        if (matrix == null) {
+            synchronized (this) {
+                matrix = this.similarityMatrix;
+                if (matrix == null) {
+                    matrix = new SimilarityMatrix<>(this);
+                    this.similarityMatrix = matrix;
                 }
-                info.setSameHitCount(equallyInvolvedNodes);
-                similarityScores.put(trace, info);
             }
         }
+        return matrix;
     }
 
     @Override
     public void invalidateCachedValues() {
         similarities = null;
+        similarityMatrix = null;
     }
 
     @Override
@@ -445,6 +466,9 @@ public abstract class AbstractSpectra<T, K extends ITrace<T>> implements Cloneab
 
     @Override
     public void setIndexer(SequenceIndexerCompressed indexer) {
+        if (this.indexer != null && this.indexer != indexer) {
+            this.indexer.close();
+        }
         this.indexer = indexer;
     }
 
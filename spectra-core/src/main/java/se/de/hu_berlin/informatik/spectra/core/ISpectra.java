@@ -181,6 +181,14 @@ public interface ISpectra<T, K extends ITrace<T>> {
 
     public Map<K, TraceInfo> getSimilarityMap(ITrace<T> failingTrace);
 
+    /**
+     * Returns the similarities between all failing traces and all traces of this spectra.
+     * The matrix is computed once and cached until the spectra is modified.
+     *
+     * @return the similarity matrix
+     */
+    public SimilarityMatrix<T> getSimilarityMatrix();
+
     public ILocalizerCache<T> getLocalizer();
 
     /**
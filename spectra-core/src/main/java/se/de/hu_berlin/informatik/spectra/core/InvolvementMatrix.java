@@ -0,0 +1,269 @@
+package se.de.hu_berlin.informatik.spectra.core;
+
+import java.util.Arrays;
+
+/**
+ * Stores the involvement of nodes in traces as a dense bit matrix.
+ * <p>
+ * The matrix is stored column-oriented, i.e., there is one bit set per node
+ * (indexed by the node's index) that holds a bit for each trace (indexed by
+ * a row index that is assigned by {@link #addRow(boolean)}). Additionally, a
+ * row-oriented copy is maintained, such that operations on single traces
+ * (e.g., iterating over all involved nodes) do not have to touch all columns.
+ * Columns and rows that do not contain any set bits are not allocated at all.
+ * <p>
+ * Additionally, the failing rows are stored in a separate bit mask, which allows
+ * to compute the number of failing/successful traces that a node was involved in
+ * with a couple of bit counting operations.
+ * <p>
+ * Modifications are synchronized; read operations are not and should not be
+ * performed concurrently to modifications.
+ *
+ * @author Simon
+ */
+public class InvolvementMatrix {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * node index -&gt; bits for all rows (traces)
+     */
+    private long[][] columns = new long[16][];
+    /**
+     * row (trace) -&gt; bits for all columns (nodes)
+     */
+    private long[][] rows = new long[16][];
+    /**
+     * bit mask that marks all failing rows
+     */
+    private long[] failingRows = EMPTY;
+
+    private int rowCount = 0;
+    private int failingRowCount = 0;
+
+    /**
+     * Adds a new (empty) row to the matrix.
+     *
+     * @param successful whether the row represents a successful trace
+     * @return the index of the new row
+     */
+    public synchronized int addRow(boolean successful) {
+        int row = rowCount++;
+        if (row >= rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(rows.length * 2, row + 1));
+        }
+        if (!successful) {
+            failingRows = setBit(failingRows, row);
+            ++failingRowCount;
+        }
+        return row;
+    }
+
+    /**
+     * @return the number of rows (traces)
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of failing rows (traces)
+     */
+    public int getFailingRowCount() {
+        return failingRowCount;
+    }
+
+    /**
+     * @param row a row index
+     * @return whether the row belongs to a failing trace
+     */
+    public boolean isFailingRow(int row) {
+        return isSet(failingRows, row);
+    }
+
+    /**
+     * Checks whether the node with the given index is involved in the given row.
+     *
+     * @param row    the row index
+     * @param column the node index
+     * @return true if the node is involved in the row, false otherwise
+     */
+    public boolean isInvolved(int row, int column) {
+        if (column < 0 || column >= columns.length) {
+            return false;
+        }
+        return isSet(columns[column], row);
+    }
+
+    /**
+     * Sets the involvement of the node with the given index in the given row.
+     *
+     * @param row      the row index
+     * @param column   the node index
+     * @param involved whether the node is involved
+     * @return true if the stored involvement changed, false otherwise
+     */
+    public synchronized boolean setInvolvement(int row, int column, boolean involved) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row index out of bounds: " + row);
+        }
+        if (column < 0) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: " + column);
+        }
+        if (involved) {
+            if (column >= columns.length) {
+                columns = Arrays.copyOf(columns, Math.max(columns.length * 2, column + 1));
+            }
+            if (isSet(columns[column], row)) {
+                return false;
+            }
+            columns[column] = setBit(columns[column], row);
+            rows[row] = setBit(rows[row], column);
+            return true;
+        } else {
+            if (!isInvolved(row, column)) {
+                return false;
+            }
+            clearBit(columns[column], row);
+            clearBit(rows[row], column);
+            return true;
+        }
+    }
+
+    /**
+     * Removes all involvement information of the node with the given index.
+     *
+     * @param column the node index
+     */
+    public synchronized void clearColumn(int column) {
+        if (column < 0 || column >= columns.length || columns[column] == null) {
+            return;
+        }
+        int row = -1;
+        while ((row = nextSetBit(columns[column], row + 1)) >= 0) {
+            clearBit(rows[row], column);
+        }
+        columns[column] = null;
+    }
+
+    /**
+     * @param row the row index
+     * @return the number of nodes that are involved in the given row
+     */
+    public int getInvolvedCount(int row) {
+        return row < 0 || row >= rows.length ? 0 : cardinality(rows[row]);
+    }
+
+    /**
+     * Returns the index of the first node that is involved in the given row
+     * and has an index greater or equal to the given index.
+     *
+     * @param row       the row index
+     * @param fromIndex the node index to start from (inclusive)
+     * @return the next node index or -1 if no such node exists
+     */
+    public int nextInvolvedColumn(int row, int fromIndex) {
+        return row < 0 || row >= rows.length ? -1 : nextSetBit(rows[row], fromIndex);
+    }
+
+    /**
+     * Returns the number of rows that the node with the given index is involved in.
+     *
+     * @param column  the node index
+     * @param failing whether to count failing (true) or successful (false) rows
+     * @return the number of failing or successful rows that the node is involved in
+     */
+    public int getInvolvedRowCount(int column, boolean failing) {
+        if (column < 0 || column >= columns.length || columns[column] == null) {
+            return 0;
+        }
+        long[] bits = columns[column];
+        int failingCount = 0;
+        for (int i = Math.min(bits.length, failingRows.length) - 1; i >= 0; --i) {
+            failingCount += Long.bitCount(bits[i] & failingRows[i]);
+        }
+        return failing ? failingCount : cardinality(bits) - failingCount;
+    }
+
+    /**
+     * Returns the number of nodes that are involved in both given rows.
+     *
+     * @param row1 a row index
+     * @param row2 another row index
+     * @return the number of nodes that are involved in both rows
+     */
+    public int getCommonInvolvedCount(int row1, int row2) {
+        if (row1 < 0 || row1 >= rows.length || row2 < 0 || row2 >= rows.length) {
+            return 0;
+        }
+        long[] bits1 = rows[row1];
+        long[] bits2 = rows[row2];
+        if (bits1 == null || bits2 == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = Math.min(bits1.length, bits2.length) - 1; i >= 0; --i) {
+            count += Long.bitCount(bits1[i] & bits2[i]);
+        }
+        return count;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        if (bits == null || index < 0) {
+            return false;
+        }
+        int wordIndex = index >> ADDRESS_BITS_PER_WORD;
+        return wordIndex < bits.length && (bits[wordIndex] & (1L << index)) != 0;
+    }
+
+    private static long[] setBit(long[] bits, int index) {
+        int wordIndex = index >> ADDRESS_BITS_PER_WORD;
+        if (bits == null) {
+            bits = new long[wordIndex + 1];
+        } else if (wordIndex >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(2 * bits.length, wordIndex + 1));
+        }
+        bits[wordIndex] |= (1L << index);
+        return bits;
+    }
+
+    private static void clearBit(long[] bits, int index) {
+        int wordIndex = index >> ADDRESS_BITS_PER_WORD;
+        if (bits != null && wordIndex < bits.length) {
+            bits[wordIndex] &= ~(1L << index);
+        }
+    }
+
+    private static int cardinality(long[] bits) {
+        if (bits == null) {
+            return 0;
+        }
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static int nextSetBit(long[] bits, int fromIndex) {
+        if (bits == null || fromIndex < 0) {
+            return -1;
+        }
+        int wordIndex = fromIndex >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= bits.length) {
+            return -1;
+        }
+        long word = bits[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == bits.length) {
+                return -1;
+            }
+            word = bits[wordIndex];
+        }
+    }
+
+}
@@ -6,9 +6,9 @@
 
 package se.de.hu_berlin.informatik.spectra.core;
 
+import se.de.hu_berlin.informatik.spectra.core.hit.BitSetHitSpectra;
+
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Predicate;
 
 /**
@@ -22,28 +22,10 @@ public class LocalizerCache<T> implements ILocalizerCache<T> {
     private final ISpectra<T, ? extends ITrace<T>> spectra;
 
     /**
-     * Holds the number of traces that were available in the spectra when the
-     * cache was created
+     * Holds the computed EF, EP, NF and NP values for all nodes; null if the
+     * values have to be (re-)computed
      */
-    private int __cacheTraceCount = -1;
-
-    // TODO: arrays instead of maps
-    /**
-     * cache EF
-     */
-    private Map<Integer, Double> __cacheEF;
-    /**
-     * cache EP
-     */
-    private Map<Integer, Double> __cacheEP;
-    /**
-     * cache NF
-     */
-    private Map<Integer, Double> __cacheNF;
-    /**
-     * cache NP
-     */
-    private Map<Integer, Double> __cacheNP;
+    private volatile Counters __cache;
 
     /**
      * Constructs the localizer
@@ -99,76 +81,105 @@ public class LocalizerCache<T> implements ILocalizerCache<T> {
 
     @Override
     public double getNP(INode<T> node, ComputationStrategies strategy) {
-        if (this.cacheOutdated()) {
-            resetCache();
-        }
-        Double np = this.__cacheNP.get(node.getIndex());
-        if (np == null) {
-            np = computeValue(strategy, trace -> (trace.isSuccessful() && !trace.isInvolved(node)));
-            this.__cacheNP.put(node.getIndex(), np);
+        if (strategy == ComputationStrategies.STANDARD_SBFL) {
+            return getCounters().getNP(node.getIndex());
         }
-        return np;
+        return computeValue(strategy, trace -> (trace.isSuccessful() && !trace.isInvolved(node)));
     }
 
     @Override
     public double getNF(INode<T> node, ComputationStrategies strategy) {
-        if (this.cacheOutdated()) {
-            resetCache();
+        if (strategy == ComputationStrategies.STANDARD_SBFL) {
+            return getCounters().getNF(node.getIndex());
         }
-        Double nf = this.__cacheNF.get(node.getIndex());
-        if (nf == null) {
-            nf = computeValue(strategy, trace -> (!trace.isSuccessful() && !trace.isInvolved(node)));
-            this.__cacheNF.put(node.getIndex(), nf);
-        }
-        return nf;
+        return computeValue(strategy, trace -> (!trace.isSuccessful() && !trace.isInvolved(node)));
     }
 
     @Override
     public double getEP(INode<T> node, ComputationStrategies strategy) {
-        if (this.cacheOutdated()) {
-            resetCache();
-        }
-        Double ep = this.__cacheEP.get(node.getIndex());
-        if (ep == null) {
-            ep = computeValue(strategy, trace -> (trace.isSuccessful() && trace.isInvolved(node)));
-            this.__cacheEP.put(node.getIndex(), ep);
+        if (strategy == ComputationStrategies.STANDARD_SBFL) {
+            return getCounters().getEP(node.getIndex());
         }
-        return ep;
+        return computeValue(strategy, trace -> (trace.isSuccessful() && trace.isInvolved(node)));
     }
 
     @Override
     public double getEF(INode<T> node, ComputationStrategies strategy) {
-        if (this.cacheOutdated()) {
-            resetCache();
+        if (strategy == ComputationStrategies.STANDARD_SBFL) {
+            return getCounters().getEF(node.getIndex());
         }
-        Double ef = this.__cacheEF.get(node.getIndex());
-        if (ef == null) {
-            ef = computeValue(strategy, trace -> (!trace.isSuccessful() && trace.isInvolved(node)));
-            this.__cacheEF.put(node.getIndex(), ef);
+        return computeValue(strategy, trace -> (!trace.isSuccessful() && trace.isInvolved(node)));
+    }
+
+    /**
+     * Returns the cached counters, (re-)computing them for all nodes if the
+     * cache is outdated.
+     *
+     * @return the counters
+     */
+    private Counters getCounters() {
+        Counters counters = this.__cache;
+        if (counters == null || counters.traceCount != this.spectra.getTraces().size()) {
+            synchronized (this) {
+                counters = this.__cache;
+                if (counters == null || counters.traceCount != this.spectra.getTraces().size()) {
+                    counters = computeCounters();
+                    this.__cache = counters;
+                }
+            }
         }
-        return ef;
+        return counters;
     }
 
     /**
-     * Check if the cache is outdated
+     * Computes EF and EP for all nodes at once. For bit matrix based spectra,
+     * the values are obtained by counting the bits in each node's column. For
+     * all other spectra, all traces are iterated once and the counters of all
+     * involved nodes are incremented. NF and NP are then derived from the
+     * numbers of failing and successful traces.
      *
-     * @return true if the cache is outdated, false otherwise.
+     * @return the computed counters
      */
-    private boolean cacheOutdated() {
-        return this.__cacheTraceCount < 0 || this.__cacheTraceCount != this.spectra.getTraces().size();
+    private Counters computeCounters() {
+        int maxIndex = -1;
+        for (INode<T> node : this.spectra.getNodes()) {
+            maxIndex = Math.max(maxIndex, node.getIndex());
+        }
+        int[] ef = new int[maxIndex + 1];
+        int[] ep = new int[maxIndex + 1];
+        int traceCount = 0;
+        int failingCount = 0;
+
+        if (this.spectra instanceof BitSetHitSpectra) {
+            InvolvementMatrix matrix = ((BitSetHitSpectra<?>) this.spectra).getInvolvementMatrix();
+            traceCount = matrix.getRowCount();
+            failingCount = matrix.getFailingRowCount();
+            for (INode<T> node : this.spectra.getNodes()) {
+                ef[node.getIndex()] = matrix.getInvolvedRowCount(node.getIndex(), true);
+                ep[node.getIndex()] = matrix.getInvolvedRowCount(node.getIndex(), false);
+            }
+        } else {
+            for (final ITrace<T> trace : this.spectra.getTraces()) {
+                ++traceCount;
+                int[] counter = ep;
+                if (!trace.isSuccessful()) {
+                    ++failingCount;
+                    counter = ef;
+                }
+                for (int index : trace.getInvolvedNodes()) {
+                    if (index >= 0 && index <= maxIndex) {
+                        ++counter[index];
+                    }
+                }
+            }
+        }
+
+        return new Counters(traceCount, failingCount, ef, ep);
     }
 
     @Override
     public void invalidateCachedValues() {
-        resetCache();
-    }
-
-    private void resetCache() {
-        this.__cacheEF = new HashMap<>();
-        this.__cacheEP = new HashMap<>();
-        this.__cacheNF = new HashMap<>();
-        this.__cacheNP = new HashMap<>();
-        this.__cacheTraceCount = this.spectra.getTraces().size();
+        this.__cache = null;
     }
 
     @Override
@@ -186,4 +197,40 @@ public class LocalizerCache<T> implements ILocalizerCache<T> {
 //		return localizer.localize(this.spectra, strategy);
 //	}
 
+    /**
+     * Holds the EF and EP values of all nodes, indexed by node index, as well as
+     * the number of (failing) traces that the values were computed from.
+     */
+    private static class Counters {
+
+        private final int traceCount;
+        private final int failingCount;
+        private final int[] ef;
+        private final int[] ep;
+
+        private Counters(int traceCount, int failingCount, int[] ef, int[] ep) {
+            this.traceCount = traceCount;
+            this.failingCount = failingCount;
+            this.ef = ef;
+            this.ep = ep;
+        }
+
+        // nodes that were added after computing the counters are not involved in any trace
+        private int getEF(int index) {
+            return index < ef.length ? ef[index] : 0;
+        }
+
+        private int getEP(int index) {
+            return index < ep.length ? ep[index] : 0;
+        }
+
+        private int getNF(int index) {
+            return failingCount - getEF(index);
+        }
+
+        private int getNP(int index) {
+            return traceCount - failingCount - getEP(index);
+        }
+    }
+
 }
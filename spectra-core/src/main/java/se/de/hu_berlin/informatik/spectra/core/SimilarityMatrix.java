@@ -0,0 +1,207 @@
+package se.de.hu_berlin.informatik.spectra.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Holds the similarities between all failing traces and all traces of a spectra
+ * in primitive arrays.
+ * <p>
+ * Traces are referred to by their position in {@link ISpectra#getTraces()} and failing
+ * traces by their position in the list of failing traces, see {@link #getFailingTrace(int)}.
+ * The number of nodes that are involved in both traces of a pair is computed with bit set
+ * intersections (popcounts) in parallel for all failing traces. Additionally, the matrix
+ * holds the (ascending) indices of all traces that involve a node for each node, such that
+ * localizers only have to iterate over the traces that actually involve a node.
+ *
+ * @param <T> type used to identify nodes in the system
+ * @author Simon
+ */
+public class SimilarityMatrix<T> {
+
+    private static final int[] NO_TRACES = new int[0];
+
+    private final List<ITrace<T>> traces;
+    private final Map<ITrace<T>, Integer> traceIndices;
+    private final int[] failingTraceIndices;
+    private final int[] traceSizes;
+    private final boolean[] successful;
+    private final int[][] sameHitCounts;
+    private final int[][] involvedTraces;
+
+    /**
+     * Computes the similarity matrix for the given spectra.
+     *
+     * @param spectra the spectra
+     */
+    public SimilarityMatrix(ISpectra<T, ? extends ITrace<T>> spectra) {
+        this.traces = new ArrayList<>(spectra.getTraces());
+        int traceCount = traces.size();
+        this.traceIndices = new HashMap<>(2 * traceCount);
+        this.traceSizes = new int[traceCount];
+        this.successful = new boolean[traceCount];
+
+        int maxNodeIndex = -1;
+        for (INode<T> node : spectra.getNodes()) {
+            maxNodeIndex = Math.max(maxNodeIndex, node.getIndex());
+        }
+
+        // collect the involvements of all traces as bit sets and count the involved traces per node
+        long[][] involvements = new long[traceCount][];
+        int[] involvedTracesCounts = new int[maxNodeIndex + 1];
+        int failingTraceCount = 0;
+        for (int traceIndex = 0; traceIndex < traceCount; ++traceIndex) {
+            ITrace<T> trace = traces.get(traceIndex);
+            traceIndices.put(trace, traceIndex);
+            successful[traceIndex] = trace.isSuccessful();
+            if (!successful[traceIndex]) {
+                ++failingTraceCount;
+            }
+            BitSet bits = new BitSet(maxNodeIndex + 1);
+            for (int nodeIndex : trace.getInvolvedNodes()) {
+                if (nodeIndex <= maxNodeIndex) {
+                    bits.set(nodeIndex);
+                }
+            }
+            traceSizes[traceIndex] = bits.cardinality();
+            involvements[traceIndex] = bits.toLongArray();
+            for (int nodeIndex = bits.nextSetBit(0); nodeIndex >= 0; nodeIndex = bits.nextSetBit(nodeIndex + 1)) {
+                ++involvedTracesCounts[nodeIndex];
+            }
+        }
+
+        this.failingTraceIndices = new int[failingTraceCount];
+        int failingCounter = -1;
+        for (int traceIndex = 0; traceIndex < traceCount; ++traceIndex) {
+            if (!successful[traceIndex]) {
+                failingTraceIndices[++failingCounter] = traceIndex;
+            }
+        }
+
+        // transpose the involvements into node columns
+        this.involvedTraces = new int[maxNodeIndex + 1][];
+        for (int nodeIndex = 0; nodeIndex <= maxNodeIndex; ++nodeIndex) {
+            involvedTraces[nodeIndex] = involvedTracesCounts[nodeIndex] == 0
+                    ? NO_TRACES : new int[involvedTracesCounts[nodeIndex]];
+            involvedTracesCounts[nodeIndex] = 0;
+        }
+        for (int traceIndex = 0; traceIndex < traceCount; ++traceIndex) {
+            long[] words = involvements[traceIndex];
+            for (int word = 0; word < words.length; ++word) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int nodeIndex = word * 64 + Long.numberOfTrailingZeros(bits);
+                    involvedTraces[nodeIndex][involvedTracesCounts[nodeIndex]++] = traceIndex;
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        // compute the same hit counts in parallel; each failing trace gets its own row
+        this.sameHitCounts = new int[failingTraceCount][];
+        IntStream.range(0, failingTraceCount).parallel().forEach(failingIndex -> {
+            long[] failingWords = involvements[failingTraceIndices[failingIndex]];
+            int[] row = new int[traceCount];
+            for (int traceIndex = 0; traceIndex < traceCount; ++traceIndex) {
+                long[] words = involvements[traceIndex];
+                int length = Math.min(failingWords.length, words.length);
+                int count = 0;
+                for (int word = 0; word < length; ++word) {
+                    count += Long.bitCount(failingWords[word] & words[word]);
+                }
+                row[traceIndex] = count;
+            }
+            sameHitCounts[failingIndex] = row;
+        });
+    }
+
+    public int getTraceCount() {
+        return traceSizes.length;
+    }
+
+    public int getFailingTraceCount() {
+        return failingTraceIndices.length;
+    }
+
+    /**
+     * @param traceIndex the index of a trace
+     * @return the trace
+     */
+    public ITrace<T> getTrace(int traceIndex) {
+        return traces.get(traceIndex);
+    }
+
+    /**
+     * @param trace a trace of the spectra
+     * @return the index of the trace, or -1 if the trace is unknown
+     */
+    public int getTraceIndex(ITrace<T> trace) {
+        Integer index = traceIndices.get(trace);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param failingIndex the index of a failing trace
+     * @return the index of the failing trace among all traces
+     */
+    public int getFailingTrace(int failingIndex) {
+        return failingTraceIndices[failingIndex];
+    }
+
+    /**
+     * @param traceIndex the index of a trace
+     * @return the number of nodes that are involved in the trace
+     */
+    public int getTraceSize(int traceIndex) {
+        return traceSizes[traceIndex];
+    }
+
+    public boolean isSuccessful(int traceIndex) {
+        return successful[traceIndex];
+    }
+
+    /**
+     * @param failingIndex the index of a failing trace
+     * @param traceIndex   the index of a trace
+     * @return the number of nodes that are involved in both traces
+     */
+    public int getSameHitCount(int failingIndex, int traceIndex) {
+        return sameHitCounts[failingIndex][traceIndex];
+    }
+
+    /**
+     * @param failingIndex the index of a failing trace
+     * @param traceIndex   the index of a trace
+     * @return the number of nodes that are involved in exactly one of both traces
+     */
+    public int getDifferentHitCount(int failingIndex, int traceIndex) {
+        return traceSizes[failingTraceIndices[failingIndex]] + traceSizes[traceIndex]
+                - 2 * sameHitCounts[failingIndex][traceIndex];
+    }
+
+    /**
+     * @param nodeIndex the index of a node
+     * @return the indices of all traces that involve the node, in ascending order
+     */
+    public int[] getInvolvedTraces(int nodeIndex) {
+        if (nodeIndex < 0 || nodeIndex >= involvedTraces.length) {
+            return NO_TRACES;
+        }
+        return involvedTraces[nodeIndex];
+    }
+
+    /**
+     * @param nodeIndex  the index of a node
+     * @param traceIndex the index of a trace
+     * @return whether the trace involves the node
+     */
+    public boolean isInvolved(int nodeIndex, int traceIndex) {
+        return Arrays.binarySearch(getInvolvedTraces(nodeIndex), traceIndex) >= 0;
+    }
+
+}
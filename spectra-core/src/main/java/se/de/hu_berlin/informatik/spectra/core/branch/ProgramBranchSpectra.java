@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 
 public class ProgramBranchSpectra<T> extends HitSpectra<T> {
 
@@ -130,7 +131,7 @@ public class ProgramBranchSpectra<T> extends HitSpectra<T> {
     
 	public Iterator<SourceCodeBlock> getExecutionTraceIterator(ExecutionTrace executionTrace) {
 		return new Iterator<SourceCodeBlock>() {
-			Iterator<Integer> branchTraceIterator = executionTrace.mappedIterator(getIndexer());
+			PrimitiveIterator.OfInt branchTraceIterator = executionTrace.mappedIterator(getIndexer());
 			BranchIterator branchIterator;
 			
 			@Override
@@ -138,7 +139,7 @@ public class ProgramBranchSpectra<T> extends HitSpectra<T> {
 				while (branchIterator == null || !branchIterator.hasNext()) {
 					branchIterator = null;
 					while (branchTraceIterator.hasNext()) {
-						T identifier = getNode(branchTraceIterator.next()).getIdentifier();
+						T identifier = getNode(branchTraceIterator.nextInt()).getIdentifier();
 						if (identifier instanceof ProgramBranch) {
 							branchIterator = ((ProgramBranch) identifier).branchIterator();
 						} else {
@@ -166,7 +167,7 @@ public class ProgramBranchSpectra<T> extends HitSpectra<T> {
 	
 	public Iterator<SourceCodeBlock> getExecutionTraceReverseIterator(ExecutionTrace executionTrace) {
 		return new Iterator<SourceCodeBlock>() {
-			Iterator<Integer> branchTraceIterator = executionTrace.mappedReverseIterator(getIndexer());
+			PrimitiveIterator.OfInt branchTraceIterator = executionTrace.mappedReverseIterator(getIndexer());
 			BranchReverseIterator branchIterator;
 			
 			@Override
@@ -174,7 +175,7 @@ public class ProgramBranchSpectra<T> extends HitSpectra<T> {
 				while (branchIterator == null || !branchIterator.hasNext()) {
 					branchIterator = null;
 					while (branchTraceIterator.hasNext()) {
-						T identifier = getNode(branchTraceIterator.next()).getIdentifier();
+						T identifier = getNode(branchTraceIterator.nextInt()).getIdentifier();
 						if (identifier instanceof ProgramBranch) {
 							branchIterator = ((ProgramBranch) identifier).branchReverseIterator();
 						} else {
@@ -5,12 +5,15 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.C
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue.MyIterator;
 import se.de.hu_berlin.informatik.spectra.util.CachedIntArrayMap;
 import se.de.hu_berlin.informatik.spectra.util.CachedMap;
 import se.de.hu_berlin.informatik.spectra.util.SpectraFileUtils;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SubTracePool {
@@ -33,6 +36,11 @@ public class SubTracePool {
     public int addSubTraceSequence(SingleLinkedIntArrayQueue subTraceToCheck, ISpectra<SourceCodeBlock, ?> lineSpectra) {
         // get a representation id for the subtrace (unique for sub traces that start and end within the same method!)
         long subTraceId = CoberturaStatementEncoding.generateRepresentationForSubTrace(subTraceToCheck);
+        return addSubTraceSequence(subTraceId, subTraceToCheck, lineSpectra);
+    }
+
+    private synchronized int addSubTraceSequence(long subTraceId, SingleLinkedIntArrayQueue subTraceToCheck,
+                                                 ISpectra<SourceCodeBlock, ?> lineSpectra) {
         Integer id = idToSubtraceIdMap.get(subTraceId);
 
         if (id == null) {
@@ -61,17 +69,72 @@ public class SubTracePool {
     public int getID(SingleLinkedIntArrayQueue subTrace, ISpectra<SourceCodeBlock, ?> lineSpectra) {
         // get a representation id for the subtrace (unique for sub traces that start and end within the same method!)
         long subTraceId = CoberturaStatementEncoding.generateRepresentationForSubTrace(subTrace);
-        Integer id = idToSubtraceIdMap.get(subTraceId);
-        if (id == null) {
-            id = addSubTraceSequence(subTrace, lineSpectra);
+        return addSubTraceSequence(subTraceId, subTrace, lineSpectra);
+    }
+
+    /**
+     * Adds all sub traces of the given shard to the pool, in the order in which they were
+     * first added to the shard. Merging the shards of multiple traces in the order of the
+     * traces assigns the same IDs as adding the sub traces of the traces one after the other.
+     *
+     * @param shard       the shard to merge
+     * @param lineSpectra the spectra to get the node indices from
+     * @return an array that maps the local IDs of the shard to the IDs in this pool
+     */
+    public synchronized int[] merge(Shard shard, ISpectra<SourceCodeBlock, ?> lineSpectra) {
+        int[] idMap = new int[shard.subTraces.size() + 1];
+        for (int i = 0; i < shard.subTraces.size(); ++i) {
+            int[] statements = shard.subTraces.get(i);
+            SingleLinkedIntArrayQueue subTrace = new SingleLinkedIntArrayQueue(Math.max(1, statements.length));
+            for (int statement : statements) {
+                subTrace.addNoAutoBoxing(statement);
+            }
+            idMap[i + 1] = addSubTraceSequence(shard.representations.get(i), subTrace, lineSpectra);
         }
-        return id;
+        return idMap;
+    }
+
+    /**
+     * Collects the sub traces of a single execution trace with local IDs, such that traces
+     * can be processed concurrently without accessing the pool. Local IDs start with 1 and
+     * are assigned in the order in which the sub traces are first seen. The shard has to
+     * be merged into the pool with {@link SubTracePool#merge(Shard, ISpectra)} to obtain
+     * the actual IDs.
+     */
+    public static class Shard {
+
+        // maps encoded sub trace representations (long) to local integer IDs
+        private final Map<Long, Integer> representationToLocalIdMap = new HashMap<>();
+
+        // the first seen sub trace (statements) and its representation for each local ID - 1
+        private final List<int[]> subTraces = new ArrayList<>();
+        private final List<Long> representations = new ArrayList<>();
+
+        public int addSubTraceSequence(SingleLinkedIntArrayQueue subTraceToCheck) {
+            // get a representation id for the subtrace (unique for sub traces that start and end within the same method!)
+            long subTraceId = CoberturaStatementEncoding.generateRepresentationForSubTrace(subTraceToCheck);
+            Integer id = representationToLocalIdMap.get(subTraceId);
+            if (id == null) {
+                id = subTraces.size() + 1;
+                representationToLocalIdMap.put(subTraceId, id);
+
+                int[] subTrace = new int[subTraceToCheck.size()];
+                MyIterator iterator = subTraceToCheck.iterator2();
+                for (int j = 0; j < subTrace.length; ++j) {
+                    subTrace[j] = iterator.nextNoAutoBoxing();
+                }
+                subTraces.add(subTrace);
+                representations.add(subTraceId);
+            }
+            return id;
+        }
+
     }
 
 
     private int getNodeIndexForCounter(int encodedStatement, ISpectra<SourceCodeBlock, ?> lineSpectra) {
-        int classId = CoberturaStatementEncoding.getClassId(encodedStatement);
-        int counterId = CoberturaStatementEncoding.getCounterId(encodedStatement);
+        int classId = projectData.getClassIdOfStatement(encodedStatement);
+        int counterId = projectData.getCounterIdOfStatement(encodedStatement);
 
         //			 Log.out(true, this, "statement: " + Arrays.toString(statement));
         // TODO store the class names with '.' from the beginning, or use the '/' version?
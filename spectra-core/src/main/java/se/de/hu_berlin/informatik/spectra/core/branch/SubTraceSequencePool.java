@@ -2,13 +2,19 @@ package se.de.hu_berlin.informatik.spectra.core.branch;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.BufferedMap;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue.MyIterator;
 import se.de.hu_berlin.informatik.spectra.util.CachedIntArrayMap;
 import se.de.hu_berlin.informatik.spectra.util.CachedMap;
 import se.de.hu_berlin.informatik.spectra.util.SpectraFileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -35,7 +41,7 @@ public class SubTraceSequencePool {
     private AtomicInteger idGenerator = new AtomicInteger(1);
     int maxId = 0;
 
-    public int addSubTraceSequence(SingleLinkedIntArrayQueue subTraceSequenceToCheck) {
+    public synchronized int addSubTraceSequence(SingleLinkedIntArrayQueue subTraceSequenceToCheck) {
     	SimpleIntGSArrayTree existingSequences = subTraceStartToSequenceTreeMap.get(subTraceSequenceToCheck.element());
 
         if (existingSequences == null) {
@@ -53,6 +59,82 @@ public class SubTraceSequencePool {
         return index;
     }
 
+    /**
+     * Adds all sub trace sequences of the given shard to the pool, in the order in which
+     * they were first added to the shard. The sub trace IDs in the sequences are translated
+     * with the given map, which is obtained by merging the corresponding sub trace shard.
+     *
+     * @param shard         the shard to merge
+     * @param subTraceIdMap maps the local sub trace IDs of the shard to the actual IDs
+     * @return an array that maps the local sequence IDs of the shard to the IDs in this pool
+     */
+    public synchronized int[] merge(Shard shard, int[] subTraceIdMap) {
+        int[] idMap = new int[shard.sequences.size() + 1];
+        for (int i = 0; i < shard.sequences.size(); ++i) {
+            int[] localSequence = shard.sequences.get(i);
+            SingleLinkedIntArrayQueue sequence = new SingleLinkedIntArrayQueue(Math.max(1, localSequence.length));
+            for (int localSubTraceId : localSequence) {
+                sequence.addNoAutoBoxing(subTraceIdMap[localSubTraceId]);
+            }
+            idMap[i + 1] = addSubTraceSequence(sequence);
+        }
+        return idMap;
+    }
+
+    /**
+     * Collects the sub trace sequences of a single execution trace with local IDs, such
+     * that traces can be processed concurrently without accessing the pool. Local IDs start
+     * with 1 and are assigned in the order in which the sequences are first seen. The shard
+     * has to be merged into the pool with {@link SubTraceSequencePool#merge(Shard, int[])}
+     * to obtain the actual IDs.
+     */
+    public static class Shard {
+
+        // maps sequences of (local) sub trace IDs to local sequence IDs
+        private final Map<IntArrayKey, Integer> sequenceToLocalIdMap = new HashMap<>();
+
+        // the sequence for each local ID - 1
+        private final List<int[]> sequences = new ArrayList<>();
+
+        public int addSubTraceSequence(SingleLinkedIntArrayQueue subTraceSequenceToCheck) {
+            int[] sequence = new int[subTraceSequenceToCheck.size()];
+            MyIterator iterator = subTraceSequenceToCheck.iterator2();
+            for (int j = 0; j < sequence.length; ++j) {
+                sequence[j] = iterator.nextNoAutoBoxing();
+            }
+            IntArrayKey key = new IntArrayKey(sequence);
+            Integer id = sequenceToLocalIdMap.get(key);
+            if (id == null) {
+                id = sequences.size() + 1;
+                sequenceToLocalIdMap.put(key, id);
+                sequences.add(sequence);
+            }
+            return id;
+        }
+
+    }
+
+    private static final class IntArrayKey {
+
+        private final int[] array;
+        private final int hashCode;
+
+        private IntArrayKey(int[] array) {
+            this.array = array;
+            this.hashCode = Arrays.hashCode(array);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof IntArrayKey && Arrays.equals(array, ((IntArrayKey) obj).array);
+        }
+    }
+
     public CachedMap<int[]> getExistingSubTraceSequences() {
     	if (this.existingSubTraceSequences == null) {
     		this.existingSubTraceSequences = new CachedIntArrayMap(
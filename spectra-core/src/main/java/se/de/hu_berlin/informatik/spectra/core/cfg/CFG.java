@@ -21,6 +21,11 @@ public interface CFG<T> {
 	
 	public void mergeLinearSequeces();
 	
+	/**
+	 * @return a snapshot of the current structure of this CFG in compressed sparse row format
+	 */
+	public CompressedSparseGraph toCompressedSparseGraph();
+	
 	public void save(File outputFile);
 	
 }
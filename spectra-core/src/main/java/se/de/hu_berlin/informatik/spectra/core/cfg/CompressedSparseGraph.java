@@ -0,0 +1,154 @@
+package se.de.hu_berlin.informatik.spectra.core.cfg;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the structure of a {@link CFG} in compressed sparse row (CSR) format.
+ * The nodes are numbered by their position in the sorted array of node indices, and the
+ * predecessors and successors of all nodes are stored in two flat arrays each, such that
+ * graph algorithms can work on primitive arrays instead of maps.
+ *
+ * <p>
+ * The in-degree and out-degree of a node are the numbers of predecessors and successors
+ * that are stored in the node. Neighbors that are not part of the CFG (anymore) count
+ * towards the degrees but are not included in the neighbor arrays.
+ *
+ * @author Simon Heiden
+ */
+public class CompressedSparseGraph {
+
+	private final int[] nodeIndices;
+
+	private final int[] predecessorOffsets;
+	private final int[] predecessors;
+	private final int[] inDegrees;
+
+	private final int[] successorOffsets;
+	private final int[] successors;
+	private final int[] outDegrees;
+
+	public CompressedSparseGraph(Map<Integer, Node> nodes) {
+		int nodeCount = nodes.size();
+		this.nodeIndices = new int[nodeCount];
+		int i = 0;
+		for (Integer index : nodes.keySet()) {
+			nodeIndices[i++] = index;
+		}
+		Arrays.sort(nodeIndices);
+
+		this.predecessorOffsets = new int[nodeCount + 1];
+		this.successorOffsets = new int[nodeCount + 1];
+		this.inDegrees = new int[nodeCount];
+		this.outDegrees = new int[nodeCount];
+		for (i = 0; i < nodeCount; ++i) {
+			Node node = nodes.get(nodeIndices[i]);
+			inDegrees[i] = node.hasPredecessors() ? node.getPredecessorCount() : 0;
+			outDegrees[i] = node.hasSuccessors() ? node.getSuccessorCount() : 0;
+			predecessorOffsets[i + 1] = predecessorOffsets[i] + inDegrees[i];
+			successorOffsets[i + 1] = successorOffsets[i] + outDegrees[i];
+		}
+
+		int[] predecessors = new int[predecessorOffsets[nodeCount]];
+		int[] successors = new int[successorOffsets[nodeCount]];
+		int predecessorCount = 0;
+		int successorCount = 0;
+		for (i = 0; i < nodeCount; ++i) {
+			Node node = nodes.get(nodeIndices[i]);
+			predecessorOffsets[i] = predecessorCount;
+			predecessorCount = addPositions(node.getPredecessors(), predecessors, predecessorCount);
+			successorOffsets[i] = successorCount;
+			successorCount = addPositions(node.getSuccessors(), successors, successorCount);
+		}
+		predecessorOffsets[nodeCount] = predecessorCount;
+		successorOffsets[nodeCount] = successorCount;
+
+		// trim, in case that some neighbors were missing
+		this.predecessors = Arrays.copyOf(predecessors, predecessorCount);
+		this.successors = Arrays.copyOf(successors, successorCount);
+	}
+
+	private int addPositions(int[] neighborIndices, int[] target, int count) {
+		if (neighborIndices != null) {
+			for (int neighborIndex : neighborIndices) {
+				int position = getPosition(neighborIndex);
+				if (position >= 0) {
+					target[count++] = position;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeIndices.length;
+	}
+
+	/**
+	 * @param position
+	 * the position of a node
+	 * @return the index of the node at the given position
+	 */
+	public int getNodeIndex(int position) {
+		return nodeIndices[position];
+	}
+
+	/**
+	 * @param nodeIndex
+	 * the index of a node
+	 * @return the position of the node with the given index, or a negative value if there is no such node
+	 */
+	public int getPosition(int nodeIndex) {
+		return Arrays.binarySearch(nodeIndices, nodeIndex);
+	}
+
+	/**
+	 * The positions of the predecessors of the node at position {@code i} are stored in
+	 * {@link #getPredecessors()} from {@code offsets[i]} (inclusive) to {@code offsets[i+1]} (exclusive).
+	 * @return the predecessor offsets (do not modify)
+	 */
+	public int[] getPredecessorOffsets() {
+		return predecessorOffsets;
+	}
+
+	/**
+	 * @return the positions of the predecessors of all nodes (do not modify)
+	 */
+	public int[] getPredecessors() {
+		return predecessors;
+	}
+
+	/**
+	 * @return the number of predecessors of each node (do not modify)
+	 */
+	public int[] getInDegrees() {
+		return inDegrees;
+	}
+
+	/**
+	 * The positions of the successors of the node at position {@code i} are stored in
+	 * {@link #getSuccessors()} from {@code offsets[i]} (inclusive) to {@code offsets[i+1]} (exclusive).
+	 * @return the successor offsets (do not modify)
+	 */
+	public int[] getSuccessorOffsets() {
+		return successorOffsets;
+	}
+
+	/**
+	 * @return the positions of the successors of all nodes (do not modify)
+	 */
+	public int[] getSuccessors() {
+		return successors;
+	}
+
+	/**
+	 * @return the number of successors of each node (do not modify)
+	 */
+	public int[] getOutDegrees() {
+		return outDegrees;
+	}
+
+}
@@ -17,7 +17,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -25,8 +25,10 @@ import java.util.Set;
 import se.de.hu_berlin.informatik.spectra.core.ISpectra;
 import se.de.hu_berlin.informatik.spectra.core.ITrace;
 import se.de.hu_berlin.informatik.spectra.core.traces.ExecutionTrace;
+import se.de.hu_berlin.informatik.spectra.core.traces.SequenceIndexerCompressed;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.DataInput;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence.RuleSummarizer;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.DataOutput;
 
 public class DynamicCFG<T> implements CFG<T> {
@@ -66,30 +68,145 @@ public class DynamicCFG<T> implements CFG<T> {
 
 	@Override
 	public void addExecutionTrace(ExecutionTrace executionTrace) {
-		Iterator<Integer> nodeIdIterator = executionTrace.mappedIterator(spectra.getIndexer());
-		Node lastNode = null;
-		while (nodeIdIterator.hasNext()) {
-			int nodeIndex = nodeIdIterator.next();
-			Node node = getOrCreateNode(nodeIndex);
-			if (lastNode != null) {
-				lastNode.connectTo(node);
-			} else {
-				startNodes.add(nodeIndex);
-			}
-			lastNode = node;
+		addExecutionTrace(executionTrace, new HashMap<>(), new HashMap<>());
+	}
+
+	/**
+	 * Adds the edges of the given execution trace, based on the grammar of the trace. The edges of each
+	 * grammar rule and of each sub trace are only computed once and are then added with the number of
+	 * times that the rule or sub trace is expanded in the full trace.
+	 * 
+	 * @param executionTrace
+	 * the execution trace
+	 * @param terminalCache
+	 * cache for the edge summaries of sub traces
+	 * @param ruleCache
+	 * cache for the edge summaries of grammar rules
+	 */
+	private void addExecutionTrace(ExecutionTrace executionTrace, 
+			Map<Integer, EdgeSummary> terminalCache, Map<Object, EdgeSummary> ruleCache) {
+		EdgeSummary summary = executionTrace.summarize(new EdgeSummarizer(), terminalCache, ruleCache);
+		if (!summary.isEmpty()) {
+			startNodes.add(summary.first);
 		}
 	}
 
 	@Override
 	public void generateCompleteCFG() {
+		// sub trace summaries can be reused for all traces, 
+		// rule summaries only if all traces share the same grammar
+		Map<Integer, EdgeSummary> terminalCache = new HashMap<>();
+		boolean sharedGrammar = spectra.getIndexer().getExecutionTraceInputGrammar() != null;
+		Map<Object, EdgeSummary> ruleCache = new HashMap<>();
 		for (ITrace<T> trace : spectra.getTraces()) {
 			Collection<ExecutionTrace> executionTraces = trace.getExecutionTraces();
 			for (ExecutionTrace executionTrace : executionTraces) {
-				addExecutionTrace(executionTrace);
+				addExecutionTrace(executionTrace, terminalCache, sharedGrammar ? ruleCache : new HashMap<>());
 			}
 		}
 	}
 	
+	/**
+	 * Summary of the edges in a (non-empty) sequence of nodes: the first and the last node
+	 * and the edges that are not already contained in the summaries of sub-sequences.
+	 */
+	private static class EdgeSummary {
+		
+		private static final EdgeSummary EMPTY = new EdgeSummary();
+		
+		private int first = -1;
+		private int last = -1;
+		private int edgeCount = 0;
+		private int[] sources = new int[2];
+		private int[] targets = new int[2];
+		private long[] hits = new long[2];
+		
+		private boolean isEmpty() {
+			return first < 0;
+		}
+		
+		private void addEdge(int source, int target, long hitCount) {
+			if (edgeCount == sources.length) {
+				sources = Arrays.copyOf(sources, 2 * edgeCount);
+				targets = Arrays.copyOf(targets, 2 * edgeCount);
+				hits = Arrays.copyOf(hits, 2 * edgeCount);
+			}
+			sources[edgeCount] = source;
+			targets[edgeCount] = target;
+			hits[edgeCount] = hitCount;
+			++edgeCount;
+		}
+		
+		private void append(int node) {
+			if (isEmpty()) {
+				first = node;
+			} else {
+				addEdge(last, node, 1);
+			}
+			last = node;
+		}
+		
+	}
+	
+	private class EdgeSummarizer implements RuleSummarizer<EdgeSummary> {
+
+		@Override
+		public EdgeSummary summarizeTerminal(int value) {
+			// a terminal maps to a sequence of nodes (possibly via a sequence of sub traces)
+			EdgeSummary summary = new EdgeSummary();
+			SequenceIndexerCompressed indexer = spectra.getIndexer();
+			if (indexer.getSubTraceIdSequences() == null) {
+				for (int nodeIndex : indexer.getNodeIdSequence(value)) {
+					summary.append(nodeIndex);
+				}
+			} else {
+				for (int subTraceId : indexer.getSubTraceIdSequence(value)) {
+					for (int nodeIndex : indexer.getNodeIdSequence(subTraceId)) {
+						summary.append(nodeIndex);
+					}
+				}
+			}
+			return summary.isEmpty() ? EdgeSummary.EMPTY : summary;
+		}
+
+		@Override
+		public EdgeSummary summarizeRule(List<EdgeSummary> symbolSummaries, int[] counts) {
+			EdgeSummary summary = new EdgeSummary();
+			for (int i = 0; i < counts.length; ++i) {
+				EdgeSummary symbolSummary = symbolSummaries.get(i);
+				if (symbolSummary.isEmpty()) {
+					continue;
+				}
+				// edge between the previous symbol and this one
+				if (summary.isEmpty()) {
+					summary.first = symbolSummary.first;
+				} else {
+					summary.addEdge(summary.last, symbolSummary.first, 1);
+				}
+				// edges between repetitions of this symbol
+				if (counts[i] > 1) {
+					summary.addEdge(symbolSummary.last, symbolSummary.first, counts[i] - 1);
+				}
+				summary.last = symbolSummary.last;
+			}
+			return summary.isEmpty() ? EdgeSummary.EMPTY : summary;
+		}
+
+		@Override
+		public void consume(EdgeSummary summary, long expansions) {
+			if (summary.isEmpty() || expansions == 0) {
+				return;
+			}
+			// nodes without any edges have to be created explicitly
+			getOrCreateNode(summary.first);
+			for (int i = 0; i < summary.edgeCount; ++i) {
+				getOrCreateNode(summary.sources[i])
+				.connectTo(getOrCreateNode(summary.targets[i]), summary.hits[i] * expansions);
+			}
+		}
+		
+	}
+	
 	@Override
 	public void mergeLinearSequeces() {
 		SingleLinkedIntArrayQueue openNodes = new SingleLinkedIntArrayQueue(50);
@@ -177,6 +294,11 @@ public class DynamicCFG<T> implements CFG<T> {
 		}
 	}
 	
+	@Override
+	public CompressedSparseGraph toCompressedSparseGraph() {
+		return new CompressedSparseGraph(nodes);
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
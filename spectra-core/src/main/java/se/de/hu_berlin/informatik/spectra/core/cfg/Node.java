@@ -32,8 +32,12 @@ public class Node {
 	}
 	
 	public Node connectTo(Node successorNode) {
-		this.addToSuccNodes(successorNode);
-		successorNode.addToPrevNodes(this);
+		return connectTo(successorNode, 1);
+	}
+	
+	public Node connectTo(Node successorNode, long hits) {
+		this.addToSuccNodes(successorNode, hits);
+		successorNode.addToPrevNodes(this, hits);
 		return successorNode;
 	}
 
@@ -47,10 +51,10 @@ public class Node {
 		return -1;
 	}
 	
-	private void addToPrevNodes(Node node) {
+	private void addToPrevNodes(Node node, long hits) {
 		if (prevNodes == null) {
 			prevNodes = new int[] {node.getIndex()};
-			prevNodeHits = new long[] {1};
+			prevNodeHits = new long[] {hits};
 		} else {
 			int index = hasNode(prevNodes, node);
 			if (index < 0) {
@@ -62,18 +66,18 @@ public class Node {
 						
 				long[] newHits = new long[prevNodeHits.length + 1];
 				System.arraycopy(prevNodeHits, 0, newHits, 0, prevNodeHits.length);
-				newHits[prevNodeHits.length] = 1;
+				newHits[prevNodeHits.length] = hits;
 				prevNodeHits = newHits;
 			} else {
-				++prevNodeHits[index];
+				prevNodeHits[index] += hits;
 			}
 		}
 	}
 
-	private void addToSuccNodes(Node node) {
+	private void addToSuccNodes(Node node, long hits) {
 		if (succNodes == null) {
 			succNodes = new int[] {node.getIndex()};
-			succNodeHits = new long[] {1};
+			succNodeHits = new long[] {hits};
 		} else {
 			int index = hasNode(succNodes, node);
 			if (index < 0) {
@@ -85,10 +89,10 @@ public class Node {
 				
 				long[] newHits = new long[succNodeHits.length + 1];
 				System.arraycopy(succNodeHits, 0, newHits, 0, succNodeHits.length);
-				newHits[succNodeHits.length] = 1;
+				newHits[succNodeHits.length] = hits;
 				succNodeHits = newHits;
 			} else {
-				++succNodeHits[index];
+				succNodeHits[index] += hits;
 			}
 		}
 	}
@@ -61,6 +61,26 @@ public class ScoredDynamicCFG<T> implements CFG<T> {
 		cfg.mergeLinearSequeces();
 	}
 	
+	@Override
+	public CompressedSparseGraph toCompressedSparseGraph() {
+		return cfg.toCompressedSparseGraph();
+	}
+	
+	/**
+	 * @param graph
+	 * a snapshot of this CFG
+	 * @return the scores of the nodes, in the order of the nodes in the given graph;
+	 * nodes without a score get a score of 0
+	 */
+	public double[] getScores(CompressedSparseGraph graph) {
+		double[] result = new double[graph.getNodeCount()];
+		for (int i = 0; i < result.length; ++i) {
+			Double score = getScore(graph.getNodeIndex(i));
+			result[i] = score == null ? 0 : score;
+		}
+		return result;
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
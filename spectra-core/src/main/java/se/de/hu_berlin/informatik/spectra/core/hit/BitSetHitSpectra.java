@@ -0,0 +1,37 @@
+package se.de.hu_berlin.informatik.spectra.core.hit;
+
+import se.de.hu_berlin.informatik.spectra.core.InvolvementMatrix;
+
+import java.nio.file.Path;
+
+/**
+ * Hit spectra that stores the involvement of all nodes in all traces in a
+ * single, column-oriented {@link InvolvementMatrix} instead of storing a set
+ * of node indices for each trace.
+ * <p>
+ * Needs far less memory for large spectra and allows to count the failing and
+ * successful traces that a node is involved in with a few bit operations.
+ *
+ * @param <T> type used to identify nodes in the system.
+ */
+public class BitSetHitSpectra<T> extends HitSpectra<T> {
+
+    private final InvolvementMatrix matrix = new InvolvementMatrix();
+
+    public BitSetHitSpectra(Path spectraZipFile) {
+        super(spectraZipFile);
+    }
+
+    @Override
+    protected HitTrace<T> createNewTrace(String identifier, int traceIndex, boolean successful) {
+        return new BitSetHitTrace<>(this, matrix, matrix.addRow(successful), identifier, traceIndex, successful);
+    }
+
+    /**
+     * @return the involvement matrix that holds the involvements of all traces
+     */
+    public InvolvementMatrix getInvolvementMatrix() {
+        return matrix;
+    }
+
+}
@@ -0,0 +1,111 @@
+package se.de.hu_berlin.informatik.spectra.core.hit;
+
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.ISpectra;
+import se.de.hu_berlin.informatik.spectra.core.InvolvementMatrix;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Hit trace that stores the involvement of nodes in a row of an
+ * {@link InvolvementMatrix} that is shared by all traces of a
+ * {@link BitSetHitSpectra} object.
+ *
+ * @param <T> type used to identify nodes in the system.
+ */
+public class BitSetHitTrace<T> extends HitTrace<T> {
+
+    private final InvolvementMatrix matrix;
+    private final int row;
+
+    /**
+     * Create a trace for a spectra.
+     *
+     * @param spectra    the spectra that the trace belongs to
+     * @param matrix     the involvement matrix of the spectra
+     * @param row        the row of the involvement matrix that holds this trace's involvements
+     * @param identifier the identifier of the trace (usually the test case name)
+     * @param traceIndex the integer index of the trace
+     * @param successful true if the trace originates from a successful execution, false otherwise
+     */
+    protected BitSetHitTrace(final ISpectra<T, ?> spectra, final InvolvementMatrix matrix, final int row,
+                             final String identifier, final int traceIndex, final boolean successful) {
+        super(spectra, identifier, traceIndex, successful);
+        this.matrix = matrix;
+        this.row = row;
+    }
+
+    /**
+     * @return the row of the involvement matrix that holds this trace's involvements
+     */
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public void setInvolvement(final INode<T> node, final boolean involved) {
+        if (node == null) {
+            return;
+        }
+        if (matrix.setInvolvement(row, node.getIndex(), involved)) {
+            node.invalidateCachedValues();
+        }
+    }
+
+    @Override
+    public boolean isInvolved(final INode<T> node) {
+        return node != null && matrix.isInvolved(row, node.getIndex());
+    }
+
+    @Override
+    public boolean isInvolved(final int index) {
+        return matrix.isInvolved(row, index);
+    }
+
+    @Override
+    public int involvedNodesCount() {
+        return matrix.getInvolvedCount(row);
+    }
+
+    @Override
+    public Collection<Integer> getInvolvedNodes() {
+        return new AbstractCollection<Integer>() {
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int next = matrix.nextInvolvedColumn(row, 0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        int current = next;
+                        next = matrix.nextInvolvedColumn(row, current + 1);
+                        return current;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return matrix.getInvolvedCount(row);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && matrix.isInvolved(row, (Integer) o);
+            }
+        };
+    }
+
+}
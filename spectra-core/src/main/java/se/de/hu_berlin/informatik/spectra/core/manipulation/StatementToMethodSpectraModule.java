@@ -20,6 +20,7 @@ import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.IntConsumer;
 
 /**
  * Reads a Spectra object and combines sequences of nodes to larger blocks based
@@ -102,15 +103,19 @@ public class StatementToMethodSpectraModule extends AbstractProcessor<ISpectra<S
                 for (ExecutionTrace executiontrace : trace.getExecutionTraces()) {
 
                     OutputSequence outSeq = new OutputSequence(methodExecutionTraceGrammar);
-                    int lastNodeIndex = -1;
-                    for (Iterator<Integer> iterator = executiontrace.mappedIterator(input.getIndexer()); iterator.hasNext(); ) {
-                        int nodeIndex = lineToMethodMap.get(iterator.next());
-                        // add index to execution trace without repetitions
-                        if (nodeIndex != lastNodeIndex) {
-                            outSeq.append(nodeIndex);
-                            lastNodeIndex = nodeIndex;
+                    executiontrace.forEachMapped(input.getIndexer(), new IntConsumer() {
+                        int lastNodeIndex = -1;
+
+                        @Override
+                        public void accept(int lineIndex) {
+                            int nodeIndex = lineToMethodMap.get(lineIndex);
+                            // add index to execution trace without repetitions
+                            if (nodeIndex != lastNodeIndex) {
+                                outSeq.append(nodeIndex);
+                                lastNodeIndex = nodeIndex;
+                            }
                         }
-                    }
+                    });
 
                     try {
                         byte[] byteArray = SequiturUtils.convertToByteArray(outSeq, false);
@@ -2,14 +2,17 @@ package se.de.hu_berlin.informatik.spectra.core.traces;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.SequiturUtils;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence.RuleSummarizer;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence.TraceIterator;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * An execution trace consists structurally of a list of executed nodes (or references to node lists)
@@ -17,6 +20,9 @@ import java.util.Set;
  */
 public class ExecutionTrace {
 
+    // number of trace values that are read at once by the mapped iterator
+    private static final int TRACE_BUFFER_SIZE = 256;
+
     private InputSequence trace;
     private Set<Integer> terminals;
 
@@ -63,12 +69,61 @@ public class ExecutionTrace {
      * @return array that contains all executed node IDs
      */
     public int[] reconstructFullMappedTrace(SequenceIndexerCompressed indexer) {
-        Iterator<Integer> indexedFullTrace = mappedIterator(indexer);
-        List<Integer> fullTrace = new ArrayList<>();
-        while (indexedFullTrace.hasNext()) {
-            fullTrace.add(indexedFullTrace.next());
+        int[][] fullTrace = { new int[1024] };
+        int[] size = { 0 };
+        forEachMappedSequence(indexer, nodeIdSequence -> {
+            if (size[0] + nodeIdSequence.length > fullTrace[0].length) {
+                fullTrace[0] = Arrays.copyOf(fullTrace[0], Math.max(2 * fullTrace[0].length, size[0] + nodeIdSequence.length));
+            }
+            System.arraycopy(nodeIdSequence, 0, fullTrace[0], size[0], nodeIdSequence.length);
+            size[0] += nodeIdSequence.length;
+        });
+        return Arrays.copyOf(fullTrace[0], size[0]);
+    }
+
+    /**
+     * Passes all node IDs in the execution trace to the given consumer, in order. This is faster than
+     * using a {@link #mappedIterator(SequenceIndexerCompressed)}, since the grammar of the trace is walked
+     * directly and each node ID sequence is processed in one go.
+     *
+     * @param sequenceIndexer indexer that is used to connect the element IDs in the execution trace to the respective sub traces
+     *                        that contain node IDs
+     * @param consumer        consumer of the node IDs
+     */
+    public void forEachMapped(SequenceIndexerCompressed sequenceIndexer, IntConsumer consumer) {
+        forEachMappedSequence(sequenceIndexer, nodeIdSequence -> {
+            for (int nodeId : nodeIdSequence) {
+                consumer.accept(nodeId);
+            }
+        });
+    }
+
+    /**
+     * Passes all (non-empty) node ID sequences in the execution trace to the given consumer, in order.
+     * The given arrays may be shared with the indexer and must not be modified.
+     *
+     * @param sequenceIndexer indexer that is used to connect the element IDs in the execution trace to the respective sub traces
+     *                        that contain node IDs
+     * @param consumer        consumer of the node ID sequences
+     */
+    public void forEachMappedSequence(SequenceIndexerCompressed sequenceIndexer, Consumer<int[]> consumer) {
+        if (sequenceIndexer.getSubTraceIdSequences() == null) {
+            getTrace().forEach(subTraceId -> {
+                int[] nodeIdSequence = sequenceIndexer.getNodeIdSequence(subTraceId);
+                if (nodeIdSequence.length > 0) {
+                    consumer.accept(nodeIdSequence);
+                }
+            });
+        } else {
+            getTrace().forEach(subTraceSequenceId -> {
+                for (int subTraceId : sequenceIndexer.getSubTraceIdSequence(subTraceSequenceId)) {
+                    int[] nodeIdSequence = sequenceIndexer.getNodeIdSequence(subTraceId);
+                    if (nodeIdSequence.length > 0) {
+                        consumer.accept(nodeIdSequence);
+                    }
+                }
+            });
         }
-        return fullTrace.stream().mapToInt(i -> i).toArray();
     }
 
     /**
@@ -76,12 +131,16 @@ public class ExecutionTrace {
      *
      * @param sequenceIndexer indexer that is used to connect the element IDs in the execution trace to the respective sub traces
      *                        that contain node IDs
-     * @return iterator
+     * @return iterator over primitive node IDs
      */
-    public Iterator<Integer> mappedIterator(SequenceIndexerCompressed sequenceIndexer) {
-        return new Iterator<Integer>() {
+    public PrimitiveIterator.OfInt mappedIterator(SequenceIndexerCompressed sequenceIndexer) {
+        return new PrimitiveIterator.OfInt() {
 
             final TraceIterator iterator = ExecutionTrace.this.iterator();
+            // values of the trace are read in bulk
+            final int[] traceBuffer = new int[TRACE_BUFFER_SIZE];
+            int traceBufferSize = 0;
+            int traceBufferIndex = 0;
             int[] currentSubTraceIdSequence;
             int subTraceSequenceIndex = 0; // outer index
             int[] currentNodeIdSequence;
@@ -102,8 +161,8 @@ public class ExecutionTrace {
                     // we're at the end of the current sub trace! (or there is none)
                     currentNodeIdSequence = null;
                     // get the next valid sub trace
-                    while (iterator.hasNext()) {
-                        currentNodeIdSequence = sequenceIndexer.getNodeIdSequence(iterator.next());
+                    while (hasNextTraceValue()) {
+                        currentNodeIdSequence = sequenceIndexer.getNodeIdSequence(traceBuffer[traceBufferIndex++]);
                         if (currentNodeIdSequence.length > 0) {
                             // found a "good" sequence
                             subTraceIndex = 0;
@@ -124,8 +183,8 @@ public class ExecutionTrace {
                         // we're at the end of the current sub trace sequence! (or there is none)
                         currentSubTraceIdSequence = null;
                         // get the next valid sub trace sequence
-                        while (iterator.hasNext()) {
-                            currentSubTraceIdSequence = sequenceIndexer.getSubTraceIdSequence(iterator.next());
+                        while (hasNextTraceValue()) {
+                            currentSubTraceIdSequence = sequenceIndexer.getSubTraceIdSequence(traceBuffer[traceBufferIndex++]);
                             if (currentSubTraceIdSequence.length > 0) {
 //                            	System.out.println("seq start");
                                 // found a "good" sequence
@@ -161,8 +220,16 @@ public class ExecutionTrace {
                 return currentNodeIdSequence != null;
             }
 
+            private boolean hasNextTraceValue() {
+                if (traceBufferIndex == traceBufferSize) {
+                    traceBufferSize = iterator.next(traceBuffer, 0, traceBuffer.length);
+                    traceBufferIndex = 0;
+                }
+                return traceBufferIndex < traceBufferSize;
+            }
+
             @Override
-            public Integer next() {
+            public int nextInt() {
                 return currentNodeIdSequence[subTraceIndex++];
             }
         };
@@ -173,10 +240,10 @@ public class ExecutionTrace {
      *
      * @param sequenceIndexer indexer that is used to connect the element IDs in the execution trace to the respective sub traces
      *                        that contain node IDs
-     * @return iterator
+     * @return iterator over primitive node IDs
      */
-    public Iterator<Integer> mappedReverseIterator(SequenceIndexerCompressed sequenceIndexer) {
-        return new Iterator<Integer>() {
+    public PrimitiveIterator.OfInt mappedReverseIterator(SequenceIndexerCompressed sequenceIndexer) {
+        return new PrimitiveIterator.OfInt() {
 
             final TraceIterator iterator = ExecutionTrace.this.reverseIterator();
             int[] currentSubTraceIdSequence;
@@ -257,12 +324,27 @@ public class ExecutionTrace {
             }
 
             @Override
-            public Integer next() {
+            public int nextInt() {
                 return currentNodeIdSequence[subTraceIndex--];
             }
         };
     }
 
+    /**
+     * Summarizes the grammar of the execution trace, processing each grammar rule only once.
+     *
+     * @param summarizer    creates and consumes the summaries
+     * @param terminalCache cache for summaries of terminal values (i.e., sub trace IDs)
+     * @param ruleCache     cache for summaries of rules; may only be reused for traces that share
+     *                      the same grammar, i.e., if the indexer provides a shared grammar
+     * @param <S>           the type of the summaries
+     * @return the summary of the whole trace
+     * @see InputSequence#summarize(RuleSummarizer, Map, Map)
+     */
+    public <S> S summarize(RuleSummarizer<S> summarizer, Map<Integer, S> terminalCache, Map<Object, S> ruleCache) {
+        return getTrace().summarize(summarizer, terminalCache, ruleCache);
+    }
+
     public TraceIterator iterator() {
         return getTrace().iterator();
     }
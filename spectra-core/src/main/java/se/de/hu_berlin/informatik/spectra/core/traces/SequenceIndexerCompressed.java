@@ -4,7 +4,7 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure
 import se.de.hu_berlin.informatik.spectra.util.CachedMap;
 
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.PrimitiveIterator;
 
 public interface SequenceIndexerCompressed {
 
@@ -22,10 +22,17 @@ public interface SequenceIndexerCompressed {
 
     SharedInputGrammar getExecutionTraceInputGrammar();
 
-    public Iterator<Integer> getNodeIdSequenceIterator(int subTraceId);
+    public PrimitiveIterator.OfInt getNodeIdSequenceIterator(int subTraceId);
 
-    public Iterator<Integer> getSubTraceIdSequenceIterator(int subTraceId);
+    public PrimitiveIterator.OfInt getSubTraceIdSequenceIterator(int subTraceId);
 
     byte[] getGrammarByteArray();
 
+    /**
+     * Releases resources that are held for fast lookups, e.g., memory mapped files.
+     * The indexer may still be used afterwards, and the resources are allocated again
+     * when necessary.
+     */
+    public void close();
+
 }
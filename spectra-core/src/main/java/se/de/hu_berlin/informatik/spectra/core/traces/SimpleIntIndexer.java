@@ -67,8 +67,8 @@ public class SimpleIntIndexer implements SequenceIndexer {
 
             while (sequenceIterator.hasNext()) {
                 int encodedStatement = sequenceIterator.next();
-                int classId = CoberturaStatementEncoding.getClassId(encodedStatement);
-                int counterId = CoberturaStatementEncoding.getCounterId(encodedStatement);
+                int classId = projectData.getClassIdOfStatement(encodedStatement);
+                int counterId = projectData.getCounterIdOfStatement(encodedStatement);
 
                 //			 Log.out(true, this, "statement: " + Arrays.toString(statement));
                 // TODO store the class names with '.' from the beginning, or use the '/' version?
@@ -6,6 +6,8 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.SharedInputGrammar;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.SharedOutputGrammar;
 import se.de.hu_berlin.informatik.spectra.util.CachedMap;
+import se.de.hu_berlin.informatik.spectra.util.MappedIntArrayMap;
+import se.de.hu_berlin.informatik.spectra.util.SpectraFileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import java.io.IOException;
 import java.util.*;
@@ -18,6 +20,10 @@ public class SimpleIntIndexerCompressed implements SequenceIndexerCompressed {
     // mapping: sub trace sequence ID -> sequence of sub trace IDs
     private CachedMap<int[]> subTraceIdSequences;
 
+    // read-only views for fast (concurrent) lookups; created on first access
+    private final SequenceView nodeIdSequenceView = new SequenceView();
+    private final SequenceView subTraceIdSequenceView = new SequenceView();
+
     private SharedInputGrammar executionTraceInputGrammar;
 
     private byte[] storedGrammar;
@@ -156,10 +162,66 @@ public class SimpleIntIndexerCompressed implements SequenceIndexerCompressed {
 
     @Override
     public int[] getNodeIdSequence(int subTraceIndex) {
-        if (subTraceIndex >= nodeIdSequences.size()) {
-            return null;
+        return getNodeIdSequenceView().get(subTraceIndex);
+    }
+
+    private MappedIntArrayMap getNodeIdSequenceView() {
+        return nodeIdSequenceView.get(nodeIdSequences);
+    }
+
+    private MappedIntArrayMap getSubTraceIdSequenceView() {
+        return subTraceIdSequenceView.get(subTraceIdSequences);
+    }
+
+    /**
+     * Holds a memory mapped view of a map of sequences. The view is recreated on access
+     * if the underlying map has been changed since the view's creation.
+     */
+    private static class SequenceView {
+
+        private volatile MappedIntArrayMap view;
+        private volatile int modificationCount;
+
+        private MappedIntArrayMap get(CachedMap<int[]> map) {
+            MappedIntArrayMap view = this.view;
+            if (view == null || modificationCount != map.getModificationCount()) {
+                synchronized (this) {
+                    view = this.view;
+                    int currentCount = map.getModificationCount();
+                    if (view == null || modificationCount != currentCount) {
+                        if (view != null) {
+                            view.close();
+                        }
+                        view = createView(map);
+                        modificationCount = currentCount;
+                        this.view = view;
+                    }
+                }
+            }
+            return view;
+        }
+
+        private static MappedIntArrayMap createView(CachedMap<int[]> map) {
+            try {
+                return new MappedIntArrayMap(map,
+                        SpectraFileUtils.getTemporaryOutputDir("sequenceIndexer", null).toPath());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create memory mapped view of sequences.", e);
+            }
+        }
+
+        private synchronized void close() {
+            if (view != null) {
+                view.close();
+                view = null;
+            }
         }
-        return nodeIdSequences.get(subTraceIndex);
+    }
+
+    @Override
+    public void close() {
+        nodeIdSequenceView.close();
+        subTraceIdSequenceView.close();
     }
 
     @Override
@@ -169,10 +231,7 @@ public class SimpleIntIndexerCompressed implements SequenceIndexerCompressed {
 
     @Override
     public int[] getSubTraceIdSequence(int subTraceSequenceIndex) {
-        if (subTraceSequenceIndex >= subTraceIdSequences.size()) {
-            return null;
-        }
-        return subTraceIdSequences.get(subTraceSequenceIndex);
+        return getSubTraceIdSequenceView().get(subTraceSequenceIndex);
     }
 
     @Override
@@ -250,12 +309,12 @@ public class SimpleIntIndexerCompressed implements SequenceIndexerCompressed {
     }
 
     @Override
-    public Iterator<Integer> getNodeIdSequenceIterator(int subTraceId) {
-        return Arrays.stream(nodeIdSequences.get(subTraceId)).iterator();
+    public PrimitiveIterator.OfInt getNodeIdSequenceIterator(int subTraceId) {
+        return Arrays.stream(getNodeIdSequence(subTraceId)).iterator();
     }
 
     @Override
-    public Iterator<Integer> getSubTraceIdSequenceIterator(int subTraceSequenceId) {
-        return Arrays.stream(subTraceIdSequences.get(subTraceSequenceId)).iterator();
+    public PrimitiveIterator.OfInt getSubTraceIdSequenceIterator(int subTraceSequenceId) {
+        return Arrays.stream(getSubTraceIdSequence(subTraceSequenceId)).iterator();
     }
 }
@@ -41,6 +41,13 @@ public abstract class AbstractSpectraProvider<T, K extends ITrace<T>, D> impleme
 
     protected abstract ICoverageDataLoader<T, K, D> getLoader();
 
+    /**
+     * @return whether all nodes contained in the data are added or only the covered nodes
+     */
+    protected boolean isFullSpectra() {
+        return fullSpectra;
+    }
+
     /**
      * Adds coverage data to the provider.
      *
@@ -17,6 +17,7 @@ import se.de.hu_berlin.informatik.spectra.provider.loader.ICoverageDataLoader;
 import se.de.hu_berlin.informatik.spectra.provider.loader.cobertura.xml.HierarchicalCoberturaXMLLoader;
 
 import java.io.File;
+import java.util.List;
 
 /**
  * Loads Cobertura reports to {@link HitSpectra} objects where each covered line
@@ -26,7 +27,7 @@ import java.io.File;
 public class HierarchicalCoberturaXMLProvider<K extends ITrace<SourceCodeBlock>>
         extends AbstractHierarchicalSpectraProvider<SourceCodeBlock, K, CoberturaCoverageWrapper> {
 
-    private final ICoverageDataLoader<SourceCodeBlock, K, CoberturaCoverageWrapper> loader;
+    private final HierarchicalCoberturaXMLLoader<SourceCodeBlock, K> loader;
 
     public HierarchicalCoberturaXMLProvider(ISpectra<SourceCodeBlock, K> lineSpectra, boolean fullSpectra) {
         super(lineSpectra, fullSpectra);
@@ -62,4 +63,16 @@ public class HierarchicalCoberturaXMLProvider<K extends ITrace<SourceCodeBlock>>
         return super.addData(new CoberturaCoverageWrapper(new File(xmlFilePath), identifier, successful));
     }
 
+    /**
+     * Adds several coverage xml files, parsing up to the given number of files in parallel.
+     * The traces are added in the order of the given list.
+     *
+     * @param data        the coverage xml files
+     * @param threadCount the number of threads to use for parsing
+     * @return true if all files were loaded successfully; false otherwise
+     */
+    public boolean addData(List<CoberturaCoverageWrapper> data, int threadCount) {
+        return loader.loadCoverageData(lineSpectra, data, isFullSpectra(), threadCount);
+    }
+
 }
@@ -6,10 +6,6 @@
 
 package se.de.hu_berlin.informatik.spectra.provider.loader.cobertura.xml;
 
-import org.jdom.Document;
-import org.jdom.Element;
-import org.jdom.JDOMException;
-import org.jdom.input.SAXBuilder;
 import se.de.hu_berlin.informatik.spectra.core.ISpectra;
 import se.de.hu_berlin.informatik.spectra.core.ITrace;
 import se.de.hu_berlin.informatik.spectra.core.Node.NodeType;
@@ -18,102 +14,405 @@ import se.de.hu_berlin.informatik.spectra.provider.loader.AbstractCoverageDataLo
 import se.de.hu_berlin.informatik.utils.files.FileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Loads Cobertura coverage xml files. The files are parsed with a streaming
+ * (StAX) parser into a compact record, such that no document tree of the
+ * (possibly large) files has to be built. The trace is only added to the
+ * spectra after the whole file has been parsed, so malformed files do not
+ * leave partially filled traces behind.
+ */
 public abstract class CoberturaXMLLoader<T, K extends ITrace<T>>
         extends AbstractCoverageDataLoader<T, K, CoberturaCoverageWrapper> {
 
+    // factories are configured once per thread, since they are not guaranteed to be thread-safe
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // ignore coverage dtd file (unnecessary http requests, possibly failing
+        // if server is down...)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    });
+
     int traceCount = 0;
 
     @Override
     public boolean loadSingleCoverageData(ISpectra<T, K> lineSpectra, final CoberturaCoverageWrapper traceFile,
                                           final boolean fullSpectra) {
-        // ignore coverage dtd file (unnecessary http requests, possibly failing
-        // if server is down...)
-        String fileWithoutDTD = null;
+        if (!traceFile.getXmlCoverageFile().canRead()) {
+            Log.err(this, "Could not read coverage xml file '%s'.", traceFile.getXmlCoverageFile());
+            return false;
+        }
+
+        final CoverageRecord record;
         try {
-            fileWithoutDTD = new String(Files.readAllBytes(traceFile.getXmlCoverageFile().toPath()));
+            record = parse(traceFile.getXmlCoverageFile());
+        } catch (XMLStreamException e) {
+            Log.err(this, e, "XMLStreamException in coverage xml file '%s'.", traceFile.getXmlCoverageFile());
+            return false;
         } catch (IOException e) {
-            Log.err(this, "Could not read coverage xml file '%s'.", traceFile.getXmlCoverageFile());
+            Log.err(this, e, "Could not parse coverage xml file '%s'.", traceFile.getXmlCoverageFile());
             return false;
         }
-        int pos = fileWithoutDTD.indexOf("<!DOCTYPE coverage");
-        if (pos != -1) {
-            int pos2 = fileWithoutDTD.indexOf('>', pos);
-            if (pos2 != -1) {
-                fileWithoutDTD = fileWithoutDTD.substring(0, pos) + fileWithoutDTD.substring(pos2 + 1);
+        addRecord(lineSpectra, traceFile, record, fullSpectra);
+        return true;
+    }
+
+    /**
+     * Loads several coverage xml files to the given spectra. Up to the given number of files
+     * are parsed in parallel, while the spectra are updated by a single thread. The traces
+     * are added in the order of the given list. Only a bounded number of parsed files is
+     * held in memory at any time.
+     *
+     * @param lineSpectra the line spectra to which to add the coverage data
+     * @param traceFiles  the coverage xml files
+     * @param fullSpectra whether to add all nodes from the coverage data or only the nodes that
+     *                    were actually covered
+     * @param threadCount the number of threads to use for parsing
+     * @return true if all files were loaded successfully; false otherwise
+     */
+    public boolean loadCoverageData(ISpectra<T, K> lineSpectra, final List<CoberturaCoverageWrapper> traceFiles,
+                                    final boolean fullSpectra, int threadCount) {
+        boolean success = true;
+        if (threadCount <= 1 || traceFiles.size() <= 1) {
+            for (CoberturaCoverageWrapper traceFile : traceFiles) {
+                success &= loadSingleCoverageData(lineSpectra, traceFile, fullSpectra);
             }
+            return success;
         }
 
-        final K trace;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            // files that are parsed ahead of the files that are added to the spectra
+            Deque<Future<CoverageRecord>> pending = new ArrayDeque<>();
+            int next = 0;
+            for (CoberturaCoverageWrapper traceFile : traceFiles) {
+                while (next < traceFiles.size() && pending.size() < 2 * threadCount) {
+                    final File xmlFile = traceFiles.get(next++).getXmlCoverageFile();
+                    pending.add(executor.submit(() -> parse(xmlFile)));
+                }
+
+                CoverageRecord record;
+                try {
+                    record = pending.poll().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    Log.err(this, e, "Interrupted while loading coverage xml files.");
+                    return false;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof XMLStreamException) {
+                        Log.err(this, e.getCause(), "XMLStreamException in coverage xml file '%s'.", traceFile.getXmlCoverageFile());
+                    } else {
+                        Log.err(this, e.getCause(), "Could not parse coverage xml file '%s'.", traceFile.getXmlCoverageFile());
+                    }
+                    success = false;
+                    continue;
+                }
+
+                addRecord(lineSpectra, traceFile, record, fullSpectra);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return success;
+    }
+
+    /**
+     * Adds a trace for the given file to the spectra and replays the parsed contents of the file.
+     */
+    private void addRecord(ISpectra<T, K> lineSpectra, final CoberturaCoverageWrapper traceFile,
+                           final CoverageRecord record, final boolean fullSpectra) {
+        K trace = addTrace(lineSpectra, traceFile);
+        record.replay(new SpectraUpdater(lineSpectra, trace, fullSpectra));
+    }
+
+    private K addTrace(ISpectra<T, K> lineSpectra, final CoberturaCoverageWrapper traceFile) {
         if (traceFile.getIdentifier() == null) {
-            trace = lineSpectra.addTrace(
+            return lineSpectra.addTrace(
                     FileUtils.getFileNameWithoutExtension(traceFile.getXmlCoverageFile().toString()),
                     ++traceCount,
                     traceFile.isSuccessful());
         } else {
-            trace = lineSpectra.addTrace(traceFile.getIdentifier(), ++traceCount, traceFile.isSuccessful());
+            return lineSpectra.addTrace(traceFile.getIdentifier(), ++traceCount, traceFile.isSuccessful());
         }
+    }
 
-        Document doc = null;
-        try {
-            doc = new SAXBuilder().build(new StringReader(fileWithoutDTD));
-        } catch (JDOMException e) {
-            Log.err(this, e, "JDOMException in coverage xml file '%s'.", traceFile.getXmlCoverageFile());
-            return false;
-        } catch (IOException e) {
-            Log.err(this, e, "Could not parse coverage xml file '%s'.", traceFile.getXmlCoverageFile());
-            return false;
+    /**
+     * Parses the whole given coverage xml file.
+     *
+     * @param xmlFile the coverage xml file
+     * @return the parsed contents of the file
+     * @throws IOException        if the file can not be read
+     * @throws XMLStreamException if the file is malformed
+     */
+    private static CoverageRecord parse(File xmlFile) throws IOException, XMLStreamException {
+        CoverageRecord record = new CoverageRecord();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(xmlFile.toPath()))) {
+            XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(in);
+            try {
+                // only lines of methods are considered (classes contain all lines again)
+                boolean inMethod = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "package":
+                                record.startPackage(reader.getAttributeValue(null, "name"));
+                                break;
+                            case "class":
+                                record.startClass(reader.getAttributeValue(null, "filename"));
+                                break;
+                            case "method":
+                                inMethod = true;
+                                record.startMethod(reader.getAttributeValue(null, "name")
+                                        + reader.getAttributeValue(null, "signature"));
+                                break;
+                            case "line":
+                                if (inMethod) {
+                                    try {
+                                        record.line(Integer.parseInt(reader.getAttributeValue(null, "number")),
+                                                Long.parseLong(reader.getAttributeValue(null, "hits")));
+                                    } catch (NumberFormatException e) {
+                                        throw new XMLStreamException("Invalid line attributes.", reader.getLocation(), e);
+                                    }
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "package":
+                                record.endPackage();
+                                break;
+                            case "class":
+                                record.endClass();
+                                break;
+                            case "method":
+                                inMethod = false;
+                                record.endMethod();
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
         }
+        return record;
+    }
+
+    /**
+     * Receives the contents of a coverage xml file in document order.
+     */
+    private interface CoverageHandler {
+
+        void startPackage(String packageName);
+
+        void startClass(String sourceFilePath);
+
+        void startMethod(String methodName);
+
+        void line(int lineNumber, long numberOfHits);
 
-        // loop over all packages of the trace file
-        for (final Object pckgObj : doc.getRootElement().getChild("packages").getChildren()) {
-            final Element pckg = (Element) pckgObj;
-            final String packageName = pckg.getAttributeValue("name");
+        void endMethod();
 
+        void endClass();
+
+        void endPackage();
+
+    }
+
+    /**
+     * Adds the contents of a coverage xml file to the spectra and the given trace.
+     */
+    private class SpectraUpdater implements CoverageHandler {
+
+        private final ISpectra<T, K> lineSpectra;
+        private final K trace;
+        private final boolean fullSpectra;
+
+        private String packageName;
+        private String sourceFilePath;
+        private String methodName;
+        private String methodIdentifier;
+
+        private SpectraUpdater(ISpectra<T, K> lineSpectra, K trace, boolean fullSpectra) {
+            this.lineSpectra = lineSpectra;
+            this.trace = trace;
+            this.fullSpectra = fullSpectra;
+        }
+
+        @Override
+        public void startPackage(String packageName) {
+            this.packageName = packageName;
             onNewPackage(packageName, trace);
+        }
+
+        @Override
+        public void startClass(String sourceFilePath) {
+            this.sourceFilePath = sourceFilePath;
+            onNewClass(packageName, sourceFilePath, trace);
+        }
 
-            // loop over all classes of the package
-            for (final Object clssObj : pckg.getChild("classes").getChildren()) {
-                final Element clss = (Element) clssObj;
-                final String sourceFilePath = clss.getAttributeValue("filename");
+        @Override
+        public void startMethod(String methodName) {
+            this.methodName = methodName;
+            this.methodIdentifier = String.format("%s:%s", sourceFilePath, methodName);
+            onNewMethod(packageName, sourceFilePath, methodIdentifier, trace);
+        }
 
-                onNewClass(packageName, sourceFilePath, trace);
+        @Override
+        public void line(int lineNumber, long numberOfHits) {
+            // set node involvement
+            final T lineIdentifier = getIdentifier(
+                    packageName, sourceFilePath, methodName, lineNumber, NodeType.NORMAL);
 
-                // loop over all methods of the class
-                for (final Object mthdObj : clss.getChild("methods").getChildren()) {
-                    final Element method = (Element) mthdObj;
-                    final String methodName = method.getAttributeValue("name") + method.getAttributeValue("signature");
-                    final String methodIdentifier = String.format("%s:%s", sourceFilePath, methodName);
+            onNewLine(
+                    packageName, sourceFilePath, methodIdentifier, lineIdentifier, lineSpectra, trace,
+                    fullSpectra, numberOfHits);
+        }
 
-                    onNewMethod(packageName, sourceFilePath, methodIdentifier, trace);
+        @Override
+        public void endMethod() {
+            onLeavingMethod(packageName, sourceFilePath, methodIdentifier, lineSpectra, trace);
+        }
 
-                    // loop over all lines of the method
-                    for (final Object lineObj : method.getChild("lines").getChildren()) {
-                        final Element line = (Element) lineObj;
+        @Override
+        public void endClass() {
+            onLeavingClass(packageName, sourceFilePath, lineSpectra, trace);
+        }
 
-                        // set node involvement
-                        final T lineIdentifier = getIdentifier(
-                                packageName, sourceFilePath, methodName,
-                                Integer.valueOf(line.getAttributeValue("number")), NodeType.NORMAL);
+        @Override
+        public void endPackage() {
+            onLeavingPackage(packageName, lineSpectra, trace);
+        }
 
-                        onNewLine(
-                                packageName, sourceFilePath, methodIdentifier, lineIdentifier, lineSpectra, trace,
-                                fullSpectra, Long.parseLong(line.getAttributeValue("hits")));
+    }
 
-                    }
+    /**
+     * Compact record of the contents of a coverage xml file that can be replayed later.
+     */
+    private static class CoverageRecord implements CoverageHandler {
 
-                    onLeavingMethod(packageName, sourceFilePath, methodIdentifier, lineSpectra, trace);
-                }
+        private static final int PACKAGE = 0;
+        private static final int CLASS = 1;
+        private static final int METHOD = 2;
+        // followed by the line number
+        private static final int LINE = 3;
+        private static final int LEAVING_METHOD = 4;
+        private static final int LEAVING_CLASS = 5;
+        private static final int LEAVING_PACKAGE = 6;
+
+        private int[] events = new int[64];
+        private int eventCount = 0;
+        private long[] hits = new long[32];
+        private int hitCount = 0;
+        private final List<String> names = new ArrayList<>();
 
-                onLeavingClass(packageName, sourceFilePath, lineSpectra, trace);
+        private void add(int event) {
+            if (eventCount == events.length) {
+                events = Arrays.copyOf(events, 2 * events.length);
             }
+            events[eventCount++] = event;
+        }
 
-            onLeavingPackage(packageName, lineSpectra, trace);
+        @Override
+        public void startPackage(String packageName) {
+            add(PACKAGE);
+            names.add(packageName);
         }
-        return true;
+
+        @Override
+        public void startClass(String sourceFilePath) {
+            add(CLASS);
+            names.add(sourceFilePath);
+        }
+
+        @Override
+        public void startMethod(String methodName) {
+            add(METHOD);
+            names.add(methodName);
+        }
+
+        @Override
+        public void line(int lineNumber, long numberOfHits) {
+            add(LINE);
+            add(lineNumber);
+            if (hitCount == hits.length) {
+                hits = Arrays.copyOf(hits, 2 * hits.length);
+            }
+            hits[hitCount++] = numberOfHits;
+        }
+
+        @Override
+        public void endMethod() {
+            add(LEAVING_METHOD);
+        }
+
+        @Override
+        public void endClass() {
+            add(LEAVING_CLASS);
+        }
+
+        @Override
+        public void endPackage() {
+            add(LEAVING_PACKAGE);
+        }
+
+        private void replay(CoverageHandler handler) {
+            int nameIndex = 0;
+            int hitIndex = 0;
+            for (int i = 0; i < eventCount; ++i) {
+                switch (events[i]) {
+                    case PACKAGE:
+                        handler.startPackage(names.get(nameIndex++));
+                        break;
+                    case CLASS:
+                        handler.startClass(names.get(nameIndex++));
+                        break;
+                    case METHOD:
+                        handler.startMethod(names.get(nameIndex++));
+                        break;
+                    case LINE:
+                        handler.line(events[++i], hits[hitIndex++]);
+                        break;
+                    case LEAVING_METHOD:
+                        handler.endMethod();
+                        break;
+                    case LEAVING_CLASS:
+                        handler.endClass();
+                        break;
+                    case LEAVING_PACKAGE:
+                        handler.endPackage();
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown event: " + events[i]);
+                }
+            }
+        }
+
     }
 
 }
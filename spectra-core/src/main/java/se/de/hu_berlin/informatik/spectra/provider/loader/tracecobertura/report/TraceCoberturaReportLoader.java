@@ -30,10 +30,14 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
 import java.io.*;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBlock>>
         extends AbstractCoverageDataLoader<SourceCodeBlock, K, TraceCoberturaReportWrapper> {
@@ -222,13 +226,16 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
 
             trace.sleep();
 
+            ExecutionTraceSpool spool = projectData.getExecutionTraceSpool();
+            boolean hasSpooledTraces = spool != null && !spool.isEmpty();
+
             if (!coveredLines) {
                 Log.warn(this, "Test '%s' covered no lines.", testId);
                 if (projectData.getExecutionTraces() == null) {
                     Log.err(this, "Execution trace is null for test '%s'.", testId);
                     return false;
                 }
-                if (!projectData.getExecutionTraces().isEmpty()) {
+                if (!projectData.getExecutionTraces().isEmpty() || hasSpooledTraces) {
                     Log.err(this, "Execution trace for test '%s' is NOT empty.", testId);
                     return false;
                 }
@@ -240,7 +247,7 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
                 return false;
             }
 
-            if (projectData.getExecutionTraces().isEmpty()) {
+            if (projectData.getExecutionTraces().isEmpty() && !hasSpooledTraces) {
                 Log.warn(this, "No execution trace for test '%s'.", testId);
             } else {
                 // TODO debug output
@@ -252,17 +259,8 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
 
 //            	SharedInputGrammar sharedInputGrammar = SequiturUtils.getInputGrammarFromByteArray(projectData.getExecutionTraces().getSecond());
                 // convert execution traces from statement sequences to sequences of sub traces
-            	List<Pair<Long, byte[]>> executionTracesWithSubTraces = new ArrayList<>(projectData.getExecutionTraces().size());
-                for (Iterator<Pair<Long, byte[]>> iterator = projectData.getExecutionTraces().iterator(); iterator.hasNext(); ) {
-                    Pair<Long, byte[]> entry = iterator.next();
-                    iterator.remove();
-
-                    byte[] mappedExecutionTrace = generateSubTraceExecutionTrace(entry.getSecond(), projectData, lineSpectra);
-
-//				System.out.println(String.format("grammar size: %,d", SpectraFileUtils.convertToByteArray(sharedExecutionTraceGrammar).length/4));
-
-                    executionTracesWithSubTraces.add(new Pair<>(entry.getFirst(), mappedExecutionTrace));
-                }
+            	List<Pair<Long, byte[]>> executionTracesWithSubTraces = generateSubTraceExecutionTraces(
+            			projectData, hasSpooledTraces ? spool : null, lineSpectra);
                 projectData.addExecutionTraces(executionTracesWithSubTraces);
 
 
@@ -315,7 +313,7 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
 //							}
 //							Log.out(true, this, "statement: " + Arrays.toString(statement));
                                 // TODO store the class names with '.' from the beginning, or use the '/' version?
-                                int classId = CoberturaStatementEncoding.getClassId(statement);
+                                int classId = projectData.getClassIdOfStatement(statement);
 								String classSourceFileName = idToClassNameMap[classId];
                                 if (classSourceFileName == null) {
                                     //						throw new IllegalStateException("No class name found for class ID: " + statement[0]);
@@ -332,7 +330,7 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
                                         Log.err(this, "No counter ID to line number map for class " + classSourceFileName);
                                         return false;
                                     }
-                                    int[] lineNumber = classData.getCounterId2LineNumbers()[CoberturaStatementEncoding.getCounterId(statement)];
+                                    int[] lineNumber = classData.getCounterId2LineNumbers()[projectData.getCounterIdOfStatement(statement)];
 //								if (lineNumber != 398 && lineNumber != 399) {
 //									continue;
 //								}
@@ -359,7 +357,7 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
                                         }
                                     }
                                     Log.out(true, this, classSourceFileName + ":" + classData.getMethodName(lineNumber[0]) +
-                                            ", counter ID " + CoberturaStatementEncoding.getCounterId(statement) +
+                                            ", counter ID " + projectData.getCounterIdOfStatement(statement) +
                                             ", line " + (lineNumber[0] < 0 ? "(not set)" : String.valueOf(lineNumber[0])) +
                                             addendum);
 
@@ -390,7 +388,7 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
                                             }
                                             Log.err(this, "Node not found in spectra: "
                                                     + classData.getSourceFileName() + ":" + lineNumber[0]
-                                                    + " from counter id " + CoberturaStatementEncoding.getCounterId(statement) + throwAddendum);
+                                                    + " from counter id " + projectData.getCounterIdOfStatement(statement) + throwAddendum);
                                             //									return false;
                                         }
 //								} else if (statement.length <= 2 || statement[2] != 0) {
@@ -402,7 +400,7 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
 //									+ " in class: " + classData.getName());
 //									return false;
                                     } else {
-                                        Log.err(this, "No line number found for counter ID: " + CoberturaStatementEncoding.getCounterId(statement)
+                                        Log.err(this, "No line number found for counter ID: " + projectData.getCounterIdOfStatement(statement)
                                                 + " in class: " + classData.getName());
                                         return false;
                                         //							// we have to add a dummy node here to not mess up the repetition markers
@@ -435,98 +433,231 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
         } catch (Throwable e) {
             Log.err(this, e, "Exception thrown for test '%s'.", testId);
             return false;
+        } finally {
+            ExecutionTraceSpool spool = projectData.getExecutionTraceSpool();
+            if (spool != null) {
+                // the spooled traces are either converted or not needed anymore
+                if (!spool.delete()) {
+                    Log.warn(this, "Could not delete trace spool file '%s'.", spool.getSpoolFile());
+                }
+                projectData.addExecutionTraceSpool(null);
+            }
         }
     }
 
-    private byte[] generateSubTraceExecutionTrace(byte[] trace, ProjectData projectData, 
-    		ISpectra<SourceCodeBlock, K> lineSpectra) throws ClassNotFoundException, IOException {
-        OutputSequence resultTrace = sharedExe ? new OutputSequence(sharedExecutionTraceGrammar) : new OutputSequence();
-        String[] idToClassNameMap = projectData.getIdToClassNameMap();
-        // iterate over trace and generate new trace based on seen sub traces
-        // iterate over executed statements in the trace
-
-        TraceIterator traceIterator = SequiturUtils.getInputSequenceFromByteArray(trace).iterator();
-
-        SingleLinkedIntArrayQueue currentSubTrace = new SingleLinkedIntArrayQueue(15);
-        int lastMethod = -1;
-        int lastClass = -1;
-        int lastNodeType = CoberturaStatementEncoding.NORMAL_ID;
-        long counter = 0;
-        while (traceIterator.hasNext()) {
+    /**
+     * Maps the execution traces of all threads to sequences of sub trace sequences.
+     * The traces are mapped concurrently on the common fork join pool, using local
+     * sub trace (sequence) IDs. The number of pending traces is bounded to keep the
+     * memory footprint low. The mapped traces are merged into the pools one after the
+     * other in the order of the given traces, such that the assigned IDs and the shared
+     * execution trace grammar are the same as when mapping the traces sequentially.
+     *
+     * @return the mapped execution traces
+     */
+    private List<Pair<Long, byte[]>> generateSubTraceExecutionTraces(ProjectData projectData,
+            ExecutionTraceSpool spool, ISpectra<SourceCodeBlock, K> lineSpectra) throws IOException {
+        List<Pair<Long, byte[]>> executionTracesWithSubTraces = new ArrayList<>(
+                projectData.getExecutionTraces().size() + (spool == null ? 0 : spool.size()));
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxPendingTraces = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<Pair<Long, SubTraceMapper>>> pendingTraces = new ArrayDeque<>(maxPendingTraces);
+
+        for (Iterator<Pair<Long, byte[]>> iterator = projectData.getExecutionTraces().iterator(); iterator.hasNext(); ) {
+            Pair<Long, byte[]> entry = iterator.next();
+            iterator.remove();
+
+            if (pendingTraces.size() >= maxPendingTraces) {
+                executionTracesWithSubTraces.add(mergeNextTrace(pendingTraces, lineSpectra));
+            }
+            pendingTraces.addLast(pool.submit(() -> new Pair<>(entry.getFirst(),
+                    new SubTraceMapper(projectData).mapExecutionTrace(
+                            SequiturUtils.getInputSequenceFromByteArray(entry.getSecond()).iterator()))));
+        }
+
+        if (spool != null) {
+            // traces that were spooled by the test runner JVM are read directly from the mapped spool file
+            for (int i = 0; i < spool.size(); ++i) {
+                if (pendingTraces.size() >= maxPendingTraces) {
+                    executionTracesWithSubTraces.add(mergeNextTrace(pendingTraces, lineSpectra));
+                }
+                final int index = i;
+                pendingTraces.addLast(pool.submit(() -> new Pair<>(spool.getThreadId(index),
+                        new SubTraceMapper(projectData).mapExecutionTrace(
+                                spool.readTrace(index).iterator()))));
+            }
+        }
+
+        while (!pendingTraces.isEmpty()) {
+            executionTracesWithSubTraces.add(mergeNextTrace(pendingTraces, lineSpectra));
+        }
+
+//		System.out.println(String.format("grammar size: %,d", SpectraFileUtils.convertToByteArray(sharedExecutionTraceGrammar).length/4));
+
+        return executionTracesWithSubTraces;
+    }
+
+    private Pair<Long, byte[]> mergeNextTrace(Deque<ForkJoinTask<Pair<Long, SubTraceMapper>>> pendingTraces,
+            ISpectra<SourceCodeBlock, K> lineSpectra) throws IOException {
+        Pair<Long, SubTraceMapper> mappedTrace = pendingTraces.removeFirst().join();
+        return new Pair<>(mappedTrace.first(), mappedTrace.second().mergeIntoPools(lineSpectra));
+    }
+
+    /**
+     * Converts a single execution trace (a sequence of statements) into a sequence of
+     * sub trace sequence IDs. Each mapper collects the sub traces and sub trace sequences
+     * of its trace in its own shards with local IDs, such that the traces of multiple
+     * threads can be mapped concurrently without accessing the pools. The mapped trace is
+     * stored with local IDs and its own grammar until the shards are merged into the pools.
+     */
+    private class SubTraceMapper {
+
+        private final ProjectData projectData;
+        private final SubTracePool.Shard subTraceShard = new SubTracePool.Shard();
+        private final SubTraceSequencePool.Shard subTraceSequenceShard = new SubTraceSequencePool.Shard();
+        // the mapped trace, containing local sub trace sequence IDs
+        private final OutputSequence localTrace = new OutputSequence();
+        private long subTraceCount = 0;
+
+        private SingleLinkedIntArrayQueue currentSubTraceSequence = null;
+
+        private SubTraceMapper(ProjectData projectData) {
+            this.projectData = projectData;
+        }
+
+        /**
+         * Merges the shards into the pools and generates the trace with the actual sub trace
+         * sequence IDs. Has to be called for all traces in the same order as when processing
+         * the traces sequentially to obtain the same IDs.
+         *
+         * @param lineSpectra the spectra to get the node indices from
+         * @return the mapped trace
+         * @throws IOException if encoding the trace fails
+         */
+        private byte[] mergeIntoPools(ISpectra<SourceCodeBlock, K> lineSpectra) throws IOException {
+            int[] subTraceIdMap = subTracePool.merge(subTraceShard, lineSpectra);
+            int[] sequenceIdMap = subTraceSequencePool.merge(subTraceSequenceShard, subTraceIdMap);
+
+            OutputSequence resultTrace = sharedExe ? new OutputSequence(sharedExecutionTraceGrammar) : new OutputSequence();
+            // copies the grammar rules of the local trace with the actual sequence IDs
+            resultTrace.appendMapped(localTrace, sequenceIdMap);
+
+            byte[] bytes = SequiturUtils.convertToByteArray(resultTrace, !sharedExe);
+
+            if (!sharedExe) {
+                System.out.println(String.format("%n#sub traces: %,d -> %,d (%.2f%%)",
+                        subTraceCount, bytes.length / 4, -100.00 + 100.0 * (double) (bytes.length / 4) / (double) subTraceCount));
+            }
+
+            return bytes;
+        }
+
+        private SubTraceMapper mapExecutionTrace(TraceIterator traceIterator) {
+            String[] idToClassNameMap = projectData.getIdToClassNameMap();
+            // iterate over trace and generate new trace based on seen sub traces
+            // iterate over executed statements in the trace
+
+            SingleLinkedIntArrayQueue currentSubTrace = new SingleLinkedIntArrayQueue(15);
+            int lastMethod = -1;
+            int lastClass = -1;
+            int lastNodeType = CoberturaStatementEncoding.NORMAL_ID;
+            long counter = 0;
+            while (traceIterator.hasNext()) {
 //			++counter;
 //			if (counter % 100000 == 0)
 //				System.out.print('.');
 //			if (counter % 10000000 == 0)
 //				System.out.println(String.format("%,d", counter));
 
-            int statement = traceIterator.next();
+                int statement = traceIterator.next();
 
-            // check if the current statement indicates the start of a new sub trace;
-            // this is currently done when entering a catch block or entering a method
-            if (statement == ExecutionTraceCollector.NEW_SUBTRACE_ID) {
-                // cut the trace **before** each catch block entry or new method start
-                if (!currentSubTrace.isEmpty()) {
-                    currentSubTrace = processLastSubTrace(resultTrace, currentSubTrace, lastNodeType, idToClassNameMap, lineSpectra);
+                // check if the current statement indicates the start of a new sub trace;
+                // this is currently done when entering a catch block or entering a method
+                if (statement == ExecutionTraceCollector.NEW_SUBTRACE_ID) {
+                    // cut the trace **before** each catch block entry or new method start
+                    if (!currentSubTrace.isEmpty()) {
+                        currentSubTrace = processLastSubTrace(currentSubTrace, lastNodeType, idToClassNameMap);
 
-                    if (++counter % SMALL_STEP == 0) {
-                        System.out.print('.');
-                        if (counter % LARGE_STEP == 0)
-                            System.out.println(String.format("%,d", counter));
+                        if (++counter % SMALL_STEP == 0) {
+                            System.out.print('.');
+                            if (counter % LARGE_STEP == 0)
+                                System.out.println(String.format("%,d", counter));
+                        }
                     }
-                }
 
-                while (statement == ExecutionTraceCollector.NEW_SUBTRACE_ID) {
-                    // skip the indicator
-                    if (traceIterator.hasNext()) {
-                        statement = traceIterator.next();
-                    } else {
-                        break;
+                    while (statement == ExecutionTraceCollector.NEW_SUBTRACE_ID) {
+                        // skip the indicator
+                        if (traceIterator.hasNext()) {
+                            statement = traceIterator.next();
+                        } else {
+                            break;
+                        }
                     }
-                }
 
-                if (statement == ExecutionTraceCollector.NEW_SUBTRACE_ID) {
-                    // we're at the end of the trace!
-                    break;
+                    if (statement == ExecutionTraceCollector.NEW_SUBTRACE_ID) {
+                        // we're at the end of the trace!
+                        break;
+                    }
                 }
-            }
 
 //			Log.out(true, this, "statement: " + Arrays.toString(statement));
-            // TODO store the class names with '.' from the beginning, or use the '/' version?
-            int classId = CoberturaStatementEncoding.getClassId(statement);
-            int counterId = CoberturaStatementEncoding.getCounterId(statement);
-
-            ClassData classData = projectData.getClassData(classId);
+                // TODO store the class names with '.' from the beginning, or use the '/' version?
+                int classId = projectData.getClassIdOfStatement(statement);
+                int counterId = projectData.getCounterIdOfStatement(statement);
 
-            if (classData != null) {
+                ClassData classData = projectData.getClassData(classId);
 
-                if (counterId == AbstractCodeProvider.FAKE_COUNTER_ID) {
-                    // this marks a fake jump! we should not be here...
-                    throw new IllegalStateException("Illegal counter ID 0 in class " + classId + ". (" + classData.getName() + ")");
-                }
-
-                int[] lineNumber = classData.getCounterId2LineNumbers()[counterId];
+                if (classData != null) {
 
-                // check if we switched to a different class than before
-                if (classId == lastClass) {
-                    // check if we switched to a different method than we were in before;
-                    // this should allow for the sub traces to be uniquely determined by first and last statement
-                    int currentMethod = lineNumber[2] < 0 ? lastMethod : lineNumber[2];
-                    if (currentMethod != lastMethod && !currentSubTrace.isEmpty()) {
-                        // cut the trace after each change in methods
-                        currentSubTrace = processLastSubTrace(resultTrace, currentSubTrace, lastNodeType, idToClassNameMap, lineSpectra);
+                    if (counterId == AbstractCodeProvider.FAKE_COUNTER_ID) {
+                        // this marks a fake jump! we should not be here...
+                        throw new IllegalStateException("Illegal counter ID 0 in class " + classId + ". (" + classData.getName() + ")");
+                    }
 
-                        if (++counter % SMALL_STEP == 0) {
-                            System.out.print('.');
-                            if (counter % LARGE_STEP == 0)
-                                System.out.println(String.format("%,d", counter));
+                    int[] lineNumber = classData.getCounterId2LineNumbers()[counterId];
+
+                    // check if we switched to a different class than before
+                    if (classId == lastClass) {
+                        // check if we switched to a different method than we were in before;
+                        // this should allow for the sub traces to be uniquely determined by first and last statement
+                        int currentMethod = lineNumber[2] < 0 ? lastMethod : lineNumber[2];
+                        if (currentMethod != lastMethod && !currentSubTrace.isEmpty()) {
+                            // cut the trace after each change in methods
+                            currentSubTrace = processLastSubTrace(currentSubTrace, lastNodeType, idToClassNameMap);
+
+                            if (++counter % SMALL_STEP == 0) {
+                                System.out.print('.');
+                                if (counter % LARGE_STEP == 0)
+                                    System.out.println(String.format("%,d", counter));
+                            }
                         }
+                        lastMethod = currentMethod;
+                    } else {
+                        // change in classes!
+                        if (!currentSubTrace.isEmpty()) {
+                            // cut the trace after each change in classes
+                            currentSubTrace = processLastSubTrace(currentSubTrace, lastNodeType, idToClassNameMap);
+
+                            if (++counter % SMALL_STEP == 0) {
+                                System.out.print('.');
+                                if (counter % LARGE_STEP == 0)
+                                    System.out.println(String.format("%,d", counter));
+                            }
+                        }
+                        lastMethod = lineNumber[2];
+                        lastClass = classId;
                     }
-                    lastMethod = currentMethod;
-                } else {
-                    // change in classes!
-                    if (!currentSubTrace.isEmpty()) {
-                        // cut the trace after each change in classes
-                        currentSubTrace = processLastSubTrace(resultTrace, currentSubTrace, lastNodeType, idToClassNameMap, lineSpectra);
+
+                    // add the current statement to the current sub trace
+                    currentSubTrace.addNoAutoBoxing(statement);
+
+
+                    lastNodeType = lineNumber[1];
+
+                    if (lastNodeType != CoberturaStatementEncoding.NORMAL_ID && !currentSubTrace.isEmpty()) {
+                        // cut the trace after each branching statement
+                        currentSubTrace = processLastSubTrace(currentSubTrace, lastNodeType, idToClassNameMap);
 
                         if (++counter % SMALL_STEP == 0) {
                             System.out.print('.');
@@ -534,99 +665,72 @@ public abstract class TraceCoberturaReportLoader<K extends ITrace<SourceCodeBloc
                                 System.out.println(String.format("%,d", counter));
                         }
                     }
-                    lastMethod = lineNumber[2];
-                    lastClass = classId;
-                }
-
-                // add the current statement to the current sub trace
-                currentSubTrace.addNoAutoBoxing(statement);
 
-
-                lastNodeType = lineNumber[1];
-
-                if (lastNodeType != CoberturaStatementEncoding.NORMAL_ID && !currentSubTrace.isEmpty()) {
-                    // cut the trace after each branching statement
-                    currentSubTrace = processLastSubTrace(resultTrace, currentSubTrace, lastNodeType, idToClassNameMap, lineSpectra);
-
-                    if (++counter % SMALL_STEP == 0) {
-                        System.out.print('.');
-                        if (counter % LARGE_STEP == 0)
-                            System.out.println(String.format("%,d", counter));
-                    }
+                } else {
+                    throw new IllegalStateException("Class data for class '" + classId + "' not found.");
                 }
+            }
 
-            } else {
-                throw new IllegalStateException("Class data for class '" + classId + "' not found.");
+            // process any remaining statements
+            if (!currentSubTrace.isEmpty()) {
+                currentSubTrace = processLastSubTrace(currentSubTrace, lastNodeType, idToClassNameMap);
+                currentSubTrace.clear();
             }
-        }
 
-        // process any remaining statements
-        if (!currentSubTrace.isEmpty()) {
-            currentSubTrace = processLastSubTrace(resultTrace, currentSubTrace, lastNodeType, idToClassNameMap, lineSpectra);
-            currentSubTrace.clear();
-        }
+            // process remaining sub trace sequence
+            if (currentSubTraceSequence != null) {
+                addCurrentSubTraceSequenceToTrace();
+            }
 
-        // process remaining sub trace sequence
-        if (currentSubTraceSequence != null) {
-            addCurrentSubTraceSequenceToTrace(resultTrace);
+            subTraceCount = counter;
+            return this;
         }
 
-        byte[] bytes = SequiturUtils.convertToByteArray(resultTrace, !sharedExe);
+        private SingleLinkedIntArrayQueue processLastSubTrace(SingleLinkedIntArrayQueue currentSubTrace,
+                int lastNodeType, String[] idToClassNameMap) {
+            Integer lastExecutedStatement = null;
+            // remember a directly preceding branch, if any
+            if (lastNodeType != CoberturaStatementEncoding.NORMAL_ID) {
+                // last processed statement was some sort of branch
+                lastExecutedStatement = currentSubTrace.peekLastNoCheck();
+            }
 
-        if (!sharedExe) {
-            System.out.println(String.format("%n#sub traces: %,d -> %,d (%.2f%%)",
-                    counter, bytes.length / 4, -100.00 + 100.0 * (double) (bytes.length / 4) / (double) counter));
-        }
+            // add current sub trace to the shard, if necessary;
+            // otherwise just gets the respective (local) sub trace id!
+            int id = subTraceShard.addSubTraceSequence(currentSubTrace);
+            // reuse the sub trace; the sub trace pool should keep no reference!
+            currentSubTrace.clear();
 
-        return bytes;
-    }
+            // we'll add the current sub trace id to the current sequence of sub traces;
+            // if there is none, we have to create a new one!
+            if (currentSubTraceSequence == null) {
+                currentSubTraceSequence = new SingleLinkedIntArrayQueue(30);
+            }
+            // add the sub trace id to sub trace sequence
+            currentSubTraceSequence.add(id);
 
-    SingleLinkedIntArrayQueue currentSubTraceSequence = null;
+            if (lastExecutedStatement != null) {
+                // add the last executed statement (some branch)
+                // to the new sub trace
+                currentSubTrace.add(lastExecutedStatement);
 
-    private SingleLinkedIntArrayQueue processLastSubTrace(
-            OutputSequence resultTrace, SingleLinkedIntArrayQueue currentSubTrace,
-            int lastNodeType, String[] idToClassNameMap, ISpectra<SourceCodeBlock, K> lineSpectra) {
-        Integer lastExecutedStatement = null;
-        // remember a directly preceding branch, if any
-        if (lastNodeType != CoberturaStatementEncoding.NORMAL_ID) {
-            // last processed statement was some sort of branch
-            lastExecutedStatement = currentSubTrace.peekLastNoCheck();
-        }
-
-        // add current sub trace to pool, if necessary;
-        // otherwise just gets the respective sub trace id!
-        int id = subTracePool.addSubTraceSequence(currentSubTrace, lineSpectra);
-        // reuse the sub trace; the sub trace pool should keep no reference!
-        currentSubTrace.clear();
+                // after a branch, add the current sequence ID to the execution trace!
+                addCurrentSubTraceSequenceToTrace();
+            }
 
-        // we'll add the current sub trace id to the current sequence of sub traces;
-        // if there is none, we have to create a new one!
-        if (currentSubTraceSequence == null) {
-            currentSubTraceSequence = new SingleLinkedIntArrayQueue(30);
+            // return sub trace for reuse (wouldn't be really necessary)
+            return currentSubTrace;
         }
-        // add the sub trace id to sub trace sequence
-        currentSubTraceSequence.add(id);
-
-        if (lastExecutedStatement != null) {
-            // add the last executed statement (some branch)
-            // to the new sub trace
-            currentSubTrace.add(lastExecutedStatement);
 
-            // after a branch, add the current sequence ID to the execution trace!
-            addCurrentSubTraceSequenceToTrace(resultTrace);
+        private void addCurrentSubTraceSequenceToTrace() {
+            // since the last statement was a branch, this ends the current sequence of sub traces, too
+            int sequenceId = subTraceSequenceShard.addSubTraceSequence(currentSubTraceSequence);
+            // add the (local) sequence ID to the execution trace!
+            localTrace.append(sequenceId);
+            // reset the current sequence
+            currentSubTraceSequence = null;
         }
 
-        // return sub trace for reuse (wouldn't be really necessary)
-        return currentSubTrace;
-    }
-
-    private void addCurrentSubTraceSequenceToTrace(OutputSequence resultTrace) {
-        // since the last statement was a branch, this ends the current sequence of sub traces, too
-        int sequenceId = subTraceSequencePool.addSubTraceSequence(currentSubTraceSequence);
-        // add the sequence ID to the execution trace!
-        resultTrace.append(sequenceId);
-        // reset the current sequence
-        currentSubTraceSequence = null;
     }
 
 
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.zip.ZipException;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue;
@@ -46,6 +47,9 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
 	
 	boolean oldFormat = false;
 
+	// incremented on each change of the map contents
+	private volatile int modificationCount = 0;
+
 	public CachedMap(Path zipFilePath, int cacheSize, int entryFileSize, String id, boolean deleteAtShutdown) {
 		this.zipEntryFileSize = entryFileSize;
         this.cacheSize = cacheSize;
@@ -313,6 +317,7 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
 
     @Override
     public T put(Integer key, T value) {
+        ++modificationCount;
         if (storedEntries.containsKey(key)) {
         	return replaceStoredEntry(key, value);
         } else {
@@ -436,6 +441,7 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
     	if (oldFormat) {
     		throw new UnsupportedOperationException("Can not replace entries in old format cached map: " + zipFile.getzipFilePath() + "/" + directory);
     	}
+    	++modificationCount;
 		Map<Integer, Map<Integer, T>> seenFiles = new HashMap<>();
 		
 		for (Entry<? extends Integer, ? extends T> entry : entriesToReplace.entrySet()) {
@@ -490,6 +496,7 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
 
 	@Override
 	public T remove(Object key) {
+		++modificationCount;
 		if (newEntries.containsKey(key)) {
 			return newEntries.remove(key);
 		} else if (storedEntries.containsKey(key)) {
@@ -509,6 +516,7 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
 
     @Override
     public void clear() {
+        ++modificationCount;
         Set<String> toRemove = new HashSet<>();
         for (Entry<Integer, CachemapFileEntry> entry : storedEntries.entrySet()) {
             toRemove.add(getFileName(entry.getValue().fileIndex, directory));
@@ -550,6 +558,44 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
     	return map.entrySet();
     }
 
+    /**
+     * Performs the given action for each entry in this map. In contrast to iterating over
+     * the {@link #entrySet()}, the stored entries are loaded one entry file at a time,
+     * such that not all entries have to be held in memory at the same time.
+     */
+    @Override
+    public void forEach(BiConsumer<? super Integer, ? super T> action) {
+    	for (Entry<Integer, T> entry : newEntries.entrySet()) {
+    		action.accept(entry.getKey(), entry.getValue());
+    	}
+    	if (oldFormat) {
+    		for (Integer key : storedEntries.keySet()) {
+    			action.accept(key, get(key));
+    		}
+    		return;
+    	}
+    	Map<Integer, T> map = new HashMap<>();
+    	for (int i = 0; i < idGen.get(); ++i) {
+    		try {
+    			if (!zipFile.exists(getIndexFileName(i, directory))) {
+    				continue;
+    			}
+    			Map<Integer, CachemapFileEntry> entryInfo = new HashMap<>();
+    			loadEntryInfoFromIndexFile(i, entryInfo);
+    			loadAllEntriesFromFile(i, entryInfo, map);
+    		} catch (IOException e) {
+    			throw new IllegalStateException(e);
+    		}
+    		for (Entry<Integer, T> entry : map.entrySet()) {
+    			// new entries take precedence over stored entries
+    			if (!newEntries.containsKey(entry.getKey())) {
+    				action.accept(entry.getKey(), entry.getValue());
+    			}
+    		}
+    		map.clear();
+    	}
+    }
+
     private static class CachemapFileEntry implements Comparable<CachemapFileEntry> {
     	final int fileIndex;
     	final long offset;
@@ -571,6 +617,14 @@ public abstract class CachedMap<T> implements Map<Integer, T> {
     	
     }
 
+	/**
+	 * @return a number that changes whenever the contents of this map change; can be used
+	 * to detect whether data that was derived from this map is outdated
+	 */
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
 	public void store() {
 		storeNewEntries(zipFile, directory, idGen, storedEntries, newEntries);
 	}
@@ -0,0 +1,66 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.spectra.util;
+
+import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayToIntSequenceProcessor;
+import se.de.hu_berlin.informatik.utils.compression.single.IntSequenceToCompressedByteArrayProcessor;
+
+/**
+ * Decodes byte arrays that were compressed with an {@link IntSequenceToCompressedByteArrayProcessor}
+ * directly into a primitive integer array. Other than the {@link CompressedByteArrayToIntSequenceProcessor},
+ * this does not create a list of boxed integers, which matters when decoding a large number of traces.
+ *
+ * @author Simon Heiden
+ */
+public final class CompressedByteArrayToIntArrayDecoder {
+
+    // | number of bits used for one element (1 byte) | sequence length (4 bytes) |
+    private static final int HEADER_SIZE = 5;
+
+    private CompressedByteArrayToIntArrayDecoder() {
+        // utility class
+    }
+
+    /**
+     * Decodes the given compressed integer sequence.
+     *
+     * @param array the compressed sequence
+     * @return the decoded integers
+     * @throws IllegalArgumentException if the array does not contain a complete sequence
+     */
+    public static int[] decode(byte[] array) {
+        if (array.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Could not read header from compressed sequence.");
+        }
+        int usedBits = array[0];
+        int sequenceLength = ((array[1] & 0xFF) << 24) | ((array[2] & 0xFF) << 16)
+                | ((array[3] & 0xFF) << 8) | (array[4] & 0xFF);
+        if (usedBits < 0 || usedBits > 32 || sequenceLength < 0
+                || (long) usedBits * sequenceLength > 8L * (array.length - HEADER_SIZE)) {
+            throw new IllegalArgumentException("Compressed sequence is corrupted or incomplete.");
+        }
+
+        int[] result = new int[sequenceLength];
+        if (usedBits == 0) {
+            return result;
+        }
+
+        // the elements are stored with the most significant bit first, without any padding in between
+        long bitBuffer = 0;
+        int bitsInBuffer = 0;
+        int arrayPos = HEADER_SIZE;
+        long mask = (1L << usedBits) - 1;
+        for (int i = 0; i < sequenceLength; ++i) {
+            while (bitsInBuffer < usedBits) {
+                bitBuffer = (bitBuffer << 8) | (array[arrayPos++] & 0xFF);
+                bitsInBuffer += 8;
+            }
+            bitsInBuffer -= usedBits;
+            result[i] = (int) ((bitBuffer >>> bitsInBuffer) & mask);
+        }
+
+        return result;
+    }
+
+}
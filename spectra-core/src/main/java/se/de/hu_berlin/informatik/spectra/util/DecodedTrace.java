@@ -0,0 +1,65 @@
+package se.de.hu_berlin.informatik.spectra.util;
+
+/**
+ * The decoded involvement data of a single trace that is stored in a spectra zip file.
+ * <p>
+ * Node indices refer to the order of the node identifiers stored in the zip file,
+ * which is also the order of the nodes in a loaded spectra object.
+ *
+ * @author Simon
+ */
+public class DecodedTrace {
+
+    private final int index;
+    private final String identifier;
+    private final boolean successful;
+    private final int[] nodeIndices;
+    private final int[] hitCounts;
+
+    /**
+     * @param index       the (1-based) index of the trace
+     * @param identifier  the identifier of the trace
+     * @param successful  whether the trace corresponds to a successful test execution
+     * @param nodeIndices the (0-based) indices of all involved nodes, in ascending order
+     * @param hitCounts   the hit counts of the involved nodes, or null for hit spectra
+     */
+    public DecodedTrace(int index, String identifier, boolean successful, int[] nodeIndices, int[] hitCounts) {
+        this.index = index;
+        this.identifier = identifier;
+        this.successful = successful;
+        this.nodeIndices = nodeIndices;
+        this.hitCounts = hitCounts;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * @return the (0-based) indices of all involved nodes, in ascending order
+     */
+    public int[] getNodeIndices() {
+        return nodeIndices;
+    }
+
+    /**
+     * @return the hit counts of the involved nodes, parallel to {@link #getNodeIndices()},
+     * or null if the trace stems from a hit spectra
+     */
+    public int[] getHitCounts() {
+        return hitCounts;
+    }
+
+    public boolean hasHitCounts() {
+        return hitCounts != null;
+    }
+
+}
@@ -0,0 +1,353 @@
+package se.de.hu_berlin.informatik.spectra.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only, thread-safe view on a map of integer arrays (e.g., a {@link CachedIntArrayMap}).
+ * All arrays are written once into an uncompressed data file that is memory mapped, together
+ * with an index that holds the position and length of each array. Lookups copy the requested
+ * array from the mapped file instead of decompressing and deserializing zip file entries,
+ * and the single values of an array can be accessed without creating an array at all.
+ *
+ * <p>
+ * Recently used arrays are kept in a cache with least recently used eviction. The cache is
+ * split into stripes with separate locks, such that concurrent lookups do not block each other.
+ *
+ * <p>
+ * The view does not reflect changes to the underlying map after its creation. The data
+ * file is deleted on {@link #close()}, after which the view can not be accessed anymore.
+ *
+ * @author Simon Heiden
+ */
+public class MappedIntArrayMap implements AutoCloseable {
+
+    // maximum size of a single mapped segment of the data file (in ints; 1 GB)
+    private static final int SEGMENT_SIZE = 1 << 28;
+    // segment index of empty arrays, which are not stored in the data file
+    private static final int NO_SEGMENT = -1;
+    private static final int[] EMPTY_ARRAY = new int[0];
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final int CACHE_STRIPES = 16;
+
+    private final Path dataFile;
+    private final int segmentSize;
+    private final IntBuffer[] segments;
+
+    // sorted keys, or null if the keys are used as indices directly
+    private final int[] keys;
+    // segment, offset in segment and length of each array, by index
+    private final int[] segmentIndices;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int size;
+
+    private final LruStripe[] cache;
+
+    private volatile boolean closed = false;
+
+    public MappedIntArrayMap(Map<Integer, int[]> map, Path tempDir) throws IOException {
+        this(map, tempDir, DEFAULT_CACHE_SIZE);
+    }
+
+    public MappedIntArrayMap(Map<Integer, int[]> map, Path tempDir, int cacheSize) throws IOException {
+        this(map, tempDir, cacheSize, SEGMENT_SIZE);
+    }
+
+    // allows to test segment boundaries with small segments
+    MappedIntArrayMap(Map<Integer, int[]> map, Path tempDir, int cacheSize, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        Files.createDirectories(tempDir);
+        this.dataFile = Files.createTempFile(tempDir, "intArrayMap", ".ints");
+        this.dataFile.toFile().deleteOnExit();
+
+        // write all arrays to the data file (in the order given by the map)
+        EntryWriter writer = new EntryWriter(dataFile, segmentSize);
+        try {
+            map.forEach(writer::write);
+        } finally {
+            writer.close();
+        }
+        this.size = writer.count;
+
+        int minKey = Integer.MAX_VALUE;
+        int maxKey = -1;
+        for (int i = 0; i < size; ++i) {
+            minKey = Math.min(minKey, writer.keys[i]);
+            maxKey = Math.max(maxKey, writer.keys[i]);
+        }
+
+        int indexSize;
+        if (minKey >= 0 && maxKey < 2L * size + 16) {
+            // keys are (mostly) dense and can be used as indices directly
+            this.keys = null;
+            indexSize = maxKey + 1;
+        } else {
+            this.keys = Arrays.copyOf(writer.keys, size);
+            Arrays.sort(this.keys);
+            indexSize = size;
+        }
+        this.segmentIndices = new int[indexSize];
+        this.offsets = new int[indexSize];
+        this.lengths = new int[indexSize];
+        // -1 marks missing keys
+        Arrays.fill(this.lengths, -1);
+        for (int i = 0; i < size; ++i) {
+            int index = keys == null ? writer.keys[i] : Arrays.binarySearch(keys, writer.keys[i]);
+            if (writer.lengths[i] == 0) {
+                // empty arrays never access a segment, which may not exist at the end of the file
+                this.segmentIndices[index] = NO_SEGMENT;
+                this.offsets[index] = 0;
+            } else {
+                this.segmentIndices[index] = (int) (writer.positions[i] / segmentSize);
+                this.offsets[index] = (int) (writer.positions[i] % segmentSize);
+            }
+            this.lengths[index] = writer.lengths[i];
+        }
+
+        this.segments = mapSegments(dataFile, writer.position, segmentSize);
+
+        int stripeSize = Math.max(1, cacheSize / CACHE_STRIPES);
+        this.cache = new LruStripe[CACHE_STRIPES];
+        for (int i = 0; i < CACHE_STRIPES; ++i) {
+            this.cache[i] = new LruStripe(cacheSize > 0 ? stripeSize : 0);
+        }
+    }
+
+    private static IntBuffer[] mapSegments(Path dataFile, long intCount, int segmentSize) throws IOException {
+        IntBuffer[] segments = new IntBuffer[(int) ((intCount + segmentSize - 1) / segmentSize)];
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; ++i) {
+                long start = (long) i * segmentSize;
+                long length = Math.min(segmentSize, intCount - start);
+                // the mapping stays valid after closing the channel
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, 4 * start, 4 * length)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+        }
+        return segments;
+    }
+
+    private int indexOf(int key) {
+        if (closed) {
+            throw new IllegalStateException("Map has been closed: " + dataFile);
+        }
+        int index;
+        if (keys == null) {
+            index = key;
+            if (index < 0 || index >= lengths.length) {
+                return -1;
+            }
+        } else {
+            index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return -1;
+            }
+        }
+        return lengths[index] < 0 ? -1 : index;
+    }
+
+    /**
+     * @return the number of arrays in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @param key the key
+     * @return the array that is mapped to the given key, or null if none
+     */
+    public int[] get(int key) {
+        if (closed) {
+            throw new IllegalStateException("Map has been closed: " + dataFile);
+        }
+        LruStripe stripe = cache[(key ^ (key >>> 16)) & (CACHE_STRIPES - 1)];
+        int[] result = stripe.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        if (segmentIndices[index] == NO_SEGMENT) {
+            return EMPTY_ARRAY;
+        }
+        result = new int[lengths[index]];
+        // duplicate, since the position of a buffer is not thread-safe
+        IntBuffer buffer = segments[segmentIndices[index]].duplicate();
+        buffer.position(offsets[index]);
+        buffer.get(result);
+
+        stripe.put(key, result);
+        return result;
+    }
+
+    /**
+     * @param key the key
+     * @return the length of the array that is mapped to the given key, or -1 if none
+     */
+    public int length(int key) {
+        int index = indexOf(key);
+        return index < 0 ? -1 : lengths[index];
+    }
+
+    /**
+     * Reads a single value of an array directly from the mapped data file.
+     *
+     * @param key   the key
+     * @param index the index inside of the array that is mapped to the given key
+     * @return the value at the given index
+     * @throws IndexOutOfBoundsException if there is no such array or index
+     */
+    public int get(int key, int index) {
+        int entryIndex = indexOf(key);
+        if (entryIndex < 0 || index < 0 || index >= lengths[entryIndex]) {
+            throw new IndexOutOfBoundsException("key: " + key + ", index: " + index);
+        }
+        // absolute get is thread-safe
+        return segments[segmentIndices[entryIndex]].get(offsets[entryIndex] + index);
+    }
+
+    /**
+     * @return whether this map has been closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (LruStripe stripe : cache) {
+            stripe.clear();
+        }
+        try {
+            Files.deleteIfExists(dataFile);
+        } catch (IOException e) {
+            // file is still deleted on exit
+        }
+    }
+
+    private static class EntryWriter {
+
+        private final FileChannel channel;
+        private final int segmentSize;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.nativeOrder());
+
+        private int[] keys = new int[1024];
+        private long[] positions = new long[1024];
+        private int[] lengths = new int[1024];
+        private int count = 0;
+        // current position in the data file (in ints)
+        private long position = 0;
+
+        private EntryWriter(Path dataFile, int segmentSize) throws IOException {
+            this.channel = FileChannel.open(dataFile, StandardOpenOption.WRITE);
+            this.segmentSize = segmentSize;
+        }
+
+        private void write(int key, int[] array) {
+            if (array.length > segmentSize) {
+                throw new IllegalStateException("Array too large to be mapped: " + array.length);
+            }
+            try {
+                long offsetInSegment = position % segmentSize;
+                if (array.length > 0 && offsetInSegment + array.length > segmentSize) {
+                    // arrays may not cross segment boundaries; skip to the next segment
+                    flush();
+                    position += segmentSize - offsetInSegment;
+                    channel.position(4 * position);
+                }
+
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, 2 * count);
+                    positions = Arrays.copyOf(positions, 2 * count);
+                    lengths = Arrays.copyOf(lengths, 2 * count);
+                }
+                keys[count] = key;
+                positions[count] = position;
+                lengths[count] = array.length;
+                ++count;
+
+                for (int value : array) {
+                    if (!buffer.hasRemaining()) {
+                        flush();
+                    }
+                    buffer.putInt(value);
+                }
+                position += array.length;
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write to data file.", e);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static class LruStripe extends LinkedHashMap<Integer, int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private LruStripe(int capacity) {
+            // access order for least recently used eviction
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+            return size() > capacity;
+        }
+
+        private synchronized int[] get(int key) {
+            return capacity > 0 ? super.get(key) : null;
+        }
+
+        private synchronized void put(int key, int[] value) {
+            if (capacity > 0) {
+                super.put(key, value);
+            }
+        }
+
+        @Override
+        public synchronized void clear() {
+            super.clear();
+        }
+    }
+
+}
@@ -10,6 +10,7 @@ import se.de.hu_berlin.informatik.spectra.core.branch.ProgramBranch;
 import se.de.hu_berlin.informatik.spectra.core.branch.ProgramBranchSpectra;
 import se.de.hu_berlin.informatik.spectra.core.count.CountSpectra;
 import se.de.hu_berlin.informatik.spectra.core.count.CountTrace;
+import se.de.hu_berlin.informatik.spectra.core.hit.BitSetHitSpectra;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
 import se.de.hu_berlin.informatik.spectra.core.traces.ExecutionTrace;
@@ -19,7 +20,6 @@ import se.de.hu_berlin.informatik.utils.compression.CompressedByteArrayToIntSequ
 import se.de.hu_berlin.informatik.utils.compression.CompressedByteArraysToByteArraysProcessor;
 import se.de.hu_berlin.informatik.utils.compression.single.ByteArrayToCompressedByteArrayProcessor;
 import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayToByteArrayProcessor;
-import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayToIntSequenceProcessor;
 import se.de.hu_berlin.informatik.utils.compression.single.IntSequenceToCompressedByteArrayProcessor;
 import se.de.hu_berlin.informatik.utils.compression.ziputils.AddNamedByteArrayToZipFileProcessor;
 import se.de.hu_berlin.informatik.utils.compression.ziputils.MoveNamedByteArraysBetweenZipFilesProcessor;
@@ -43,6 +43,9 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.zip.ZipException;
@@ -272,7 +275,7 @@ public class SpectraFileUtils {
 
     @SuppressWarnings("unchecked")
     private static <T, K extends ITrace<T>> void saveSpectraToZipFile(ISpectra<T, K> spectra, Path output,
-                                                                      boolean compress, boolean sparse, boolean index, 
+                                                                      boolean compress, boolean sparse, boolean index,
                                                                       Collection<INode<T>> nodes, Map<String, Integer> map,
                                                                       String nodeIdentifiers, String traceIdentifiers) {
     	// should not exist, anyway...
@@ -622,11 +625,38 @@ public class SpectraFileUtils {
      */
     public static <T extends Indexable<T>> ISpectra<T, ?> loadSpectraFromZipFile(T dummy, Path zipFilePath)
             throws NullPointerException {
+        return loadSpectraFromZipFile(dummy, zipFilePath, false);
+    }
+
+    /**
+     * Loads a Spectra object with {@link SourceCodeBlock} nodes from a zip file. The involvements
+     * of hit spectra are stored in a {@link BitSetHitSpectra} object.
+     *
+     * @param zipFilePath the path to the zip file containing the Spectra object
+     * @return the loaded Spectra object
+     */
+    public static ISpectra<SourceCodeBlock, ?> loadBlockBitSetSpectraFromZipFile(Path zipFilePath) {
+        return loadSpectraFromZipFile(SourceCodeBlock.DUMMY, zipFilePath, true);
+    }
+
+    /**
+     * Loads a Spectra object from a zip file.
+     *
+     * @param dummy       a dummy object of type T that is used for obtaining indexed identifiers
+     * @param zipFilePath the path to the zip file containing the Spectra object
+     * @param useBitSetMatrix whether to store the involvements of hit spectra in a
+     *                    {@link BitSetHitSpectra} object (does not apply to count and branch spectra)
+     * @param <T>         the type of nodes in the spectra
+     * @return the loaded Spectra object
+     * @throws NullPointerException if dummy is null
+     */
+    public static <T extends Indexable<T>> ISpectra<T, ?> loadSpectraFromZipFile(T dummy, Path zipFilePath,
+            boolean useBitSetMatrix) throws NullPointerException {
         ZipFileWrapper zip = ZipFileWrapper.getZipFileWrapper(zipFilePath);
 
         byte[] status = getStatusByte(zip);
 
-        return loadSpectraFromZipFile(zip, status, dummy);
+        return loadSpectraFromZipFile(zip, status, dummy, useBitSetMatrix);
     }
 
     public static CountSpectra<SourceCodeBlock> loadBlockCountSpectraFromZipFile(Path zipFilePath) {
@@ -664,9 +694,18 @@ public class SpectraFileUtils {
         return status;
     }
 
-    private static <T extends Indexable<T>> ISpectra<T, ?> loadSpectraFromZipFile(ZipFileWrapper zip, byte[] status, T dummy) {
+    private static <T extends Indexable<T>> ISpectra<T, ?> loadSpectraFromZipFile(ZipFileWrapper zip, byte[] status, T dummy,
+            boolean useBitSetMatrix) {
+        Supplier<HitSpectra<T>> hitSpectraSupplier;
+        if (dummy instanceof ProgramBranch) {
+            hitSpectraSupplier = () -> new ProgramBranchSpectra<>(zip.getzipFilePath());
+        } else if (useBitSetMatrix) {
+            hitSpectraSupplier = () -> new BitSetHitSpectra<>(zip.getzipFilePath());
+        } else {
+            hitSpectraSupplier = () -> new HitSpectra<>(zip.getzipFilePath());
+        }
         return loadWithSpectraTypes(zip, status, dummy,
-                dummy instanceof ProgramBranch ?  () -> new ProgramBranchSpectra<>(zip.getzipFilePath()) : () -> new HitSpectra<>(zip.getzipFilePath()),
+                hitSpectraSupplier,
                 () -> new CountSpectra<>(zip.getzipFilePath()));
     }
 
@@ -799,57 +838,7 @@ public class SpectraFileUtils {
                                                                                 Supplier<? extends CountSpectra<T>> countSpectraSupplier) throws ZipException {
         D result;
 
-        // get the trace identifiers
-        String[] traceIdentifiers = getRawTraceIdentifiersFromZipFile(zip);
-
-        if (isSparse(status)) {
-            D spectra = hitSpectraSupplier.get();
-
-            List<T> lineArray = getNodeIdentifiersFromZipFile(dummy, zip, status, spectra);
-            
-            // add the nodes in the correct order
-            for (T t : lineArray) {
-                spectra.getOrCreateNode(t);
-            }
-            
-            Log.out(SpectraFileUtils.class, "Loaded %,d nodes...", lineArray.size());
-
-            CompressedByteArrayToIntSequenceProcessor processor = new CompressedByteArrayToIntSequenceProcessor();
-
-            int traceCounter = 0;
-            // iterate over the trace files and fill the spectra object
-            byte[] traceInvolvement;
-            while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
-                List<Integer> involvedNodes = processor.submit(traceInvolvement).getResult();
-
-                // the first element is always the 'successful' flag
-                ITrace<T> trace = spectra.addTrace(
-                        traceIdentifiers[traceCounter - 1], traceCounter, involvedNodes.get(0) == 1);
-                int nodeIndex = 1;
-                int node;
-                if (nodeIndex < involvedNodes.size()) {
-                    node = involvedNodes.get(nodeIndex);
-                } else {
-                    node = -1;
-                }
-                for (int i = 0; i < lineArray.size(); ++i) {
-                    if (i + 1 == node) {
-                        trace.setInvolvement(i, true);
-                        ++nodeIndex;
-                        if (nodeIndex < involvedNodes.size()) {
-                            node = involvedNodes.get(nodeIndex);
-                        } else {
-                            node = -1;
-                        }
-                    }
-                }
-
-                loadExecutionTraces(zip, traceCounter, trace);
-                trace.sleep();
-            }
-            Log.out(SpectraFileUtils.class, "Loaded %,d test cases...", traceCounter-1);
-            result = spectra;
-        } else if (isCountSpectra(status)) {
+        if (isCountSpectra(status)) {
             CountSpectra<T> spectra = countSpectraSupplier.get();
 
             List<T> lineArray = getNodeIdentifiersFromZipFile(dummy, zip, status, spectra);
@@ -861,33 +850,21 @@ public class SpectraFileUtils {
             
             Log.out(SpectraFileUtils.class, "Loaded %,d nodes...", lineArray.size());
 
-            CompressedByteArrayToIntSequenceProcessor processor = new CompressedByteArrayToIntSequenceProcessor();
-
-            int traceCounter = 0;
-            // iterate over the trace files and fill the spectra object
-            byte[] traceInvolvement;
-            while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
-                List<Integer> hits = processor.submit(traceInvolvement).getResult();
-
-                Iterator<Integer> iterator = hits.iterator();
-                // the first element is always the 'successful' flag
+            // iterate over the decoded trace files and fill the spectra object
+            int traceCount = decodeTraceFiles(zip, status, lineArray.size(), ForkJoinPool.commonPool(), decodedTrace -> {
                 CountTrace<T> trace = spectra.addTrace(
-                        traceIdentifiers[traceCounter - 1], traceCounter, iterator.next() == 1);
+                        decodedTrace.getIdentifier(), decodedTrace.getIndex(), decodedTrace.isSuccessful());
 
-                int i = -1;
-                while (iterator.hasNext()) {
-                    Integer next = iterator.next();
-                    if (next > 0) {
-                    	trace.setHits(++i, next);
-                    } else {
-						++i;
-					}
+                int[] nodeIndices = decodedTrace.getNodeIndices();
+                int[] hitCounts = decodedTrace.getHitCounts();
+                for (int i = 0; i < nodeIndices.length; ++i) {
+                    trace.setHits(nodeIndices[i], hitCounts[i]);
                 }
 
-                loadExecutionTraces(zip, traceCounter, trace);
+                loadExecutionTraces(zip, decodedTrace.getIndex(), trace);
                 trace.sleep();
-            }
-            Log.out(SpectraFileUtils.class, "Loaded %,d test cases...", traceCounter-1);
+            });
+            Log.out(SpectraFileUtils.class, "Loaded %,d test cases...", traceCount);
             result = (D) spectra;
         } else {
             D spectra = hitSpectraSupplier.get();
@@ -901,32 +878,19 @@ public class SpectraFileUtils {
             
             Log.out(SpectraFileUtils.class, "Loaded %,d nodes...", lineArray.size());
 
-            CompressedByteArrayToByteArrayProcessor processor = new CompressedByteArrayToByteArrayProcessor();
-
-            int traceCounter = 0;
-            // iterate over the trace files and fill the spectra object
-            byte[] traceInvolvement;
-            while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
-
-                // check if we have a compressed byte array at hand
-                if (isCompressed(status)) {
-                    traceInvolvement = processor.submit(traceInvolvement).getResult();
-                }
-
-                // the first element is always the 'successful' flag
+            // iterate over the decoded trace files and fill the spectra object
+            int traceCount = decodeTraceFiles(zip, status, lineArray.size(), ForkJoinPool.commonPool(), decodedTrace -> {
                 ITrace<T> trace = spectra.addTrace(
-                        traceIdentifiers[traceCounter - 1], traceCounter, traceInvolvement[0] == 1);
+                        decodedTrace.getIdentifier(), decodedTrace.getIndex(), decodedTrace.isSuccessful());
 
-                for (int i = 0; i < lineArray.size(); ++i) {
-                	if (traceInvolvement[i + 1] == 1) {
-                		trace.setInvolvement(i, true);
-                	}
+                for (int nodeIndex : decodedTrace.getNodeIndices()) {
+                    trace.setInvolvement(nodeIndex, true);
                 }
 
-                loadExecutionTraces(zip, traceCounter, trace);
+                loadExecutionTraces(zip, decodedTrace.getIndex(), trace);
                 trace.sleep();
-            }
-            Log.out(SpectraFileUtils.class, "Loaded %,d test cases...", traceCounter-1);
+            });
+            Log.out(SpectraFileUtils.class, "Loaded %,d test cases...", traceCount);
             result = spectra;
         }
 
@@ -942,6 +906,159 @@ public class SpectraFileUtils {
         return result;
     }
 
+    /**
+     * Decodes the trace files of a spectra zip file in the new file format and hands
+     * each decoded trace to the given consumer, without creating a spectra object.
+     * Traces are decoded in parallel and are handed to the consumer in order, one
+     * at a time, such that only a small number of traces is held in memory.
+     *
+     * @param zipFilePath the path to the zip file containing the spectra
+     * @param consumer    gets each decoded trace, in order
+     * @return the number of decoded traces
+     */
+    public static int streamTracesFromZipFile(Path zipFilePath, Consumer<DecodedTrace> consumer) {
+        ZipFileWrapper zip = getZipFileWrapperForStreaming(zipFilePath);
+
+        byte[] status = getStatusByte(zip);
+        int nodeCount = getRawNodeIdentifiersFromZipFile(zip).length;
+
+        return decodeTraceFiles(zip, status, nodeCount, ForkJoinPool.commonPool(), consumer);
+    }
+
+    /**
+     * Decodes the trace files of a spectra zip file in the new file format and hands
+     * each decoded trace to the given consumer, without creating a spectra object.
+     * Traces are decoded with the given number of threads and are handed to the
+     * consumer in order, one at a time.
+     *
+     * @param zipFilePath the path to the zip file containing the spectra
+     * @param threadCount the number of threads to decode traces with; traces are
+     *                    decoded on the calling thread if this is less than 2
+     * @param consumer    gets each decoded trace, in order
+     * @return the number of decoded traces
+     */
+    public static int streamTracesFromZipFile(Path zipFilePath, int threadCount, Consumer<DecodedTrace> consumer) {
+        ZipFileWrapper zip = getZipFileWrapperForStreaming(zipFilePath);
+
+        byte[] status = getStatusByte(zip);
+        int nodeCount = getRawNodeIdentifiersFromZipFile(zip).length;
+
+        if (threadCount < 2) {
+            return decodeTraceFiles(zip, status, nodeCount, null, consumer);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            return decodeTraceFiles(zip, status, nodeCount, pool, consumer);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ZipFileWrapper getZipFileWrapperForStreaming(Path zipFilePath) {
+        ZipFileWrapper zip = ZipFileWrapper.getZipFileWrapper(zipFilePath);
+
+        if (zip.exists(INVOLVEMENT_TABLE_FILE_INDEX)) {
+            Log.abort(SpectraFileUtils.class, "Streaming traces is not supported for the old spectra file format.");
+        }
+        return zip;
+    }
+
+    /**
+     * Reads the trace files sequentially and decodes them on the given pool.
+     * The number of pending traces is bounded to keep the memory footprint low.
+     *
+     * @param pool the pool to decode traces on, or null to decode them on the calling thread
+     * @return the number of decoded traces
+     */
+    private static int decodeTraceFiles(ZipFileWrapper zip, byte[] status, int nodeCount,
+                                         ForkJoinPool pool, Consumer<DecodedTrace> consumer) {
+        String[] traceIdentifiers = getRawTraceIdentifiersFromZipFile(zip);
+
+        if (pool == null) {
+            int traceCounter = 0;
+            byte[] traceInvolvement;
+            while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
+                consumer.accept(decodeTrace(
+                        traceCounter, traceIdentifiers[traceCounter - 1], traceInvolvement, status, nodeCount));
+            }
+            return traceCounter - 1;
+        }
+
+        int maxPendingTraces = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<DecodedTrace>> pendingTraces = new ArrayDeque<>(maxPendingTraces);
+
+        int traceCounter = 0;
+        byte[] traceInvolvement;
+        while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
+            if (pendingTraces.size() >= maxPendingTraces) {
+                consumer.accept(pendingTraces.removeFirst().join());
+            }
+            final int index = traceCounter;
+            final byte[] involvement = traceInvolvement;
+            pendingTraces.addLast(pool.submit(() -> decodeTrace(
+                    index, traceIdentifiers[index - 1], involvement, status, nodeCount)));
+        }
+        while (!pendingTraces.isEmpty()) {
+            consumer.accept(pendingTraces.removeFirst().join());
+        }
+
+        return traceCounter - 1;
+    }
+
+    private static DecodedTrace decodeTrace(int index, String identifier, byte[] traceInvolvement,
+                                            byte[] status, int nodeCount) {
+        // processors are not thread-safe, so each task uses its own instances
+        if (isSparse(status)) {
+            int[] involvedNodes = CompressedByteArrayToIntArrayDecoder.decode(traceInvolvement);
+
+            // the first element is always the 'successful' flag, followed by the (1-based) node indices
+            int[] nodeIndices = new int[involvedNodes.length - 1];
+            int count = 0;
+            for (int i = 1; i < involvedNodes.length; ++i) {
+                int node = involvedNodes[i];
+                if (node > 0 && node <= nodeCount) {
+                    nodeIndices[count++] = node - 1;
+                }
+            }
+            return new DecodedTrace(index, identifier, involvedNodes[0] == 1,
+                    count == nodeIndices.length ? nodeIndices : Arrays.copyOf(nodeIndices, count), null);
+        } else if (isCountSpectra(status)) {
+            int[] hits = CompressedByteArrayToIntArrayDecoder.decode(traceInvolvement);
+
+            // the first element is always the 'successful' flag, followed by the hit counts of all nodes
+            int[] nodeIndices = new int[hits.length - 1];
+            int[] hitCounts = new int[hits.length - 1];
+            int count = 0;
+            for (int i = 1; i < hits.length; ++i) {
+                int next = hits[i];
+                if (next > 0) {
+                    nodeIndices[count] = i - 1;
+                    hitCounts[count++] = next;
+                }
+            }
+            return new DecodedTrace(index, identifier, hits[0] == 1,
+                    Arrays.copyOf(nodeIndices, count), Arrays.copyOf(hitCounts, count));
+        } else {
+            // check if we have a compressed byte array at hand
+            if (isCompressed(status)) {
+                traceInvolvement = new CompressedByteArrayToByteArrayProcessor()
+                        .submit(traceInvolvement).getResult();
+            }
+
+            // the first element is always the 'successful' flag
+            int length = Math.min(nodeCount, traceInvolvement.length - 1);
+            int[] nodeIndices = new int[length];
+            int count = 0;
+            for (int i = 0; i < length; ++i) {
+                if (traceInvolvement[i + 1] == 1) {
+                    nodeIndices[count++] = i;
+                }
+            }
+            return new DecodedTrace(index, identifier, traceInvolvement[0] == 1,
+                    Arrays.copyOf(nodeIndices, count), null);
+        }
+    }
+
     private static void loadAdditionalDataForBranchSpectra(ProgramBranchSpectra<?> branchSpectra, ZipFileWrapper zip) {
     	try {
     		branchSpectra.setStatementMap(loadBranchStatementIdentifierMap(zip));
@@ -0,0 +1,223 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.spectra.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
+import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Simon Heiden
+ *
+ */
+public class LocalizerCacheTest {
+
+    private static final double SMALL_DELTA = 0.00001;
+    private static final int THREAD_COUNT = 16;
+    private static final int REPETITIONS = 50;
+
+    /**
+     * Expected NP, NF, EP and EF values of the nodes S1, S2 and S3
+     * (see {@link NodeTest#computeINFSMetricsForSimpleSpectra()}).
+     */
+    private static final double[][] EXPECTED = {
+            {0, 1, 3, 1},
+            {2, 0, 1, 2},
+            {1, 1, 2, 1}
+    };
+
+    @Test
+    public void cacheIsReusedAcrossLocalizers() {
+        final CountingHitSpectra s = loadSpectra();
+        Assert.assertSame(s.getLocalizer(), s.getLocalizer());
+
+        // each localizer computes all four values for every node
+        for (int localizer = 0; localizer < 3; ++localizer) {
+            assertExpectedValues(s);
+        }
+        Assert.assertEquals(1, s.getComputationCount());
+
+        // the values are only computed once for all nodes, not for each node
+        Assert.assertEquals(0, s.getOrCreateNode("S4").getEF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, s.getOrCreateNode("S4").getNF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(1, s.getComputationCount());
+    }
+
+    @Test
+    public void cacheIsInvalidatedWhenAddingTraces() {
+        final CountingHitSpectra s = loadSpectra();
+        assertExpectedValues(s);
+        Assert.assertEquals(1, s.getComputationCount());
+
+        final HitTrace<String> t6 = s.addTrace("t6", 6, false);
+        t6.setInvolvement("S1", true);
+
+        final INode<String> n = s.getOrCreateNode("S1");
+        Assert.assertEquals(0, n.getNP(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(1, n.getNF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(3, n.getEP(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, n.getEF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, s.getComputationCount());
+
+        // a new failing trace that does not involve S2
+        Assert.assertEquals(1, s.getOrCreateNode("S2").getNF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, s.getComputationCount());
+    }
+
+    @Test
+    public void cacheIsInvalidatedWhenChangingInvolvement() {
+        final CountingHitSpectra s = loadSpectra();
+        assertExpectedValues(s);
+        Assert.assertEquals(1, s.getComputationCount());
+
+        // the number of traces stays the same
+        s.getTrace("t3").setInvolvement("S2", true);
+        s.getTrace("t1").setInvolvement("S1", false);
+
+        final INode<String> n1 = s.getOrCreateNode("S1");
+        Assert.assertEquals(2, n1.getNF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(0, n1.getEF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        final INode<String> n2 = s.getOrCreateNode("S2");
+        Assert.assertEquals(1, n2.getNP(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, n2.getEP(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, s.getComputationCount());
+    }
+
+    @Test
+    public void cacheIsInvalidatedWhenRemovingNodes() {
+        final CountingHitSpectra s = loadSpectra();
+        assertExpectedValues(s);
+        final INode<String> n3 = s.getOrCreateNode("S3");
+        Assert.assertTrue(s.removeNode("S2"));
+
+        Assert.assertEquals(1, n3.getNP(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(1, n3.getEF(ComputationStrategies.STANDARD_SBFL), SMALL_DELTA);
+        Assert.assertEquals(2, s.getComputationCount());
+    }
+
+    @Test
+    public void concurrentFirstAccessComputesValuesOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int i = 0; i < REPETITIONS; ++i) {
+                final CountingHitSpectra s = loadSpectra();
+                final CountDownLatch start = new CountDownLatch(1);
+                List<Future<double[][]>> results = new ArrayList<>(THREAD_COUNT);
+                for (int j = 0; j < THREAD_COUNT; ++j) {
+                    final int offset = j;
+                    results.add(executor.submit(new Callable<double[][]>() {
+                        @Override
+                        public double[][] call() throws Exception {
+                            start.await();
+                            double[][] values = new double[EXPECTED.length][];
+                            // start with different nodes to access the cache from different places
+                            for (int k = 0; k < EXPECTED.length; ++k) {
+                                int node = (k + offset) % EXPECTED.length;
+                                values[node] = getValues(s.getOrCreateNode("S" + (node + 1)));
+                            }
+                            return values;
+                        }
+                    }));
+                }
+                start.countDown();
+
+                for (Future<double[][]> result : results) {
+                    double[][] values = result.get(10, TimeUnit.SECONDS);
+                    for (int k = 0; k < EXPECTED.length; ++k) {
+                        Assert.assertArrayEquals(EXPECTED[k], values[k], SMALL_DELTA);
+                    }
+                }
+                Assert.assertEquals(1, s.getComputationCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertExpectedValues(ISpectra<String, ?> s) {
+        for (int k = 0; k < EXPECTED.length; ++k) {
+            Assert.assertArrayEquals(EXPECTED[k], getValues(s.getOrCreateNode("S" + (k + 1))), SMALL_DELTA);
+        }
+    }
+
+    private static double[] getValues(INode<String> node) {
+        return new double[]{
+                node.getNP(ComputationStrategies.STANDARD_SBFL),
+                node.getNF(ComputationStrategies.STANDARD_SBFL),
+                node.getEP(ComputationStrategies.STANDARD_SBFL),
+                node.getEF(ComputationStrategies.STANDARD_SBFL)
+        };
+    }
+
+    /**
+     * Same data as {@link se.de.hu_berlin.informatik.spectra.test.data.SimpleSpectraProvider}.
+     */
+    private static CountingHitSpectra loadSpectra() {
+        final CountingHitSpectra s = new CountingHitSpectra();
+
+        final HitTrace<String> t1 = s.addTrace("t1", 1, false);
+        t1.setInvolvement("S1", true);
+        t1.setInvolvement("S2", true);
+
+        final HitTrace<String> t2 = s.addTrace("t2", 2, false);
+        t2.setInvolvement("S2", true);
+        t2.setInvolvement("S3", true);
+
+        final HitTrace<String> t3 = s.addTrace("t3", 3, true);
+        t3.setInvolvement("S1", true);
+
+        final HitTrace<String> t4 = s.addTrace("t4", 4, true);
+        t4.setInvolvement("S1", true);
+        t4.setInvolvement("S2", true);
+        t4.setInvolvement("S3", true);
+
+        final HitTrace<String> t5 = s.addTrace("t5", 5, true);
+        t5.setInvolvement("S1", true);
+        t5.setInvolvement("S3", true);
+
+        s.resetComputationCount();
+        return s;
+    }
+
+    /**
+     * Counts the computations of the cached values. The {@link LocalizerCache} requests
+     * the spectra's nodes exactly once per computation, and the node values themselves
+     * never access the collection of nodes.
+     */
+    private static class CountingHitSpectra extends HitSpectra<String> {
+
+        private final AtomicInteger computationCount = new AtomicInteger();
+
+        private CountingHitSpectra() {
+            super(null);
+        }
+
+        @Override
+        public Collection<INode<String>> getNodes() {
+            computationCount.incrementAndGet();
+            return super.getNodes();
+        }
+
+        private int getComputationCount() {
+            return computationCount.get();
+        }
+
+        private void resetComputationCount() {
+            computationCount.set(0);
+        }
+    }
+
+}
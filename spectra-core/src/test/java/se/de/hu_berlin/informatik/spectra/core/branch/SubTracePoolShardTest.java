@@ -0,0 +1,199 @@
+package se.de.hu_berlin.informatik.spectra.core.branch;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.de.hu_berlin.informatik.spectra.core.Node.NodeType;
+import se.de.hu_berlin.informatik.spectra.core.SourceCodeBlock;
+import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ClassData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedIntArrayQueue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that mapping traces to per-trace shards concurrently and merging the shards
+ * in trace order assigns the same IDs as adding the traces to the pools one after the other.
+ *
+ * @author Simon Heiden
+ */
+public class SubTracePoolShardTest {
+
+    private static final int CLASS_ID = 1;
+    private static final int COUNTER_COUNT = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelShardsAssignSameIdsAsSerialProcessing() throws Exception {
+        ProjectData projectData = createProjectData();
+        HitSpectra<SourceCodeBlock> lineSpectra = createLineSpectra();
+        List<int[][][]> traces = createTraces(24, new Random(42));
+
+        // serial: add each sub trace and sub trace sequence to the pools directly
+        SubTracePool serialSubTracePool = new SubTracePool(newDir("serial"));
+        serialSubTracePool.setProjectData(projectData);
+        SubTraceSequencePool serialSequencePool = new SubTraceSequencePool(newDir("serialSequences"));
+        List<int[]> serialTraces = new ArrayList<>();
+        for (int[][][] trace : traces) {
+            int[] sequenceIds = new int[trace.length];
+            for (int i = 0; i < trace.length; ++i) {
+                SingleLinkedIntArrayQueue sequence = new SingleLinkedIntArrayQueue(10);
+                for (int[] subTrace : trace[i]) {
+                    sequence.addNoAutoBoxing(serialSubTracePool.addSubTraceSequence(toQueue(subTrace), lineSpectra));
+                }
+                sequenceIds[i] = serialSequencePool.addSubTraceSequence(sequence);
+            }
+            serialTraces.add(sequenceIds);
+        }
+
+        // parallel: map each trace to local IDs concurrently and merge the shards in trace order
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<MappedTrace>> futures = new ArrayList<>();
+        try {
+            for (int[][][] trace : traces) {
+                futures.add(executor.submit(() -> new MappedTrace(trace)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        SubTracePool subTracePool = new SubTracePool(newDir("parallel"));
+        subTracePool.setProjectData(projectData);
+        SubTraceSequencePool sequencePool = new SubTraceSequencePool(newDir("parallelSequences"));
+        for (int t = 0; t < futures.size(); ++t) {
+            MappedTrace mappedTrace = futures.get(t).get();
+            int[] subTraceIdMap = subTracePool.merge(mappedTrace.subTraceShard, lineSpectra);
+            int[] sequenceIdMap = sequencePool.merge(mappedTrace.sequenceShard, subTraceIdMap);
+            int[] sequenceIds = new int[mappedTrace.localSequenceIds.length];
+            for (int i = 0; i < sequenceIds.length; ++i) {
+                sequenceIds[i] = sequenceIdMap[mappedTrace.localSequenceIds[i]];
+            }
+            Assert.assertArrayEquals("trace " + t, serialTraces.get(t), sequenceIds);
+        }
+
+        Assert.assertEquals(serialSubTracePool.getExistingSubTraces().size(),
+                subTracePool.getExistingSubTraces().size());
+        for (int id = 1; id <= serialSubTracePool.getExistingSubTraces().size(); ++id) {
+            Assert.assertArrayEquals("sub trace " + id, serialSubTracePool.getExistingSubTraces().get(id),
+                    subTracePool.getExistingSubTraces().get(id));
+        }
+        Assert.assertEquals(serialSequencePool.getExistingSubTraceSequences().size(),
+                sequencePool.getExistingSubTraceSequences().size());
+        for (int id = 1; id <= serialSequencePool.getExistingSubTraceSequences().size(); ++id) {
+            Assert.assertArrayEquals("sub trace sequence " + id,
+                    serialSequencePool.getExistingSubTraceSequences().get(id),
+                    sequencePool.getExistingSubTraceSequences().get(id));
+        }
+    }
+
+    @Test
+    public void testShardDoesNotConsumeSubTrace() {
+        SubTracePool.Shard shard = new SubTracePool.Shard();
+        SingleLinkedIntArrayQueue subTrace = toQueue(new int[]{statement(1), statement(2), statement(3)});
+        Assert.assertEquals(1, shard.addSubTraceSequence(subTrace));
+        Assert.assertEquals(3, subTrace.size());
+        Assert.assertEquals(1, shard.addSubTraceSequence(subTrace));
+        Assert.assertEquals(2, shard.addSubTraceSequence(toQueue(new int[]{statement(4)})));
+    }
+
+    private Path newDir(String name) throws IOException {
+        return folder.newFolder(name).toPath();
+    }
+
+    private static class MappedTrace {
+
+        private final SubTracePool.Shard subTraceShard = new SubTracePool.Shard();
+        private final SubTraceSequencePool.Shard sequenceShard = new SubTraceSequencePool.Shard();
+        private final int[] localSequenceIds;
+
+        private MappedTrace(int[][][] trace) {
+            localSequenceIds = new int[trace.length];
+            for (int i = 0; i < trace.length; ++i) {
+                SingleLinkedIntArrayQueue sequence = new SingleLinkedIntArrayQueue(10);
+                for (int[] subTrace : trace[i]) {
+                    sequence.addNoAutoBoxing(subTraceShard.addSubTraceSequence(toQueue(subTrace)));
+                }
+                localSequenceIds[i] = sequenceShard.addSubTraceSequence(sequence);
+            }
+        }
+    }
+
+    private static ProjectData createProjectData() {
+        ProjectData projectData = new ProjectData();
+        ClassData classData = projectData.createClassData("test.Test", CLASS_ID);
+        classData.setSourceFileName("Test.java");
+        int[][] counterId2LineNumbers = new int[COUNTER_COUNT][];
+        for (int counterId = 0; counterId < COUNTER_COUNT; ++counterId) {
+            // counter ID n is located in line n+1
+            counterId2LineNumbers[counterId] = new int[]{counterId + 1, CoberturaStatementEncoding.NORMAL_ID};
+        }
+        classData.setCounterId2LineNumbers(counterId2LineNumbers);
+        projectData.generateClassIdToClassNameMap();
+        return projectData;
+    }
+
+    private static HitSpectra<SourceCodeBlock> createLineSpectra() {
+        HitSpectra<SourceCodeBlock> lineSpectra = new HitSpectra<>(null);
+        // add the nodes in reverse order to make node indices differ from counter IDs
+        for (int line = COUNTER_COUNT; line > 0; --line) {
+            lineSpectra.getOrCreateNode(new SourceCodeBlock(null, "test/Test.java", null, line, NodeType.NORMAL));
+        }
+        return lineSpectra;
+    }
+
+    private static List<int[][][]> createTraces(int traceCount, Random random) {
+        // a small set of sub traces and sequences, such that traces share most of them
+        int[][] subTraces = new int[30][];
+        for (int i = 0; i < subTraces.length; ++i) {
+            subTraces[i] = new int[1 + random.nextInt(6)];
+            int start = random.nextInt(COUNTER_COUNT - subTraces[i].length);
+            for (int j = 0; j < subTraces[i].length; ++j) {
+                subTraces[i][j] = statement(start + j);
+            }
+        }
+        int[][][] sequences = new int[20][][];
+        for (int i = 0; i < sequences.length; ++i) {
+            sequences[i] = new int[1 + random.nextInt(4)][];
+            for (int j = 0; j < sequences[i].length; ++j) {
+                sequences[i][j] = subTraces[random.nextInt(subTraces.length)];
+            }
+        }
+        List<int[][][]> traces = new ArrayList<>(traceCount);
+        for (int t = 0; t < traceCount; ++t) {
+            int[][][] trace = new int[5 + random.nextInt(30)][][];
+            for (int i = 0; i < trace.length; ++i) {
+                trace[i] = sequences[random.nextInt(sequences.length)];
+            }
+            traces.add(trace);
+        }
+        return traces;
+    }
+
+    private static int statement(int counterId) {
+        return CoberturaStatementEncoding.generateUniqueRepresentationForStatement(CLASS_ID, counterId);
+    }
+
+    private static SingleLinkedIntArrayQueue toQueue(int[] statements) {
+        SingleLinkedIntArrayQueue queue = new SingleLinkedIntArrayQueue(10);
+        for (int statement : statements) {
+            queue.addNoAutoBoxing(statement);
+        }
+        return queue;
+    }
+
+}
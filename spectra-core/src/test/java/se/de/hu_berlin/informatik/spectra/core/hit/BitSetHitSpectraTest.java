@@ -0,0 +1,136 @@
+package se.de.hu_berlin.informatik.spectra.core.hit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.spectra.core.INode;
+import se.de.hu_berlin.informatik.spectra.core.ITrace;
+import se.de.hu_berlin.informatik.spectra.core.InvolvementMatrix;
+import se.de.hu_berlin.informatik.spectra.test.data.SimpleSpectraProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BitSetHitSpectraTest {
+
+    private final double smallDelta = 0.00001;
+
+    /**
+     * Provide test data
+     */
+    private HitSpectra<String> getTestData() {
+        try {
+            return new SimpleSpectraProvider().loadHitSpectra();
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Copies the given spectra into a bit set spectra.
+     */
+    private BitSetHitSpectra<String> copy(HitSpectra<String> spectra) {
+        final BitSetHitSpectra<String> s = new BitSetHitSpectra<>(null);
+        List<INode<String>> nodes = new ArrayList<>(spectra.getNodes());
+        nodes.sort((o1, o2) -> Integer.compare(o1.getIndex(), o2.getIndex()));
+        for (INode<String> node : nodes) {
+            s.getOrCreateNode(node.getIdentifier());
+        }
+        List<HitTrace<String>> traces = new ArrayList<>(spectra.getTraces());
+        traces.sort((o1, o2) -> Integer.compare(o1.getIndex(), o2.getIndex()));
+        for (HitTrace<String> trace : traces) {
+            HitTrace<String> newTrace = s.addTrace(trace.getIdentifier(), trace.getIndex(), trace.isSuccessful());
+            for (int index : trace.getInvolvedNodes()) {
+                newTrace.setInvolvement(spectra.getNode(index).getIdentifier(), true);
+            }
+        }
+        return s;
+    }
+
+    @Test
+    public void involvementsEqualHashSetBasedSpectra() {
+        final HitSpectra<String> expected = this.getTestData();
+        final BitSetHitSpectra<String> actual = copy(expected);
+
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.getFailingTraces().size(), actual.getFailingTraces().size());
+        Assert.assertEquals(5, actual.getInvolvementMatrix().getRowCount());
+        Assert.assertEquals(2, actual.getInvolvementMatrix().getFailingRowCount());
+
+        for (INode<String> node : expected.getNodes()) {
+            INode<String> other = actual.getNode(node.getIdentifier());
+            Assert.assertEquals(node.getEF(), other.getEF(), smallDelta);
+            Assert.assertEquals(node.getEP(), other.getEP(), smallDelta);
+            Assert.assertEquals(node.getNF(), other.getNF(), smallDelta);
+            Assert.assertEquals(node.getNP(), other.getNP(), smallDelta);
+        }
+
+        for (HitTrace<String> trace : expected.getTraces()) {
+            ITrace<String> other = actual.getTrace(trace.getIdentifier());
+            Assert.assertEquals(trace.involvedNodesCount(), other.involvedNodesCount());
+            for (INode<String> node : expected.getNodes()) {
+                Assert.assertEquals(trace.isInvolved(node), other.isInvolved(node.getIdentifier()));
+            }
+        }
+    }
+
+    @Test
+    public void involvedNodesAreIteratedInIndexOrder() {
+        final BitSetHitSpectra<String> s = new BitSetHitSpectra<>(null);
+        final HitTrace<String> t1 = s.addTrace("t1", 1, false);
+        for (int i = 0; i < 200; ++i) {
+            s.getOrCreateNode("S" + i);
+        }
+        t1.setInvolvement("S130", true);
+        t1.setInvolvement("S3", true);
+        t1.setInvolvement("S64", true);
+
+        List<Integer> involved = new ArrayList<>(t1.getInvolvedNodes());
+        Assert.assertEquals(Arrays.asList(3, 64, 130), involved);
+        Assert.assertTrue(t1.getInvolvedNodes().contains(64));
+        Assert.assertFalse(t1.getInvolvedNodes().contains(65));
+
+        t1.setInvolvement("S64", false);
+        Assert.assertEquals(2, t1.involvedNodesCount());
+        Assert.assertFalse(t1.isInvolved("S64"));
+    }
+
+    @Test
+    public void removeNodes() {
+        final BitSetHitSpectra<String> actual = copy(this.getTestData());
+
+        actual.removeNodes(Collections.singletonList("S1"));
+        Assert.assertFalse(actual.hasNode("S1"));
+        Assert.assertEquals(1, actual.getTrace("t1").involvedNodesCount());
+        Assert.assertEquals(0, actual.getTrace("t3").involvedNodesCount());
+        Assert.assertEquals(2, actual.getNode("S2").getEF(), smallDelta);
+        Assert.assertEquals(1, actual.getNode("S2").getEP(), smallDelta);
+    }
+
+    @Test
+    public void matrixCounts() {
+        InvolvementMatrix matrix = new InvolvementMatrix();
+        for (int i = 0; i < 130; ++i) {
+            matrix.addRow(i % 3 != 0);
+        }
+        for (int i = 0; i < 130; i += 2) {
+            Assert.assertTrue(matrix.setInvolvement(i, 7, true));
+        }
+        Assert.assertFalse(matrix.setInvolvement(0, 7, true));
+        // rows 0, 6, 12, ..., 126 are failing and involved
+        Assert.assertEquals(22, matrix.getInvolvedRowCount(7, true));
+        Assert.assertEquals(43, matrix.getInvolvedRowCount(7, false));
+        Assert.assertEquals(0, matrix.getInvolvedRowCount(8, true));
+
+        matrix.setInvolvement(2, 8, true);
+        Assert.assertEquals(2, matrix.getCommonInvolvedCount(2, 2));
+        Assert.assertEquals(1, matrix.getCommonInvolvedCount(2, 4));
+
+        matrix.clearColumn(7);
+        Assert.assertEquals(0, matrix.getInvolvedRowCount(7, false));
+        Assert.assertEquals(1, matrix.getInvolvedCount(2));
+        Assert.assertEquals(8, matrix.nextInvolvedColumn(2, 0));
+    }
+
+}
@@ -15,7 +15,9 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 public class ExecutionTraceTest extends TestSettings {
 
@@ -72,6 +74,19 @@ public class ExecutionTraceTest extends TestSettings {
             Assert.assertTrue("element: " + testMappedTrace[i], mappedReverseIterator.hasNext());
             Assert.assertEquals(testMappedTrace[i], mappedReverseIterator.next().intValue());
         }
+
+        Assert.assertArrayEquals(testMappedTrace, trace.reconstructFullMappedTrace(sequenceIndexer));
+        List<Integer> forEachTrace = new ArrayList<>();
+        trace.forEachMapped(sequenceIndexer, forEachTrace::add);
+        Assert.assertArrayEquals(testMappedTrace, forEachTrace.stream().mapToInt(i -> i).toArray());
+
+        int[] buffer = new int[3];
+        InputSequence.TraceIterator bulkIterator = trace.iterator();
+        Assert.assertEquals(3, bulkIterator.next(buffer, 0, 3));
+        Assert.assertArrayEquals(s(1,2,1), buffer);
+        Assert.assertEquals(1, bulkIterator.next(buffer, 0, 3));
+        Assert.assertEquals(2, buffer[0]);
+        Assert.assertEquals(0, bulkIterator.next(buffer, 0, 3));
     }
 
     @Test
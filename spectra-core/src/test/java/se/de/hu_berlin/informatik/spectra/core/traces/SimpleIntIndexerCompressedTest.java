@@ -0,0 +1,61 @@
+package se.de.hu_berlin.informatik.spectra.core.traces;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.spectra.util.CachedIntArrayMap;
+import se.de.hu_berlin.informatik.spectra.util.CachedMap;
+import se.de.hu_berlin.informatik.spectra.util.SpectraFileUtils;
+import se.de.hu_berlin.informatik.utils.files.FileUtils;
+import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * @author Simon Heiden
+ *
+ */
+public class SimpleIntIndexerCompressedTest extends TestSettings {
+
+    private int[] s(int... ints) {
+        return ints;
+    }
+
+    @Test
+    public void sequenceLookupsReflectChangesOfTheMaps() {
+        Path outputDir = Paths.get(getStdTestDir(), "indexerViews");
+        FileUtils.delete(outputDir);
+        CachedMap<int[]> nodeIdSequences = new CachedIntArrayMap(outputDir.resolve("nodeIdSequences.zip"),
+                0, SpectraFileUtils.NODE_ID_SEQUENCES_DIR, true);
+        nodeIdSequences.put(1, s(7,8,9));
+        nodeIdSequences.put(2, s(12,13,14));
+        CachedMap<int[]> subTraceIdSequences = new CachedIntArrayMap(outputDir.resolve("subTraceIdSequences.zip"),
+                0, SpectraFileUtils.SUB_TRACE_ID_SEQUENCES_DIR, true);
+        subTraceIdSequences.put(1, s(1,1,2));
+
+        SequenceIndexerCompressed indexer = new SimpleIntIndexerCompressed(nodeIdSequences, subTraceIdSequences);
+        Assert.assertArrayEquals(s(7,8,9), indexer.getNodeIdSequence(1));
+        Assert.assertArrayEquals(s(1,1,2), indexer.getSubTraceIdSequence(1));
+
+        // changes through the returned maps
+        indexer.getNodeIdSequences().put(3, s(23,22));
+        indexer.getSubTraceIdSequences().put(1, s(3,2));
+        Assert.assertArrayEquals(s(23,22), indexer.getNodeIdSequence(3));
+        Assert.assertArrayEquals(s(3,2), indexer.getSubTraceIdSequence(1));
+
+        // changes through the indexer
+        indexer.removeFromSequences(8);
+        Assert.assertArrayEquals(s(7,9), indexer.getNodeIdSequence(1));
+        indexer.removeFromSequences(Arrays.asList(12, 22));
+        Assert.assertArrayEquals(s(13,14), indexer.getNodeIdSequence(2));
+        Assert.assertArrayEquals(s(23), indexer.getNodeIdSequence(3));
+
+        // closing releases the views, which are created again on the next lookup
+        indexer.close();
+        Assert.assertArrayEquals(s(7,9), indexer.getNodeIdSequence(1));
+        Assert.assertArrayEquals(s(3,2), indexer.getSubTraceIdSequence(1));
+        indexer.close();
+    }
+
+}
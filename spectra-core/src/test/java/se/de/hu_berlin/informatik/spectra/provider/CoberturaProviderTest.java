@@ -16,9 +16,18 @@ import se.de.hu_berlin.informatik.spectra.core.ISpectra;
 import se.de.hu_berlin.informatik.spectra.core.ITrace;
 import se.de.hu_berlin.informatik.spectra.core.Node.NodeType;
 import se.de.hu_berlin.informatik.spectra.core.SourceCodeBlock;
+import se.de.hu_berlin.informatik.spectra.core.count.CountTrace;
+import se.de.hu_berlin.informatik.spectra.core.hit.HierarchicalHitSpectra;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.CoberturaSpectraProviderFactory;
+import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaCountXMLProvider;
+import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaCoverageWrapper;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaXMLProvider;
+import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.HierarchicalCoberturaXMLProvider;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CoberturaProviderTest {
 
@@ -84,4 +93,124 @@ public class CoberturaProviderTest {
         }
         Assert.assertEquals(count, 3563);
     }
+
+    private static List<CoberturaCoverageWrapper> getParallelTestFiles() {
+        List<CoberturaCoverageWrapper> files = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            files.add(new CoberturaCoverageWrapper(
+                    new File("src/test/resources/fk/stardust/provider/large-coverage.xml"), "large" + i, i % 2 == 0));
+            files.add(new CoberturaCoverageWrapper(
+                    new File("src/test/resources/fk/stardust/provider/simple-coverage.xml"), "simple" + i, true));
+        }
+        return files;
+    }
+
+    @Test
+    public void loadCoverageInParallel() {
+        final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        Assert.assertTrue(c.addData(getParallelTestFiles(), 3));
+        final ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> s = c.loadSpectra();
+
+        Assert.assertEquals(16245 + 3, s.getNodes().size());
+        Assert.assertEquals(10, s.getTraces().size());
+        // traces are added in the given order
+        for (int i = 0; i < 5; ++i) {
+            ITrace<SourceCodeBlock> large = s.getTrace("large" + i);
+            Assert.assertEquals(2 * i + 1, large.getIndex());
+            Assert.assertEquals(i % 2 == 0, large.isSuccessful());
+            Assert.assertEquals(3563, large.involvedNodesCount());
+            Assert.assertEquals(2 * i + 2, s.getTrace("simple" + i).getIndex());
+        }
+    }
+
+    @Test
+    public void loadCountCoverageInParallel() {
+        final CoberturaCountXMLProvider<CountTrace<SourceCodeBlock>> sequential = CoberturaSpectraProviderFactory.getCountSpectraFromXMLProvider(true);
+        for (CoberturaCoverageWrapper file : getParallelTestFiles()) {
+            Assert.assertTrue(sequential.addData(file));
+        }
+        final CoberturaCountXMLProvider<CountTrace<SourceCodeBlock>> parallel = CoberturaSpectraProviderFactory.getCountSpectraFromXMLProvider(true);
+        Assert.assertTrue(parallel.addData(getParallelTestFiles(), 3));
+
+        final ISpectra<SourceCodeBlock, ? super CountTrace<SourceCodeBlock>> expected = sequential.loadSpectra();
+        final ISpectra<SourceCodeBlock, ? super CountTrace<SourceCodeBlock>> actual = parallel.loadSpectra();
+        assertSameSpectra(expected, actual);
+        boolean hasMultipleHits = false;
+        for (ITrace<SourceCodeBlock> expectedTrace : expected.getTraces()) {
+            CountTrace<?> actualTrace = (CountTrace<?>) actual.getTrace(expectedTrace.getIdentifier());
+            for (INode<SourceCodeBlock> node : expected.getNodes()) {
+                int hits = ((CountTrace<?>) expectedTrace).getHits(node.getIndex());
+                hasMultipleHits |= hits > 1;
+                Assert.assertEquals(hits, actualTrace.getHits(node.getIndex()));
+            }
+        }
+        Assert.assertTrue(hasMultipleHits);
+    }
+
+    @Test
+    public void loadHierarchicalCoverageInParallel() {
+        final HierarchicalCoberturaXMLProvider<HitTrace<SourceCodeBlock>> sequential = CoberturaSpectraProviderFactory.getHierarchicalHitSpectraFromXMLProvider(true);
+        for (CoberturaCoverageWrapper file : getParallelTestFiles()) {
+            Assert.assertTrue(sequential.addData(file));
+        }
+        final HierarchicalCoberturaXMLProvider<HitTrace<SourceCodeBlock>> parallel = CoberturaSpectraProviderFactory.getHierarchicalHitSpectraFromXMLProvider(true);
+        Assert.assertTrue(parallel.addData(getParallelTestFiles(), 3));
+
+        assertSameSpectra(sequential.loadSpectra(), parallel.loadSpectra());
+        final HierarchicalHitSpectra<String, String> expected = sequential.loadHierarchicalSpectra();
+        final HierarchicalHitSpectra<String, String> actual = parallel.loadHierarchicalSpectra();
+        Assert.assertFalse(expected.getNodes().isEmpty());
+        assertSameSpectra(expected, actual);
+    }
+
+    private static List<CoberturaCoverageWrapper> getTestFilesWithMalformedFile() {
+        List<CoberturaCoverageWrapper> files = new ArrayList<>();
+        files.add(new CoberturaCoverageWrapper(
+                new File("src/test/resources/fk/stardust/provider/simple-coverage.xml"), "simple0", true));
+        files.add(new CoberturaCoverageWrapper(
+                new File("src/test/resources/fk/stardust/provider/malformed-coverage.xml"), "malformed", false));
+        files.add(new CoberturaCoverageWrapper(
+                new File("src/test/resources/fk/stardust/provider/simple-coverage.xml"), "simple1", false));
+        return files;
+    }
+
+    @Test
+    public void loadMalformedCoverage() {
+        final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> sequential = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        List<CoberturaCoverageWrapper> files = getTestFilesWithMalformedFile();
+        Assert.assertTrue(sequential.addData(files.get(0)));
+        Assert.assertFalse(sequential.addData(files.get(1)));
+        Assert.assertTrue(sequential.addData(files.get(2)));
+        final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> parallel = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        Assert.assertFalse(parallel.addData(getTestFilesWithMalformedFile(), 3));
+
+        final ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> expected = sequential.loadSpectra();
+        // the malformed file adds neither a trace nor any nodes
+        checkSimpleNodes(expected);
+        Assert.assertEquals(2, expected.getTraces().size());
+        Assert.assertNull(expected.getTrace("malformed"));
+        Assert.assertEquals(1, expected.getTrace("simple0").getIndex());
+        Assert.assertEquals(2, expected.getTrace("simple1").getIndex());
+        assertSameSpectra(expected, parallel.loadSpectra());
+    }
+
+    private static <T> void assertSameSpectra(final ISpectra<T, ?> expected, final ISpectra<T, ?> actual) {
+        Assert.assertEquals(expected.getNodes().size(), actual.getNodes().size());
+        Assert.assertEquals(expected.getTraces().size(), actual.getTraces().size());
+        for (INode<T> node : expected.getNodes()) {
+            INode<T> actualNode = actual.getNode(node.getIdentifier());
+            Assert.assertNotNull(node.getIdentifier().toString(), actualNode);
+            Assert.assertEquals(node.getIndex(), actualNode.getIndex());
+        }
+        for (ITrace<T> trace : expected.getTraces()) {
+            ITrace<T> actualTrace = actual.getTrace(trace.getIdentifier());
+            Assert.assertEquals(trace.getIndex(), actualTrace.getIndex());
+            Assert.assertEquals(trace.isSuccessful(), actualTrace.isSuccessful());
+            Assert.assertEquals(trace.involvedNodesCount(), actualTrace.involvedNodesCount());
+            for (INode<T> node : expected.getNodes()) {
+                Assert.assertEquals(trace.isInvolved(node), actualTrace.isInvolved(actual.getNode(node.getIndex())));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,71 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.spectra.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayToIntSequenceProcessor;
+import se.de.hu_berlin.informatik.utils.compression.single.IntSequenceToCompressedByteArrayProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Simon Heiden
+ *
+ */
+public class CompressedByteArrayToIntArrayDecoderTest {
+
+    @Test
+    public void decodeSparseTrace() {
+        assertDecodedSequence(Arrays.asList(1, 3, 4, 17, 1024, 1025));
+        assertDecodedSequence(Arrays.asList(0, 1));
+        assertDecodedSequence(Arrays.asList(1));
+    }
+
+    @Test
+    public void decodeSequenceWithZeros() {
+        // count traces contain hit counts of zero
+        assertDecodedSequence(Arrays.asList(0, 0, 5, 0, 0, 0, 12, 0));
+        assertDecodedSequence(Arrays.asList(0, 0, 0));
+    }
+
+    @Test
+    public void decodeRandomSequences() {
+        Random rand = new Random(12315415);
+        for (int i = 0; i < 100; ++i) {
+            // use different maximum values to cover different numbers of used bits
+            int bound = 1 << (1 + rand.nextInt(30));
+            List<Integer> sequence = new ArrayList<>();
+            sequence.add(rand.nextInt(2));
+            int length = rand.nextInt(500);
+            for (int j = 0; j < length; ++j) {
+                sequence.add(rand.nextInt(bound));
+            }
+            assertDecodedSequence(sequence);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedSequenceIsRejected() {
+        byte[] compressed = new IntSequenceToCompressedByteArrayProcessor()
+                .submit(Arrays.asList(1, 300, 301, 302, 303)).getResult();
+        CompressedByteArrayToIntArrayDecoder.decode(Arrays.copyOf(compressed, compressed.length - 2));
+    }
+
+    private static void assertDecodedSequence(List<Integer> sequence) {
+        byte[] compressed = new IntSequenceToCompressedByteArrayProcessor().submit(sequence).getResult();
+
+        int[] decoded = CompressedByteArrayToIntArrayDecoder.decode(compressed);
+        List<Integer> expected = new CompressedByteArrayToIntSequenceProcessor().submit(compressed).getResult();
+        Assert.assertEquals(sequence, expected);
+        Assert.assertEquals(expected.size(), decoded.length);
+        for (int i = 0; i < decoded.length; ++i) {
+            Assert.assertEquals(expected.get(i).intValue(), decoded[i]);
+        }
+    }
+
+}
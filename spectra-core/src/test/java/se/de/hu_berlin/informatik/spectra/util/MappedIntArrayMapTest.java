@@ -0,0 +1,143 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.spectra.util;
+
+import org.junit.*;
+import se.de.hu_berlin.informatik.utils.files.FileUtils;
+import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * @author Simon
+ *
+ */
+public class MappedIntArrayMapTest extends TestSettings {
+
+    @Test
+    public void mappedCachedMapTest() throws Exception {
+        Path output = Paths.get(getStdTestDir(), "mappedMap", "map.zip");
+        FileUtils.delete(output);
+
+        CachedMap<int[]> map = new CachedIntArrayMap(output, 50, 500, "test", false);
+        Map<Integer, int[]> checkMap = new HashMap<>();
+
+        Random rand = new Random(12315415);
+        for (int i = 0; i < 1000; ++i) {
+            int[] array = new int[rand.nextInt(100)];
+            for (int j = 0; j < array.length; ++j) {
+                array[j] = rand.nextInt();
+            }
+            map.put(i, array);
+            checkMap.put(i, array);
+        }
+
+        try (MappedIntArrayMap mappedMap = new MappedIntArrayMap(map, output.getParent(), 100)) {
+            checkIfEqual(mappedMap, checkMap);
+
+            // concurrent lookups
+            IntStream.range(0, 10000).parallel().forEach(i -> {
+                int key = i % 1000;
+                assertArrayEquals(checkMap.get(key), mappedMap.get(key));
+            });
+
+            assertNull(mappedMap.get(1000));
+            assertNull(mappedMap.get(-1));
+            assertEquals(-1, mappedMap.length(1000));
+        }
+    }
+
+    @Test
+    public void mappedSparseMapTest() throws Exception {
+        Map<Integer, int[]> checkMap = new HashMap<>();
+        checkMap.put(-5, new int[]{1, 2, 3});
+        checkMap.put(17, new int[]{});
+        checkMap.put(100000, new int[]{4});
+
+        try (MappedIntArrayMap mappedMap = new MappedIntArrayMap(checkMap, Paths.get(getStdTestDir(), "mappedMap"))) {
+            checkIfEqual(mappedMap, checkMap);
+            assertFalse(mappedMap.containsKey(18));
+        }
+    }
+
+    @Test
+    public void emptyArrayAtSegmentBoundaryTest() throws Exception {
+        // keeps the order of the arrays in the data file
+        Map<Integer, int[]> checkMap = new LinkedHashMap<>();
+        checkMap.put(0, new int[]{1, 2});
+        checkMap.put(1, new int[]{});
+        checkMap.put(2, new int[]{3, 4});
+        // at the boundary of the first segment, in the middle of the file
+        checkMap.put(3, new int[]{});
+        // skips to the next segment
+        checkMap.put(4, new int[]{5, 6, 7});
+        checkMap.put(5, new int[]{8, 9, 10, 11});
+        // at the boundary of the third segment, at the end of the file
+        checkMap.put(6, new int[]{});
+
+        try (MappedIntArrayMap mappedMap = new MappedIntArrayMap(checkMap, Paths.get(getStdTestDir(), "mappedMap"), 0, 4)) {
+            checkIfEqual(mappedMap, checkMap);
+            assertEquals(0, mappedMap.length(6));
+            try {
+                mappedMap.get(6, 0);
+                fail("empty array should have no values");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void onlyEmptyArraysTest() throws Exception {
+        Map<Integer, int[]> checkMap = new HashMap<>();
+        checkMap.put(1, new int[]{});
+        checkMap.put(2, new int[]{});
+
+        try (MappedIntArrayMap mappedMap = new MappedIntArrayMap(checkMap, Paths.get(getStdTestDir(), "mappedMap"))) {
+            checkIfEqual(mappedMap, checkMap);
+        }
+    }
+
+    @Test
+    public void closedMapTest() throws Exception {
+        Map<Integer, int[]> checkMap = new HashMap<>();
+        checkMap.put(1, new int[]{1, 2, 3});
+
+        MappedIntArrayMap mappedMap = new MappedIntArrayMap(checkMap, Paths.get(getStdTestDir(), "mappedMap"));
+        assertArrayEquals(checkMap.get(1), mappedMap.get(1));
+        mappedMap.close();
+        assertTrue(mappedMap.isClosed());
+        try {
+            mappedMap.get(1);
+            fail("closed map should not be accessible");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private void checkIfEqual(MappedIntArrayMap map, Map<Integer, int[]> checkMap) {
+        assertEquals(checkMap.size(), map.size());
+
+        for (Entry<Integer, int[]> entry : checkMap.entrySet()) {
+            int key = entry.getKey();
+            assertTrue(map.containsKey(key));
+            assertEquals(entry.getValue().length, map.length(key));
+            for (int i = 0; i < entry.getValue().length; ++i) {
+                assertEquals(entry.getValue()[i], map.get(key, i));
+            }
+            assertArrayEquals("key: " + key, entry.getValue(), map.get(key));
+        }
+    }
+
+}
@@ -22,9 +22,11 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.zip.ZipException;
 
 import static org.junit.Assert.*;
@@ -427,6 +429,82 @@ public class SpectraFileUtilsTest extends TestSettings {
         assertTrue(output3.toFile().length() <= output2.toFile().length());
     }
 
+    /**
+     *
+     */
+    @Test
+    public void testSerialAndParallelTraceDecoding() {
+        final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large2", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+        ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> spectra = c.loadSpectra();
+
+        final CoberturaCountXMLProvider<CountTrace<SourceCodeBlock>> c2 = CoberturaSpectraProviderFactory.getCountSpectraFromXMLProvider(true);
+        c2.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c2.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+        ISpectra<SourceCodeBlock, ? super CountTrace<SourceCodeBlock>> countSpectra = c2.loadSpectra();
+
+        Path output1 = Paths.get(getStdTestDir(), "spectra_block_decoding.zip");
+        FileUtils.delete(output1);
+        SpectraFileUtils.saveSpectraToZipFile(spectra, output1, true, false, true);
+        // loading uses the parallel decoder and has to reproduce the saved spectra
+        ISpectra<SourceCodeBlock, ?> spectra1 = SpectraFileUtils.loadBlockSpectraFromZipFile(output1);
+        assertEquals(spectra, spectra1);
+        assertSameTracesDecoded(spectra1, output1);
+
+        Path output2 = Paths.get(getStdTestDir(), "spectra_block_decoding_sp.zip");
+        FileUtils.delete(output2);
+        SpectraFileUtils.saveSpectraToZipFile(spectra, output2, true, true, true);
+        ISpectra<SourceCodeBlock, ?> spectra2 = SpectraFileUtils.loadBlockSpectraFromZipFile(output2);
+        assertEquals(spectra, spectra2);
+        assertSameTracesDecoded(spectra2, output2);
+
+        Path output3 = Paths.get(getStdTestDir(), "count_spectra_block_decoding.zip");
+        FileUtils.delete(output3);
+        SpectraFileUtils.saveSpectraToZipFile(countSpectra, output3, true, false, true);
+        CountSpectra<SourceCodeBlock> spectra3 = SpectraFileUtils.loadBlockCountSpectraFromZipFile(output3);
+        assertEquals(countSpectra, spectra3);
+        assertSameTracesDecoded(spectra3, output3);
+    }
+
+    private void assertSameTracesDecoded(ISpectra<SourceCodeBlock, ?> spectra, Path zipFile) {
+        List<DecodedTrace> serialTraces = new ArrayList<>();
+        int serialCount = SpectraFileUtils.streamTracesFromZipFile(zipFile, 1, serialTraces::add);
+        List<DecodedTrace> parallelTraces = new ArrayList<>();
+        int parallelCount = SpectraFileUtils.streamTracesFromZipFile(zipFile, 4, parallelTraces::add);
+        List<DecodedTrace> defaultTraces = new ArrayList<>();
+        SpectraFileUtils.streamTracesFromZipFile(zipFile, defaultTraces::add);
+
+        assertEquals(spectra.getTraces().size(), serialCount);
+        assertEquals(serialCount, parallelCount);
+        assertEquals(serialCount, serialTraces.size());
+        for (int i = 0; i < serialTraces.size(); ++i) {
+            DecodedTrace expected = serialTraces.get(i);
+            for (DecodedTrace actual : Arrays.asList(parallelTraces.get(i), defaultTraces.get(i))) {
+                assertEquals(i + 1, actual.getIndex());
+                assertEquals(expected.getIndex(), actual.getIndex());
+                assertEquals(expected.getIdentifier(), actual.getIdentifier());
+                assertEquals(expected.isSuccessful(), actual.isSuccessful());
+                assertArrayEquals(expected.getNodeIndices(), actual.getNodeIndices());
+                assertArrayEquals(expected.getHitCounts(), actual.getHitCounts());
+            }
+
+            // the decoded trace has to match the loaded trace (node indices refer to the saved node order)
+            ITrace<SourceCodeBlock> trace = spectra.getTrace(expected.getIdentifier());
+            assertNotNull(trace);
+            assertEquals(trace.isSuccessful(), expected.isSuccessful());
+            assertEquals(trace.involvedNodesCount(), expected.getNodeIndices().length);
+            for (int j = 0; j < expected.getNodeIndices().length; ++j) {
+                int nodeIndex = expected.getNodeIndices()[j];
+                assertTrue(trace.isInvolved(nodeIndex));
+                if (trace instanceof CountTrace) {
+                    assertEquals(((CountTrace<SourceCodeBlock>) trace).getHits(nodeIndex), expected.getHitCounts()[j]);
+                }
+            }
+        }
+    }
+
     //TODO:doesn't seem to work for some kind of reasons... dunno why
 
     /**
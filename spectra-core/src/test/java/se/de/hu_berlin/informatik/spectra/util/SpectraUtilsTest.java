@@ -5,6 +5,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 import org.junit.*;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
 import org.junit.contrib.java.lang.system.SystemErrRule;
@@ -17,9 +20,11 @@ import se.de.hu_berlin.informatik.spectra.core.branch.ProgramBranchSpectra;
 import se.de.hu_berlin.informatik.spectra.core.branch.StatementSpectraToBranchSpectra;
 import se.de.hu_berlin.informatik.spectra.core.cfg.CFG;
 import se.de.hu_berlin.informatik.spectra.core.cfg.DynamicCFG;
+import se.de.hu_berlin.informatik.spectra.core.cfg.Node;
 import se.de.hu_berlin.informatik.spectra.core.SourceCodeBlock;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitSpectra;
 import se.de.hu_berlin.informatik.spectra.core.hit.HitTrace;
+import se.de.hu_berlin.informatik.spectra.core.traces.ExecutionTrace;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.CoberturaSpectraProviderFactory;
 import se.de.hu_berlin.informatik.spectra.provider.cobertura.xml.CoberturaXMLProvider;
 import se.de.hu_berlin.informatik.spectra.test.data.SimpleSpectraProvider2;
@@ -227,6 +232,39 @@ public class SpectraUtilsTest extends TestSettings {
 		
 		Assert.assertEquals(cfg, cfg2);
     }
+    
+    @Test
+    public void testCFGGenerationMatchesExpandedTraces() throws IOException {
+        ISpectra<SourceCodeBlock, ? extends ITrace<SourceCodeBlock>> statementSpectra = loadStatementSpectra("Lang-56b.zip");
+
+        DynamicCFG<SourceCodeBlock> cfg = new DynamicCFG<>(statementSpectra);
+        cfg.generateCompleteCFG();
+
+        // reference: connect each pair of adjacent nodes in the fully expanded traces
+        Map<Integer, Map<Integer, Long>> expectedEdges = new HashMap<>();
+        for (ITrace<SourceCodeBlock> trace : statementSpectra.getTraces()) {
+            for (ExecutionTrace executionTrace : trace.getExecutionTraces()) {
+                PrimitiveIterator.OfInt iterator = executionTrace.mappedIterator(statementSpectra.getIndexer());
+                int lastNode = -1;
+                while (iterator.hasNext()) {
+                    int node = iterator.nextInt();
+                    Assert.assertNotNull(cfg.getNode(node));
+                    if (lastNode >= 0) {
+                        expectedEdges.computeIfAbsent(lastNode, k -> new HashMap<>()).merge(node, 1L, Long::sum);
+                    }
+                    lastNode = node;
+                }
+            }
+        }
+
+        for (Node node : cfg.getNodes().values()) {
+            Map<Integer, Long> expected = expectedEdges.getOrDefault(node.getIndex(), new HashMap<>());
+            Assert.assertEquals(expected.size(), node.hasSuccessors() ? node.getSuccessorCount() : 0);
+            for (int i = 0; node.hasSuccessors() && i < node.getSuccessorCount(); ++i) {
+                Assert.assertEquals(expected.get(node.getSuccessors()[i]), Long.valueOf(node.getSuccessorHits()[i]));
+            }
+        }
+    }
 
 	private ISpectra<SourceCodeBlock, ? extends ITrace<SourceCodeBlock>> loadStatementSpectra(String fileName) throws IOException {
 		Path directory = Paths.get(getStdResourcesDir(), "traceSpectra").toAbsolutePath();
@@ -67,6 +67,10 @@ public abstract class AbstractSpectraGenerator {
      * the maximum of test execution errors to tolerate
      * @param pipeBufferSize
      * how many elements can be in parallel in the pipe buffers
+     * @param workerCount
+     * how many tests may be executed in parallel in separate JVMs
+     * @param usePersistentJVM
+     * whether tests in separate JVMs shall reuse a persistent test runner JVM
      * @param agentPort
      * port to use by the java agent
      * @param failingtests
@@ -83,7 +87,7 @@ public abstract class AbstractSpectraGenerator {
                                         String testClassPath, String testClassList, String testList,
                                         final String javaHome, boolean useFullSpectra, boolean useSeparateJVM, 
                                         boolean useJava7, boolean condenseNodes,
-                                        Long timeout, int testRepeatCount, int maxErrors, int pipeBufferSize, 
+                                        Long timeout, int testRepeatCount, int maxErrors, int pipeBufferSize, int workerCount, boolean usePersistentJVM, 
                                         Integer agentPort, List<String> failingtests,
                                         String[] testRunnerJVMArgs, String... pathsToBinaries) {
         final Path projectDir = FileUtils.checkIfAnExistingDirectory(null, projectDirOptionValue);
@@ -171,7 +175,7 @@ public abstract class AbstractSpectraGenerator {
 
         runTestsAndGenerateSpectra(
                 factory, projectDirOptionValue, sourceDirOptionValue, testClassPath, testClassList, testList, javaHome,
-                useFullSpectra, useSeparateJVM, useJava7, condenseNodes, timeout, testRepeatCount, maxErrors, pipeBufferSize, agentPort, failingtests,
+                useFullSpectra, useSeparateJVM, useJava7, condenseNodes, timeout, testRepeatCount, maxErrors, pipeBufferSize, workerCount, usePersistentJVM, agentPort, failingtests,
                 projectDir, testClassDir, outputDir, instrumentedDir, testRunnerJVMArgs, pathsToBinaries);
 
 
@@ -188,7 +192,7 @@ public abstract class AbstractSpectraGenerator {
                                                    String sourceDirOptionValue, String testClassPath, String testClassList, String testList,
                                                    final String javaHome, boolean useFullSpectra, boolean useSeparateJVM, 
                                                    boolean useJava7, boolean condenseNodes, Long timeout,
-                                                   int testRepeatCount, int maxErrors, int pipeBufferSize, 
+                                                   int testRepeatCount, int maxErrors, int pipeBufferSize, int workerCount, boolean usePersistentJVM, 
                                                    Integer agentPort, List<String> failingtests, final Path projectDir,
                                                    final Path testClassDir, final String outputDir, final Path instrumentedDir, 
                                                    String[] testRunnerJVMArgs, String... pathsToBinaries) {
@@ -196,7 +200,7 @@ public abstract class AbstractSpectraGenerator {
         String[] newArgs = getArgs(factory.getStrategy(), factory.getSpecificArgsForMainTestRunner(),
                 projectDirOptionValue, sourceDirOptionValue, testClassDir, testClassPath, outputDir, instrumentedDir,
                 testClassList, testList, javaHome, useFullSpectra, useSeparateJVM, useJava7, condenseNodes, timeout, testRepeatCount,
-                maxErrors, pipeBufferSize, agentPort, failingtests, testRunnerJVMArgs, pathsToBinaries);
+                maxErrors, pipeBufferSize, workerCount, usePersistentJVM, agentPort, failingtests, testRunnerJVMArgs, pathsToBinaries);
 
         String systemClassPath = new ClassPathParser().parseSystemClasspath().getClasspath();
 
@@ -216,7 +220,7 @@ public abstract class AbstractSpectraGenerator {
     private static String[] getArgs(Strategy strategy, String[] specificArgs, String projectDirOptionValue, String sourceDirOptionValue, final Path testClassDir,
                                     String testClassPath, final String outputDir, final Path instrumentedDir, String testClassList,
                                     String testList, final String javaHome, boolean useFullSpectra, boolean useSeparateJVM, boolean useJava7, boolean condenseNodes,
-                                    Long timeout, int testRepeatCount, int maxErrors, int pipeBufferSize, Integer agentPort, List<String> failingtests, 
+                                    Long timeout, int testRepeatCount, int maxErrors, int pipeBufferSize, int workerCount, boolean usePersistentJVM, Integer agentPort, List<String> failingtests, 
                                     String[] testRunnerJVMArgs, String... pathsToBinaries) {
         //build arguments for the "real" application (running the tests...)
         String[] newArgs = {
@@ -289,6 +293,14 @@ public abstract class AbstractSpectraGenerator {
             newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.PIPE_BUFFER_SIZE.asArg(), String.valueOf(pipeBufferSize));
         }
 
+        if (workerCount > 1) {
+            newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.WORKER_COUNT.asArg(), String.valueOf(workerCount));
+        }
+
+        if (usePersistentJVM) {
+            newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.PERSISTENT_JVM.asArg());
+        }
+
         if (agentPort != null) {
             newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.AGENT_PORT.asArg(), String.valueOf(agentPort.intValue()));
         }
@@ -324,6 +336,8 @@ public abstract class AbstractSpectraGenerator {
 		private String[] customJvmArgs;
 		private String[] customSmallJvmArgs;
 		private int pipeBufferSize;
+		private int workerCount = 1;
+		private boolean usePersistentJVM = false;
 
         public AbstractBuilder setProjectDir(String projectDir) {
             this.projectDir = projectDir;
@@ -416,6 +430,16 @@ public abstract class AbstractSpectraGenerator {
             return this;
         }
 
+        public AbstractBuilder setWorkerCount(int workerCount) {
+            this.workerCount = workerCount;
+            return this;
+        }
+
+        public AbstractBuilder usePersistentJVM(boolean usePersistentJVM) {
+            this.usePersistentJVM = usePersistentJVM;
+            return this;
+        }
+
         public AbstractBuilder setFailingTests(List<String> failingTests) {
             this.failingTests = failingTests;
             return this;
@@ -444,7 +468,7 @@ public abstract class AbstractSpectraGenerator {
                     factory, projectDir, sourceDir, testClassDir, outputDir,
                     testClassPath, testClassList, testList, javaHome,
                     useFullSpectra, useSeparateJVM, useJava7, condenseNodes, timeout, testRepeatCount,
-                    maxErrors, pipeBufferSize, agentPort, failingTests, customSmallJvmArgs, 
+                    maxErrors, pipeBufferSize, workerCount, usePersistentJVM, agentPort, failingTests, customSmallJvmArgs, 
                     (String[]) classesToInstrument);
         }
 
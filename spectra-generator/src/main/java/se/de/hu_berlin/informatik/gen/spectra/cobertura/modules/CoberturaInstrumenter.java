@@ -27,6 +27,7 @@ import java.nio.file.Paths;
 final public class CoberturaInstrumenter extends AbstractInstrumenter {
 
     private final File coberturaDataFile;
+    private String instrumentationCacheDir;
 
     public CoberturaInstrumenter(Path projectDir, String instrumentedDir, String testClassPath,
                                  String[] pathsToBinaries, File coberturaDataFile) {
@@ -34,6 +35,15 @@ final public class CoberturaInstrumenter extends AbstractInstrumenter {
         this.coberturaDataFile = coberturaDataFile;
     }
 
+    /**
+     * @param instrumentationCacheDir
+     * a directory that holds previously instrumented classes; instrumented
+     * classes are reused if their original bytecode did not change
+     */
+    public void setInstrumentationCacheDir(String instrumentationCacheDir) {
+        this.instrumentationCacheDir = instrumentationCacheDir;
+    }
+
     @Override
     public int instrumentClasses() {
         /* #====================================================================================
@@ -49,6 +59,11 @@ final public class CoberturaInstrumenter extends AbstractInstrumenter {
                     Instrument.CmdOptions.CLASS_PATH.asArg(), testClassPath);
         }
 
+        if (instrumentationCacheDir != null) {
+            instrArgs = Misc.addToArrayAndReturnResult(instrArgs,
+                    Instrument.CmdOptions.INSTRUMENTATION_CACHE.asArg(), instrumentationCacheDir);
+        }
+
         if (pathsToBinaries != null) {
             instrArgs = Misc.addToArrayAndReturnResult(instrArgs, Instrument.CmdOptions.INSTRUMENT_CLASSES.asArg());
             instrArgs = Misc.joinArrays(instrArgs, pathsToBinaries);
@@ -80,7 +95,9 @@ final public class CoberturaInstrumenter extends AbstractInstrumenter {
                     + "Will be appended to the regular class path if this option is set.", false),
             INSTRUMENT_CLASSES(Option.builder("c").longOpt("classes").required()
                     .hasArgs().desc("A list of classes/directories to instrument with Cobertura.").build()),
-            OUTPUT("o", "output", true, "Path to output directory.", true);
+            OUTPUT("o", "output", true, "Path to output directory.", true),
+            INSTRUMENTATION_CACHE("ic", "instrumentationCache", true, "Path to a directory that holds previously instrumented classes "
+                    + "(e.g., shared between the buggy and fixed version of a project).", false);
 
             /* the following code blocks should not need to be changed */
             final private OptionWrapper option;
@@ -168,6 +185,9 @@ final public class CoberturaInstrumenter extends AbstractInstrumenter {
             builder.setDataFile(coberturaDataFile.toString());
             builder.setDestinationDirectory(instrumentedDir.toString());
             builder.threadsafeRigorous(true);
+            if (options.hasOption(CmdOptions.INSTRUMENTATION_CACHE)) {
+                builder.setInstrumentationCacheDirectory(options.getOptionValue(CmdOptions.INSTRUMENTATION_CACHE));
+            }
             for (String file : classesToInstrument) {
                 builder.addFileToInstrument(file);
             }
@@ -5,8 +5,10 @@ package se.de.hu_berlin.informatik.gen.spectra.cobertura.modules.sub;
 
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInNewJVMModuleWithJava7RunnerAndServer;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 /**
@@ -21,6 +23,8 @@ import java.nio.file.Path;
  */
 public class CoberturaRunTestInNewJVMModuleWithJava7Runner extends AbstractRunTestInNewJVMModuleWithJava7RunnerAndServer<ProjectData> {
 
+    final private ProjectDataCodec.Decoder decoder = new ProjectDataCodec.Decoder();
+
     public CoberturaRunTestInNewJVMModuleWithJava7Runner(final String testOutput,
                                                          final boolean debugOutput, final Long timeout, final int repeatCount,
                                                          String instrumentedClassPath, final Path dataFile, final String javaHome, File projectDir,
@@ -29,6 +33,11 @@ public class CoberturaRunTestInNewJVMModuleWithJava7Runner extends AbstractRunTe
                 dataFile, javaHome, projectDir, customJvmArgs, properties);
     }
 
+    @Override
+    protected ProjectData decodeData(ByteBuffer data) {
+        return decoder.decode(data);
+    }
+
     @Override
     public boolean prepareBeforeRunningTest() {
         // not necessary
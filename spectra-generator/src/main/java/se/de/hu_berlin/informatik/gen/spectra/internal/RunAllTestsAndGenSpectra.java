@@ -38,6 +38,8 @@ public class RunAllTestsAndGenSpectra {
         MAX_ERRORS("maxErr", "maxErrors", true, "The maximum of test execution errors to tolerate. Default: 0", false),
         PIPE_BUFFER_SIZE("pb", "pipeBuffer", true, "Amount of elements in the test pipeline buffers. "
         		+ "(Increases parallelity; don't set too high!) Default: 1", false),
+        WORKER_COUNT("w", "workers", true, "Amount of tests to execute in parallel in separate worker JVMs. Each worker keeps a persistent "
+        		+ "test runner JVM. Only has an effect if tests are run in separate JVMs and if the strategy supports it. Default: 1", false),
         TEST_LIST("t", "testList", true, "File with all tests to execute.", 0),
         TEST_CLASS_LIST("tcl", "testClassList", true, "File with a list of test classes from which all tests shall be executed.", 0),
         TIMEOUT("tm", "timeout", true, "A timeout (in seconds) for the execution of each test. Tests that run "
@@ -47,6 +49,8 @@ public class RunAllTestsAndGenSpectra {
         FULL_SPECTRA("f", "fullSpectra", false, "Set this if a full spectra should be generated with all executable statements. Otherwise, only "
                 + "these statements are included that are executed by at least one test case.", false),
         SEPARATE_JVM("jvm", "separateJvm", false, "Set this if each test shall be run in a separate JVM.", false),
+        PERSISTENT_JVM("pjvm", "persistentJvm", false, "Set this if tests that are run in separate JVMs shall reuse a persistent "
+                + "test runner JVM that is only restarted after crashes or timeouts. Only has an effect if the strategy supports it.", false),
         JAVA7("java7", "onlyJava7", false, "Set this if each test shall only be run in a separate JVM with Java 7 (if Java 7 home directory given).", false),
         CONDENSE_NODES("con", "condense", false, "Set this if empty lines in between statements should be filled up.", false),
         //		JAVA7_RUNNER("j7r", "java7Runner", true, "The path to the java 7 runner jar.", false),
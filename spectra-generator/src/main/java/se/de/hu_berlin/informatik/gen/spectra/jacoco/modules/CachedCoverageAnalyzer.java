@@ -0,0 +1,189 @@
+package se.de.hu_berlin.informatik.gen.spectra.jacoco.modules;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Computes JaCoCo class coverage for single tests without analyzing the bytecode of all
+ * classes again for each test.
+ *
+ * <p>
+ * On first use, all class files are analyzed once without execution data. This yields the
+ * bytecode, the id and the name of each class as well as its coverage if no probe was hit,
+ * which is reused for every test that does not hit any probe of the class. A class with hit
+ * probes is analyzed on its own, with only its own execution data, in a single pass. The
+ * result is cached for the respective set of hit probes, since many tests hit the same
+ * probes of a class.
+ *
+ * <p>
+ * Only the public analysis API is used, so the computed coverage (including all counters)
+ * is the same as with a full analysis of all class files.
+ *
+ * @author Simon Heiden
+ */
+public class CachedCoverageAnalyzer {
+
+    // maximum number of cached coverage objects per class
+    private static final int MAX_CACHED_COVERAGES = 16;
+
+    private final List<File> classfiles;
+
+    // class structures by class id, in analysis order
+    private Map<Long, ClassStructure> classes;
+
+    public CachedCoverageAnalyzer(List<File> classfiles) {
+        this.classfiles = classfiles;
+    }
+
+    /**
+     * Computes the coverage of all classes for the given execution data.
+     *
+     * @param data the execution data of a single test
+     * @return a coverage builder that holds the coverage of all classes
+     * @throws IOException if reading the class files fails
+     */
+    public synchronized CoverageBuilder analyze(final ExecutionDataStore data) throws IOException {
+        if (classes == null) {
+            classes = analyzeStructure();
+        }
+
+        final CoverageBuilder builder = new CoverageBuilder();
+        for (ClassStructure structure : classes.values()) {
+            ExecutionData executionData = data.get(structure.id);
+            if (executionData == null) {
+                if (data.contains(structure.name)) {
+                    // execution data belongs to a different version of the class; full analysis marks it as no match
+                    new Analyzer(data, builder).analyzeClass(structure.bytes, structure.name);
+                } else {
+                    builder.visitCoverage(structure.notCoveredCoverage);
+                }
+            } else {
+                builder.visitCoverage(structure.getCoverage(executionData));
+            }
+        }
+        return builder;
+    }
+
+    private Map<Long, ClassStructure> analyzeStructure() throws IOException {
+        final Map<Long, ClassStructure> structures = new LinkedHashMap<>();
+        for (final File f : classfiles) {
+            analyzeStructure(f, structures);
+        }
+        return structures;
+    }
+
+    private static void analyzeStructure(final File file, final Map<Long, ClassStructure> structures) throws IOException {
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles();
+            if (files != null) {
+                for (final File f : files) {
+                    analyzeStructure(f, structures);
+                }
+            }
+        } else if (file.getName().endsWith(".class")) {
+            analyzeStructure(Files.readAllBytes(file.toPath()), file.getPath(), structures);
+        } else if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip")) {
+            try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(file.toPath()))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (entry.getName().endsWith(".class")) {
+                        analyzeStructure(readFully(zip), file.getPath() + "@" + entry.getName(), structures);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void analyzeStructure(final byte[] bytes, final String location,
+                                         final Map<Long, ClassStructure> structures) throws IOException {
+        // analyze without execution data, keeping the bytecode of the class
+        new Analyzer(new ExecutionDataStore(),
+                coverage -> structures.put(coverage.getId(), new ClassStructure(coverage, bytes)))
+                .analyzeClass(bytes, location);
+    }
+
+    private static byte[] readFully(final InputStream input) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int length;
+        while ((length = input.read(buffer)) != -1) {
+            output.write(buffer, 0, length);
+        }
+        return output.toByteArray();
+    }
+
+    private static BitSet getHitProbes(boolean[] probes) {
+        BitSet hitProbes = new BitSet(probes.length);
+        for (int i = 0; i < probes.length; ++i) {
+            if (probes[i]) {
+                hitProbes.set(i);
+            }
+        }
+        return hitProbes;
+    }
+
+    private static class ClassStructure {
+
+        private final long id;
+        private final String name;
+        private final byte[] bytes;
+        // coverage of the class if no probe was hit
+        private final IClassCoverage notCoveredCoverage;
+
+        // coverage of the class by hit probes, least recently used first
+        private final Map<BitSet, IClassCoverage> coverages =
+                new LinkedHashMap<BitSet, IClassCoverage>(MAX_CACHED_COVERAGES, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<BitSet, IClassCoverage> eldest) {
+                        return size() > MAX_CACHED_COVERAGES;
+                    }
+                };
+
+        private ClassStructure(IClassCoverage notCoveredCoverage, byte[] bytes) {
+            this.id = notCoveredCoverage.getId();
+            this.name = notCoveredCoverage.getName();
+            this.bytes = bytes;
+            this.notCoveredCoverage = notCoveredCoverage;
+        }
+
+        private IClassCoverage getCoverage(ExecutionData executionData) throws IOException {
+            final BitSet hitProbes = getHitProbes(executionData.getProbes());
+            if (hitProbes.isEmpty()) {
+                return notCoveredCoverage;
+            }
+            IClassCoverage coverage = coverages.get(hitProbes);
+            if (coverage == null) {
+                coverage = analyze(executionData);
+                coverages.put(hitProbes, coverage);
+            }
+            return coverage;
+        }
+
+        private IClassCoverage analyze(ExecutionData executionData) throws IOException {
+            final ExecutionDataStore store = new ExecutionDataStore();
+            store.put(new ExecutionData(id, name, executionData.getProbes().clone()));
+            final IClassCoverage[] result = new IClassCoverage[1];
+            new Analyzer(store, coverage -> result[0] = coverage).analyzeClass(bytes, name);
+            return result[0];
+        }
+
+    }
+
+}
@@ -4,7 +4,6 @@
 package se.de.hu_berlin.informatik.gen.spectra.jacoco.modules;
 
 import org.jacoco.agent.AgentJar;
-import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
@@ -48,6 +47,7 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
 
     // location of Java class files
     private final List<File> classfiles = new ArrayList<>();
+    private final CachedCoverageAnalyzer coverageAnalyzer = new CachedCoverageAnalyzer(classfiles);
 
     private final Path dataFile;
     private final String testOutput;
@@ -111,11 +111,8 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
     }
 
     private IBundleCoverage analyze(final ExecutionDataStore data) throws IOException {
-        final CoverageBuilder builder = new CoverageBuilder();
-        final Analyzer analyzer = new Analyzer(data, builder);
-        for (final File f : classfiles) {
-            analyzer.analyzeAll(f);
-        }
+        // class files are only analyzed once, afterwards only classes with hit probes are analyzed again
+        final CoverageBuilder builder = coverageAnalyzer.analyze(data);
         printNoMatchWarning(builder.getNoMatchClasses());
         return builder.getBundle("JaCoCo Report");
     }
@@ -13,11 +13,36 @@ import se.de.hu_berlin.informatik.utils.processors.sockets.ProcessorSocket;
 import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
- *
+ * Runs single tests and generates reports from the collected coverage data.
+ * <p>
+ * If tests are always run in separate JVMs, the module can execute multiple tests in
+ * parallel on a pool of workers (see {@link #setWorkerCount(int)}). Each worker owns its
+ * own test runner modules (and thus its own server port and coverage data). Modules that
+ * keep a persistent test runner JVM (see {@link AbstractRunTestInPersistentJVMModule})
+ * stay alive for the whole run and restart their runner JVM on their own after crashes or
+ * timeouts. Other modules of a worker whose test execution timed out or crashed are
+ * recycled, i.e., they are shut down and recreated before executing the next test.
+ * <p>
+ * The reports are generated and emitted in the order in which the tests have been
+ * submitted. Tests are skipped once more than the maximum number of errors occurred in
+ * previous tests, just as with sequential execution: if the tests that are still running
+ * might exceed the limit, the module waits for their results before submitting the next test.
  *
  * @author Simon Heiden
  */
@@ -30,8 +55,6 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
     final private static int WRONG_COVERAGE = 2;
     final private static int CORRECT_EXECUTION = 3;
 
-    private int currentState = UNDEFINED_COVERAGE;
-
     final private boolean alwaysUseSeparateJVM;
     private final boolean alwaysUseJava7;
 
@@ -42,9 +65,15 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
     private boolean testErrorOccurred = false;
     private int testErrorCounter = 0;
 
-    private AbstractRunTestLocallyModule<T> testRunLocallyModule;
-    private AbstractRunTestInNewJVMModule<T> testRunInNewJVMModule;
-    private AbstractRunTestInNewJVMModule<T> testRunInNewJVMModuleWithJava7Runner;
+    // worker used for sequential test execution
+    private final Worker defaultWorker = new Worker(-1);
+
+    private int workerCount = 1;
+    private final List<Worker> workers = new ArrayList<>();
+    private BlockingQueue<Worker> idleWorkers;
+    private ExecutorService workerExecutor;
+    private final Queue<PendingTest> pendingTests = new ArrayDeque<>();
+    private ProcessorSocket<TestWrapper, R> socket;
 
     private final int maxErrors;
 
@@ -81,25 +110,17 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 
 
 
-	private AbstractRunTestLocallyModule<T> getTestRunLocallyModule() {
-        if (testRunLocallyModule == null) {
-            testRunLocallyModule = newTestRunLocallyModule();
-        }
-        return testRunLocallyModule;
-    }
-
-    private AbstractRunTestInNewJVMModule<T> getTestRunInNewJVMModule() {
-        if (testRunInNewJVMModule == null) {
-            testRunInNewJVMModule = newTestRunInNewJVMModule();
-        }
-        return testRunInNewJVMModule;
-    }
-
-    private AbstractRunTestInNewJVMModule<T> getTestRunInNewJVMModuleWithJava7Runner() {
-        if (testRunInNewJVMModuleWithJava7Runner == null) {
-            testRunInNewJVMModuleWithJava7Runner = newTestRunInNewJVMModuleWithJava7Runner();
-        }
-        return testRunInNewJVMModuleWithJava7Runner;
+    /**
+     * Sets the number of tests that may be executed in parallel. Parallel execution is only
+     * possible if tests are always run in separate JVMs and if the module supports parallel
+     * workers (see {@link #supportsParallelWorkers()}). Otherwise, tests are run sequentially.
+     *
+     * @param workerCount the number of parallel workers
+     * @return this module
+     */
+    public AbstractRunSingleTestAndReportModule<T, R> setWorkerCount(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+        return this;
     }
 
     public abstract AbstractRunTestInNewJVMModule<T> newTestRunInNewJVMModule();
@@ -108,6 +129,34 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 
     public abstract AbstractRunTestInNewJVMModule<T> newTestRunInNewJVMModuleWithJava7Runner();
 
+    /**
+     * Whether this module is able to run tests on multiple workers in parallel. If so,
+     * the modules created by {@link #newTestRunInNewJVMModule(int)} and
+     * {@link #newTestRunInNewJVMModuleWithJava7Runner(int)} for different workers
+     * must not share any files.
+     *
+     * @return true if tests may be executed in parallel
+     */
+    protected boolean supportsParallelWorkers() {
+        return false;
+    }
+
+    /**
+     * @param workerIndex the index of the worker that will use the module
+     * @return a new module that runs tests in a separate JVM for the given worker
+     */
+    protected AbstractRunTestInNewJVMModule<T> newTestRunInNewJVMModule(int workerIndex) {
+        return newTestRunInNewJVMModule();
+    }
+
+    /**
+     * @param workerIndex the index of the worker that will use the module
+     * @return a new module that runs tests in a separate JVM with Java 7 for the given worker
+     */
+    protected AbstractRunTestInNewJVMModule<T> newTestRunInNewJVMModuleWithJava7Runner(int workerIndex) {
+        return newTestRunInNewJVMModuleWithJava7Runner();
+    }
+
     private void addKnownFailingTests(String[] failingtests) {
         for (String failingTest : failingtests) {
             // format: qualified.class.name::TestMethodName
@@ -130,58 +179,215 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
         ++testCounter;
 //		Log.out(this, "Now processing: '%s'.", testWrapper);
 
-        if (testErrorCounter <= maxErrors) {
-            TestStatistics testStatistics = new TestStatistics();
-
-            currentState = UNDEFINED_COVERAGE;
-
-            T projectData;
-            if (alwaysUseJava7) {
-                projectData = runTestInJVMWithJava7(testWrapper, testStatistics, false);
-            } else if (alwaysUseSeparateJVM) {
-                projectData = runTestInJVM(testWrapper, testStatistics, false);
+        if (!usesWorkerPool()) {
+            if (testErrorCounter <= maxErrors) {
+                TestStatistics testStatistics = new TestStatistics();
+                T projectData = runTest(testWrapper, testStatistics, defaultWorker);
+                return evaluateTestResult(testWrapper, testStatistics, projectData, defaultWorker.currentState);
             } else {
-                projectData = runTestLocally(testWrapper, testStatistics);
+                return skipTest();
             }
+        }
 
-            // check for successful test execution
-            boolean errorOccurred = testErrorOccurred(testWrapper, testStatistics, true) || isIncorrectData(projectData);
-            testErrorOccurred |= errorOccurred;
-
-            if (errorOccurred) {
-                ++testErrorCounter;
+        this.socket = socket;
+        if ((long) testErrorCounter + getRunningTestCount() > maxErrors) {
+            // the errors of the tests that are still running might exceed the limit
+            produceFinishedResults(true);
+        }
+        if (testErrorCounter <= maxErrors) {
+            Worker worker = takeIdleWorker();
+            PendingTest pendingTest = new PendingTest(testWrapper);
+            if (worker == null) {
+                // interrupted while waiting for a worker; the test counts as not finished
+                pendingTest.testStatistics.addStatisticsElement(StatisticsData.ERROR_MSG,
+                        testWrapper + ": Interrupted while waiting for an idle worker.");
+                pendingTest.state = UNFINISHED_EXECUTION;
+                pendingTest.future = CompletableFuture.completedFuture(null);
+                pendingTests.add(pendingTest);
+                produceFinishedResults(false);
+                return null;
             }
+            pendingTest.future = workerExecutor.submit(() -> {
+                try {
+                    pendingTest.projectData = runTest(testWrapper, pendingTest.testStatistics, worker);
+                    pendingTest.state = worker.currentState;
+                    if (pendingTest.state != CORRECT_EXECUTION) {
+                        // timeout or crash; start over with fresh modules
+                        worker.recycle();
+                    }
+                } finally {
+                    idleWorkers.add(worker);
+                }
+            });
+            pendingTests.add(pendingTest);
+        } else {
+            pendingTests.add(new PendingTest(testWrapper));
+        }
 
-            boolean testResultError = testResultErrorOccurred(testWrapper, testStatistics, true);
+        produceFinishedResults(false);
+        return null;
+    }
 
-            if (testStatistics.getErrorMsg() != null) {
-                Log.err(this, testStatistics.getErrorMsg());
+    private boolean usesWorkerPool() {
+        if (workerExecutor == null && workerCount > 1) {
+            if ((alwaysUseSeparateJVM || alwaysUseJava7) && supportsParallelWorkers()) {
+                idleWorkers = new ArrayBlockingQueue<>(workerCount);
+                for (int i = 0; i < workerCount; ++i) {
+                    Worker worker = new Worker(i);
+                    workers.add(worker);
+                    idleWorkers.add(worker);
+                }
+                workerExecutor = Executors.newFixedThreadPool(workerCount);
+            } else {
+                Log.warn(this, "Tests can only be executed in parallel in separate JVMs with supporting strategies. "
+                        + "Running tests sequentially.");
+                workerCount = 1;
             }
+        }
+        return workerExecutor != null;
+    }
 
-            if (statisticsContainer != null) {
-                statisticsContainer.addStatistics(testStatistics);
+    /**
+     * @return the number of submitted tests whose results have not been evaluated, yet
+     */
+    private int getRunningTestCount() {
+        int count = 0;
+        for (PendingTest pendingTest : pendingTests) {
+            if (pendingTest.future != null) {
+                ++count;
             }
+        }
+        return count;
+    }
 
-            //don't produce reports for wrong test data or tests with unexpected outcome
-            if (testResultError || isIncorrectData(projectData)) {
-                return null;
-            } else {
-                return generateReport(testWrapper, testStatistics, projectData);
+    /**
+     * @return an idle worker, or null if the current thread was interrupted while waiting
+     */
+    private Worker takeIdleWorker() {
+        try {
+            return idleWorkers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Emits the reports of the submitted tests in the order of submission.
+     *
+     * @param waitForAll whether to wait for all pending tests to finish
+     */
+    private void produceFinishedResults(boolean waitForAll) {
+        while (!pendingTests.isEmpty()) {
+            PendingTest pendingTest = pendingTests.peek();
+            if (pendingTest.future != null && !pendingTest.future.isDone() && !waitForAll) {
+                break;
             }
-        } else {
-            // skip execution if too many errors occured
-            if (statisticsContainer != null) {
+            pendingTests.poll();
+
+            R result;
+            if (pendingTest.future == null) {
+                result = skipTest();
+            } else if (waitFor(pendingTest)) {
+                result = evaluateTestResult(pendingTest.testWrapper, pendingTest.testStatistics,
+                        pendingTest.projectData, pendingTest.state);
+            } else {
+                // the test may still be running, so its statistics and data must not be used
                 TestStatistics testStatistics = new TestStatistics();
-                testStatistics.addStatisticsElement(StatisticsData.SKIPPED, 1);
-                statisticsContainer.addStatistics(testStatistics);
+                testStatistics.addStatisticsElement(StatisticsData.ERROR_MSG,
+                        pendingTest.testWrapper + ": Interrupted while waiting for the test to finish.");
+                result = evaluateTestResult(pendingTest.testWrapper, testStatistics, null, UNFINISHED_EXECUTION);
             }
+            if (result != null) {
+                socket.produce(result);
+            }
+        }
+    }
+
+    /**
+     * @param pendingTest a submitted test
+     * @return true if the test finished, or false if the current thread was interrupted while waiting
+     */
+    private boolean waitFor(PendingTest pendingTest) {
+        try {
+            pendingTest.future.get();
+        } catch (InterruptedException e) {
+            // don't wait for the remaining tests, either
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Log.err(this, e, "Execution of test '%s' failed.", pendingTest.testWrapper);
+            pendingTest.projectData = null;
+            pendingTest.state = UNFINISHED_EXECUTION;
+        }
+        return true;
+    }
+
+    private T runTest(final TestWrapper testWrapper, final TestStatistics testStatistics, final Worker worker) {
+        worker.currentState = UNDEFINED_COVERAGE;
+
+        if (alwaysUseJava7) {
+            return runTestInJVMWithJava7(testWrapper, testStatistics, false, worker);
+        } else if (alwaysUseSeparateJVM) {
+            return runTestInJVM(testWrapper, testStatistics, false, worker);
+        } else {
+            return runTestLocally(testWrapper, testStatistics, worker);
+        }
+    }
+
+    private R evaluateTestResult(final TestWrapper testWrapper, final TestStatistics testStatistics,
+                                 T projectData, int state) {
+        // check for successful test execution
+        boolean errorOccurred = testErrorOccurred(testWrapper, testStatistics, true) || isIncorrectData(projectData, state);
+        testErrorOccurred |= errorOccurred;
+
+        if (errorOccurred) {
+            ++testErrorCounter;
+        }
+
+        boolean testResultError = testResultErrorOccurred(testWrapper, testStatistics, true);
+
+        if (testStatistics.getErrorMsg() != null) {
+            Log.err(this, testStatistics.getErrorMsg());
+        }
+
+        if (statisticsContainer != null) {
+            statisticsContainer.addStatistics(testStatistics);
+        }
+
+        //don't produce reports for wrong test data or tests with unexpected outcome
+        if (testResultError || isIncorrectData(projectData, state)) {
+            discardData(projectData);
             return null;
+        } else {
+            return generateReport(testWrapper, testStatistics, projectData);
         }
     }
 
+    private R skipTest() {
+        // skip execution if too many errors occured
+        if (statisticsContainer != null) {
+            TestStatistics testStatistics = new TestStatistics();
+            testStatistics.addStatisticsElement(StatisticsData.SKIPPED, 1);
+            statisticsContainer.addStatistics(testStatistics);
+        }
+        return null;
+    }
+
     public abstract R generateReport(TestWrapper testWrapper, TestStatistics testStatistics, T data);
 
-    private boolean testResultErrorOccurred(final TestWrapper testWrapper, TestStatistics testStatistics, boolean log) {
+    /**
+     * Called for coverage data that is dropped without generating a report from it,
+     * e.g. because the test had an unexpected outcome or is executed again. Subclasses
+     * may release resources that are referenced by the data. Does nothing by default.
+     *
+     * @param data the dropped data (may be null)
+     */
+    protected void discardData(T data) {
+        // nothing to release
+    }
+
+    private synchronized boolean testResultErrorOccurred(final TestWrapper testWrapper, TestStatistics testStatistics, boolean log) {
         // check for "correct" (intended) test execution result
         String testName = testWrapper.toString();
         if (testStatistics.couldBeFinished()) {
@@ -257,38 +463,40 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
         return false;
     }
 
-    private boolean isIncorrectData(T projectData) {
+    private boolean isIncorrectData(T projectData, int state) {
         return projectData == null ||
-                currentState != CORRECT_EXECUTION;
+                state != CORRECT_EXECUTION;
     }
 
     private T runTestLocally(final TestWrapper testWrapper,
-                             final TestStatistics testStatistics) {
+                             final TestStatistics testStatistics, final Worker worker) {
         T projectData = null;
-        currentState = UNDEFINED_COVERAGE;
+        worker.currentState = UNDEFINED_COVERAGE;
 
-        projectData = runTestWithRunner(testWrapper, testStatistics, getTestRunLocallyModule());
+        projectData = runTestWithRunner(testWrapper, testStatistics, worker.getTestRunLocallyModule(), worker);
 
-        if (isIncorrectData(projectData) || testResultErrorOccurred(testWrapper, testStatistics, false)) {
-            projectData = runTestInJVM(testWrapper, testStatistics, true);
+        if (isIncorrectData(projectData, worker.currentState) || testResultErrorOccurred(testWrapper, testStatistics, false)) {
+            discardData(projectData);
+            projectData = runTestInJVM(testWrapper, testStatistics, true, worker);
         }
 
         return projectData;
     }
 
     private T runTestInJVM(final TestWrapper testWrapper,
-                           final TestStatistics testStatistics, boolean error) {
+                           final TestStatistics testStatistics, boolean error, final Worker worker) {
         T projectData = null;
-        currentState = UNDEFINED_COVERAGE;
+        worker.currentState = UNDEFINED_COVERAGE;
 
         if (error) {
             Log.out(this, "Running test in separate JVM due to error: %s", testWrapper);
         }
-        projectData = runTestWithRunner(testWrapper, testStatistics, getTestRunInNewJVMModule());
+        projectData = runTestWithRunner(testWrapper, testStatistics, worker.getTestRunInNewJVMModule(), worker);
         testStatistics.addStatisticsElement(StatisticsData.SEPARATE_JVM, 1);
 
-        if (isIncorrectData(projectData) || testResultErrorOccurred(testWrapper, testStatistics, false)) {
-            return runTestInJVMWithJava7(testWrapper, testStatistics, true);
+        if (isIncorrectData(projectData, worker.currentState) || testResultErrorOccurred(testWrapper, testStatistics, false)) {
+            discardData(projectData);
+            return runTestInJVMWithJava7(testWrapper, testStatistics, true, worker);
         } else {
             return transformTestResultFromSeparateJVM(projectData);
         }
@@ -297,14 +505,14 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
     public abstract T transformTestResultFromSeparateJVM(T projectData);
 
     private T runTestInJVMWithJava7(final TestWrapper testWrapper,
-                                    final TestStatistics testStatistics, boolean error) {
+                                    final TestStatistics testStatistics, boolean error, final Worker worker) {
         T projectData = null;
-        currentState = UNDEFINED_COVERAGE;
+        worker.currentState = UNDEFINED_COVERAGE;
 
         if (error) {
             Log.out(this, "Running test in separate JVM with Java 7 due to error: %s", testWrapper);
         }
-        projectData = runTestWithRunner(testWrapper, testStatistics, getTestRunInNewJVMModuleWithJava7Runner());
+        projectData = runTestWithRunner(testWrapper, testStatistics, worker.getTestRunInNewJVMModuleWithJava7Runner(), worker);
         testStatistics.addStatisticsElement(StatisticsData.SEPARATE_JVM, 1);
 
         return transformTestResultFromSeparateJVMWithJava7(projectData);
@@ -312,7 +520,8 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 
     public abstract T transformTestResultFromSeparateJVMWithJava7(T projectData);
 
-    private T runTestWithRunner(TestWrapper testWrapper, TestStatistics testStatistics, AbstractProcessor<TestWrapper, Pair<TestStatistics, T>> testrunner) {
+    private T runTestWithRunner(TestWrapper testWrapper, TestStatistics testStatistics,
+                                AbstractProcessor<TestWrapper, Pair<TestStatistics, T>> testrunner, Worker worker) {
         T projectData = null;
 //		FileUtils.delete(dataFile);
         //(try to) run the testS
@@ -323,13 +532,15 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
         if (testResult.first().couldBeFinished()) {
             if (testResult.first().coverageGenerationFailed()
                     || testResult.second() == null) {
-                currentState = WRONG_COVERAGE;
+                discardData(testResult.second());
+                worker.currentState = WRONG_COVERAGE;
             } else {
                 projectData = testResult.second();
-                currentState = CORRECT_EXECUTION;
+                worker.currentState = CORRECT_EXECUTION;
             }
         } else {
-            currentState = UNFINISHED_EXECUTION;
+            discardData(testResult.second());
+            worker.currentState = UNFINISHED_EXECUTION;
         }
         return projectData;
     }
@@ -338,6 +549,10 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 
     @Override
     public R getResultFromCollectedItems() {
+        if (socket != null) {
+            // emit the reports of all tests that are still running
+            produceFinishedResults(true);
+        }
         // in the end, check if number of failing tests is correct (if given)
         if (testErrorCounter > maxErrors) {
             Log.err(this, "Some tests were not successfully executed! (> %d)", maxErrors);
@@ -355,16 +570,120 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 
     @Override
     public boolean finalShutdown() {
-        if (testRunLocallyModule != null) {
-            testRunLocallyModule.finalShutdown();
+        defaultWorker.shutdown();
+        if (workerExecutor != null) {
+            // all tests have been evaluated at this point, unless the module is shut down early
+            workerExecutor.shutdownNow();
+            try {
+                workerExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                // shut down the workers anyway
+                Thread.currentThread().interrupt();
+            }
+            for (Worker worker : workers) {
+                worker.shutdown();
+            }
+            // results of tests that have not been evaluated are dropped
+            for (PendingTest pendingTest : pendingTests) {
+                discardData(pendingTest.projectData);
+            }
+            pendingTests.clear();
+        }
+        return super.finalShutdown();
+    }
+
+    /**
+     * Holds the test runner modules and the state of the current test execution of a single worker.
+     */
+    private class Worker {
+
+        private final int index;
+        private int currentState = UNDEFINED_COVERAGE;
+
+        private AbstractRunTestLocallyModule<T> testRunLocallyModule;
+        private AbstractRunTestInNewJVMModule<T> testRunInNewJVMModule;
+        private AbstractRunTestInNewJVMModule<T> testRunInNewJVMModuleWithJava7Runner;
+
+        /**
+         * @param index the index of the worker; negative for the default (sequential) worker
+         */
+        private Worker(int index) {
+            this.index = index;
         }
-        if (testRunInNewJVMModule != null) {
-            testRunInNewJVMModule.finalShutdown();
+
+        private AbstractRunTestLocallyModule<T> getTestRunLocallyModule() {
+            if (testRunLocallyModule == null) {
+                testRunLocallyModule = newTestRunLocallyModule();
+            }
+            return testRunLocallyModule;
         }
-        if (testRunInNewJVMModuleWithJava7Runner != null) {
-            testRunInNewJVMModuleWithJava7Runner.finalShutdown();
+
+        private AbstractRunTestInNewJVMModule<T> getTestRunInNewJVMModule() {
+            if (testRunInNewJVMModule == null) {
+                testRunInNewJVMModule = index < 0 ? newTestRunInNewJVMModule() : newTestRunInNewJVMModule(index);
+            }
+            return testRunInNewJVMModule;
         }
-        return super.finalShutdown();
+
+        private AbstractRunTestInNewJVMModule<T> getTestRunInNewJVMModuleWithJava7Runner() {
+            if (testRunInNewJVMModuleWithJava7Runner == null) {
+                testRunInNewJVMModuleWithJava7Runner = index < 0
+                        ? newTestRunInNewJVMModuleWithJava7Runner() : newTestRunInNewJVMModuleWithJava7Runner(index);
+            }
+            return testRunInNewJVMModuleWithJava7Runner;
+        }
+
+        private void recycle() {
+            Log.out(AbstractRunSingleTestAndReportModule.this, "Recycling worker %d.", index);
+            if (testRunLocallyModule != null) {
+                testRunLocallyModule.finalShutdown();
+                testRunLocallyModule = null;
+            }
+            // persistent runner JVMs are restarted by their modules if necessary
+            if (testRunInNewJVMModule != null
+                    && !(testRunInNewJVMModule instanceof AbstractRunTestInPersistentJVMModule)) {
+                testRunInNewJVMModule.finalShutdown();
+                testRunInNewJVMModule = null;
+            }
+            if (testRunInNewJVMModuleWithJava7Runner != null
+                    && !(testRunInNewJVMModuleWithJava7Runner instanceof AbstractRunTestInPersistentJVMModule)) {
+                testRunInNewJVMModuleWithJava7Runner.finalShutdown();
+                testRunInNewJVMModuleWithJava7Runner = null;
+            }
+        }
+
+        private void shutdown() {
+            if (testRunLocallyModule != null) {
+                testRunLocallyModule.finalShutdown();
+                testRunLocallyModule = null;
+            }
+            if (testRunInNewJVMModule != null) {
+                testRunInNewJVMModule.finalShutdown();
+                testRunInNewJVMModule = null;
+            }
+            if (testRunInNewJVMModuleWithJava7Runner != null) {
+                testRunInNewJVMModuleWithJava7Runner.finalShutdown();
+                testRunInNewJVMModuleWithJava7Runner = null;
+            }
+        }
+
+    }
+
+    /**
+     * A test that has been submitted to a worker.
+     */
+    private class PendingTest {
+
+        private final TestWrapper testWrapper;
+        private final TestStatistics testStatistics = new TestStatistics();
+        private Future<?> future;
+        private volatile T projectData;
+        private volatile int state = UNDEFINED_COVERAGE;
+
+        private PendingTest(TestWrapper testWrapper) {
+            this.testWrapper = testWrapper;
+        }
+
     }
 
 }
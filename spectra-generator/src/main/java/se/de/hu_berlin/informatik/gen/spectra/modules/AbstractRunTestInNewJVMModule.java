@@ -59,7 +59,7 @@ public abstract class AbstractRunTestInNewJVMModule<T extends Serializable>
         boolean preparationSucceeded = prepareBeforeRunningTest();
 
         if (preparationSucceeded) {
-            result = getMain().submit(args).getResult();
+            result = executeTest(args);
 
             return getResultAfterTest(testWrapper, result);
         } else {
@@ -71,6 +71,16 @@ public abstract class AbstractRunTestInNewJVMModule<T extends Serializable>
         }
     }
 
+    /**
+     * Executes the test with the given arguments.
+     *
+     * @param args the arguments for the test runner
+     * @return the execution result (exit code)
+     */
+    protected int executeTest(String[] args) {
+        return getMain().submit(args).getResult();
+    }
+
     public abstract Pair<TestStatistics, T> getResultAfterTest(final TestWrapper testWrapper, int executionResult);
 
     public abstract boolean prepareBeforeRunningTest();
@@ -0,0 +1,173 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import se.de.hu_berlin.informatik.java7.testrunner.SimpleServerFramework.FrameChannel;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
+import se.de.hu_berlin.informatik.utils.processors.basics.ExecuteMainClassInNewJVM;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a single test inside a new JVM and receives the collected data from the
+ * runner JVM afterwards.
+ *
+ * <p>
+ * The runner sends the data as a single binary frame over a loopback socket channel
+ * (see {@link FrameChannel}) to the port returned by {@link #getServerPort()}. The
+ * data is not transported with Java serialization, but is decoded by
+ * {@link #decodeData(ByteBuffer)} from the runner's binary encoding. The data is
+ * received while the runner JVM is still running, such that the runner never blocks
+ * on a full socket buffer.
+ *
+ * @author Simon Heiden
+ */
+public abstract class AbstractRunTestInNewJVMModuleWithFrameServer<T extends Serializable>
+        extends AbstractRunTestInNewJVMModule<T> {
+
+    // time to wait for the data after the runner connected (in milliseconds)
+    final private static int RECEIVE_TIMEOUT = 120000;
+    // interval to check whether the runner JVM ended without connecting (in milliseconds)
+    final private static int ACCEPT_INTERVAL = 100;
+
+    final private ExecuteMainClassInNewJVM executeModule;
+    final private ServerSocketChannel serverSocket;
+    final private Selector acceptSelector;
+    final private ExecutorService receiver = Executors.newSingleThreadExecutor();
+
+    private T data;
+
+    public AbstractRunTestInNewJVMModuleWithFrameServer(Class<?> testRunnerClass, final String testOutput,
+                                                        String instrumentedClassPath, final String javaHome, File projectDir,
+                                                        String[] customJvmArgs, String... properties) {
+        super(testOutput);
+
+        ServerSocketChannel serverSocket = null;
+        Selector acceptSelector = null;
+        try {
+            serverSocket = ServerSocketChannel.open();
+            serverSocket.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            serverSocket.configureBlocking(false);
+            acceptSelector = Selector.open();
+            serverSocket.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            Log.abort(this, e, "Unable to establish server.");
+        }
+        this.serverSocket = serverSocket;
+        this.acceptSelector = acceptSelector;
+
+        this.executeModule = new ExecuteMainClassInNewJVM(
+                javaHome,
+                testRunnerClass,
+                instrumentedClassPath,
+                projectDir,
+                Misc.joinArrays(customJvmArgs, properties))
+                .setEnvVariable("LC_ALL", "en_US.UTF-8")
+                .setEnvVariable("TZ", "America/Los_Angeles");
+    }
+
+    /**
+     * Decodes the data that the runner sent after the test. Each runner
+     * JVM uses a new connection.
+     *
+     * @param data a buffer with the encoded data
+     * @return the decoded data
+     */
+    protected abstract T decodeData(ByteBuffer data);
+
+    protected int getServerPort() {
+        return serverSocket.socket().getLocalPort();
+    }
+
+    /**
+     * @return the data that was received during the last test execution, or null if the
+     * runner did not send any data; subsequent calls return null until the next test is executed
+     */
+    protected T takeReceivedData() {
+        T result = data;
+        data = null;
+        return result;
+    }
+
+    @Override
+    public ExecuteMainClassInNewJVM getMain() {
+        return executeModule;
+    }
+
+    @Override
+    protected int executeTest(String[] args) {
+        data = null;
+        AtomicBoolean runnerEnded = new AtomicBoolean(false);
+        Future<T> receivedData = receiver.submit(() -> receiveData(runnerEnded));
+
+        int result;
+        try {
+            result = super.executeTest(args);
+        } finally {
+            runnerEnded.set(true);
+        }
+
+        try {
+            data = receivedData.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            receivedData.cancel(true);
+        } catch (ExecutionException e) {
+            Log.err(this, e.getCause(), "Unable to receive data.");
+        }
+        return result;
+    }
+
+    private T receiveData(AtomicBoolean runnerEnded) throws IOException {
+        while (true) {
+            // the runner connects before it ends, so its connection is pending once it has ended
+            boolean ended = runnerEnded.get();
+            acceptSelector.select(ACCEPT_INTERVAL);
+            acceptSelector.selectedKeys().clear();
+            SocketChannel channel = serverSocket.accept();
+            if (channel != null) {
+                try (FrameChannel connection = new FrameChannel(channel, RECEIVE_TIMEOUT)) {
+                    return decodeData(connection.receiveFrame());
+                }
+            } else if (ended) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean finalShutdown() {
+        receiver.shutdownNow();
+        closeQuietly(acceptSelector);
+        closeQuietly(serverSocket);
+        return super.finalShutdown();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // don't care
+            }
+        }
+    }
+
+}
@@ -3,14 +3,17 @@
  */
 package se.de.hu_berlin.informatik.gen.spectra.modules;
 
+import se.de.hu_berlin.informatik.java7.testrunner.SimpleServerFramework.FrameChannel;
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.java7.testrunner.UnitTestRunner;
 import se.de.hu_berlin.informatik.java7.testrunner.UnitTestRunnerNoServer;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
+
 import java.io.File;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 /**
@@ -19,13 +22,19 @@ import java.nio.file.Path;
  * be aborted and will count as failing.
  *
  * <p>
+ * The {@link UnitTestRunner} sends the coverage data as a single binary frame over
+ * a loopback socket channel (see {@link FrameChannel}). The data is not transported
+ * with Java serialization, but is decoded by {@link #decodeData(ByteBuffer)} from the
+ * runner's binary encoding.
+ *
+ * <p>
  * if the test can't be run at all, this information is given in the returned
  * statistics, together with an error message.
  *
  * @author Simon Heiden
  */
 public abstract class AbstractRunTestInNewJVMModuleWithJava7RunnerAndServer<T extends Serializable>
-        extends AbstractRunTestInNewJVMModuleWithServer<T> {
+        extends AbstractRunTestInNewJVMModuleWithFrameServer<T> {
 
     final private String[] args;
 
@@ -65,6 +74,7 @@ public abstract class AbstractRunTestInNewJVMModuleWithJava7RunnerAndServer<T ex
     public Pair<TestStatistics, T> getResultAfterTest(TestWrapper testWrapper, int executionResult) {
         TestStatistics statistics = new TestStatistics();
         T projectData = null;
+        T data = takeReceivedData();
         //see if the test was executed and finished execution normally
         if (executionResult == UnitTestRunnerNoServer.TEST_SUCCESSFUL ||
                 executionResult == UnitTestRunnerNoServer.TEST_FAILED) {
@@ -74,25 +84,15 @@ public abstract class AbstractRunTestInNewJVMModuleWithJava7RunnerAndServer<T ex
             } else {
                 statistics.addStatisticsElement(StatisticsData.IS_SUCCESSFUL, false);
             }
-            // wait for some milliseconds
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                // do nothing
-            }
-            projectData = listener.getNewData();
+            projectData = data;
 
             if (projectData == null) {
                 statistics.addStatisticsElement(StatisticsData.COVERAGE_GENERATION_FAILED, 1);
             }
         } else if (executionResult == UnitTestRunnerNoServer.TEST_TIMEOUT) {
             statistics.addStatisticsElement(StatisticsData.TIMEOUT_OCCURRED, 1);
-            listener.resetListener();
         } else if (executionResult == UnitTestRunnerNoServer.TEST_EXCEPTION) {
             statistics.addStatisticsElement(StatisticsData.EXCEPTION_OCCURRED, 1);
-            listener.resetListener();
-        } else {
-            listener.resetListener();
         }
 
         return new Pair<>(statistics, projectData);
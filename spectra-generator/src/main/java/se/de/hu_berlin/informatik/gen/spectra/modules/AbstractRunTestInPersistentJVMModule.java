@@ -0,0 +1,253 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import se.de.hu_berlin.informatik.java7.testrunner.PersistentUnitTestRunner;
+import se.de.hu_berlin.informatik.java7.testrunner.SimpleServerFramework.FrameChannel;
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.java7.testrunner.UnitTestRunner;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
+import se.de.hu_berlin.informatik.utils.processors.basics.ExecuteMainClassInNewJVM;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs single tests inside a separate, persistent JVM and generates statistics.
+ * Instead of starting a new JVM for each test, a {@link PersistentUnitTestRunner}
+ * is started once and then receives all test requests over a single connection. The
+ * runner resets all collected coverage data before each test. A new runner JVM is
+ * only started after the previous one crashed, hung or was ended due to a test
+ * timeout or exception.
+ *
+ * <p>
+ * Requests and results are exchanged as binary frames over a loopback socket channel
+ * (see {@link FrameChannel}). Coverage data is not transported with Java serialization,
+ * but is decoded by {@link #decodeData(ByteBuffer)} from the runner's binary encoding.
+ *
+ * <p>
+ * Note that static initializers of the classes under test are only executed in the
+ * first test that loads the respective classes in each runner JVM.
+ *
+ * <p>
+ * if the test can't be run at all, this information is given in the returned
+ * statistics, together with an error message.
+ *
+ * @author Simon Heiden
+ */
+public abstract class AbstractRunTestInPersistentJVMModule<T extends Serializable>
+        extends AbstractRunTestInNewJVMModule<T> {
+
+    // time to wait for a runner JVM to connect (in milliseconds)
+    final private static int CONNECT_TIMEOUT = 120000;
+    // additional time to wait for a test result after the test timeout (in seconds)
+    final private static long RESPONSE_GRACE_PERIOD = 120L;
+
+    final private String[] args = new String[2];
+    final private List<String> command;
+    final private File projectDir;
+    final private int responseTimeout;
+
+    private Process runner;
+    private ServerSocketChannel serverSocket;
+    private FrameChannel connection;
+
+    private T data;
+
+    public AbstractRunTestInPersistentJVMModule(final String testOutput, final Long timeout,
+                                                String instrumentedClassPath, final String javaHome, File projectDir,
+                                                String[] customJvmArgs, String... properties) {
+        super(testOutput);
+        this.projectDir = projectDir;
+        this.responseTimeout = timeout == null
+                ? 0 : (int) TimeUnit.SECONDS.toMillis(timeout + RESPONSE_GRACE_PERIOD);
+
+        command = new ArrayList<>();
+        command.add(javaHome == null
+                ? "java" : Paths.get(javaHome, "bin", "java").toAbsolutePath().toString());
+        String[] jvmArgs = Misc.joinArrays(customJvmArgs, properties);
+        if (jvmArgs != null) {
+            Collections.addAll(command, jvmArgs);
+        }
+        command.add("-cp");
+        command.add(instrumentedClassPath);
+        command.add(PersistentUnitTestRunner.class.getName());
+        command.add(getStatisticsResultFile().getParent().toString());
+        // port placeholder
+        command.add(null);
+        if (timeout != null) {
+            command.add(String.valueOf(timeout));
+        }
+    }
+
+    /**
+     * Decodes the coverage data that the runner sent after a test.
+     *
+     * @param data a buffer with the encoded coverage data
+     * @return the decoded coverage data
+     */
+    protected abstract T decodeData(ByteBuffer data);
+
+    @Override
+    public String[] getArgs(String testClassName, String testMethodName) {
+        args[0] = testClassName;
+        args[1] = testMethodName;
+        return args;
+    }
+
+    @Override
+    public ExecuteMainClassInNewJVM getMain() {
+        // tests are not executed by starting a main class for each test
+        return null;
+    }
+
+    @Override
+    protected int executeTest(String[] args) {
+        data = null;
+        if (!ensureRunnerIsAlive()) {
+            return UnitTestRunner.TEST_EXCEPTION;
+        }
+
+        try {
+            ByteBuffer request = connection.beginFrame();
+            request = ProjectDataCodec.putString(request, args[0]);
+            request = ProjectDataCodec.putString(request, args[1]);
+            connection.sendFrame(request);
+
+            ByteBuffer reply = connection.receiveFrame();
+            int result = reply.getInt();
+            if (reply.get() != 0) {
+                data = decodeData(reply);
+            }
+
+            if (result != UnitTestRunner.TEST_SUCCESSFUL && result != UnitTestRunner.TEST_FAILED) {
+                // the runner ends itself in this case
+                stopRunner(false);
+            }
+            return result;
+        } catch (SocketTimeoutException e) {
+            Log.err(this, "Test runner JVM does not respond. Starting a new one for the next test.");
+            stopRunner(false);
+            return UnitTestRunner.TEST_TIMEOUT;
+        } catch (IOException | RuntimeException e) {
+            Log.err(this, e, "Test runner JVM crashed. Starting a new one for the next test.");
+            stopRunner(false);
+            return UnitTestRunner.TEST_EXCEPTION;
+        }
+    }
+
+    private boolean ensureRunnerIsAlive() {
+        if (runner != null && runner.isAlive() && connection != null) {
+            return true;
+        }
+        stopRunner(false);
+
+        try {
+            serverSocket = ServerSocketChannel.open();
+            serverSocket.socket().setSoTimeout(CONNECT_TIMEOUT);
+            serverSocket.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            List<String> command = new ArrayList<>(this.command);
+            command.set(command.indexOf(null), String.valueOf(serverSocket.socket().getLocalPort()));
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .directory(projectDir)
+                    .inheritIO();
+            builder.environment().put("LC_ALL", "en_US.UTF-8");
+            builder.environment().put("TZ", "America/Los_Angeles");
+            runner = builder.start();
+
+            // accepting through the socket adaptor respects the timeout
+            connection = new FrameChannel(serverSocket.socket().accept().getChannel(), responseTimeout);
+            return true;
+        } catch (IOException e) {
+            Log.err(this, e, "Unable to start test runner JVM.");
+            stopRunner(false);
+            return false;
+        }
+    }
+
+    private void stopRunner(boolean sendShutdown) {
+        if (sendShutdown && connection != null) {
+            try {
+                connection.sendFrame(ProjectDataCodec.putString(
+                        connection.beginFrame(), PersistentUnitTestRunner.SHUTDOWN));
+            } catch (IOException e) {
+                // runner is already gone
+            }
+        }
+        if (runner != null) {
+            try {
+                if (!runner.waitFor(sendShutdown ? 10 : 1, TimeUnit.SECONDS)) {
+                    runner.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                runner.destroyForcibly();
+            }
+            runner = null;
+        }
+        closeQuietly(connection);
+        closeQuietly(serverSocket);
+        connection = null;
+        serverSocket = null;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // don't care
+            }
+        }
+    }
+
+    @Override
+    public Pair<TestStatistics, T> getResultAfterTest(TestWrapper testWrapper, int executionResult) {
+        TestStatistics statistics = new TestStatistics();
+        T projectData = null;
+        //see if the test was executed and finished execution normally
+        if (executionResult == UnitTestRunner.TEST_SUCCESSFUL ||
+                executionResult == UnitTestRunner.TEST_FAILED) {
+            statistics.addStatisticsElement(StatisticsData.COULD_BE_FINISHED, 1);
+            statistics.addStatisticsElement(StatisticsData.IS_SUCCESSFUL,
+                    executionResult == UnitTestRunner.TEST_SUCCESSFUL);
+            projectData = data;
+
+            if (projectData == null) {
+                statistics.addStatisticsElement(StatisticsData.COVERAGE_GENERATION_FAILED, 1);
+            }
+        } else if (executionResult == UnitTestRunner.TEST_TIMEOUT) {
+            statistics.addStatisticsElement(StatisticsData.TIMEOUT_OCCURRED, 1);
+        } else if (executionResult == UnitTestRunner.TEST_EXCEPTION) {
+            statistics.addStatisticsElement(StatisticsData.EXCEPTION_OCCURRED, 1);
+        }
+        data = null;
+
+        return new Pair<>(statistics, projectData);
+    }
+
+    @Override
+    public boolean finalShutdown() {
+        stopRunner(true);
+        return super.finalShutdown();
+    }
+
+}
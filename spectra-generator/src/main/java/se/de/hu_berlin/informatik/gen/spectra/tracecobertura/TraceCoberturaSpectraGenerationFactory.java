@@ -96,7 +96,9 @@ public class TraceCoberturaSpectraGenerationFactory
                 options.hasOption(CmdOptions.SEPARATE_JVM), options.hasOption(CmdOptions.JAVA7),
                 options.getOptionValueAsInt(CmdOptions.MAX_ERRORS, 0),
                 options.getOptionValues(CmdOptions.FAILING_TESTS), statisticsContainer, testAndInstrumentClassLoader,
-                getSmallJVMConfigArguments());
+                getSmallJVMConfigArguments())
+                .usePersistentJVM(options.hasOption(CmdOptions.PERSISTENT_JVM))
+                .setWorkerCount(options.getOptionValueAsInt(CmdOptions.WORKER_COUNT, 1));
     }
 
     @Override
@@ -30,6 +30,8 @@ import java.nio.file.Paths;
 final public class TraceCoberturaInstrumenter extends AbstractInstrumenter {
 
     private final File coberturaDataFile;
+    private String instrumentationCacheDir;
+    private boolean wideStatementEncoding = false;
 
     public TraceCoberturaInstrumenter(Path projectDir, String instrumentedDir, String testClassPath,
                                       String[] pathsToBinaries, File coberturaDataFile) {
@@ -37,6 +39,25 @@ final public class TraceCoberturaInstrumenter extends AbstractInstrumenter {
         this.coberturaDataFile = coberturaDataFile;
     }
 
+    /**
+     * @param instrumentationCacheDir
+     * a directory that holds previously instrumented classes; instrumented
+     * classes are reused if their original bytecode did not change
+     */
+    public void setInstrumentationCacheDir(String instrumentationCacheDir) {
+        this.instrumentationCacheDir = instrumentationCacheDir;
+    }
+
+    /**
+     * @param wideStatementEncoding
+     * whether to encode statements with dense statement ids instead of class id and
+     * counter id; needed for projects with more than 4096 classes (used automatically
+     * if more class files than that are instrumented)
+     */
+    public void setWideStatementEncoding(boolean wideStatementEncoding) {
+        this.wideStatementEncoding = wideStatementEncoding;
+    }
+
     @Override
     public int instrumentClasses() {
         /* #====================================================================================
@@ -52,6 +73,16 @@ final public class TraceCoberturaInstrumenter extends AbstractInstrumenter {
                     Instrument.CmdOptions.CLASS_PATH.asArg(), testClassPath);
         }
 
+        if (instrumentationCacheDir != null) {
+            instrArgs = Misc.addToArrayAndReturnResult(instrArgs,
+                    Instrument.CmdOptions.INSTRUMENTATION_CACHE.asArg(), instrumentationCacheDir);
+        }
+
+        if (wideStatementEncoding) {
+            instrArgs = Misc.addToArrayAndReturnResult(instrArgs,
+                    Instrument.CmdOptions.WIDE_STATEMENT_ENCODING.asArg());
+        }
+
         if (pathsToBinaries != null) {
             instrArgs = Misc.addToArrayAndReturnResult(instrArgs, Instrument.CmdOptions.INSTRUMENT_CLASSES.asArg());
             instrArgs = Misc.joinArrays(instrArgs, pathsToBinaries);
@@ -84,6 +115,10 @@ final public class TraceCoberturaInstrumenter extends AbstractInstrumenter {
             INSTRUMENT_CLASSES(Option.builder("c").longOpt("classes").required()
                     .hasArgs().desc("A list of classes/directories to instrument with Cobertura.").build()),
             OUTPUT("o", "output", true, "Path to output directory.", true),
+            INSTRUMENTATION_CACHE("ic", "instrumentationCache", true, "Path to a directory that holds previously instrumented classes "
+                    + "(e.g., shared between the buggy and fixed version of a project).", false),
+            WIDE_STATEMENT_ENCODING("w", "wideEncoding", false, "Whether to encode statements with dense statement IDs "
+                    + "instead of class and counter IDs (for projects with more than 4096 classes).", false),
             SELECTIVE_INSTRUMENTATION("s", "selective", false, "if set, instruments only parts of the program "
                     + "that have been executed in the previous run of tests.", false);
 
@@ -174,6 +209,10 @@ final public class TraceCoberturaInstrumenter extends AbstractInstrumenter {
             builder.setDataFile(coberturaDataFile.toString());
             builder.setDestinationDirectory(instrumentedDir.toString());
             builder.threadsafeRigorous(true);
+            if (options.hasOption(CmdOptions.INSTRUMENTATION_CACHE)) {
+                builder.setInstrumentationCacheDirectory(options.getOptionValue(CmdOptions.INSTRUMENTATION_CACHE));
+            }
+            builder.wideStatementEncoding(options.hasOption(CmdOptions.WIDE_STATEMENT_ENCODING));
             for (String file : classesToInstrument) {
                 builder.addFileToInstrument(file);
             }
@@ -8,6 +8,7 @@ import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInNewJVMMod
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestLocallyModule;
 import se.de.hu_berlin.informatik.gen.spectra.tracecobertura.modules.sub.TraceCoberturaRunTestInNewJVMModule;
 import se.de.hu_berlin.informatik.gen.spectra.tracecobertura.modules.sub.TraceCoberturaRunTestInNewJVMModuleWithJava7Runner;
+import se.de.hu_berlin.informatik.gen.spectra.tracecobertura.modules.sub.TraceCoberturaRunTestInPersistentJVMModule;
 import se.de.hu_berlin.informatik.gen.spectra.tracecobertura.modules.sub.TraceCoberturaRunTestLocallyModule;
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
@@ -19,7 +20,11 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.Objects;
 
@@ -48,6 +53,7 @@ public class TraceCoberturaRunSingleTestAndReportModule extends AbstractRunSingl
     private final File projectDir;
     private final String java7RunnerJar;
     boolean isFirst = true;
+    private boolean usePersistentJVM = false;
 
     public TraceCoberturaRunSingleTestAndReportModule(final Path dataFile, final String testOutput, final File projectDir, final String srcDir,
                                                       final boolean fullSpectra, final boolean debugOutput, Long timeout, final int repeatCount,
@@ -120,6 +126,18 @@ public class TraceCoberturaRunSingleTestAndReportModule extends AbstractRunSingl
         ProjectData.turnOffAutoSave();
     }
 
+    /**
+     * Sets whether tests that are run in separate JVMs shall reuse a persistent
+     * test runner JVM instead of starting a new JVM for each test.
+     *
+     * @param usePersistentJVM whether to use persistent test runner JVMs
+     * @return this module
+     */
+    public TraceCoberturaRunSingleTestAndReportModule usePersistentJVM(boolean usePersistentJVM) {
+        this.usePersistentJVM = usePersistentJVM;
+        return this;
+    }
+
     private void validateDataFile(String value) {
         File dataFile = new File(value);
         if (!dataFile.exists()) {
@@ -162,6 +180,18 @@ public class TraceCoberturaRunSingleTestAndReportModule extends AbstractRunSingl
                 testWrapper.toString(), testStatistics.wasSuccessful());
     }
 
+    @Override
+    protected void discardData(ProjectData data) {
+        ExecutionTraceSpool spool = data == null ? null : data.getExecutionTraceSpool();
+        if (spool != null) {
+            // the spooled traces are never loaded, so the spool file is not deleted by the loader
+            if (!spool.delete()) {
+                Log.warn(this, "Could not delete trace spool file '%s'.", spool.getSpoolFile());
+            }
+            data.addExecutionTraceSpool(null);
+        }
+    }
+
     @Override
     public TraceCoberturaReportWrapper getErrorReport() {
         return ERROR_WRAPPER;
@@ -175,14 +205,73 @@ public class TraceCoberturaRunSingleTestAndReportModule extends AbstractRunSingl
 
     @Override
     public AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModule() {
+        return newTestRunInNewJVMModule(testOutput, dataFile, usePersistentJVM);
+    }
+
+    @Override
+    public AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModuleWithJava7Runner() {
+        return newTestRunInNewJVMModuleWithJava7Runner(testOutput, dataFile, usePersistentJVM);
+    }
+
+    @Override
+    protected boolean supportsParallelWorkers() {
+        return true;
+    }
+
+    // workers always keep a long-lived test runner JVM
+    @Override
+    protected AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModule(int workerIndex) {
+        Path workerOutput = getWorkerOutput(workerIndex);
+        return newTestRunInNewJVMModule(workerOutput.toString(), getWorkerDataFile(workerOutput), true);
+    }
+
+    @Override
+    protected AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModuleWithJava7Runner(int workerIndex) {
+        Path workerOutput = getWorkerOutput(workerIndex);
+        return newTestRunInNewJVMModuleWithJava7Runner(workerOutput.toString(), getWorkerDataFile(workerOutput), true);
+    }
+
+    private Path getWorkerOutput(int workerIndex) {
+        Path workerOutput = Paths.get(testOutput, "worker" + workerIndex);
+        validateAndCreateDestinationDirectory(workerOutput.toString());
+        return workerOutput;
+    }
+
+    private Path getWorkerDataFile(Path workerOutput) {
+        // each worker JVM gets its own copy of the (wiped) data file
+        Path workerDataFile = workerOutput.resolve(dataFile.getFileName()).toAbsolutePath();
+        try {
+            Files.copy(dataFile, workerDataFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Log.abort(this, e, "Could not copy data file to '%s'.", workerDataFile);
+        }
+        return workerDataFile;
+    }
+
+    private static String getTraceSpoolProperty(String testOutput) {
+        // the test runner JVMs spool the execution traces to files in this directory
+        return "-D" + ExecutionTraceSpool.SPOOL_DIR_PROPERTY + "="
+                + Paths.get(testOutput, "traceSpool").toAbsolutePath().toString();
+    }
+
+    private AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModule(String testOutput, Path dataFile,
+                                                                                boolean persistent) {
+        if (persistent) {
+            return new TraceCoberturaRunTestInPersistentJVMModule(testOutput, timeout,
+                    instrumentedClassPath + File.pathSeparator + new ClassPathParser().parseSystemClasspath().getClasspath(),
+                    null, projectDir, getCustomSmallJvmArgs(),
+                    "-Dnet.sourceforge.cobertura.datafile=" + dataFile.toAbsolutePath().toString(),
+                getTraceSpoolProperty(testOutput));
+        }
         return new TraceCoberturaRunTestInNewJVMModule(testOutput, debugOutput, timeout,
                 repeatCount, instrumentedClassPath + File.pathSeparator + new ClassPathParser().parseSystemClasspath().getClasspath(),
                 dataFile, null, projectDir, getCustomSmallJvmArgs(), 
-                "-Dnet.sourceforge.cobertura.datafile=" + dataFile.toAbsolutePath().toString());
+                "-Dnet.sourceforge.cobertura.datafile=" + dataFile.toAbsolutePath().toString(),
+                getTraceSpoolProperty(testOutput));
     }
 
-    @Override
-    public AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModuleWithJava7Runner() {
+    private AbstractRunTestInNewJVMModule<ProjectData> newTestRunInNewJVMModuleWithJava7Runner(String testOutput, Path dataFile,
+                                                                                                boolean persistent) {
         //remove as much irrelevant classes as possible from class path (does not work this way...) TODO
 //		ClassPathParser systemClasspath = new ClassPathParser(true).parseSystemClasspath();
 //		systemClasspath.removeElementsOtherThan("java7-test-runner", "ant-", "junit-4.12");
@@ -193,11 +282,18 @@ public class TraceCoberturaRunSingleTestAndReportModule extends AbstractRunSingl
             testClassPath += java7RunnerJar;
             Log.out(this, java7RunnerJar);
         }
+        if (persistent) {
+            return new TraceCoberturaRunTestInPersistentJVMModule(testOutput, timeout, testClassPath,
+                    javaHome, projectDir, getCustomSmallJvmArgs(),
+                    "-Dnet.sourceforge.cobertura.datafile=" + dataFile.toAbsolutePath().toString(),
+                getTraceSpoolProperty(testOutput));
+        }
         return new TraceCoberturaRunTestInNewJVMModuleWithJava7Runner(testOutput,
                 debugOutput, timeout, repeatCount, testClassPath,
                 // + File.pathSeparator + systemClasspath.getClasspath(), 
                 dataFile, javaHome, projectDir, getCustomSmallJvmArgs(),
-                "-Dnet.sourceforge.cobertura.datafile=" + dataFile.toAbsolutePath().toString());
+                "-Dnet.sourceforge.cobertura.datafile=" + dataFile.toAbsolutePath().toString(),
+                getTraceSpoolProperty(testOutput));
     }
 
     @Override
@@ -6,18 +6,24 @@ package se.de.hu_berlin.informatik.gen.spectra.tracecobertura.modules.sub;
 import org.apache.commons.cli.Option;
 
 import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.sub.JaCoCoRunTestInNewJVMModule.TestRunner.CmdOptions;
-import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInNewJVMModuleWithServer;
+import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInNewJVMModuleWithFrameServer;
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.java7.testrunner.UnitTestRunner;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
 import se.de.hu_berlin.informatik.junittestutils.testrunner.running.ExtendedTestRunModule;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.TouchCollector;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
-import se.de.hu_berlin.informatik.utils.miscellaneous.SimpleServerFramework;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionWrapper;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionWrapperInterface;
+import se.de.hu_berlin.informatik.utils.statistics.Statistics;
+
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 /**
@@ -25,14 +31,18 @@ import java.nio.file.Path;
  * such that each executed test that runs longer than this timeout will
  * be aborted and will count as failing.
  *
+ * <p> The coverage data is sent back with the binary encoding of the
+ * {@link ProjectDataCodec} (see {@link UnitTestRunner#sendCoverage(int)}).
+ *
  * <p> if the test can't be run at all, this information is given in the
  * returned statistics, together with an error message.
  *
  * @author Simon Heiden
  */
-public class TraceCoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVMModuleWithServer<ProjectData> {
+public class TraceCoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVMModuleWithFrameServer<ProjectData> {
 
     final private String[] args;
+    final private ProjectDataCodec.Decoder decoder = new ProjectDataCodec.Decoder();
 
     public TraceCoberturaRunTestInNewJVMModule(final String testOutput,
                                                final boolean debugOutput, final Long timeout, final int repeatCount,
@@ -72,6 +82,26 @@ public class TraceCoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVM
 
     }
 
+    @Override
+    protected ProjectData decodeData(ByteBuffer data) {
+        return decoder.decode(data);
+    }
+
+    @Override
+    public Pair<TestStatistics, ProjectData> getResultAfterTest(final TestWrapper testWrapper, int result) {
+        ProjectData data = takeReceivedData();
+        if (result != 0) {
+//			Log.err(this, testWrapper + ": Running test in separate JVM failed.");
+            TestStatistics statistics = new TestStatistics();
+            statistics.addStatisticsElement(StatisticsData.ERROR_MSG, testWrapper + ": Running test in separate JVM failed.");
+            statistics.addStatisticsElement(StatisticsData.COVERAGE_GENERATION_FAILED, 1);
+            return new Pair<>(statistics, null);
+        }
+
+        return new Pair<>(new TestStatistics(Statistics.loadAndMergeFromCSV(StatisticsData.class, getStatisticsResultFile())),
+                data);
+    }
+
     @Override
     public boolean prepareBeforeRunningTest() {
         // not necessary
@@ -176,8 +206,6 @@ public class TraceCoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVM
             // reset hits, if any class was already registered (should not be the case, actually)
             TouchCollector.resetTouchesOnRegisteredClasses();
 
-            ProjectData projectData = null;
-
             //(try to) run the test and get the statistics
             TestStatistics statistics = testRunner
                     .submit(new TestWrapper(className, testName))
@@ -185,6 +213,9 @@ public class TraceCoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVM
 
             testRunner.finalShutdown();
 
+            statistics.saveToCSV(outputFile);
+
+            boolean successful = false;
             //see if the test was executed and finished execution normally
             if (statistics.couldBeFinished()) {
                 // wait for some milliseconds
@@ -193,17 +224,9 @@ public class TraceCoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVM
                 } catch (InterruptedException e) {
                     // do nothing
                 }
-                projectData = new ProjectData();
-
-                TouchCollector.applyTouchesOnProjectData(projectData);
+                successful = UnitTestRunner.sendCoverage(port);
             }
 
-            statistics.saveToCSV(outputFile);
-
-            // only send if not null...
-            boolean successful = projectData != null
-                    && SimpleServerFramework.sendToServer(projectData, port, 3);
-
             if (successful) {
                 Runtime.getRuntime().exit(0);
             } else {
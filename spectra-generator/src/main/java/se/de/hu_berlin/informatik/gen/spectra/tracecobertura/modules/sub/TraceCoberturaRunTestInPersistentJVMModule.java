@@ -0,0 +1,44 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.tracecobertura.modules.sub;
+
+import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInPersistentJVMModule;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectData;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata.ProjectDataCodec;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Runs single tests inside a separate, persistent JVM and generates statistics. A timeout may be set
+ * such that each executed test that runs longer than this timeout will
+ * be aborted and will count as failing.
+ *
+ * <p> if the test can't be run at all, this information is given in the
+ * returned statistics, together with an error message.
+ *
+ * @author Simon Heiden
+ */
+public class TraceCoberturaRunTestInPersistentJVMModule extends AbstractRunTestInPersistentJVMModule<ProjectData> {
+
+    final private ProjectDataCodec.Decoder decoder = new ProjectDataCodec.Decoder();
+
+    public TraceCoberturaRunTestInPersistentJVMModule(final String testOutput, final Long timeout,
+                                                      String instrumentedClassPath, final String javaHome, File projectDir,
+                                                      String[] customJvmArgs, String... properties) {
+        super(testOutput, timeout, instrumentedClassPath, javaHome, projectDir, customJvmArgs, properties);
+    }
+
+    @Override
+    protected ProjectData decodeData(ByteBuffer data) {
+        return decoder.decode(data);
+    }
+
+    @Override
+    public boolean prepareBeforeRunningTest() {
+        // not necessary
+        return true;
+    }
+
+}
@@ -0,0 +1,133 @@
+package se.de.hu_berlin.informatik.gen.spectra.jacoco.modules;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the coverage computed by the {@link CachedCoverageAnalyzer} with the coverage
+ * of a plain JaCoCo {@link Analyzer} over all class files.
+ *
+ * @author Simon Heiden
+ */
+public class CachedCoverageAnalyzerTest extends TestSettings {
+
+    // more than the number of probes of any test class; surplus probes are ignored by the analysis
+    private static final int PROBE_COUNT = 1024;
+
+    private final List<File> classfiles = Collections.singletonList(
+            new File(getStdResourcesDir() + File.separator + "CoberturaTestProject" + File.separator + "bin"));
+
+    @Test
+    public void testSameCoverageAsFullAnalysis() throws IOException {
+        List<IClassCoverage> classes = new ArrayList<>(analyze(new ExecutionDataStore()).getClasses());
+        Assert.assertFalse(classes.isEmpty());
+
+        CachedCoverageAnalyzer analyzer = new CachedCoverageAnalyzer(classfiles);
+        Random random = new Random(42);
+        for (int i = 0; i < 50; ++i) {
+            ExecutionDataStore data = new ExecutionDataStore();
+            for (IClassCoverage coverage : classes) {
+                int choice = random.nextInt(4);
+                if (choice == 0) {
+                    // no execution data
+                    continue;
+                }
+                boolean[] probes = new boolean[PROBE_COUNT];
+                if (choice == 2) {
+                    // only a few probe patterns, which are taken from the cache
+                    probes[random.nextInt(3)] = true;
+                } else if (choice == 3) {
+                    for (int j = 0; j < probes.length; ++j) {
+                        probes[j] = random.nextBoolean();
+                    }
+                }
+                data.put(new ExecutionData(coverage.getId(), coverage.getName(), probes));
+            }
+
+            assertSameCoverage(analyze(data), analyzer.analyze(data));
+        }
+    }
+
+    @Test
+    public void testMismatchingExecutionDataIsReported() throws IOException {
+        IClassCoverage someClass = analyze(new ExecutionDataStore()).getClasses().iterator().next();
+        ExecutionDataStore data = new ExecutionDataStore();
+        data.put(new ExecutionData(someClass.getId() + 1, someClass.getName(), new boolean[PROBE_COUNT]));
+
+        CoverageBuilder builder = new CachedCoverageAnalyzer(classfiles).analyze(data);
+        Assert.assertEquals(1, builder.getNoMatchClasses().size());
+        Assert.assertEquals(someClass.getName(), builder.getNoMatchClasses().iterator().next().getName());
+        assertSameCoverage(analyze(data), builder);
+    }
+
+    private CoverageBuilder analyze(ExecutionDataStore data) throws IOException {
+        CoverageBuilder builder = new CoverageBuilder();
+        Analyzer analyzer = new Analyzer(data, builder);
+        for (File f : classfiles) {
+            analyzer.analyzeAll(f);
+        }
+        return builder;
+    }
+
+    private static void assertSameCoverage(CoverageBuilder expected, CoverageBuilder actual) {
+        Map<String, IClassCoverage> actualClasses = byName(actual.getClasses());
+        Assert.assertEquals(expected.getClasses().size(), actualClasses.size());
+        for (IClassCoverage expectedClass : expected.getClasses()) {
+            IClassCoverage actualClass = actualClasses.get(expectedClass.getName());
+            Assert.assertNotNull(expectedClass.getName(), actualClass);
+            Assert.assertEquals(expectedClass.getId(), actualClass.getId());
+            Assert.assertEquals(expectedClass.isNoMatch(), actualClass.isNoMatch());
+            assertSameCounter(expectedClass.getName(), expectedClass.getInstructionCounter(), actualClass.getInstructionCounter());
+            assertSameCounter(expectedClass.getName(), expectedClass.getBranchCounter(), actualClass.getBranchCounter());
+
+            List<IMethodCoverage> expectedMethods = new ArrayList<>(expectedClass.getMethods());
+            List<IMethodCoverage> actualMethods = new ArrayList<>(actualClass.getMethods());
+            Assert.assertEquals(expectedMethods.size(), actualMethods.size());
+            for (int i = 0; i < expectedMethods.size(); ++i) {
+                IMethodCoverage expectedMethod = expectedMethods.get(i);
+                IMethodCoverage actualMethod = actualMethods.get(i);
+                String method = expectedClass.getName() + "." + expectedMethod.getName() + expectedMethod.getDesc();
+                Assert.assertEquals(method, expectedMethod.getName() + expectedMethod.getDesc(),
+                        actualMethod.getName() + actualMethod.getDesc());
+                Assert.assertEquals(method, expectedMethod.getFirstLine(), actualMethod.getFirstLine());
+                Assert.assertEquals(method, expectedMethod.getLastLine(), actualMethod.getLastLine());
+                for (int line = expectedMethod.getFirstLine(); line <= expectedMethod.getLastLine(); ++line) {
+                    Assert.assertEquals(method + ", line " + line,
+                            expectedMethod.getLine(line).getStatus(), actualMethod.getLine(line).getStatus());
+                }
+            }
+        }
+    }
+
+    private static void assertSameCounter(String message, ICounter expected, ICounter actual) {
+        Assert.assertEquals(message, expected.getCoveredCount(), actual.getCoveredCount());
+        Assert.assertEquals(message, expected.getMissedCount(), actual.getMissedCount());
+    }
+
+    private static Map<String, IClassCoverage> byName(Collection<IClassCoverage> classes) {
+        Map<String, IClassCoverage> result = new HashMap<>();
+        for (IClassCoverage coverage : classes) {
+            result.put(coverage.getName(), coverage);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,288 @@
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import org.junit.Assert;
+import org.junit.Test;
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.processors.basics.CollectionSequencer;
+import se.de.hu_berlin.informatik.utils.processors.basics.ExecuteMainClassInNewJVM;
+import se.de.hu_berlin.informatik.utils.processors.sockets.pipe.PipeLinker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the module with fake test runners on multiple workers.
+ *
+ * @author Simon Heiden
+ */
+public class AbstractRunSingleTestAndReportModuleTest {
+
+    private static final String ERROR_REPORT = "ERROR";
+
+    @Test
+    public void testReportsAreEmittedInSubmissionOrder() {
+        List<TestWrapper> tests = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            // later tests finish earlier
+            TestWrapper test = new TestWrapper("some.TestClass", "test" + i + "_" + (20 - i) * 5);
+            tests.add(test);
+            expected.add(test.toString());
+        }
+
+        FakeModule module = new FakeModule(0);
+        List<String> reports = run(module, tests);
+
+        Assert.assertEquals(expected, reports);
+        Assert.assertEquals(tests.size(), module.executedTests.size());
+        Assert.assertTrue("tests were not executed in parallel", module.maxRunningTests.get() > 1);
+        Assert.assertTrue(module.maxRunningTests.get() <= 4);
+        assertAllRunnersShutDown(module);
+    }
+
+    @Test
+    public void testRunningTestsCountAgainstErrorLimit() {
+        List<TestWrapper> tests = new ArrayList<>();
+        tests.add(new TestWrapper("some.TestClass", "test0_10"));
+        tests.add(new TestWrapper("some.TestClass", "error1_100"));
+        tests.add(new TestWrapper("some.TestClass", "error2_100"));
+        for (int i = 3; i < 10; ++i) {
+            tests.add(new TestWrapper("some.TestClass", "test" + i + "_10"));
+        }
+
+        FakeModule module = new FakeModule(1);
+        List<String> reports = run(module, tests);
+
+        // the second error reaches the limit; all following tests have to be skipped,
+        // even though they have been submitted while the errors were still running
+        Assert.assertEquals(3, module.executedTests.size());
+        Assert.assertTrue(module.executedTests.contains(tests.get(0).toString()));
+        Assert.assertTrue(module.executedTests.contains(tests.get(1).toString()));
+        Assert.assertTrue(module.executedTests.contains(tests.get(2).toString()));
+        List<String> expected = new ArrayList<>();
+        expected.add(tests.get(0).toString());
+        expected.add(ERROR_REPORT);
+        Assert.assertEquals(expected, reports);
+        assertAllRunnersShutDown(module);
+    }
+
+    @Test
+    public void testErrorsBelowLimitAreTolerated() {
+        List<TestWrapper> tests = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 12; ++i) {
+            TestWrapper test = new TestWrapper("some.TestClass", (i % 4 == 1 ? "error" : "test") + i + "_20");
+            tests.add(test);
+            if (i % 4 != 1) {
+                expected.add(test.toString());
+            }
+        }
+
+        FakeModule module = new FakeModule(3);
+        List<String> reports = run(module, tests);
+
+        Assert.assertEquals(tests.size(), module.executedTests.size());
+        Assert.assertEquals(expected, reports);
+        // each failed execution recycles the runner of its worker
+        for (FakeTestRunner runner : module.createdRunners) {
+            for (int i = 0; i < runner.executedTests.size() - 1; ++i) {
+                Assert.assertFalse(runner.executedTests.get(i).startsWith("error"));
+            }
+        }
+        assertAllRunnersShutDown(module);
+    }
+
+    @Test
+    public void testDroppedDataIsDiscarded() {
+        List<TestWrapper> tests = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            tests.add(new TestWrapper("some.TestClass", (i == 2 ? "error" : "test") + i + "_10"));
+        }
+        // successful, but expected to fail
+        String wrongResult = tests.get(5).toString();
+
+        FakeModule module = new FakeModule(3, wrongResult);
+        List<String> reports = run(module, tests);
+
+        List<String> expected = new ArrayList<>();
+        for (TestWrapper test : tests) {
+            if (!test.getTestMethodName().startsWith("error") && !test.toString().equals(wrongResult)) {
+                expected.add(test.toString());
+            }
+        }
+        // the known failing test has not failed
+        expected.add(ERROR_REPORT);
+        Assert.assertEquals(expected, reports);
+        // only the data without a report has been discarded
+        Assert.assertEquals(Collections.singletonList(wrongResult), module.discardedData);
+        assertAllRunnersShutDown(module);
+    }
+
+    private static List<String> run(FakeModule module, List<TestWrapper> tests) {
+        ReportCollector collector = new ReportCollector();
+        new PipeLinker().append(
+                new CollectionSequencer<TestWrapper>(),
+                module.asPipe(8).enableTracking().allowOnlyForcedTracks(),
+                collector)
+                .submitAndShutdown(tests);
+        return collector.reports;
+    }
+
+    private static void assertAllRunnersShutDown(FakeModule module) {
+        Assert.assertFalse(module.createdRunners.isEmpty());
+        for (FakeTestRunner runner : module.createdRunners) {
+            Assert.assertEquals("runner of worker " + runner.workerIndex, 1, runner.shutdownCount.get());
+        }
+    }
+
+    private static class ReportCollector extends AbstractProcessor<String, Object> {
+
+        private final List<String> reports = new ArrayList<>();
+
+        @Override
+        public Object processItem(String item) {
+            reports.add(item);
+            return null;
+        }
+    }
+
+    private static class FakeModule extends AbstractRunSingleTestAndReportModule<String, String> {
+
+        private final Set<String> executedTests = ConcurrentHashMap.newKeySet();
+        private final List<FakeTestRunner> createdRunners = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger runningTests = new AtomicInteger();
+        private final AtomicInteger maxRunningTests = new AtomicInteger();
+        private final List<String> discardedData = Collections.synchronizedList(new ArrayList<>());
+
+        private FakeModule(int maxErrors, String... failingTests) {
+            super("target/testoutput", false, null, 1, true, true, maxErrors,
+                    failingTests.length == 0 ? null : failingTests, null, null, null);
+            setWorkerCount(4);
+        }
+
+        @Override
+        protected boolean supportsParallelWorkers() {
+            return true;
+        }
+
+        @Override
+        protected AbstractRunTestInNewJVMModule<String> newTestRunInNewJVMModuleWithJava7Runner(int workerIndex) {
+            FakeTestRunner runner = new FakeTestRunner(this, workerIndex);
+            createdRunners.add(runner);
+            return runner;
+        }
+
+        @Override
+        public AbstractRunTestInNewJVMModule<String> newTestRunInNewJVMModule() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AbstractRunTestLocallyModule<String> newTestRunLocallyModule() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AbstractRunTestInNewJVMModule<String> newTestRunInNewJVMModuleWithJava7Runner() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateReport(TestWrapper testWrapper, TestStatistics testStatistics, String data) {
+            return data;
+        }
+
+        @Override
+        protected void discardData(String data) {
+            if (data != null) {
+                discardedData.add(data);
+            }
+        }
+
+        @Override
+        public String transformTestResultFromSeparateJVM(String projectData) {
+            return projectData;
+        }
+
+        @Override
+        public String transformTestResultFromSeparateJVMWithJava7(String projectData) {
+            return projectData;
+        }
+
+        @Override
+        public String getErrorReport() {
+            return ERROR_REPORT;
+        }
+    }
+
+    /**
+     * Pretends to execute tests named "&lt;name&gt;_&lt;duration in ms&gt;". Tests whose
+     * names start with "error" time out.
+     */
+    private static class FakeTestRunner extends AbstractRunTestInNewJVMModule<String> {
+
+        private final FakeModule module;
+        private final int workerIndex;
+        private final AtomicInteger shutdownCount = new AtomicInteger();
+        private final List<String> executedTests = Collections.synchronizedList(new ArrayList<>());
+
+        private FakeTestRunner(FakeModule module, int workerIndex) {
+            super("target/testoutput");
+            this.module = module;
+            this.workerIndex = workerIndex;
+        }
+
+        @Override
+        protected int executeTest(String[] args) {
+            int running = module.runningTests.incrementAndGet();
+            module.maxRunningTests.accumulateAndGet(running, Math::max);
+            try {
+                Thread.sleep(Long.parseLong(args[1].substring(args[1].lastIndexOf('_') + 1)));
+            } catch (InterruptedException e) {
+                // finish early
+            } finally {
+                module.runningTests.decrementAndGet();
+            }
+            return 0;
+        }
+
+        @Override
+        public Pair<TestStatistics, String> getResultAfterTest(TestWrapper testWrapper, int executionResult) {
+            module.executedTests.add(testWrapper.toString());
+            executedTests.add(testWrapper.getTestMethodName());
+            if (testWrapper.getTestMethodName().startsWith("error")) {
+                return new Pair<>(new TestStatistics(100, false, true, false, false, false, "timeout"), null);
+            }
+            return new Pair<>(new TestStatistics(10, true, false, false, false, true, null), testWrapper.toString());
+        }
+
+        @Override
+        public boolean prepareBeforeRunningTest() {
+            return true;
+        }
+
+        @Override
+        public String[] getArgs(String testClassName, String testMethodName) {
+            return new String[]{testClassName, testMethodName};
+        }
+
+        @Override
+        public ExecuteMainClassInNewJVM getMain() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean finalShutdown() {
+            shutdownCount.incrementAndGet();
+            return super.finalShutdown();
+        }
+    }
+
+}
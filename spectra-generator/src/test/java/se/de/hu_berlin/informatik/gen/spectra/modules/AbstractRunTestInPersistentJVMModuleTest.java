@@ -0,0 +1,86 @@
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import se.de.hu_berlin.informatik.java7.testrunner.UnitTestRunner;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Runs tests of the {@link PersistentJVMFixture} in runner JVMs started by the module.
+ *
+ * @author Simon Heiden
+ */
+public class AbstractRunTestInPersistentJVMModuleTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRunnerIsKeptAliveBetweenTests() {
+        TestModule module = new TestModule(folder.getRoot(), null);
+        try {
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "successfulTest"));
+            // passes only if executed in the same JVM as the previous test
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "requiresPreviousTestInSameJVM"));
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "requiresPreviousTestInSameJVM"));
+        } finally {
+            module.finalShutdown();
+        }
+    }
+
+    @Test
+    public void testCrashedRunnerIsRestarted() {
+        TestModule module = new TestModule(folder.getRoot(), null);
+        try {
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "successfulTest"));
+            Assert.assertEquals(UnitTestRunner.TEST_EXCEPTION, runTest(module, "crashingTest"));
+            // a new runner JVM executes the next tests
+            Assert.assertEquals(UnitTestRunner.TEST_FAILED, runTest(module, "requiresPreviousTestInSameJVM"));
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "successfulTest"));
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "requiresPreviousTestInSameJVM"));
+        } finally {
+            module.finalShutdown();
+        }
+    }
+
+    @Test
+    public void testRunnerIsRestartedAfterTimeout() {
+        TestModule module = new TestModule(folder.getRoot(), 1L);
+        try {
+            Assert.assertEquals(UnitTestRunner.TEST_SUCCESSFUL, runTest(module, "successfulTest"));
+            // the runner ends itself after a timeout
+            Assert.assertEquals(UnitTestRunner.TEST_TIMEOUT, runTest(module, "hangingTest"));
+            Assert.assertEquals(UnitTestRunner.TEST_FAILED, runTest(module, "requiresPreviousTestInSameJVM"));
+        } finally {
+            module.finalShutdown();
+        }
+    }
+
+    private static int runTest(TestModule module, String testMethod) {
+        return module.executeTest(module.getArgs(PersistentJVMFixture.class.getName(), testMethod));
+    }
+
+    private static class TestModule extends AbstractRunTestInPersistentJVMModule<String> {
+
+        private TestModule(File outputDir, Long timeout) {
+            super(outputDir.toString(), timeout, System.getProperty("java.class.path"),
+                    System.getProperty("java.home"), outputDir, null);
+        }
+
+        @Override
+        protected String decodeData(ByteBuffer data) {
+            // coverage data is only sent when using Cobertura
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean prepareBeforeRunningTest() {
+            return true;
+        }
+    }
+
+}
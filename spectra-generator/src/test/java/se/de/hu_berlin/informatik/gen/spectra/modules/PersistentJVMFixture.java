@@ -0,0 +1,36 @@
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that are executed in the runner JVMs started by the
+ * {@link AbstractRunTestInPersistentJVMModuleTest}.
+ *
+ * @author Simon Heiden
+ */
+public class PersistentJVMFixture {
+
+    private static boolean executedBefore = false;
+
+    @Test
+    public void successfulTest() {
+        executedBefore = true;
+    }
+
+    @Test
+    public void requiresPreviousTestInSameJVM() {
+        Assert.assertTrue(executedBefore);
+    }
+
+    @Test
+    public void crashingTest() {
+        Runtime.getRuntime().halt(1);
+    }
+
+    @Test
+    public void hangingTest() throws InterruptedException {
+        Thread.sleep(3000);
+    }
+
+}
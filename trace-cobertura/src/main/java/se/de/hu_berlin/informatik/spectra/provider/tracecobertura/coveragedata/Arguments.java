@@ -49,6 +49,10 @@ public class Arguments {
     private final boolean ignoreTrivial;
     private final boolean collectExecutionTraces;
     private final boolean threadsafeRigorous;
+    private final boolean verifyInstrumentation;
+    private final File instrumentationCacheDirectory;
+    private final int threadCount;
+    private final boolean wideStatementEncoding;
 
     private final String encoding;
 
@@ -72,7 +76,9 @@ public class Arguments {
               Collection<Pattern> classPatternExcludeClassesRegexes,
               boolean calculateMethodComplexity,
               boolean failOnError, boolean ignoreTrivial, boolean collectExecutionTraces,
-              boolean threadsafeRigorous, String encoding,
+              boolean threadsafeRigorous, boolean verifyInstrumentation,
+              File instrumentationCacheDirectory, int threadCount,
+              boolean wideStatementEncoding, String encoding,
               Set<CoverageThreshold> minimumCoverageThresholds,
               double classLineThreshold, double classBranchThreshold,
               double packageLineThreshold, double packageBranchThreshold,
@@ -97,6 +103,10 @@ public class Arguments {
         this.ignoreTrivial = ignoreTrivial;
         this.collectExecutionTraces = collectExecutionTraces;
         this.threadsafeRigorous = threadsafeRigorous;
+        this.verifyInstrumentation = verifyInstrumentation;
+        this.instrumentationCacheDirectory = instrumentationCacheDirectory;
+        this.threadCount = threadCount;
+        this.wideStatementEncoding = wideStatementEncoding;
         this.encoding = encoding;
         this.minimumCoverageThresholds = Collections
                 .unmodifiableSet(minimumCoverageThresholds);
@@ -166,6 +176,22 @@ public class Arguments {
         return threadsafeRigorous;
     }
 
+    public boolean isVerifyInstrumentation() {
+        return verifyInstrumentation;
+    }
+
+    public File getInstrumentationCacheDirectory() {
+        return instrumentationCacheDirectory;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public boolean isWideStatementEncoding() {
+        return wideStatementEncoding;
+    }
+
     public String getEncoding() {
         return encoding;
     }
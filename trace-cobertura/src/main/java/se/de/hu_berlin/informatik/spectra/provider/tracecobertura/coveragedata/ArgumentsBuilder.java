@@ -42,6 +42,7 @@ public class ArgumentsBuilder {
     static final boolean DEFAULT_FAIL_ON_ERROR = false;
     static final boolean DEFAULT_IGNORE_TRIVIAL = false;
     static final boolean DEFAULT_THREADSAFE_RIGOROUS = false;
+    static final boolean DEFAULT_VERIFY_INSTRUMENTATION = false;
 
     private String baseDirectory;
     private File dataFile;
@@ -58,6 +59,10 @@ public class ArgumentsBuilder {
     private boolean ignoreTrivial;
     private boolean collectExecutionTraces;
     private boolean threadsafeRigorous;
+    private boolean verifyInstrumentation;
+    private File instrumentationCacheDirectory;
+    private int threadCount;
+    private boolean wideStatementEncoding;
 
     private String encoding;
 
@@ -155,6 +160,26 @@ public class ArgumentsBuilder {
         return this;
     }
 
+    public ArgumentsBuilder verifyInstrumentation(boolean verifyInstrumentation) {
+        this.verifyInstrumentation = verifyInstrumentation;
+        return this;
+    }
+
+    public ArgumentsBuilder setInstrumentationCacheDirectory(String instrumentationCacheDirectory) {
+        this.instrumentationCacheDirectory = new File(instrumentationCacheDirectory);
+        return this;
+    }
+
+    public ArgumentsBuilder setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    public ArgumentsBuilder wideStatementEncoding(boolean wideStatementEncoding) {
+        this.wideStatementEncoding = wideStatementEncoding;
+        return this;
+    }
+
     public ArgumentsBuilder listOfFilesToInstrument(String listFileName) {
         String baseDir = getBaseDirectory();
         try {
@@ -264,7 +289,9 @@ public class ArgumentsBuilder {
                 classPatternIncludeClassesRegexes,
                 classPatternExcludeClassesRegexes, calculateMethodComplexity,
                 failOnError, ignoreTrivial, collectExecutionTraces,
-                threadsafeRigorous, encoding, minimumCoverageThresholds,
+                threadsafeRigorous, verifyInstrumentation,
+                instrumentationCacheDirectory, threadCount,
+                wideStatementEncoding, encoding, minimumCoverageThresholds,
                 classLineThreshold, classBranchThreshold, packageLineThreshold,
                 packageBranchThreshold, totalLineThreshold,
                 totalBranchThreshold, filesToInstrument, filesToMerge,
@@ -307,6 +334,9 @@ public class ArgumentsBuilder {
         ignoreTrivial = DEFAULT_IGNORE_TRIVIAL;
         collectExecutionTraces = false;
         threadsafeRigorous = DEFAULT_THREADSAFE_RIGOROUS;
+        verifyInstrumentation = DEFAULT_VERIFY_INSTRUMENTATION;
+        threadCount = Runtime.getRuntime().availableProcessors();
+        wideStatementEncoding = false;
         encoding = DEFAULT_ENCODING;
     }
 
@@ -83,6 +83,21 @@ public class ClassData extends CoverageDataContainer
         return classId;
     }
 
+    // first statement id of this class if the wide statement encoding is used
+    private int statementBase = -1;
+
+    public void setStatementBase(int statementBase) {
+        this.statementBase = statementBase;
+    }
+
+    /**
+     * @return the first statement id of this class in the wide statement encoding,
+     * or -1 if the narrow encoding (class id and counter id) is used
+     */
+    public int getStatementBase() {
+        return statementBase;
+    }
+
 //	public ClassData() {
 //	}
 
@@ -92,9 +107,6 @@ public class ClassData extends CoverageDataContainer
      */
     public ClassData(String name, int classId) {
         this.classId = classId;
-        if (classId > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS) - 1) {
-            throw new IllegalStateException("Class ID too high! Encoding error: " + classId);
-        }
         if (name == null)
             throw new IllegalArgumentException("Class name must be specified.");
         this.name = name;
@@ -533,6 +545,7 @@ public class ClassData extends CoverageDataContainer
 //			this.coverageMap.putAll(classData.coverageMap);
             if (this.counterId2LineNumbers == null) {
                 this.counterId2LineNumbers = classData.counterId2LineNumbers;
+                this.statementBase = classData.statementBase;
             }
 
             if (this.counterId2LineNumbers != null &&
@@ -540,10 +553,6 @@ public class ClassData extends CoverageDataContainer
                 throw new IllegalStateException("Counter ID too high! Encoding error: " + (this.counterId2LineNumbers.length - 1));
             }
 
-            if (this.classId > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS) - 1) {
-                throw new IllegalStateException("Class ID too high! Encoding error: " + this.classId);
-            }
-
 //			System.out.println("max counter ID: " + (this.counterId2LineNumbers.length - 1) + ", class ID: " + this.classId);
 
 //			this.counterIdToLineNumberMap.putAll(classData.counterIdToLineNumberMap);
@@ -66,12 +66,37 @@ public class ClassMap {
 
     private int maxCounterId = 0;
 
-    private final int classId;
+    private int classId;
+
+    private int statementBase = -1;
 
     public ClassMap(int classId) {
         this.classId = classId;
     }
 
+    /*
+     * Sets the id of the class. Has to be called before the class map is applied
+     * on the project data if the class id was not known at construction time.
+     *
+     * @param classId the class id
+     */
+    public void setClassId(int classId) {
+        this.classId = classId;
+    }
+
+    /*
+     * Sets the first statement id of the class if the wide statement encoding is used.
+     *
+     * @param statementBase the statement base, or -1 for the narrow encoding
+     */
+    public void setStatementBase(int statementBase) {
+        this.statementBase = statementBase;
+    }
+
+    public int getStatementBase() {
+        return statementBase;
+    }
+
     public void setSource(String source) {
         this.source = source;
     }
@@ -0,0 +1,244 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.LightClassmapListener;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the touch points of an instrumented class, as reported by the class'
+ * classmap method, in a flat array that maps counter IDs to lines, jumps and switches.
+ * The jump and switch numbers inside each line are computed once while recording.
+ * Applying a counter array of the class to class data is then a simple loop over
+ * the array, without invoking the classmap method again, and does not need access
+ * to the class itself (e.g., in another JVM). The resulting class data is the same
+ * as the one created by replaying the classmap method with the counter array.
+ *
+ * @author Simon
+ */
+@CoverageIgnore
+class ClassTouchPointLayout implements LightClassmapListener {
+
+    final private static int LINE = 0;
+    final private static int JUMP = 1;
+    final private static int SWITCH = 2;
+
+    final private String className;
+    private String source;
+
+    // encoded touch points: type, class line, followed by the type specific values:
+    // LINE: counter ID, method name index, method description index
+    // JUMP: jump number, true counter ID, false counter ID
+    // SWITCH: switch number, max branches, number of counters, counter IDs
+    private int[] touchPoints = new int[16];
+    private int length = 0;
+
+    // to compute the jump and switch numbers inside of lines
+    private int currentLine = 0;
+    private int jumpsInLine = 0;
+    private int switchesInLine = 0;
+
+    // method names and descriptions, referenced by index
+    final private List<String> strings = new ArrayList<>();
+    final private Map<String, Integer> stringIndices = new HashMap<>();
+
+    ClassTouchPointLayout(String className) {
+        this.className = className;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * @param counters the counter array of a class (may be null)
+     * @return whether any counter is not zero
+     */
+    static boolean hasHits(int[] counters) {
+        if (counters == null) {
+            return false;
+        }
+        for (int hits : counters) {
+            if (hits != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the given counters to the given class data, based on the recorded
+     * touch points.
+     *
+     * @param classData the class data
+     * @param counters  the counter array of the class (may be null)
+     */
+    void applyOnClassData(ClassData classData, int[] counters) {
+        if (source != null) {
+            classData.setSourceFileName(source);
+        }
+        int i = 0;
+        while (i < length) {
+            int type = touchPoints[i++];
+            int classLine = touchPoints[i++];
+            switch (type) {
+                case LINE: {
+                    LineData lineData = classData.addLine(classLine,
+                            strings.get(touchPoints[i + 1]), strings.get(touchPoints[i + 2]));
+                    lineData.touch(getHits(counters, touchPoints[i]));
+                    i += 3;
+                    break;
+                }
+                case JUMP: {
+                    int jumpNumber = touchPoints[i];
+                    LineData lineData = classData.addLineWithNoMethodName(classLine);
+                    classData.addLineJump(classLine, jumpNumber);
+                    lineData.touchJump(jumpNumber, true, getHits(counters, touchPoints[i + 1]));
+                    lineData.touchJump(jumpNumber, false, getHits(counters, touchPoints[i + 2]));
+                    i += 3;
+                    break;
+                }
+                case SWITCH: {
+                    int switchNumber = touchPoints[i];
+                    int maxBranches = touchPoints[i + 1];
+                    int counterCount = touchPoints[i + 2];
+                    i += 3;
+                    LineData lineData = classData.addLineWithNoMethodName(classLine);
+                    classData.addLineSwitch(classLine, switchNumber, 0, counterCount - 2, maxBranches);
+                    for (int j = 0; j < counterCount; ++j) {
+                        lineData.touchSwitch(switchNumber, j - 1, getHits(counters, touchPoints[i + j]));
+                    }
+                    i += counterCount;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown touch point type: " + type);
+            }
+        }
+    }
+
+    private static int getHits(int[] counters, int counterId) {
+        return counters == null ? 0 : counters[counterId];
+    }
+
+    /**
+     * Writes the layout to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     * @return the given buffer, or a larger buffer with the same contents if the
+     * given buffer had not enough space left
+     */
+    ByteBuffer writeTo(ByteBuffer buffer) {
+        buffer = ProjectDataCodec.putString(buffer, className);
+        buffer = ProjectDataCodec.ensureRemaining(buffer, 1);
+        buffer.put((byte) (source == null ? 0 : 1));
+        if (source != null) {
+            buffer = ProjectDataCodec.putString(buffer, source);
+        }
+        buffer = ProjectDataCodec.ensureRemaining(buffer, 4);
+        buffer.putInt(strings.size());
+        for (String string : strings) {
+            buffer = ProjectDataCodec.putString(buffer, string);
+        }
+        return ProjectDataCodec.putInts(buffer, touchPoints, length);
+    }
+
+    /**
+     * Reads a layout that was written with {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the layout
+     */
+    static ClassTouchPointLayout readFrom(ByteBuffer buffer) {
+        ClassTouchPointLayout layout = new ClassTouchPointLayout(ProjectDataCodec.getString(buffer));
+        if (buffer.get() != 0) {
+            layout.source = ProjectDataCodec.getString(buffer);
+        }
+        int stringCount = buffer.getInt();
+        for (int i = 0; i < stringCount; ++i) {
+            layout.strings.add(ProjectDataCodec.getString(buffer));
+        }
+        layout.touchPoints = ProjectDataCodec.getInts(buffer);
+        layout.length = layout.touchPoints.length;
+        return layout;
+    }
+
+    private void add(int value) {
+        if (length == touchPoints.length) {
+            touchPoints = Arrays.copyOf(touchPoints, 2 * length);
+        }
+        touchPoints[length++] = value;
+    }
+
+    private void updateLine(int classLine) {
+        if (classLine != currentLine) {
+            currentLine = classLine;
+            jumpsInLine = 0;
+            switchesInLine = 0;
+        }
+    }
+
+    private int indexOf(String string) {
+        Integer index = stringIndices.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndices.put(string, index);
+        }
+        return index;
+    }
+
+    @Override
+    public void setClazz(Class<?> clazz) {
+
+    }
+
+    @Override
+    public void setClazz(String clazz) {
+
+    }
+
+    @Override
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    @Override
+    public void putLineTouchPoint(int classLine, int counterId, String methodName, String methodDescription) {
+        updateLine(classLine);
+        add(LINE);
+        add(classLine);
+        add(counterId);
+        add(indexOf(methodName));
+        add(indexOf(methodDescription));
+    }
+
+    @Override
+    public void putJumpTouchPoint(int classLine, int trueCounterId, int falseCounterId) {
+        updateLine(classLine);
+        add(JUMP);
+        add(classLine);
+        add(jumpsInLine++);
+        add(trueCounterId);
+        add(falseCounterId);
+    }
+
+    @Override
+    public void putSwitchTouchPoint(int classLine, int maxBranches, int... counterIds) {
+        updateLine(classLine);
+        add(SWITCH);
+        add(classLine);
+        add(switchesInLine++);
+        add(maxBranches);
+        add(counterIds.length);
+        for (int counterId : counterIds) {
+            add(counterId);
+        }
+    }
+
+}
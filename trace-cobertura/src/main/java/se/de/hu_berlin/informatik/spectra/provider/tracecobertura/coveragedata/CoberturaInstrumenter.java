@@ -3,7 +3,10 @@ package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
 
 import org.apache.oro.text.regex.Pattern;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,10 +17,22 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.IOUtil;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Class that is responsible for the whole process of instrumentation of a single class.
@@ -31,6 +46,9 @@ import java.util.Vector;
  * <li>Real instrumentation: {@link InjectCodeClassInstrumenter}. Uses {#link ClassMap} to inject
  * code into the class</li>
  * </ol>
+ * <p>
+ * Multiple classes can be instrumented in parallel with {@link #addInstrumentationToClasses}. The
+ * result of the last pass can be cached in a directory (see {@link #setCacheDirectory(File)}).
  *
  * @author piotr.tabor@gmail.com
  */
@@ -91,12 +109,39 @@ public class CoberturaInstrumenter {
 
     private final boolean collectExecutionTrace;
 
+    /**
+     * If true: every instrumented class is checked with {@link CheckClassAdapter#verify}
+     * and problems are logged. Verification does not change the instrumented bytecode.
+     */
+    private boolean verify;
+
+    /**
+     * Directory that holds previously instrumented classes, keyed by a hash of the original bytecode
+     * and all settings that influence the instrumentation. If it is null, no cache is used.
+     * <p>
+     * The cache should only be shared between versions of the same project (e.g., the buggy and the
+     * fixed version of a bug), since the computed stack map frames depend on the class hierarchy.
+     */
+    private File cacheDirectory;
+
     private static int currentClassIndex = -1;
 
+    // first statement id of the next class if the wide statement encoding is used
+    private static long nextStatementBase = 0;
+
+    // increment if the instrumentation changes, to invalidate existing cache entries
+    private static final int CACHE_VERSION = 3;
+
     public CoberturaInstrumenter(boolean collectExecutionTrace) {
         this.collectExecutionTrace = collectExecutionTrace;
     }
 
+    // Visible for testing
+    static void resetClassIds() {
+        currentClassIndex = -1;
+        nextStatementBase = 0;
+    }
+
     /**
      * Analyzes and instruments class given by path.
      *
@@ -113,14 +158,8 @@ public class CoberturaInstrumenter {
             inputStream = new FileInputStream(file);
             return instrumentClass(inputStream, statementsToInstrument);
         } catch (Throwable t) {
-            logger.warn("Unable to instrument file " + file.getAbsolutePath(),
-                    t);
-            if (failOnError) {
-                throw new RuntimeException(
-                        "Warning detected and failOnError is true", t);
-            } else {
-                return null;
-            }
+            handleError(file, t);
+            return null;
         } finally {
             IOUtil.closeInputStream(inputStream);
         }
@@ -138,7 +177,95 @@ public class CoberturaInstrumenter {
      */
     public InstrumentationResult instrumentClass(InputStream inputStream, Set<Integer> statementsToInstrument)
             throws IOException {
-        ClassReader cr0 = new ClassReader(inputStream);
+        AnalyzedClass analyzedClass = analyzeClass(IOUtil.createByteArrayFromInputStream(inputStream));
+        if (register(analyzedClass)) {
+            return injectCode(analyzedClass, statementsToInstrument);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Analyzes and instruments the given class files, using the given number of threads.
+     *
+     * <p>The read-only passes and the code injection run in parallel. In between, class ids are
+     * assigned and the {@link #projectData} structure is filled in the order of the given list,
+     * such that the class ids do not depend on thread scheduling.</p>
+     *
+     * <p>If the {@link #destinationDirectory} is null, then the files are overwritten,
+     * otherwise the classes are stored into the {@link #destinationDirectory}</p>
+     *
+     * @param files                  - class files to instrument
+     * @param statementsToInstrument - set of encoded statements that should actually be part of instrumentation
+     * @param threadCount            - the number of threads to use
+     */
+    public void addInstrumentationToClasses(List<? extends File> files,
+                                            final Set<Integer> statementsToInstrument, int threadCount) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threadCount));
+        try {
+            List<Callable<AnalyzedClass>> analysisTasks = new ArrayList<>(files.size());
+            for (final File file : files) {
+                analysisTasks.add(new Callable<AnalyzedClass>() {
+                    @Override
+                    public AnalyzedClass call() {
+                        try {
+                            return analyzeClass(Files.readAllBytes(file.toPath()));
+                        } catch (Throwable t) {
+                            handleError(file, t);
+                            return null;
+                        }
+                    }
+                });
+            }
+            List<Future<AnalyzedClass>> analyzedClasses = pool.invokeAll(analysisTasks);
+
+            List<Callable<Void>> injectionTasks = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); ++i) {
+                final File file = files.get(i);
+                final AnalyzedClass analyzedClass = getResult(analyzedClasses.get(i));
+                analyzedClasses.set(i, null);
+                if (analyzedClass == null) {
+                    continue;
+                }
+                try {
+                    if (!register(analyzedClass)) {
+                        continue;
+                    }
+                } catch (Throwable t) {
+                    handleError(file, t);
+                    continue;
+                }
+                injectionTasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        InstrumentationResult instrumentationResult;
+                        try {
+                            instrumentationResult = injectCode(analyzedClass, statementsToInstrument);
+                        } catch (Throwable t) {
+                            handleError(file, t);
+                            return null;
+                        }
+                        writeInstrumentedClass(file, instrumentationResult);
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(injectionTasks)) {
+                getResult(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Instrumentation was interrupted.", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * Runs the read-only passes on the given class. The class id is not yet assigned.
+     */
+    private AnalyzedClass analyzeClass(byte[] originalBytes) {
+        ClassReader cr0 = new ClassReader(originalBytes);
         ClassWriter cw0 = new ClassWriter(0);
         DetectIgnoredCodeClassVisitor detectIgnoredCv = new DetectIgnoredCodeClassVisitor(
                 cw0, ignoreTrivial, ignoreMethodAnnotations);
@@ -146,17 +273,14 @@ public class CoberturaInstrumenter {
                 detectIgnoredCv);
         cr0.accept(cv0, 0);
 
-        ClassReader cr = new ClassReader(cw0.toByteArray());
+        byte[] bytes = cw0.toByteArray();
+        ClassReader cr = new ClassReader(bytes);
         ClassWriter cw = new ClassWriter(0);
-        int classId = ++currentClassIndex;
-        if (classId > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS) - 1) {
-            throw new IllegalStateException("Class ID too high! Encoding error: " + classId);
-        }
-		BuildClassMapClassVisitor cv = new BuildClassMapClassVisitor(cw,
+        BuildClassMapClassVisitor cv = new BuildClassMapClassVisitor(cw,
                 ignoreRegexes, ignoreClassAnnotations,
                 cv0.getDuplicatesLinesCollector(),
                 detectIgnoredCv.getIgnoredMethodNamesAndSignatures(),
-                classId);
+                -1);
 
         cr.accept(cv, ClassReader.EXPAND_FRAMES);
 
@@ -179,57 +303,260 @@ public class CoberturaInstrumenter {
 //					.debug("=============== End of detected duplicated code ======");
 //		}
 
+        return new AnalyzedClass(originalBytes, bytes, cv,
+                cv0.getDuplicatesLinesCollector(),
+                detectIgnoredCv.getIgnoredMethodNamesAndSignatures());
+    }
+
+    /*
+     * Assigns the next class id to the given class and fills the project data. Has to be
+     * called in a deterministic order and not concurrently.
+     *
+     * @return true if the class should be instrumented
+     */
+    private boolean register(AnalyzedClass analyzedClass) {
+        ClassMap classMap = analyzedClass.classMapVisitor.getClassMap();
+        int classId = ++currentClassIndex;
+        if (!projectData.isWideStatementEncoding()
+                && classId > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS) - 1) {
+            throw new IllegalStateException("Class ID too high! Encoding error: " + classId
+                    + " (use the wide statement encoding for projects with more classes)");
+        }
+        classMap.setClassId(classId);
+
         //TODO(ptab): Don't like the idea, but we have to be compatible (hope to remove the line in future release)
 //		logger
 //				.debug("Migrating classmap in projectData to store in *.ser file: "
 //						+ cv.getClassMap().getClassName());
 
-        ClassData classData = cv.getClassMap().applyOnProjectData(projectData,
-                cv.shouldBeInstrumented());
-        
+        ClassData classData = classMap.applyOnProjectData(projectData,
+                analyzedClass.classMapVisitor.shouldBeInstrumented());
+
         if (classData == null) {
-			logger.warn("Class already instrumented: " + cv.getClassMap().getClassName());
-			// we can reuse the index for the next class!
-			--currentClassIndex;
-        	return null;
+            logger.warn("Class already instrumented: " + classMap.getClassName());
+            // we can reuse the index for the next class!
+            --currentClassIndex;
+            return false;
         }
 
-        if (cv.shouldBeInstrumented()) {
-            /*
-             *  BuildClassMapClassInstrumenter and DetectDuplicatedCodeClassVisitor has not modificated bytecode,
-             *  so we can use any bytecode representation of that class.
-             */
-            ClassReader cr2 = new ClassReader(cw0.toByteArray());
-            ClassWriter cw2 = new CoberturaClassWriter(
-                    ClassWriter.COMPUTE_FRAMES);
+        if (analyzedClass.classMapVisitor.shouldBeInstrumented()) {
             // assigns counter IDs to touch points
-            int[][] counterIDs2LineNumbers = cv.getClassMap().assignCounterIds();
+            int[][] counterIDs2LineNumbers = classMap.assignCounterIds();
             // set a mapping structure in the class data to map counter IDs to actual line numbers
             classData.setCounterId2LineNumbers(counterIDs2LineNumbers);
+            if (projectData.isWideStatementEncoding()) {
+                // each class gets a dense range of statement ids
+                if (nextStatementBase + classMap.getMaxCounterId() + 1 > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Statement ID too high! Encoding error: "
+                            + (nextStatementBase + classMap.getMaxCounterId()));
+                }
+                classMap.setStatementBase((int) nextStatementBase);
+                classData.setStatementBase((int) nextStatementBase);
+                nextStatementBase += classMap.getMaxCounterId() + 1;
+            }
+//			logger.debug("Assigned " + classMap.getMaxCounterId()
+//					+ " counters (" + counterIDs2LineNumbers.length + ") to class:" + classMap.getClassName());
+            return true;
+        } else {
+//			logger.debug("Class shouldn't be instrumented: "
+//					+ classMap.getClassName());
+            return false;
+        }
+    }
+
+    /*
+     * Injects the instrumentation code into a registered class, or takes the instrumented class from the cache.
+     * Different classes may be processed concurrently.
+     */
+    private InstrumentationResult injectCode(AnalyzedClass analyzedClass, Set<Integer> statementsToInstrument)
+            throws IOException {
+        ClassMap classMap = analyzedClass.classMapVisitor.getClassMap();
+        byte[] content;
+        if (cacheDirectory == null) {
+            content = instrument(analyzedClass, statementsToInstrument);
+        } else {
+            /*
+             * Cached classes are instrumented with placeholder ids, such that they do not depend on the
+             * order in which the classes are registered. The actual ids are set after loading.
+             */
+            Placeholders placeholders = new Placeholders(analyzedClass.bytes, classMap.getMaxCounterId());
+            Set<Integer> skippedCounterIds = getSkippedCounterIds(classMap, statementsToInstrument);
+            String cacheKey = getCacheKey(analyzedClass, skippedCounterIds);
+            byte[] cachedContent = readFromCache(cacheKey);
+            if (cachedContent == null) {
+                cachedContent = instrumentWithPlaceholders(analyzedClass, placeholders, skippedCounterIds);
+                writeToCache(cacheKey, cachedContent);
+            }
+            content = placeholders.replace(cachedContent, classMap.getClassId(), classMap.getStatementBase());
+        }
 
-//			logger.debug("Assigned " + cv.getClassMap().getMaxCounterId()
-//					+ " counters (" + counterIDs2LineNumbers.length + ") to class:" + cv.getClassMap().getClassName());
-            InjectCodeClassInstrumenter cv2 = new InjectCodeClassInstrumenter(
-                    cw2, ignoreRegexes, threadsafeRigorous, cv.getClassMap(),
-                    cv0.getDuplicatesLinesCollector(), detectIgnoredCv
-                    .getIgnoredMethodNamesAndSignatures(),
-                    statementsToInstrument, collectExecutionTrace);
-            cr2.accept(new CheckClassAdapter(cv2), ClassReader.SKIP_FRAMES);
+        if (verify) {
             StringWriter sw = new StringWriter();
             PrintWriter pw = new PrintWriter(sw);
-            CheckClassAdapter.verify(new ClassReader(cw2.toByteArray()), false,
-                    pw);
-//			logger.debug(sw.toString());
+            CheckClassAdapter.verify(new ClassReader(content), false, pw);
+            if (sw.getBuffer().length() > 0) {
+                logger.warn("Verification of instrumented class failed: "
+                        + classMap.getClassName() + System.lineSeparator() + sw);
+            }
+        }
 
-            return new InstrumentationResult(cv.getClassMap().getClassName(),
-                    cw2.toByteArray());
-        } else {
-//			logger.debug("Class shouldn't be instrumented: "
-//					+ cv.getClassMap().getClassName());
+        return new InstrumentationResult(classMap.getClassName(), content);
+    }
+
+    private byte[] instrument(AnalyzedClass analyzedClass, Set<Integer> statementsToInstrument) {
+        /*
+         *  BuildClassMapClassInstrumenter and DetectDuplicatedCodeClassVisitor has not modificated bytecode,
+         *  so we can use any bytecode representation of that class.
+         */
+        ClassReader cr2 = new ClassReader(analyzedClass.bytes);
+        ClassWriter cw2 = new CoberturaClassWriter(
+                ClassWriter.COMPUTE_FRAMES);
+        InjectCodeClassInstrumenter cv2 = new InjectCodeClassInstrumenter(
+                cw2, ignoreRegexes, threadsafeRigorous, analyzedClass.classMapVisitor.getClassMap(),
+                analyzedClass.duplicatedLines, analyzedClass.ignoredMethods,
+                statementsToInstrument, collectExecutionTrace);
+        cr2.accept(new CheckClassAdapter(cv2), ClassReader.SKIP_FRAMES);
+        return cw2.toByteArray();
+    }
+
+    /*
+     * Instruments the class with the placeholder class id and statement base. The class map is only
+     * used by the thread that instruments the class, so its ids can be swapped temporarily.
+     */
+    private byte[] instrumentWithPlaceholders(AnalyzedClass analyzedClass, Placeholders placeholders,
+                                              Set<Integer> skippedCounterIds) {
+        ClassMap classMap = analyzedClass.classMapVisitor.getClassMap();
+        int classId = classMap.getClassId();
+        int statementBase = classMap.getStatementBase();
+        classMap.setClassId(placeholders.classId);
+        if (statementBase >= 0) {
+            classMap.setStatementBase(placeholders.statementBase);
+        }
+        try {
+            return instrument(analyzedClass, encodeStatements(classMap, skippedCounterIds));
+        } finally {
+            classMap.setClassId(classId);
+            classMap.setStatementBase(statementBase);
+        }
+    }
+
+    /*
+     * Returns the ids of the counters of the given class whose encoded statements are contained
+     * in the given set, which is independent of the class id and the statement base.
+     */
+    private static Set<Integer> getSkippedCounterIds(ClassMap classMap, Set<Integer> statementsToInstrument) {
+        Set<Integer> result = new TreeSet<>();
+        if (statementsToInstrument == null) {
+            return result;
+        }
+        for (int counterId = 0; counterId <= classMap.getMaxCounterId(); ++counterId) {
+            if (statementsToInstrument.contains(encodeStatement(classMap, counterId))) {
+                result.add(counterId);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Integer> encodeStatements(ClassMap classMap, Set<Integer> counterIds) {
+        Set<Integer> result = new HashSet<>();
+        for (int counterId : counterIds) {
+            result.add(encodeStatement(classMap, counterId));
+        }
+        return result;
+    }
+
+    private static int encodeStatement(ClassMap classMap, int counterId) {
+        return classMap.getStatementBase() >= 0
+                ? CoberturaStatementEncoding.generateWideRepresentationForStatement(classMap.getStatementBase(), counterId)
+                : CoberturaStatementEncoding.generateUniqueRepresentationForStatement(classMap.getClassId(), counterId);
+    }
+
+    /*
+     * Computes a hash over the original bytecode and all settings that are used by the
+     * instrumentation passes. The class id and the statement base are not part of the key.
+     */
+    private String getCacheKey(AnalyzedClass analyzedClass, Set<Integer> skippedCounterIds) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(analyzedClass.originalBytes);
+
+        StringBuilder settings = new StringBuilder();
+        settings.append(CACHE_VERSION)
+                .append('|').append(analyzedClass.classMapVisitor.getClassMap().getStatementBase() >= 0)
+                .append('|').append(collectExecutionTrace)
+                .append('|').append(threadsafeRigorous)
+                .append('|').append(ignoreTrivial);
+        for (Pattern ignoreRegex : ignoreRegexes) {
+            settings.append('|').append(ignoreRegex.getPattern());
+        }
+        settings.append('|').append(new TreeSet<String>(ignoreMethodAnnotations))
+                .append('|').append(new TreeSet<String>(ignoreClassAnnotations))
+                .append('|').append(skippedCounterIds);
+        digest.update(settings.toString().getBytes("UTF-8"));
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    private byte[] readFromCache(String cacheKey) {
+        File cachedFile = new File(cacheDirectory, cacheKey + ".class");
+        if (!cachedFile.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(cachedFile.toPath());
+        } catch (IOException e) {
+            logger.warn("Unable to read cached class " + cachedFile.getAbsolutePath(), e);
             return null;
         }
     }
 
+    private void writeToCache(String cacheKey, byte[] content) {
+        File tempFile = null;
+        try {
+            // write to a temporary file first, such that readers never see partially written classes
+            tempFile = File.createTempFile(cacheKey, ".tmp", cacheDirectory);
+            Files.write(tempFile.toPath(), content);
+            Files.move(tempFile.toPath(), new File(cacheDirectory, cacheKey + ".class").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to cache instrumented class " + cacheKey, e);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private void handleError(File file, Throwable t) {
+        logger.warn("Unable to instrument file " + file.getAbsolutePath(),
+                t);
+        if (failOnError) {
+            throw new RuntimeException(
+                    "Warning detected and failOnError is true", t);
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
     /**
      * Analyzes and instruments class given by file.
      *
@@ -246,37 +573,40 @@ public class CoberturaInstrumenter {
 
         InstrumentationResult instrumentationResult = instrumentClass(file, statementsToInstrument);
         if (instrumentationResult != null) {
-            OutputStream outputStream = null;
-            try {
-                // If destinationDirectory is null, then overwrite
-                // the original, uninstrumented file.
-                File outputFile = (destinationDirectory == null)
-                        ? file
-                        : new File(destinationDirectory,
-                        instrumentationResult.className.replace('.',
-                                File.separatorChar)
-                                + ".class");
-//				logger.debug("Writing instrumented class into:"
-//						+ outputFile.getAbsolutePath());
-//                if (destinationDirectory != null && outputFile.exists()) {
-//                	logger.warn("Instrumented class does already exist: " 
-//                			+ outputFile.getAbsolutePath());
-//                }
-
-                File parentFile = outputFile.getParentFile();
-                if (parentFile != null) {
-                    parentFile.mkdirs();
-                }
+            writeInstrumentedClass(file, instrumentationResult);
+        }
+    }
 
-                outputStream = new FileOutputStream(outputFile);
-                outputStream.write(instrumentationResult.content);
-            } catch (Throwable t) {
-                logger.warn("Unable to write instrumented file "
-                        + file.getAbsolutePath(), t);
-                return;
-            } finally {
-                IOUtil.closeOutputStream(outputStream);
+    private void writeInstrumentedClass(File file, InstrumentationResult instrumentationResult) {
+        OutputStream outputStream = null;
+        try {
+            // If destinationDirectory is null, then overwrite
+            // the original, uninstrumented file.
+            File outputFile = (destinationDirectory == null)
+                    ? file
+                    : new File(destinationDirectory,
+                    instrumentationResult.className.replace('.',
+                            File.separatorChar)
+                            + ".class");
+//			logger.debug("Writing instrumented class into:"
+//					+ outputFile.getAbsolutePath());
+//            if (destinationDirectory != null && outputFile.exists()) {
+//            	logger.warn("Instrumented class does already exist: " 
+//            			+ outputFile.getAbsolutePath());
+//            }
+
+            File parentFile = outputFile.getParentFile();
+            if (parentFile != null) {
+                parentFile.mkdirs();
             }
+
+            outputStream = new FileOutputStream(outputFile);
+            outputStream.write(instrumentationResult.content);
+        } catch (Throwable t) {
+            logger.warn("Unable to write instrumented file "
+                    + file.getAbsolutePath(), t);
+        } finally {
+            IOUtil.closeOutputStream(outputStream);
         }
     }
 
@@ -330,6 +660,20 @@ public class CoberturaInstrumenter {
         this.failOnError = failOnError;
     }
 
+    public void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+
+    /*
+     * Sets the directory that holds previously instrumented classes. If it is null, no cache is used.
+     */
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        if (cacheDirectory != null) {
+            cacheDirectory.mkdirs();
+        }
+    }
+
     /*
      * Sets {@link ProjectData} that will be filled with information about touch points inside instrumented classes
      *
@@ -339,6 +683,117 @@ public class CoberturaInstrumenter {
         this.projectData = projectData2;
     }
 
+    /**
+     * Class id and statement base that are used instead of the actual ones when instrumenting a
+     * class for the cache. The values are chosen such that they are not used as integer constants
+     * by the class itself and do not overlap with the other constants of the instrumentation code
+     * (counter ids and counts), so they can be replaced after loading the class from the cache.
+     */
+    private static class Placeholders {
+        // negative, so different from all actual class ids and counter ids
+        private static final int FIRST_CLASS_ID = Integer.MIN_VALUE;
+        // positive, so the wide statement encoding stays enabled
+        private static final int FIRST_STATEMENT_BASE = 0x40000000;
+        private static final int STATEMENT_BASE_STEP = 1 << CoberturaStatementEncoding.COUNTER_ID_BITS;
+
+        private final int classId;
+        private final int statementBase;
+        private final int maxCounterId;
+
+        private Placeholders(byte[] bytes, int maxCounterId) {
+            this.maxCounterId = maxCounterId;
+            Set<Integer> constants = getIntegerConstants(new ClassReader(bytes));
+            int classId = FIRST_CLASS_ID;
+            while (constants.contains(classId)) {
+                ++classId;
+            }
+            this.classId = classId;
+            int statementBase = FIRST_STATEMENT_BASE;
+            while (containsAny(constants, statementBase, statementBase + maxCounterId)) {
+                statementBase += STATEMENT_BASE_STEP;
+            }
+            this.statementBase = statementBase;
+        }
+
+        private static Set<Integer> getIntegerConstants(ClassReader reader) {
+            Set<Integer> constants = new HashSet<>();
+            char[] buffer = new char[reader.getMaxStringLength()];
+            for (int i = 1; i < reader.getItemCount(); ++i) {
+                int index = reader.getItem(i);
+                // the second slot of long and double constants has no item
+                if (index > 0 && reader.readByte(index - 1) == 3 /* CONSTANT_Integer */) {
+                    constants.add((Integer) reader.readConst(i, buffer));
+                }
+            }
+            return constants;
+        }
+
+        private static boolean containsAny(Set<Integer> constants, int from, int to) {
+            for (int constant : constants) {
+                if (from <= constant && constant <= to) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /*
+         * Replaces the placeholders in the given instrumented class with the actual class id and
+         * statement base. Only constants are exchanged, so the stack map frames stay valid.
+         */
+        private byte[] replace(byte[] content, final int actualClassId, final int actualStatementBase) {
+            ClassReader reader = new ClassReader(content);
+            ClassWriter writer = new ClassWriter(reader, 0);
+            reader.accept(new ClassVisitor(Opcodes.ASM4, writer) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String desc,
+                                                 String signature, String[] exceptions) {
+                    MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+                    return mv == null ? null : new MethodVisitor(Opcodes.ASM4, mv) {
+                        @Override
+                        public void visitLdcInsn(Object cst) {
+                            super.visitLdcInsn(cst instanceof Integer
+                                    ? replace((Integer) cst, actualClassId, actualStatementBase) : cst);
+                        }
+                    };
+                }
+            }, 0);
+            return writer.toByteArray();
+        }
+
+        private Object replace(int constant, int actualClassId, int actualStatementBase) {
+            if (constant == classId) {
+                return actualClassId;
+            } else if (actualStatementBase >= 0 && statementBase <= constant && constant <= statementBase + maxCounterId) {
+                return actualStatementBase + (constant - statementBase);
+            } else {
+                return constant;
+            }
+        }
+    }
+
+    /**
+     * Result of the read-only passes, needed for the code injection.
+     */
+    private static class AnalyzedClass {
+        private final byte[] originalBytes;
+        private final byte[] bytes;
+        private final BuildClassMapClassVisitor classMapVisitor;
+        private final Map<Integer, Map<Integer, Integer>> duplicatedLines;
+        private final Set<String> ignoredMethods;
+
+        private AnalyzedClass(byte[] originalBytes, byte[] bytes,
+                              BuildClassMapClassVisitor classMapVisitor,
+                              Map<Integer, Map<Integer, Integer>> duplicatedLines,
+                              Set<String> ignoredMethods) {
+            this.originalBytes = originalBytes;
+            this.bytes = bytes;
+            this.classMapVisitor = classMapVisitor;
+            this.duplicatedLines = duplicatedLines;
+            this.ignoredMethods = ignoredMethods;
+        }
+    }
+
     /**
      * Result of instrumentation is a pair of two fields:
      * <ul>
@@ -4,8 +4,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.ArchiveUtil;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.IOUtil;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.zip.ZipEntry;
@@ -77,6 +80,8 @@ public class CodeInstrumentationTask {
         coberturaInstrumenter.setThreadsafeRigorous(arguments
                 .isThreadsafeRigorous());
         coberturaInstrumenter.setFailOnError(arguments.isFailOnError());
+        coberturaInstrumenter.setVerify(arguments.isVerifyInstrumentation());
+        coberturaInstrumenter.setCacheDirectory(arguments.getInstrumentationCacheDirectory());
         coberturaInstrumenter.setProjectData(projectData);
 
         // Instrument classes
@@ -85,11 +90,25 @@ public class CodeInstrumentationTask {
 //				(destinationDirectory != null ? " to "
 //						+ destinationDirectory.getAbsoluteFile() : "")));
 
+        // class files are collected in a fixed order to get the same class ids in each run
+        List<CoberturaFile> classFiles = new ArrayList<>();
+        for (CoberturaFile coberturaFile : filePaths) {
+            if (!coberturaFile.isArchive()) {
+                collectClassFiles(coberturaFile, classFiles);
+            }
+        }
+
+        // the narrow statement encoding only supports a limited number of classes;
+        // the encoding can not change once classes have been instrumented
+        if (projectData.getNumberOfClasses() == 0 && (arguments.isWideStatementEncoding()
+                || classFiles.size() + countArchiveClasses(filePaths) > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS))) {
+            projectData.setWideStatementEncoding(true);
+        }
+        coberturaInstrumenter.addInstrumentationToClasses(classFiles, null, arguments.getThreadCount());
+
         for (CoberturaFile coberturaFile : filePaths) {
             if (coberturaFile.isArchive()) {
                 addInstrumentationToArchive(coberturaFile);
-            } else {
-                addInstrumentation(coberturaFile, null);
             }
         }
 
@@ -117,7 +136,7 @@ public class CodeInstrumentationTask {
         try {
             zis = new ZipInputStream(archive);
             zos = new ZipOutputStream(output);
-            return addInstrumentationToArchive(file, zis, zos);
+            return addInstrumentationToArchive(file, zis, zos, null);
         } finally {
             zis = (ZipInputStream) IOUtil.closeInputStream(zis);
             zos = (ZipOutputStream) IOUtil.closeOutputStream(zos);
@@ -264,7 +283,7 @@ public class CodeInstrumentationTask {
 
             // Instrument classes in archive
             try {
-                modified = addInstrumentationToArchive(archive, input, output);
+                modified = addInstrumentationToArchive(archive, input, output, null);
             } catch (Throwable e) {
                 logger.warn("Cannot instrument archive: "
                         + archive.getAbsolutePath(), e);
@@ -293,28 +312,68 @@ public class CodeInstrumentationTask {
         }
     }
 
-    private void addInstrumentationToSingleClass(File file, Set<Integer> statementsToInstrument) {
-//		logger.info("Instrumenting: " + file.getAbsolutePath() + " to "
-//				+ destinationDirectory);
-        coberturaInstrumenter.addInstrumentationToSingleClass(file, statementsToInstrument);
+    /**
+     * Counts the class files in the given archives that will be instrumented.
+     *
+     * @param filePaths the files to instrument
+     * @return the number of class files in archives
+     */
+    private int countArchiveClasses(List<CoberturaFile> filePaths) {
+        int count = 0;
+        for (CoberturaFile coberturaFile : filePaths) {
+            if (coberturaFile.isArchive()) {
+                ZipInputStream input = null;
+                try {
+                    input = new ZipInputStream(new FileInputStream(coberturaFile));
+                    count += countArchiveClasses(input);
+                } catch (IOException e) {
+                    logger.warn("Cannot count classes in archive: "
+                            + coberturaFile.getAbsolutePath(), e);
+                } finally {
+                    input = (ZipInputStream) IOUtil.closeInputStream(input);
+                }
+            }
+        }
+        return count;
+    }
+
+    // mirrors the entries that are instrumented in addInstrumentationToArchive(...)
+    private int countArchiveClasses(ZipInputStream archive) throws IOException {
+        int count = 0;
+        ZipEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            String entryName = entry.getName();
+            if (classPattern.isSpecified() && ArchiveUtil.isArchive(entryName)) {
+                // embedded archives are only instrumented if a class pattern has been specified
+                ZipInputStream embedded = new ZipInputStream(
+                        new ByteArrayInputStream(IOUtil.createByteArrayFromInputStream(archive)));
+                count += countArchiveClasses(embedded);
+            } else if (isClass(entry) && classPattern.matches(entryName)) {
+                ++count;
+            }
+            archive.closeEntry();
+        }
+        return count;
     }
 
     // TODO: Don't attempt to instrument a file if the outputFile already
     //       exists and is newer than the input file, and the output and
     //       input file are in different locations?
-    private void addInstrumentation(CoberturaFile coberturaFile, Set<Integer> statementsToInstrument) {
+    private void collectClassFiles(CoberturaFile coberturaFile, List<CoberturaFile> classFiles) {
         if (coberturaFile.isClass()
                 && classPattern.matches(coberturaFile.getPathname())) {
-            addInstrumentationToSingleClass(coberturaFile, statementsToInstrument);
+            classFiles.add(coberturaFile);
         } else if (coberturaFile.isDirectory()) {
             String[] contents = coberturaFile.list();
+            // the order of directory listings is not specified
+            Arrays.sort(contents);
             for (String content : contents) {
                 File relativeFile = new File(coberturaFile.getPathname(),
                         content);
                 CoberturaFile relativeCoberturaFile = new CoberturaFile(
                         coberturaFile.getBaseDir(), relativeFile.toString());
                 //recursion!
-                addInstrumentation(relativeCoberturaFile, statementsToInstrument);
+                collectClassFiles(relativeCoberturaFile, classFiles);
             }
         }
     }
@@ -0,0 +1,212 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stores the hit counters of all registered classes.
+ * <p>
+ * Each thread increments its own counter arrays, such that no hits get lost
+ * when instrumented code is executed concurrently and threads do not compete
+ * for the same cache lines. The counters of all threads are merged when they
+ * are requested. Counter arrays of threads that have terminated are merged
+ * into a single array set, such that short-lived threads do not accumulate.
+ * <p>
+ * Counters are incremented atomically. Since each counter array is only
+ * incremented by its owning thread, the increments are not contended. Requesting
+ * a class atomically takes and resets each counter of all threads, such that
+ * every hit is counted exactly once, even if it is recorded while the counters
+ * are requested. Re-registering a class drops the counter arrays of all threads,
+ * and the owning threads allocate fresh arrays with their next hit. Hits that are
+ * recorded while a class is being re-registered may get lost.
+ * <p>
+ * The tables that are indexed by class id grow if a class with a higher id
+ * is registered, such that the number of classes is not limited.
+ */
+@CoverageIgnore
+public class CounterStore {
+
+    // counter count of each class +1, such that 0 marks unregistered classes; replaced by a larger copy if needed
+    private volatile AtomicIntegerArray counterCounts;
+
+    private final ConcurrentLinkedQueue<ThreadCounters> allThreadCounters = new ConcurrentLinkedQueue<>();
+    // only accessed while holding the lock of this store
+    private final ThreadCounters retiredCounters;
+
+    private final ThreadLocal<ThreadCounters> threadCounters = new ThreadLocal<ThreadCounters>() {
+        @Override
+        protected ThreadCounters initialValue() {
+            ThreadCounters counters = new ThreadCounters(Thread.currentThread(), counterCounts.length());
+            allThreadCounters.add(counters);
+            return counters;
+        }
+    };
+
+    /**
+     * @param initialClassCount the expected number of classes
+     */
+    public CounterStore(int initialClassCount) {
+        this.counterCounts = new AtomicIntegerArray(Math.max(1, initialClassCount));
+        this.retiredCounters = new ThreadCounters(null, counterCounts.length());
+    }
+
+    /**
+     * Registers a class and resets all its counters.
+     *
+     * @param classId     the id of the class
+     * @param countersCnt the number of counters of the class
+     */
+    public synchronized void initializeClass(int classId, int countersCnt) {
+        AtomicIntegerArray counts = counterCounts;
+        if (classId >= counts.length()) {
+            AtomicIntegerArray grown = new AtomicIntegerArray(Math.max(classId + 1, 2 * counts.length()));
+            for (int i = 0; i < counts.length(); ++i) {
+                grown.set(i, counts.get(i));
+            }
+            counts = grown;
+        }
+        counts.set(classId, countersCnt + 1);
+        counterCounts = counts;
+        // drop all existing counters of the class
+        retiredCounters.detach(classId);
+        for (ThreadCounters counters : allThreadCounters) {
+            counters.detach(classId);
+        }
+    }
+
+    /**
+     * Increments the given counter of the given class for the current thread.
+     *
+     * @param classId   the id of the class
+     * @param counterId the id of the counter
+     */
+    public void increment(int classId, int counterId) {
+        threadCounters.get().getCounters(classId).incrementAndGet(counterId);
+    }
+
+    /**
+     * Returns the merged counters of all threads for the given class and
+     * resets them.
+     *
+     * @param classId the id of the class
+     * @return the merged counters, or null if the class has not been registered
+     */
+    public synchronized int[] getAndReset(int classId) {
+        AtomicIntegerArray counts = counterCounts;
+        int countersCnt = classId < counts.length() ? counts.get(classId) - 1 : -1;
+        if (countersCnt < 0) {
+            return null;
+        }
+        retireTerminatedThreads();
+        int[] result = new int[countersCnt];
+        retiredCounters.drain(classId, result);
+        for (ThreadCounters counters : allThreadCounters) {
+            counters.drain(classId, result);
+        }
+        return result;
+    }
+
+    private void retireTerminatedThreads() {
+        Iterator<ThreadCounters> iterator = allThreadCounters.iterator();
+        while (iterator.hasNext()) {
+            ThreadCounters counters = iterator.next();
+            // all actions of a terminated thread are visible after isAlive() returned false
+            if (!counters.owner.isAlive()) {
+                iterator.remove();
+                AtomicReferenceArray<AtomicIntegerArray> table = counters.table;
+                for (int classId = 0; classId < table.length(); ++classId) {
+                    AtomicIntegerArray classCounters = table.get(classId);
+                    if (classCounters != null) {
+                        AtomicIntegerArray retired = retiredCounters.getCounters(classId);
+                        for (int i = 0; i < classCounters.length() && i < retired.length(); ++i) {
+                            retired.addAndGet(i, classCounters.get(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private class ThreadCounters {
+
+        private final Thread owner;
+        // counter arrays indexed by class id; only the owner stores arrays in the table, while
+        // other threads only reset counters or swap arrays out; replaced by a larger copy while holding the store's lock
+        private volatile AtomicReferenceArray<AtomicIntegerArray> table;
+
+        private ThreadCounters(Thread owner, int classCount) {
+            this.owner = owner;
+            this.table = new AtomicReferenceArray<>(classCount);
+        }
+
+        // only called by the owner (or while holding the store's lock for the retired counters)
+        private AtomicIntegerArray getCounters(int classId) {
+            AtomicReferenceArray<AtomicIntegerArray> table = this.table;
+            if (classId < table.length()) {
+                AtomicIntegerArray result = table.get(classId);
+                if (result != null) {
+                    return result;
+                }
+            } else {
+                table = grow(classId);
+            }
+            AtomicIntegerArray counts = counterCounts;
+            AtomicIntegerArray result = new AtomicIntegerArray(classId < counts.length() ? Math.max(0, counts.get(classId) - 1) : 0);
+            table.set(classId, result);
+            return result;
+        }
+
+        private AtomicReferenceArray<AtomicIntegerArray> grow(int classId) {
+            // prevents arrays from being swapped out while copying
+            synchronized (CounterStore.this) {
+                AtomicReferenceArray<AtomicIntegerArray> table = this.table;
+                AtomicReferenceArray<AtomicIntegerArray> grown = new AtomicReferenceArray<>(Math.max(classId + 1, 2 * table.length()));
+                for (int i = 0; i < table.length(); ++i) {
+                    grown.set(i, table.get(i));
+                }
+                this.table = grown;
+                return grown;
+            }
+        }
+
+        /**
+         * Adds the counters of the given class to the given array and resets them. Each
+         * counter is taken and reset atomically, such that concurrent increments of the
+         * owner are either included in the result or remain for the next call. Has to be
+         * called while holding the store's lock.
+         *
+         * @param classId the id of the class
+         * @param result  the array to add the counters to
+         */
+        private void drain(int classId, int[] result) {
+            AtomicReferenceArray<AtomicIntegerArray> table = this.table;
+            if (classId < table.length()) {
+                AtomicIntegerArray counters = table.get(classId);
+                if (counters != null) {
+                    for (int i = 0; i < counters.length() && i < result.length; ++i) {
+                        result[i] += counters.getAndSet(i, 0);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Swaps the counter array of the given class out of the table and drops it. Has
+         * to be called while holding the store's lock.
+         *
+         * @param classId the id of the class
+         */
+        private void detach(int classId) {
+            AtomicReferenceArray<AtomicIntegerArray> table = this.table;
+            if (classId < table.length()) {
+                table.set(classId, null);
+            }
+        }
+
+    }
+
+}
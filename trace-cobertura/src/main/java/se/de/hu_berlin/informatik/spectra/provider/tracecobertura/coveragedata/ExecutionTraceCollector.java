@@ -1,21 +1,31 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.SequiturUtils;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.BufferedOutputSequence;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.CompressorPool;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.OutputSequence;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 @CoverageIgnore
 public class ExecutionTraceCollector {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionTraceCollector.class);
+
 //	public final static int EXECUTION_TRACE_CHUNK_SIZE = 150000;
 //	public final static int MAP_CHUNK_SIZE = 150000;
 //	public static final int SUBTRACE_ARRAY_SIZE = 500;
@@ -28,12 +38,13 @@ public class ExecutionTraceCollector {
     private static Map<Long, OutputSequence> executionTraces = new ConcurrentHashMap<>();
 //    private static SharedOutputGrammar grammar = new SharedOutputGrammar();
 
-    private static int[][] classesToCounterArrayMap = new int[(int)Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS)][];
+    // hit counters of all registered classes, kept per thread and merged on request
+    private static final CounterStore counterStore = new CounterStore((int)Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS));
 
 //    private static Set<Thread> currentThreads = new HashSet<>();
 
     public static void initializeCounterArrayForClass(int classId, int countersCnt) {
-        classesToCounterArrayMap[classId] = new int[countersCnt];
+        counterStore.initializeClass(classId, countersCnt);
     }
 
 //	private static Path tempDir;
@@ -49,7 +60,26 @@ public class ExecutionTraceCollector {
 //		}
 //	}
 
-    private static long counter = 0;
+    // builds the grammars of the recorded traces off the executing threads;
+    // each trace is always processed by the same compressor thread, which preserves the order of its buffers
+    private static final CompressorPool compressorPool = new CompressorPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)), "execution-trace-compressor");
+
+    private static final AtomicLong processedStatements = new AtomicLong();
+
+    // number of compressed statements between two progress messages
+    private static final long PROGRESS_STEP = 100000000L;
+
+    // called from the compressor threads, so progress is only logged, not printed
+    private static final BufferedOutputSequence.ProgressListener progressListener = new BufferedOutputSequence.ProgressListener() {
+        @Override
+        public void processed(int count) {
+            long after = processedStatements.addAndGet(count);
+            if (after / PROGRESS_STEP > (after - count) / PROGRESS_STEP && logger.isDebugEnabled()) {
+                logger.debug(String.format("compressed statements: %,d", after / PROGRESS_STEP * PROGRESS_STEP));
+            }
+        }
+    };
 
     /**
      * @return the collection of execution traces for all executed threads;
@@ -61,18 +91,16 @@ public class ExecutionTraceCollector {
         try {
 //            processAllRemainingSubTraces();
         	
-        	Map<Long, OutputSequence> tempMap = executionTraces;
-//        	grammar.lock();
-//        	SharedOutputGrammar tempGrammar = grammar;
-        	
-        	executionTraces = new ConcurrentHashMap<>();
-//            grammar = new SharedOutputGrammar();
+        	Map<Long, OutputSequence> tempMap = takeExecutionTraces();
 
             int threadCounter = 0;
+            long statementCounter = 0;
 //            StringBuilder sb = new StringBuilder();
 //            sb.append(String.format("%n#statements: %,d%n", counter));
+
             List<Pair<Long, byte[]>> traces = new ArrayList<>(tempMap.size());
             for (Entry<Long, OutputSequence> entry : tempMap.entrySet()) {
+            	statementCounter += entry.getValue().getLength();
             	byte[] bytes = SequiturUtils.convertToByteArray(entry.getValue(), true);
                 traces.add(new Pair<>(entry.getKey(), bytes));
                 ++threadCounter;
@@ -83,8 +111,8 @@ public class ExecutionTraceCollector {
             }
 //            byte[] grammarByteArray = SequiturUtils.convertToByteArray(tempGrammar);
             
-            System.out.println(String.format("executed statements: %,d, threads: %,d", counter, threadCounter));
-            counter = 0;
+            System.out.println(String.format("executed statements: %,d, threads: %,d", statementCounter, threadCounter));
+            processedStatements.set(0);
 //            if (sb.length() != 0) {
 //            	System.out.print(sb.toString());
 //            }
@@ -96,7 +124,11 @@ public class ExecutionTraceCollector {
             
 //            return new Pair<List<Pair<Long, byte[]>>, byte[]>(traces, grammarByteArray);
             return traces;
-        } catch (IOException e) {
+        } catch (IOException | ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             e.printStackTrace();
             return null;
         } finally {
@@ -105,8 +137,97 @@ public class ExecutionTraceCollector {
     }
 
 
+    /**
+     * Writes the execution traces of all executed threads directly to the given spool
+     * file instead of converting them to byte arrays (see {@link ExecutionTraceSpool});
+     * also resets the internal map and collects potentially remaining sub traces.
+     *
+     * @param spoolFile the file to write the traces to
+     * @return the spool that references the written traces, or null if an error occurred
+     */
+    public static ExecutionTraceSpool getAndResetExecutionTraces(File spoolFile) {
+        globalExecutionTraceCollectorLock.lock();
+        try {
+            Map<Long, OutputSequence> tempMap = takeExecutionTraces();
+
+            long statementCounter = 0;
+            for (OutputSequence sequence : tempMap.values()) {
+                statementCounter += sequence.getLength();
+            }
+            ExecutionTraceSpool spool = ExecutionTraceSpool.write(spoolFile, tempMap);
+
+            System.out.println(String.format("executed statements: %,d, threads: %,d", statementCounter, tempMap.size()));
+            processedStatements.set(0);
+            return spool;
+        } catch (IOException | ExecutionException e) {
+            logger.error("Could not spool execution traces to " + spoolFile + ".", e);
+            // the consumer never gets a reference to an incomplete spool file
+            spoolFile.delete();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while spooling execution traces.", e);
+            spoolFile.delete();
+            return null;
+        } finally {
+            globalExecutionTraceCollectorLock.unlock();
+        }
+    }
+
+    /**
+     * Discards the execution traces of all executed threads without encoding them
+     * and without waiting for the remaining statements to be processed.
+     */
+    public static void resetExecutionTraces() {
+        globalExecutionTraceCollectorLock.lock();
+        try {
+            Map<Long, OutputSequence> tempMap = executionTraces;
+            executionTraces = new ConcurrentHashMap<>();
+            // threads that still hold a reference to their old sequence continue in their new sequence
+            for (OutputSequence sequence : tempMap.values()) {
+                if (sequence instanceof BufferedOutputSequence) {
+                    ((BufferedOutputSequence) sequence).discard();
+                }
+            }
+            processedStatements.set(0);
+        } finally {
+            globalExecutionTraceCollectorLock.unlock();
+        }
+    }
+
+    // resets the internal map and waits until all remaining statements are processed
+    private static Map<Long, OutputSequence> takeExecutionTraces() throws ExecutionException, InterruptedException {
+        Map<Long, OutputSequence> tempMap = executionTraces;
+//        grammar.lock();
+//        SharedOutputGrammar tempGrammar = grammar;
+
+        executionTraces = new ConcurrentHashMap<>();
+//        grammar = new SharedOutputGrammar();
+
+        // hand all remaining statements to the compressors first, such that they are processed in parallel;
+        // threads that still hold a reference to their old sequence continue in their new sequence
+        List<Future<?>> pendingFlushes = new ArrayList<>(tempMap.size());
+        for (OutputSequence sequence : tempMap.values()) {
+            if (sequence instanceof BufferedOutputSequence) {
+                pendingFlushes.add(((BufferedOutputSequence) sequence).close());
+            }
+        }
+        for (Future<?> pendingFlush : pendingFlushes) {
+            pendingFlush.get();
+        }
+        return tempMap;
+    }
+
+    // the sequence of the current thread after its previous sequence has been collected
+    private static final BufferedOutputSequence.Successor successor = new BufferedOutputSequence.Successor() {
+        @Override
+        public OutputSequence getSequence() {
+            return getOutputSequence();
+        }
+    };
+
     private static OutputSequence getNewCollector(long threadId) {
-        return new OutputSequence();
+        return new BufferedOutputSequence(compressorPool.nextCompressor(), progressListener, successor);
     }
 
 
@@ -116,13 +237,6 @@ public class ExecutionTraceCollector {
      * @param trace the output sequence to append statements to
      */
     public static void startNewSubTrace(OutputSequence trace) {
-
-        if (++counter % 1000000 == 0) {
-            System.out.print('.');
-            if (counter % 100000000 == 0)
-                System.out.println(String.format("%,d", counter));
-        }
-
         // add an indicator to the trace that represents a visited catch block
         trace.append(NEW_SUBTRACE_ID);
 
@@ -233,20 +347,81 @@ public class ExecutionTraceCollector {
     }
 
 
+    /**
+     * This method should be called for each executed statement if the wide statement
+     * encoding is used. Therefore, access to this class has to be ensured for ALL instrumented classes.
+     *
+     * @param classId          the unique id of the class, as used by cobertura
+     * @param counterId        the cobertura counter id, necessary to retrieve the exact line in the class
+     * @param encodedStatement the statement in the wide encoding
+     * @param trace            the output sequence to append statements to
+     */
+    public static void addStatementToExecutionTraceAndIncrementCounter(int classId, int counterId, int encodedStatement, OutputSequence trace) {
+        addEncodedStatementToExecutionTrace(counterId, encodedStatement, trace);
+        incrementCounter(classId, counterId);
+    }
+
+    /**
+     * This method should be called for each executed statement if the wide statement
+     * encoding is used. Therefore, access to this class has to be ensured for ALL instrumented classes.
+     *
+     * @param classId          the unique id of the class, as used by cobertura
+     * @param counterId        the cobertura counter id, necessary to retrieve the exact line in the class
+     * @param encodedStatement the statement in the wide encoding
+     * @param trace            the output sequence to append statements to
+     */
+    public static void variableAddStatementToExecutionTraceAndIncrementCounter(int classId, int counterId, int encodedStatement, OutputSequence trace) {
+        addEncodedStatementToExecutionTrace(counterId, encodedStatement, trace);
+        incrementCounter(classId, counterId);
+    }
+
+    /**
+     * This method should be called for each executed statement if the wide statement
+     * encoding is used. Therefore, access to this class has to be ensured for ALL instrumented classes.
+     *
+     * @param classId          the unique id of the class, as used by cobertura
+     * @param counterId        the cobertura counter id, necessary to retrieve the exact line in the class
+     * @param encodedStatement the statement in the wide encoding
+     * @param trace            the output sequence to append statements to
+     */
+    public static void jumpAddStatementToExecutionTraceAndIncrementCounter(int classId, int counterId, int encodedStatement, OutputSequence trace) {
+        addEncodedStatementToExecutionTrace(counterId, encodedStatement, trace);
+        incrementCounter(classId, counterId);
+    }
+
+    /**
+     * This method should be called for each executed statement if the wide statement
+     * encoding is used. Therefore, access to this class has to be ensured for ALL instrumented classes.
+     *
+     * @param classId          the unique id of the class, as used by cobertura
+     * @param counterId        the cobertura counter id, necessary to retrieve the exact line in the class
+     * @param encodedStatement the statement in the wide encoding
+     * @param trace            the output sequence to append statements to
+     */
+    public static void switchAddStatementToExecutionTraceAndIncrementCounter(int classId, int counterId, int encodedStatement, OutputSequence trace) {
+        addEncodedStatementToExecutionTrace(counterId, encodedStatement, trace);
+        incrementCounter(classId, counterId);
+    }
+
+
     private static void addStatementToExecutionTrace(int classId, int counterId, int specialIndicatorId, OutputSequence trace) {
         if (counterId == AbstractCodeProvider.FAKE_COUNTER_ID) {
             // this marks a fake jump! (ignore)
             return;
         }
 
-        if (++counter % 1000000 == 0) {
-            System.out.print('.');
-            if (counter % 100000000 == 0)
-                System.out.println(String.format("%,d", counter));
+        // add the statement to the execution trace
+        trace.append(CoberturaStatementEncoding.generateUniqueRepresentationForStatement(classId, counterId));
+    }
+
+    private static void addEncodedStatementToExecutionTrace(int counterId, int encodedStatement, OutputSequence trace) {
+        if (counterId == AbstractCodeProvider.FAKE_COUNTER_ID) {
+            // this marks a fake jump! (ignore)
+            return;
         }
 
         // add the statement to the execution trace
-        trace.append(CoberturaStatementEncoding.generateUniqueRepresentationForStatement(classId, counterId));
+        trace.append(encodedStatement);
     }
 
 
@@ -285,7 +460,7 @@ public class ExecutionTraceCollector {
 //		globalExecutionTraceCollectorLock.lock();
 //		try {
 //		++classesToCounterArrayMap.get(classId)[counterId];
-        ++classesToCounterArrayMap[classId][counterId];
+        counterStore.increment(classId, counterId);
 //		} finally {
 //			globalExecutionTraceCollectorLock.unlock();
 //		}
@@ -301,11 +476,7 @@ public class ExecutionTraceCollector {
 //				classesToCounterArrayMap.put(classId, new int[counters.length]);
 //			}
 
-            int[] counters = classesToCounterArrayMap[classId];
-            if (counters != null) {
-                classesToCounterArrayMap[classId] = new int[counters.length];
-            }
-            return counters;
+            return counterStore.getAndReset(classId);
         } finally {
             globalExecutionTraceCollectorLock.unlock();
         }
@@ -0,0 +1,219 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.OutputSequence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * References execution traces that were written directly to a spool file by the
+ * JVM that executed a test. Instead of converting each trace to a byte array that
+ * is stored in the project data and transported along with it, only the spool file
+ * path and the regions of the single traces in the file are transported. The traces
+ * are written in the plain Sequitur format (without Java serialization stream headers
+ * and block framing), such that the consumer can map each region into memory and
+ * parse the grammar directly from the mapped bytes.
+ *
+ * <p>
+ * Spooling is enabled in a test runner JVM by setting the system property
+ * {@link #SPOOL_DIR_PROPERTY} to a directory for the spool files. The consumer
+ * has to {@link #delete()} the spool file after reading all traces or when it
+ * drops the traces without reading them.
+ *
+ * @author Simon Heiden
+ */
+@CoverageIgnore
+public class ExecutionTraceSpool implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionTraceSpool.class);
+
+    /**
+     * System property that holds the directory to create spool files in.
+     */
+    public static final String SPOOL_DIR_PROPERTY = "tracecobertura.traceSpoolDir";
+
+    private final String spoolFile;
+    private long[] threadIds;
+    private long[] offsets;
+    private long[] lengths;
+    private int size = 0;
+
+    public ExecutionTraceSpool(String spoolFile, int capacity) {
+        this.spoolFile = spoolFile;
+        this.threadIds = new long[Math.max(1, capacity)];
+        this.offsets = new long[threadIds.length];
+        this.lengths = new long[threadIds.length];
+    }
+
+    /**
+     * @return a new spool file in the directory given by the system property
+     * {@link #SPOOL_DIR_PROPERTY}, or null if the property is not set or the file
+     * can not be created
+     */
+    public static File newSpoolFile() {
+        String spoolDir = System.getProperty(SPOOL_DIR_PROPERTY);
+        if (spoolDir == null) {
+            return null;
+        }
+        try {
+            File dir = new File(spoolDir);
+            dir.mkdirs();
+            return File.createTempFile("trace", ".spool", dir);
+        } catch (IOException e) {
+            logger.error("Could not create spool file in " + spoolDir + ".", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given execution traces to the given spool file, one after the other.
+     *
+     * @param spoolFile the spool file
+     * @param traces    execution traces, mapped by thread IDs
+     * @return the spool that references the written traces
+     * @throws IOException if writing fails
+     */
+    public static ExecutionTraceSpool write(File spoolFile, Map<Long, OutputSequence> traces) throws IOException {
+        ExecutionTraceSpool spool = new ExecutionTraceSpool(spoolFile.getAbsolutePath(), traces.size());
+        try (FileOutputStream fileOut = new FileOutputStream(spoolFile)) {
+            FileChannel channel = fileOut.getChannel();
+            BufferedOutputStream out = new BufferedOutputStream(fileOut, 64 * 1024);
+            for (Entry<Long, OutputSequence> entry : traces.entrySet()) {
+                long offset = channel.position();
+                // each trace contains its own grammar, such that it can be read separately
+                entry.getValue().writeOut(out, true);
+                out.flush();
+                spool.add(entry.getKey(), offset, channel.position() - offset);
+            }
+        }
+        return spool;
+    }
+
+    /**
+     * Adds a reference to a trace in the spool file.
+     *
+     * @param threadId the ID of the thread that produced the trace
+     * @param offset   the position of the trace in the spool file
+     * @param length   the length of the trace in bytes
+     */
+    public void add(long threadId, long offset, long length) {
+        if (size == threadIds.length) {
+            threadIds = Arrays.copyOf(threadIds, 2 * size);
+            offsets = Arrays.copyOf(offsets, 2 * size);
+            lengths = Arrays.copyOf(lengths, 2 * size);
+        }
+        threadIds[size] = threadId;
+        offsets[size] = offset;
+        lengths[size] = length;
+        ++size;
+    }
+
+    public String getSpoolFile() {
+        return spoolFile;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getThreadId(int index) {
+        return threadIds[index];
+    }
+
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    public long getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Parses the trace with the given index directly from the memory mapped region
+     * of the spool file. The rules are read from the mapped bytes without copying
+     * them to an intermediate buffer.
+     *
+     * @param index the index of the trace
+     * @return the trace
+     * @throws IOException if reading fails
+     */
+    public InputSequence readTrace(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(spoolFile), StandardOpenOption.READ)) {
+            if (lengths[index] <= Integer.MAX_VALUE) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offsets[index], lengths[index]);
+                InputSequence trace = InputSequence.readFrom(new ByteBufferInputStream(region));
+                if (region.hasRemaining()) {
+                    throw new IOException("Trace " + index + " does not fill its region in " + spoolFile + ".");
+                }
+                // the whole grammar has been parsed, so the mapping is not needed afterwards
+                return trace;
+            } else {
+                // can not map regions that large at once
+                return InputSequence.readFrom(new BufferedInputStream(
+                        Channels.newInputStream(channel.position(offsets[index])), 64 * 1024));
+            }
+        }
+    }
+
+    /**
+     * Deletes the spool file.
+     *
+     * @return whether the file was deleted
+     */
+    public boolean delete() {
+        return new File(spoolFile).delete();
+    }
+
+    @CoverageIgnore
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
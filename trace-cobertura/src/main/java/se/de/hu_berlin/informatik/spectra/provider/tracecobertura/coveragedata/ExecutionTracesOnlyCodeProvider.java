@@ -15,10 +15,18 @@ public class ExecutionTracesOnlyCodeProvider extends AbstractCodeProvider
 
     private final boolean collectExecutionTrace;
     private Set<Integer> statementsToInstrument;
+    // first statement id of the class for the wide statement encoding; -1 for the narrow encoding
+    private final int statementBase;
 
     public ExecutionTracesOnlyCodeProvider(Set<Integer> statementsToInstrument, boolean collectExecutionTrace) {
+        this(statementsToInstrument, collectExecutionTrace, -1);
+    }
+
+    public ExecutionTracesOnlyCodeProvider(Set<Integer> statementsToInstrument, boolean collectExecutionTrace,
+                                           int statementBase) {
         this.statementsToInstrument = statementsToInstrument;
         this.collectExecutionTrace = collectExecutionTrace;
+        this.statementBase = statementBase;
     }
 
     @SuppressWarnings("deprecation")
@@ -43,11 +51,17 @@ public class ExecutionTracesOnlyCodeProvider extends AbstractCodeProvider
             nextMethodVisitor.visitLdcInsn(classId);
             // load the counter id of the last stored/remembered branching statement (before jump)
             nextMethodVisitor.visitVarInsn(Opcodes.ILOAD, lastJumpIdVariableIndex);
+            if (statementBase >= 0) {
+                // compute the encoded statement from the statement base and the counter id
+                nextMethodVisitor.visitLdcInsn(statementBase);
+                nextMethodVisitor.visitVarInsn(Opcodes.ILOAD, lastJumpIdVariableIndex);
+                nextMethodVisitor.visitInsn(Opcodes.IADD);
+            }
             // load the current thread's trace
             nextMethodVisitor.visitVarInsn(Opcodes.ALOAD, threadIdVariableIndex);
             nextMethodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type
                             .getInternalName(ExecutionTraceCollector.class), "variableAddStatementToExecutionTraceAndIncrementCounter",
-                    "(IIL" + Type.getInternalName(OutputSequence.class) + ";)V");
+                    getAddStatementMethodDescriptor());
 
             generateCodeThatZeroJumpCounterIdVariable(nextMethodVisitor,
                     lastJumpIdVariableIndex);
@@ -66,8 +80,21 @@ public class ExecutionTracesOnlyCodeProvider extends AbstractCodeProvider
 
     private boolean shouldNotBeInstrumented(int classId, int lastJumpIdVariableIndex) {
         return statementsToInstrument != null &&
-                statementsToInstrument.contains(CoberturaStatementEncoding
-                        .generateUniqueRepresentationForStatement(classId, lastJumpIdVariableIndex));
+                statementsToInstrument.contains(statementBase >= 0
+                        ? CoberturaStatementEncoding.generateWideRepresentationForStatement(statementBase, lastJumpIdVariableIndex)
+                        : CoberturaStatementEncoding.generateUniqueRepresentationForStatement(classId, lastJumpIdVariableIndex));
+    }
+
+    private void generateCodeThatLoadsWideStatement(MethodVisitor nextMethodVisitor, int counterId) {
+        if (statementBase >= 0) {
+            // the encoded statement is computed at instrumentation time
+            nextMethodVisitor.visitLdcInsn(CoberturaStatementEncoding
+                    .generateWideRepresentationForStatement(statementBase, counterId));
+        }
+    }
+
+    private String getAddStatementMethodDescriptor() {
+        return (statementBase >= 0 ? "(IIIL" : "(IIL") + Type.getInternalName(OutputSequence.class) + ";)V";
     }
 
     @SuppressWarnings("deprecation")
@@ -111,11 +138,12 @@ public class ExecutionTracesOnlyCodeProvider extends AbstractCodeProvider
             // add the statement to the execution trace AND increment counter
             nextMethodVisitor.visitLdcInsn(classId);
             nextMethodVisitor.visitLdcInsn(counterId);
+            generateCodeThatLoadsWideStatement(nextMethodVisitor, counterId);
             // load the current thread's trace
             nextMethodVisitor.visitVarInsn(Opcodes.ALOAD, threadIdVariableIndex);
             nextMethodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type
                             .getInternalName(ExecutionTraceCollector.class), "addStatementToExecutionTraceAndIncrementCounter",
-                    "(IIL" + Type.getInternalName(OutputSequence.class) + ";)V");
+                    getAddStatementMethodDescriptor());
         } else {
             // increment counter
             nextMethodVisitor.visitLdcInsn(classId);
@@ -139,11 +167,12 @@ public class ExecutionTracesOnlyCodeProvider extends AbstractCodeProvider
             nextMethodVisitor.visitLdcInsn(classId);
             // this is the counter id of the true branch?!
             nextMethodVisitor.visitLdcInsn(counterId);
+            generateCodeThatLoadsWideStatement(nextMethodVisitor, counterId);
             // load the current thread's trace
             nextMethodVisitor.visitVarInsn(Opcodes.ALOAD, threadIdVariableIndex);
             nextMethodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type
                             .getInternalName(ExecutionTraceCollector.class), "jumpAddStatementToExecutionTraceAndIncrementCounter",
-                    "(IIL" + Type.getInternalName(OutputSequence.class) + ";)V");
+                    getAddStatementMethodDescriptor());
         } else {
             // increment counter
             nextMethodVisitor.visitLdcInsn(classId);
@@ -165,11 +194,12 @@ public class ExecutionTracesOnlyCodeProvider extends AbstractCodeProvider
             // add the statement to the execution trace AND increment counter
             nextMethodVisitor.visitLdcInsn(classId);
             nextMethodVisitor.visitLdcInsn(counterId);
+            generateCodeThatLoadsWideStatement(nextMethodVisitor, counterId);
             // load the current thread's trace
             nextMethodVisitor.visitVarInsn(Opcodes.ALOAD, threadIdVariableIndex);
             nextMethodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, Type
                             .getInternalName(ExecutionTraceCollector.class), "switchAddStatementToExecutionTraceAndIncrementCounter",
-                    "(IIL" + Type.getInternalName(OutputSequence.class) + ";)V");
+                    getAddStatementMethodDescriptor());
 //			generateCodeThatProcessesLastSubtrace(nextMethodVisitor);
         } else {
             // increment counter
@@ -68,8 +68,8 @@ public class InjectCodeClassInstrumenter
         this.classMap = classMap;
         this.ignoredMethods = ignoredMethods;
         codeProvider = threadsafeRigorous
-                ? new ExecutionTracesOnlyCodeProvider(statementsToInstrument, collectExecutionTrace)
-                : new ExecutionTracesOnlyCodeProvider(statementsToInstrument, collectExecutionTrace);
+                ? new ExecutionTracesOnlyCodeProvider(statementsToInstrument, collectExecutionTrace, classMap.getStatementBase())
+                : new ExecutionTracesOnlyCodeProvider(statementsToInstrument, collectExecutionTrace, classMap.getStatementBase());
         touchPointListener = new InjectCodeTouchPointListener(classMap,
                 codeProvider);
     }
@@ -163,7 +163,9 @@ public class InjectCodeClassInstrumenter
             wasStaticInitMethodVisited = true;
         }
 
-        if (classMap.getClassId() > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS) - 1) {
+        // the class id is only part of the encoded statements in the narrow encoding
+        if (classMap.getStatementBase() < 0
+                && classMap.getClassId() > Math.pow(2, CoberturaStatementEncoding.CLASS_ID_BITS) - 1) {
             throw new IllegalStateException(classMap.getClassName() + " -> Class ID too high! Encoding error: " + classMap.getClassId());
         }
         if (classMap.getMaxCounterId() + 1 > Math.pow(2, CoberturaStatementEncoding.COUNTER_ID_BITS) - 1) {
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageData;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.FileLocker;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
 
 import java.io.File;
 import java.io.Serializable;
@@ -25,6 +26,7 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
 
     private String[] idToClassName;
     private List<Pair<Long, byte[]>> executionTraces;
+    private ExecutionTraceSpool executionTraceSpool;
 //	private Map<Integer, EfficientCompressedIntegerTrace> idToSubtraceMap;
 
     public ProjectData() {
@@ -78,6 +80,25 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
 //		this.idToClassNameMap = idToClassNameMap;
 //	}
 
+    /**
+     * Sets execution traces that were written to a spool file instead of being stored
+     * as byte arrays, see {@link ExecutionTraceSpool}.
+     *
+     * @param spool the spool (may be null)
+     */
+    public void addExecutionTraceSpool(ExecutionTraceSpool spool) {
+        lock.lock();
+        try {
+            this.executionTraceSpool = spool;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ExecutionTraceSpool getExecutionTraceSpool() {
+        return executionTraceSpool;
+    }
+
     /**
      * @return the collection of execution traces for all executed threads;
      * the statements in the traces are stored as "class_id:statement_counter"
@@ -114,6 +135,7 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
     public void addClassData(ClassData classData) {
         lock.lock();
         try {
+            statementBases = null;
             String packageName = classData.getPackageName();
             PackageData packageData = (PackageData) children.get(packageName);
             if (packageData == null) {
@@ -215,6 +237,97 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
         }
     }
 
+    // whether statements are encoded with dense statement ids instead of class id and counter id
+    private boolean wideStatementEncoding = false;
+
+    // sorted statement bases of all classes and the respective class ids, computed on demand
+    private transient volatile int[] statementBases;
+    private transient int[] statementBaseClassIds;
+
+    public void setWideStatementEncoding(boolean wideStatementEncoding) {
+        this.wideStatementEncoding = wideStatementEncoding;
+    }
+
+    /**
+     * @return whether the statements in the execution traces are encoded with the
+     * wide statement encoding, which requires the statement bases of the classes for decoding
+     */
+    public boolean isWideStatementEncoding() {
+        return wideStatementEncoding;
+    }
+
+    /**
+     * @param encodedStatement an encoded statement from an execution trace
+     * @return the id of the class that contains the statement
+     */
+    public int getClassIdOfStatement(int encodedStatement) {
+        if (!wideStatementEncoding) {
+            return CoberturaStatementEncoding.getClassId(encodedStatement);
+        }
+        int index = getStatementBaseIndex(encodedStatement);
+        return statementBaseClassIds[index];
+    }
+
+    /**
+     * @param encodedStatement an encoded statement from an execution trace
+     * @return the counter id of the statement in its class
+     */
+    public int getCounterIdOfStatement(int encodedStatement) {
+        if (!wideStatementEncoding) {
+            return CoberturaStatementEncoding.getCounterId(encodedStatement);
+        }
+        int index = getStatementBaseIndex(encodedStatement);
+        return encodedStatement - statementBases[index];
+    }
+
+    private int getStatementBaseIndex(int encodedStatement) {
+        int[] bases = statementBases;
+        if (bases == null) {
+            bases = computeStatementBases();
+        }
+        int index = Arrays.binarySearch(bases, encodedStatement);
+        if (index < 0) {
+            // not an exact match: the index of the next lower base
+            index = -index - 2;
+            if (index < 0) {
+                throw new IllegalStateException("No class found for statement: " + encodedStatement);
+            }
+        }
+        return index;
+    }
+
+    private int[] computeStatementBases() {
+        lock.lock();
+        try {
+            if (statementBases != null) {
+                return statementBases;
+            }
+            List<ClassData> instrumentedClasses = new ArrayList<>();
+            for (ClassData classData : this.classes2.values()) {
+                if (classData.getStatementBase() >= 0) {
+                    instrumentedClasses.add(classData);
+                }
+            }
+            Collections.sort(instrumentedClasses, new Comparator<ClassData>() {
+                @Override
+                public int compare(ClassData o1, ClassData o2) {
+                    return Integer.compare(o1.getStatementBase(), o2.getStatementBase());
+                }
+            });
+            int[] bases = new int[instrumentedClasses.size()];
+            int[] classIds = new int[instrumentedClasses.size()];
+            for (int i = 0; i < bases.length; ++i) {
+                bases[i] = instrumentedClasses.get(i).getStatementBase();
+                classIds[i] = instrumentedClasses.get(i).getClassId();
+            }
+            statementBaseClassIds = classIds;
+            statementBases = bases;
+            return bases;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public int getNumberOfSourceFiles() {
         return getSourceFiles().size();
     }
@@ -288,6 +401,13 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
             	this.maxClassId = projectData.maxClassId;
             }
 
+            this.wideStatementEncoding |= projectData.wideStatementEncoding;
+            this.statementBases = null;
+
+            if (this.executionTraceSpool == null) {
+                this.executionTraceSpool = projectData.executionTraceSpool;
+            }
+
             if (executionTraces == null || executionTraces.isEmpty()) {
                 if (projectData.getExecutionTraces() != null) {
                     // just take whatever the other end has
@@ -657,6 +777,7 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
         lock.lock();
         try {
             this.executionTraces = null;
+            this.executionTraceSpool = null;
             for (ClassData classData : getClasses()) {
                 // removes all line data, but keeps the counter ID to line number map;
                 // necessary, since the map can not be recovered easily if it is removed... TODO
@@ -671,7 +792,7 @@ public class ProjectData extends CoverageDataContainer implements Serializable {
     public boolean isReset() {
         lock.lock();
         try {
-            if (this.executionTraces != null) {
+            if (this.executionTraces != null || this.executionTraceSpool != null) {
                 return false;
             }
             for (ClassData classData : getClasses()) {
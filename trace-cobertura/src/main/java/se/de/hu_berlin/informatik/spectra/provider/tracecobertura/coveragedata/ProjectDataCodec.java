@@ -0,0 +1,304 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Compact binary encoding of the coverage data that is collected during a single test,
+ * used to transport the data between a test runner JVM and the spectra generator
+ * without Java serialization.
+ *
+ * <p>
+ * For each registered class that was executed (i.e., with a counter that is not zero),
+ * the encoding contains the class id, the raw counter array and a layout id. The
+ * layout of a class (its name, source file and touch points, see
+ * {@link ClassTouchPointLayout}) is only included the first time that an
+ * {@link Encoder} encodes the class. Afterwards, the {@link Decoder} on the other end
+ * of the connection reuses the layout that it received before. The execution traces
+ * are transported as the byte arrays produced by the trace collector or, if a spool
+ * file is given, as a reference to the spooled traces (see {@link ExecutionTraceSpool}).
+ *
+ * <p>
+ * Each connection needs its own encoder/decoder pair. A decoder may be reused for a
+ * new connection, though, since every layout id is sent together with its layout
+ * before it is used by a new encoder.
+ *
+ * @author Simon
+ */
+@CoverageIgnore
+public class ProjectDataCodec {
+
+    final private static Charset UTF8 = Charset.forName("UTF-8");
+
+    final private static byte NO_TRACES = 0;
+    final private static byte TRACE_BYTES = 1;
+    final private static byte TRACE_SPOOL = 2;
+
+    private ProjectDataCodec() {
+        //disallow instantiation
+    }
+
+    /**
+     * Encodes the coverage data that was collected since the last reset and resets
+     * the counters and execution traces, afterwards.
+     */
+    @CoverageIgnore
+    public static class Encoder {
+
+        final private Map<Class<?>, Integer> layoutIds = new HashMap<>();
+
+        /**
+         * Writes the currently collected coverage data to the given buffer, starting
+         * at its current position.
+         *
+         * @param buffer the buffer to write to
+         * @return the given buffer, or a larger buffer with the same contents if the
+         * given buffer had not enough space left
+         */
+        public ByteBuffer encode(ByteBuffer buffer) {
+            return encode(buffer, null);
+        }
+
+        /**
+         * Writes the currently collected coverage data to the given buffer, starting
+         * at its current position.
+         *
+         * @param buffer         the buffer to write to
+         * @param traceSpoolFile a file to write the execution traces to; if null, the
+         *                       traces are included in the buffer
+         * @return the given buffer, or a larger buffer with the same contents if the
+         * given buffer had not enough space left
+         */
+        public ByteBuffer encode(ByteBuffer buffer, File traceSpoolFile) {
+            synchronized (TouchCollector.class) {
+                buffer = ensureRemaining(buffer, 4);
+                int countPosition = buffer.position();
+                buffer.putInt(0);
+                int classCount = 0;
+                for (Entry<Class<?>, Integer> entry : TouchCollector.registeredClasses.entrySet()) {
+                    int[] counters = getAndResetCounters(entry.getKey(), entry.getValue());
+                    // same as in the touch collector, skip classes that were not executed
+                    if (ClassTouchPointLayout.hasHits(counters)) {
+                        buffer = encodeClass(buffer, entry.getKey(), entry.getValue(), counters);
+                        ++classCount;
+                    }
+                }
+                buffer.putInt(countPosition, classCount);
+            }
+
+            if (traceSpoolFile != null) {
+                return encodeTraceSpool(buffer, ExecutionTraceCollector.getAndResetExecutionTraces(traceSpoolFile));
+            }
+
+            List<Pair<Long, byte[]>> traces = ExecutionTraceCollector.getAndResetExecutionTraces();
+            buffer = ensureRemaining(buffer, 5);
+            if (traces == null) {
+                buffer.put(NO_TRACES);
+                return buffer;
+            }
+            buffer.put(TRACE_BYTES);
+            buffer.putInt(traces.size());
+            for (Pair<Long, byte[]> trace : traces) {
+                byte[] bytes = trace.getSecond();
+                buffer = ensureRemaining(buffer, 12 + bytes.length);
+                buffer.putLong(trace.getFirst());
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+            return buffer;
+        }
+
+        private static ByteBuffer encodeTraceSpool(ByteBuffer buffer, ExecutionTraceSpool spool) {
+            buffer = ensureRemaining(buffer, 1);
+            if (spool == null) {
+                buffer.put(NO_TRACES);
+                return buffer;
+            }
+            buffer.put(TRACE_SPOOL);
+            buffer = putString(buffer, spool.getSpoolFile());
+            buffer = ensureRemaining(buffer, 4 + 24 * spool.size());
+            buffer.putInt(spool.size());
+            for (int i = 0; i < spool.size(); ++i) {
+                buffer.putLong(spool.getThreadId(i));
+                buffer.putLong(spool.getOffset(i));
+                buffer.putLong(spool.getLength(i));
+            }
+            return buffer;
+        }
+
+        private static int[] getAndResetCounters(Class<?> clazz, int classId) {
+            try {
+                return ExecutionTraceCollector.getAndResetCounterArrayForClass(classId);
+            } catch (Exception e) {
+                throw new IllegalStateException("Can not get counter array for " + clazz.getCanonicalName() + "!", e);
+            }
+        }
+
+        private ByteBuffer encodeClass(ByteBuffer buffer, Class<?> clazz, int classId, int[] counters) {
+            Integer layoutId = layoutIds.get(clazz);
+            ClassTouchPointLayout layout = null;
+            if (layoutId == null) {
+                layoutId = layoutIds.size();
+                layoutIds.put(clazz, layoutId);
+                layout = TouchCollector.getLayout(clazz);
+            }
+
+            buffer = ensureRemaining(buffer, 9);
+            buffer.putInt(classId);
+            buffer.putInt(layoutId);
+            buffer.put((byte) (layout == null ? 0 : 1));
+            if (layout != null) {
+                buffer = layout.writeTo(buffer);
+            }
+            return putInts(buffer, counters, counters.length);
+        }
+
+    }
+
+    /**
+     * Decodes coverage data that was encoded by an {@link Encoder}.
+     */
+    @CoverageIgnore
+    public static class Decoder {
+
+        final private List<ClassTouchPointLayout> layouts = new ArrayList<>();
+
+        /**
+         * Reads coverage data from the given buffer, starting at its current position.
+         *
+         * @param buffer the buffer to read from
+         * @return the decoded project data
+         */
+        public ProjectData decode(ByteBuffer buffer) {
+            ProjectData projectData = new ProjectData();
+
+            int classCount = buffer.getInt();
+            for (int i = 0; i < classCount; ++i) {
+                int classId = buffer.getInt();
+                int layoutId = buffer.getInt();
+                if (buffer.get() != 0) {
+                    ClassTouchPointLayout layout = ClassTouchPointLayout.readFrom(buffer);
+                    while (layouts.size() <= layoutId) {
+                        layouts.add(null);
+                    }
+                    layouts.set(layoutId, layout);
+                }
+                ClassTouchPointLayout layout = layouts.get(layoutId);
+                int[] counters = getInts(buffer);
+
+                ClassData classData = projectData.getOrCreateClassData(layout.getClassName(), classId);
+                layout.applyOnClassData(classData, counters);
+            }
+
+            byte traceMode = buffer.get();
+            if (traceMode == TRACE_BYTES) {
+                int traceCount = buffer.getInt();
+                List<Pair<Long, byte[]>> traces = new ArrayList<>(traceCount);
+                for (int i = 0; i < traceCount; ++i) {
+                    long threadId = buffer.getLong();
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    traces.add(new Pair<Long, byte[]>(threadId, bytes));
+                }
+                projectData.addExecutionTraces(traces);
+            } else if (traceMode == TRACE_SPOOL) {
+                String spoolFile = getString(buffer);
+                int traceCount = buffer.getInt();
+                ExecutionTraceSpool spool = new ExecutionTraceSpool(spoolFile, traceCount);
+                for (int i = 0; i < traceCount; ++i) {
+                    spool.add(buffer.getLong(), buffer.getLong(), buffer.getLong());
+                }
+                projectData.addExecutionTraces(new ArrayList<Pair<Long, byte[]>>(0));
+                projectData.addExecutionTraceSpool(spool);
+            }
+
+            return projectData;
+        }
+
+    }
+
+    /**
+     * Ensures that the given buffer has at least the given amount of bytes remaining.
+     *
+     * @param buffer    the buffer
+     * @param remaining the needed amount of bytes
+     * @return the given buffer, or a larger (direct) buffer with the same contents and
+     * position if the given buffer had not enough space left
+     */
+    public static ByteBuffer ensureRemaining(ByteBuffer buffer, int remaining) {
+        if (buffer.remaining() >= remaining) {
+            return buffer;
+        }
+        int capacity = Math.max(2 * buffer.capacity(), buffer.position() + remaining);
+        ByteBuffer newBuffer = ByteBuffer.allocateDirect(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        return newBuffer;
+    }
+
+    /**
+     * Writes the given string (may be null) as UTF-8 bytes, preceded by their length.
+     *
+     * @param buffer the buffer to write to
+     * @param string the string
+     * @return the given buffer, or a larger buffer with the same contents if the
+     * given buffer had not enough space left
+     */
+    public static ByteBuffer putString(ByteBuffer buffer, String string) {
+        if (string == null) {
+            buffer = ensureRemaining(buffer, 4);
+            buffer.putInt(-1);
+            return buffer;
+        }
+        byte[] bytes = string.getBytes(UTF8);
+        buffer = ensureRemaining(buffer, 4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    /**
+     * Reads a string that was written with {@link #putString(ByteBuffer, String)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the string (may be null)
+     */
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    static ByteBuffer putInts(ByteBuffer buffer, int[] values, int length) {
+        buffer = ensureRemaining(buffer, 4 + 4 * length);
+        buffer.putInt(length);
+        // bulk copy of the whole array
+        buffer.asIntBuffer().put(values, 0, length);
+        buffer.position(buffer.position() + 4 * length);
+        return buffer;
+    }
+
+    static int[] getInts(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * length);
+        return values;
+    }
+
+}
@@ -6,7 +6,9 @@ import org.slf4j.LoggerFactory;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.LightClassmapListener;
 
+import java.io.File;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,6 +21,9 @@ public class TouchCollector {
 
     private static final Logger logger = LoggerFactory.getLogger(TouchCollector.class);
 
+    // touch point layouts of registered classes; each is recorded once from the class' classmap method
+    private static final Map<Class<?>, ClassTouchPointLayout> layouts = new ConcurrentHashMap<>();
+
     static {
         ProjectData.getGlobalProjectData(); // To call ProjectData.initialize();
     }
@@ -154,8 +159,21 @@ public class TouchCollector {
         }
     }
 
-    public static synchronized void applyTouchesOnProjectData(
+    public static void applyTouchesOnProjectData(
             ProjectData projectData) {
+        applyTouchesOnProjectData(projectData, null);
+    }
+
+    /**
+     * Applies the collected hits and execution traces on the given project data and
+     * resets them, afterwards.
+     *
+     * @param projectData the project data
+     * @param traceSpoolFile a file to write the execution traces to (see {@link ExecutionTraceSpool});
+     *                       if null, the traces are stored in the project data as byte arrays
+     */
+    public static synchronized void applyTouchesOnProjectData(
+            ProjectData projectData, File traceSpoolFile) {
 //		logger.debug("=================== START OF REPORT ======================== ");
         for (Entry<Class<?>, Integer> c : registeredClasses.entrySet()) {
 //			logger.debug("Report: " + c.getName());
@@ -164,11 +182,17 @@ public class TouchCollector {
 //				+ " ---------------- ");
 //			}
 //			ClassData cd = projectData.getOrCreateClassData(c.getName());
-            ClassData cd = projectData.getOrCreateClassData(c.getKey().getName(), c.getValue());
-            applyTouchesToSingleClassOnProjectData(cd, c.getKey());
+            applyTouchesToSingleClassOnProjectData(projectData, c.getKey(), c.getValue());
         }
 
-        projectData.addExecutionTraces(ExecutionTraceCollector.getAndResetExecutionTraces());
+        if (traceSpoolFile == null) {
+            projectData.addExecutionTraces(ExecutionTraceCollector.getAndResetExecutionTraces());
+        } else {
+            ExecutionTraceSpool spool = ExecutionTraceCollector.getAndResetExecutionTraces(traceSpoolFile);
+            // the traces are null in case of errors, as with byte arrays
+            projectData.addExecutionTraces(spool == null ? null : new ArrayList<Pair<Long, byte[]>>(0));
+            projectData.addExecutionTraceSpool(spool);
+        }
 
 //		projectData.addIdToSubTraceMap(ExecutionTraceCollector.getAndResetIdToSubtraceMap());
 
@@ -187,14 +211,14 @@ public class TouchCollector {
     }
 
     private static void applyTouchesToSingleClassOnProjectData(
-            final ClassData classData, final Class<?> c) {
+            final ProjectData projectData, final Class<?> c, final int classId) {
 //		logger.debug("----------- " + maybeCanonicalName(c)
 //		+ " ---------------- ");
 
         // try to get the counter array from the execution trace collector
     	int[] res = null;
     	try {
-        	res = ExecutionTraceCollector.getAndResetCounterArrayForClass(classData.getClassId());
+        	res = ExecutionTraceCollector.getAndResetCounterArrayForClass(classId);
     	} catch (Exception e) {
     		throw new IllegalStateException("Can not get counter array for " + c.getCanonicalName() + "!", e);
 		}
@@ -212,22 +236,59 @@ public class TouchCollector {
 //            }
 //        }
 
-        try {
-            LightClassmapListener lightClassmap = new ApplyToClassDataLightClassmapListener(
-                    classData, res);
-            Method m = c.getDeclaredMethod(
-                    AbstractCodeProvider.COBERTURA_CLASSMAP_METHOD_NAME,
-                    LightClassmapListener.class);
-            m.setAccessible(true);
-            if (!m.isAccessible()) {
-                throw new Exception("'classmap' method not accessible.");
+        // classes that were not executed at all only contribute lines without hits,
+        // which are part of the initial project data, anyway
+        if (!ClassTouchPointLayout.hasHits(res)) {
+            return;
+        }
+
+        ClassData classData = projectData.getOrCreateClassData(c.getName(), classId);
+        getLayout(c).applyOnClassData(classData, res);
+    }
+
+    /**
+     * Returns the touch point layout of the given instrumented class. The layout is
+     * recorded from the class' classmap method when it is first needed and is reused
+     * afterwards.
+     *
+     * @param c the instrumented class
+     * @return the layout (without any touch points if the classmap method can not be invoked)
+     */
+    static ClassTouchPointLayout getLayout(final Class<?> c) {
+        ClassTouchPointLayout layout = layouts.get(c);
+        if (layout == null) {
+            layout = new ClassTouchPointLayout(c.getName());
+            try {
+                invokeClassmap(c, layout);
+            } catch (Exception e) {
+                logger.error("Cannot apply touches", e);
+                layout = new ClassTouchPointLayout(c.getName());
+            } catch (NoClassDefFoundError e) {
+                logger.error("Cannot apply touches", e);
+                layout = new ClassTouchPointLayout(c.getName());
             }
-            m.invoke(null, lightClassmap);
-        } catch (Exception e) {
-            logger.error("Cannot apply touches", e);
-        } catch (NoClassDefFoundError e) {
-        	logger.error("Cannot apply touches", e);
+            layouts.put(c, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Reports all touch points of the given instrumented class to the given listener
+     * by invoking the class' classmap method.
+     *
+     * @param c        the instrumented class
+     * @param listener the listener
+     * @throws Exception if the classmap method can not be invoked
+     */
+    static void invokeClassmap(final Class<?> c, final LightClassmapListener listener) throws Exception {
+        Method m = c.getDeclaredMethod(
+                AbstractCodeProvider.COBERTURA_CLASSMAP_METHOD_NAME,
+                LightClassmapListener.class);
+        m.setAccessible(true);
+        if (!m.isAccessible()) {
+            throw new Exception("'classmap' method not accessible.");
         }
+        m.invoke(null, listener);
     }
 
     private static String maybeCanonicalName(final Class<?> c) {
@@ -251,7 +312,7 @@ public class TouchCollector {
     }
 
     @CoverageIgnore
-    private static class ApplyToClassDataLightClassmapListener
+    static class ApplyToClassDataLightClassmapListener
             implements
             LightClassmapListener {
         //private AtomicInteger idProvider=new AtomicInteger(0);
@@ -115,6 +115,18 @@ public class InstrumentMain {
                 case "--threadsafeRigorous":
                     builder.threadsafeRigorous(true);
                     break;
+                case "--verify":
+                    builder.verifyInstrumentation(true);
+                    break;
+                case "--instrumentationCache":
+                    builder.setInstrumentationCacheDirectory(args[++i]);
+                    break;
+                case "--threads":
+                    builder.setThreadCount(Integer.parseInt(args[++i]));
+                    break;
+                case "--wideStatementEncoding":
+                    builder.wideStatementEncoding(true);
+                    break;
                 case "--auxClasspath":
                     addElementsToJVM(args[++i]);
                     break;
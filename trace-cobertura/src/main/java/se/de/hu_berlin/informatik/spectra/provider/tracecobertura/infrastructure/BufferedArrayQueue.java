@@ -5,10 +5,18 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageI
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.comptrace.ReplaceableCloneableIterator;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.*;
 
 /**
  * Simple single linked queue implementation using fixed/variable size array nodes.
+ * <p>
+ * For queues of type {@link Type#INTEGER} or {@link Type#LONG}, nodes that are not
+ * held in memory are stored in a single memory-mapped file (see {@link MappedSegmentStore}),
+ * by default. Nodes of all other queues (or if specifying a segment size of 0) are
+ * stored in separate files.
  *
  * @param <E> the type of elements held in the queue
  */
@@ -52,6 +60,10 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
 
     private Type serializationType;
 
+    // size of mapped segments in bytes; stores each node in a separate file if 0
+    private int segmentSize = MappedSegmentStore.DEFAULT_SEGMENT_SIZE;
+    private MappedSegmentStore mappedStore = null;
+
     private void writeObject(java.io.ObjectOutputStream stream)
             throws IOException {
         sleep();
@@ -65,6 +77,8 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
         stream.writeInt(firstNodeSize);
         stream.writeLong(size);
         stream.writeInt(arrayLength);
+        stream.writeInt(segmentSize);
+        stream.writeObject(mappedStore);
     }
 
     private volatile transient boolean locked = false;
@@ -93,6 +107,9 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
             store(lastNode);
         }
         lastNode = null;
+        if (mappedStore != null) {
+            mappedStore.release();
+        }
     }
 
     private void readObject(java.io.ObjectInputStream stream)
@@ -107,6 +124,8 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
         firstNodeSize = stream.readInt();
         size = stream.readLong();
         arrayLength = stream.readInt();
+        segmentSize = stream.readInt();
+        mappedStore = (MappedSegmentStore) stream.readObject();
 
         cachedNodes = new HashMap<>();
         cacheSequence = new LinkedList<>();
@@ -167,6 +186,25 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
         this(output, filePrefix, nodeArrayLength, true, serializationType);
     }
 
+    /**
+     * @param output            the output directory
+     * @param filePrefix        the prefix of the stored files
+     * @param nodeArrayLength   the maximum number of elements per node
+     * @param deleteOnExit      whether to delete stored files when the JVM exits
+     * @param serializationType the type of the stored elements
+     * @param segmentSize       the size of mapped file segments in bytes; if 0, or if
+     *                          the type is {@link Type#OTHER}, each node is stored in a separate file
+     */
+    public BufferedArrayQueue(File output, String filePrefix, int nodeArrayLength, boolean deleteOnExit,
+                              Type serializationType, int segmentSize) {
+        this(output, filePrefix, nodeArrayLength, deleteOnExit, serializationType);
+        this.segmentSize = segmentSize < 0 ? 0 : segmentSize;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
     public Type getSerializationType() {
         return serializationType;
     }
@@ -213,7 +251,32 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
         OTHER
     }
 
+    private MappedSegmentStore getMappedStore() {
+        if (mappedStore == null && segmentSize > 0 && serializationType != Type.OTHER) {
+            mappedStore = new MappedSegmentStore(
+                    new File(output.getAbsolutePath() + File.separator + filePrefix + ".seg"),
+                    arrayLength, serializationType == Type.INTEGER ? 4 : 8, segmentSize, deleteOnExit);
+        }
+        return mappedStore;
+    }
+
     private void store(Node<E> node) {
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            ByteBuffer slot = store.write(node.storeIndex, node.startIndex, node.endIndex);
+            if (serializationType == Type.INTEGER) {
+                IntBuffer buffer = slot.asIntBuffer();
+                for (int i = node.startIndex; i < node.endIndex; ++i) {
+                    buffer.put((int) node.items[i]);
+                }
+            } else {
+                LongBuffer buffer = slot.asLongBuffer();
+                for (int i = node.startIndex; i < node.endIndex; ++i) {
+                    buffer.put((long) node.items[i]);
+                }
+            }
+            return;
+        }
         String filename = getFileName(node.storeIndex);
         try (ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream(filename))) {
             Object[] array = null;
@@ -331,6 +394,11 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
     }
 
     private void delete(int storeIndex) {
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            store.delete(storeIndex);
+            return;
+        }
         String filename = getFileName(storeIndex);
         // stored node should be deleted
         File file = new File(filename);
@@ -371,6 +439,11 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
             return cachedNodes.get(storeIndex);
         }
 
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            return loadFromMappedStore(store, storeIndex);
+        }
+
         String filename = getFileName(storeIndex);
         if (!(new File(filename).exists())) {
             return null;
@@ -414,8 +487,34 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
             throw new IllegalStateException();
         }
 
-        if (storeIndex <= lastStoreIndex) {
-            putInCache(storeIndex, loadedNode);
+        return cacheLoadedNode(loadedNode);
+    }
+
+    private Node<E> loadFromMappedStore(MappedSegmentStore store, int storeIndex) {
+        ByteBuffer slot = store.read(storeIndex);
+        if (slot == null) {
+            return null;
+        }
+        Object[] items = new Object[arrayLength];
+        int startIndex = MappedSegmentStore.getStartIndex(slot);
+        int endIndex = MappedSegmentStore.getEndIndex(slot);
+        if (serializationType == Type.INTEGER) {
+            IntBuffer buffer = slot.asIntBuffer();
+            for (int i = startIndex; i < endIndex; ++i) {
+                items[i] = buffer.get();
+            }
+        } else {
+            LongBuffer buffer = slot.asLongBuffer();
+            for (int i = startIndex; i < endIndex; ++i) {
+                items[i] = buffer.get();
+            }
+        }
+        return cacheLoadedNode(new Node<E>(items, startIndex, endIndex, storeIndex, arrayLength));
+    }
+
+    private Node<E> cacheLoadedNode(Node<E> loadedNode) {
+        if (loadedNode.storeIndex <= lastStoreIndex) {
+            putInCache(loadedNode.storeIndex, loadedNode);
         } else {
             lastNode = loadedNode;
         }
@@ -470,12 +569,18 @@ public class BufferedArrayQueue<E> extends AbstractQueue<E> implements Serializa
         }
 
         clearCache();
-        // delete possibly stored nodes
-        for (; storedNodeExists(); ++firstStoreIndex) {
-            delete(firstStoreIndex);
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            // invalidates all stored nodes at once
+            store.clear();
+        } else {
+            // delete possibly stored nodes
+            for (; storedNodeExists(); ++firstStoreIndex) {
+                delete(firstStoreIndex);
+            }
+            // delete potentially stored last node
+            delete(lastStoreIndex + 1);
         }
-        // delete potentially stored last node
-        delete(lastStoreIndex + 1);
 
         initialize();
     }
@@ -6,11 +6,16 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.nio.channels.FileChannel;
 import java.util.*;
 
 /**
  * Simple single linked queue implementation using fixed/variable size array nodes.
+ * <p>
+ * Nodes that are not held in memory are stored in a single memory-mapped file
+ * (see {@link MappedSegmentStore}), by default. Alternatively, each node may be
+ * stored in a separate file by specifying a segment size of 0.
  */
 @CoverageIgnore
 public class BufferedLongArrayQueue implements Serializable {
@@ -49,6 +54,10 @@ public class BufferedLongArrayQueue implements Serializable {
 
     private transient boolean deleteOnExit;
 
+    // size of mapped segments in bytes; stores each node in a separate file if 0
+    private int segmentSize = MappedSegmentStore.DEFAULT_SEGMENT_SIZE;
+    private MappedSegmentStore mappedStore = null;
+
     // keep a node that may be reused
     private transient Node reusableNode = null;
 
@@ -64,6 +73,8 @@ public class BufferedLongArrayQueue implements Serializable {
         stream.writeInt(firstNodeSize);
         stream.writeLong(size);
         stream.writeInt(arrayLength);
+        stream.writeInt(segmentSize);
+        stream.writeObject(mappedStore);
     }
 
     private volatile transient boolean locked = false;
@@ -98,6 +109,9 @@ public class BufferedLongArrayQueue implements Serializable {
         lastNode = null;
         writeBuffer = null;
         reusableNode = null;
+        if (mappedStore != null) {
+            mappedStore.release();
+        }
     }
 
     private void readObject(java.io.ObjectInputStream stream)
@@ -111,6 +125,8 @@ public class BufferedLongArrayQueue implements Serializable {
         firstNodeSize = stream.readInt();
         size = stream.readLong();
         arrayLength = stream.readInt();
+        segmentSize = stream.readInt();
+        mappedStore = (MappedSegmentStore) stream.readObject();
 
         // always delete files from deserialized object TODO
         deleteOnExit = true;
@@ -169,6 +185,23 @@ public class BufferedLongArrayQueue implements Serializable {
         this(output, filePrefix, nodeArrayLength, true);
     }
 
+    /**
+     * @param output          the output directory
+     * @param filePrefix      the prefix of the stored files
+     * @param nodeArrayLength the maximum number of elements per node
+     * @param deleteOnExit    whether to delete stored files when the JVM exits
+     * @param segmentSize     the size of mapped file segments in bytes;
+     *                        if 0, each node is stored in a separate file
+     */
+    public BufferedLongArrayQueue(File output, String filePrefix, int nodeArrayLength, boolean deleteOnExit, int segmentSize) {
+        this(output, filePrefix, nodeArrayLength, deleteOnExit);
+        this.segmentSize = segmentSize < 0 ? 0 : segmentSize;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
     public int getNodeSize() {
         return arrayLength;
     }
@@ -219,7 +252,22 @@ public class BufferedLongArrayQueue implements Serializable {
         return writeBuffer;
     }
 
+    private MappedSegmentStore getMappedStore() {
+        if (mappedStore == null && segmentSize > 0) {
+            mappedStore = new MappedSegmentStore(
+                    new File(output.getAbsolutePath() + File.separator + filePrefix + ".seg"),
+                    arrayLength, 8, segmentSize, deleteOnExit);
+        }
+        return mappedStore;
+    }
+
     private void store(Node node) {
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            store.write(node.storeIndex, node.startIndex, node.endIndex).asLongBuffer()
+                    .put(node.items, node.startIndex, node.endIndex - node.startIndex);
+            return;
+        }
 //    	System.out.println(super.toString() + " store: " + node.storeIndex + ", " + cachedNodes.keySet() + ", last: " + (lastStoreIndex+1));
 //    	System.out.println("imem: " + Runtime.getRuntime().freeMemory());
         String filename = getFileName(node.storeIndex);
@@ -343,6 +391,11 @@ public class BufferedLongArrayQueue implements Serializable {
     }
 
     private void delete(int storeIndex) {
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            store.delete(storeIndex);
+            return;
+        }
         String filename = getFileName(storeIndex);
         // stored node should be deleted
         File file = new File(filename);
@@ -385,12 +438,38 @@ public class BufferedLongArrayQueue implements Serializable {
             return cachedNodes.get(storeIndex);
         }
 
+        Node loadedNode;
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            ByteBuffer slot = store.read(storeIndex);
+            if (slot == null) {
+                return null;
+            }
+            loadedNode = createNode(slot.asLongBuffer(),
+                    MappedSegmentStore.getStartIndex(slot), MappedSegmentStore.getEndIndex(slot), storeIndex);
+        } else {
+            loadedNode = loadFromFile(storeIndex);
+            if (loadedNode == null) {
+                return null;
+            }
+        }
+
+        if (storeIndex <= lastStoreIndex) {
+            putInCache(storeIndex, loadedNode);
+        } else {
+//			System.out.println(super.toString() + " load: " + storeIndex + ", " + cachedNodes.keySet() + ", last: " + (lastStoreIndex+1));
+            lastNode = loadedNode;
+        }
+        return loadedNode;
+    }
+
+
+    private Node loadFromFile(int storeIndex) {
         String filename = getFileName(storeIndex);
         if (!(new File(filename).exists())) {
             return null;
         }
 
-//		System.out.println(super.toString() + " load: " + storeIndex + ", " + cachedNodes.keySet() + ", last: " + (lastStoreIndex+1));
         Node loadedNode;
         try (FileInputStream in = new FileInputStream(filename)) {
             try (FileChannel file = in.getChannel()) {
@@ -405,28 +484,7 @@ public class BufferedLongArrayQueue implements Serializable {
                 int startIndex = directBuf.getInt();
                 int endIndex = directBuf.getInt();
 
-                if (reusableNode == null) {
-//					int arrayLength = (int)fileSize/8 - 2;
-                    // actually only load an array of the size that's necessary;
-                    // will be extended if there are new elements that are added
-                    long[] items = new long[endIndex];
-                    for (int i = startIndex; i < endIndex; ++i) {
-                        items[i] = directBuf.getLong();
-                    }
-
-                    loadedNode = new Node(items, startIndex, endIndex, storeIndex, arrayLength);
-                } else {
-                    long[] items = reusableNode.items;
-                    if (endIndex > items.length) {
-                        items = new long[endIndex];
-                    }
-                    for (int i = startIndex; i < endIndex; ++i) {
-                        items[i] = directBuf.getLong();
-                    }
-
-                    loadedNode = reusableNode.recycle(items, startIndex, endIndex, storeIndex);
-                    reusableNode = null;
-                }
+                loadedNode = createNode(directBuf.asLongBuffer(), startIndex, endIndex, storeIndex);
 
                 // file can not be removed, due to serialization! TODO
                 if (deleteOnExit) {
@@ -437,17 +495,28 @@ public class BufferedLongArrayQueue implements Serializable {
             e.printStackTrace();
             throw new IllegalStateException();
         }
+        return loadedNode;
+    }
 
-        if (storeIndex <= lastStoreIndex) {
-            putInCache(storeIndex, loadedNode);
+    private Node createNode(LongBuffer source, int startIndex, int endIndex, int storeIndex) {
+        if (reusableNode == null) {
+            // actually only load an array of the size that's necessary;
+            // will be extended if there are new elements that are added
+            long[] items = new long[endIndex];
+            source.get(items, startIndex, endIndex - startIndex);
+            return new Node(items, startIndex, endIndex, storeIndex, arrayLength);
         } else {
-//			System.out.println(super.toString() + " load: " + storeIndex + ", " + cachedNodes.keySet() + ", last: " + (lastStoreIndex+1));
-            lastNode = loadedNode;
+            long[] items = reusableNode.items;
+            if (endIndex > items.length) {
+                items = new long[endIndex];
+            }
+            source.get(items, startIndex, endIndex - startIndex);
+            Node loadedNode = reusableNode.recycle(items, startIndex, endIndex, storeIndex);
+            reusableNode = null;
+            return loadedNode;
         }
-        return loadedNode;
     }
 
-
     public long size() {
         return size;
     }
@@ -491,12 +560,18 @@ public class BufferedLongArrayQueue implements Serializable {
         }
 
         clearCache();
-        // delete possibly stored nodes
-        for (; storedNodeExists(); ++firstStoreIndex) {
-            delete(firstStoreIndex);
+        MappedSegmentStore store = getMappedStore();
+        if (store != null) {
+            // invalidates all stored nodes at once
+            store.clear();
+        } else {
+            // delete possibly stored nodes
+            for (; storedNodeExists(); ++firstStoreIndex) {
+                delete(firstStoreIndex);
+            }
+            // delete potentially stored last node
+            delete(lastStoreIndex + 1);
         }
-        // delete potentially stored last node
-        delete(lastStoreIndex + 1);
         lastNode = null;
 
         initialize();
@@ -62,6 +62,13 @@ public class CoberturaStatementEncoding {
         return (int) ((encodedStatement << CLASS_ID_BITS) >>> (CLASS_ID_BITS));
     }
 
+    // wide encoding for projects with more classes than fit into CLASS_ID_BITS:
+    // each class gets a dense range of statement ids, starting at its statement base;
+    // decoding requires the table of statement bases (see ProjectData)
+    public static int generateWideRepresentationForStatement(int statementBase, int counterId) {
+        return statementBase + counterId;
+    }
+
 
 //	// store the starting and ending statements in a single long value!
 //	// should represent a sub trace uniquely!
@@ -0,0 +1,259 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Stores fixed size slots in a single, growing file that is mapped into memory
+ * in segments of a configurable size. Each slot holds one node of a buffered
+ * queue: a start index, an end index and the node's elements in between.
+ * <p>
+ * Storing and loading nodes only copies data from and to the mapped segments;
+ * writing the data to the disk and evicting it from memory is left to the
+ * operating system's page cache. The file is sparse, i.e., segments that are
+ * mapped but never written to do not occupy disk space.
+ * <p>
+ * Slots are marked with the current generation of the store. Deleting a slot
+ * or clearing the whole store thus does not require to touch any other slots.
+ */
+@CoverageIgnore
+public class MappedSegmentStore implements Serializable {
+
+    private static final long serialVersionUID = -4393838626733962575L;
+
+    /**
+     * default size of the mapped segments in bytes
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 22;
+
+    // generation (int), start index (int), end index (int), padding (int)
+    private static final int HEADER_SIZE = 16;
+    private static final int START_INDEX_OFFSET = 4;
+    private static final int END_INDEX_OFFSET = 8;
+
+    private final File file;
+    private final int slotSize;
+    private final int slotsPerSegment;
+    private final boolean deleteOnExit;
+
+    // marks valid slots; slots of previous generations are considered deleted
+    private int generation = 1;
+
+    private transient MappedByteBuffer[] segments;
+    private transient boolean fileRegistered;
+
+    /**
+     * @param file         the file to store the slots in
+     * @param elementCount the maximum number of elements in each slot
+     * @param elementSize  the size of each element in bytes
+     * @param segmentSize  the size of the mapped segments in bytes; segments
+     *                     always contain at least one slot
+     * @param deleteOnExit whether to delete the file when the JVM exits
+     * @throws IllegalArgumentException if the element size or the segment size is not
+     *                                  positive, or if a slot would not fit into a segment
+     *                                  of the maximum size
+     */
+    public MappedSegmentStore(File file, int elementCount, int elementSize, int segmentSize, boolean deleteOnExit) {
+        this.file = Objects.requireNonNull(file);
+        if (elementSize <= 0 || segmentSize <= 0) {
+            throw new IllegalArgumentException("Element size (" + elementSize
+                    + ") and segment size (" + segmentSize + ") have to be positive.");
+        }
+        long slotSize = HEADER_SIZE + (long) Math.max(1, elementCount) * elementSize;
+        if (slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slots of " + elementCount + " elements are too large.");
+        }
+        this.slotSize = (int) slotSize;
+        this.slotsPerSegment = Math.max(1, segmentSize / this.slotSize);
+        this.deleteOnExit = deleteOnExit;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @param index the index of the slot
+     * @return whether a node is stored in the slot with the given index
+     */
+    public boolean exists(int index) {
+        ByteBuffer segment = getSegment(index, false);
+        return segment != null && segment.getInt(getOffset(index)) == generation;
+    }
+
+    /**
+     * Marks the slot with the given index as used and returns a buffer that may
+     * be used to write up to (endIndex - startIndex) elements to the slot.
+     *
+     * @param index      the index of the slot
+     * @param startIndex the start index of the stored node
+     * @param endIndex   the end index of the stored node
+     * @return a buffer that is positioned at the beginning of the slot's elements
+     */
+    public ByteBuffer write(int index, int startIndex, int endIndex) {
+        ByteBuffer slot = getSlot(getSegment(index, true), index);
+        slot.putInt(0, generation);
+        slot.putInt(START_INDEX_OFFSET, startIndex);
+        slot.putInt(END_INDEX_OFFSET, endIndex);
+        return slot;
+    }
+
+    /**
+     * Returns a buffer to read the elements of the node in the slot with the
+     * given index. Use {@link #getStartIndex(ByteBuffer)} and {@link #getEndIndex(ByteBuffer)}
+     * to obtain the node's start and end index.
+     *
+     * @param index the index of the slot
+     * @return a buffer that is positioned at the beginning of the slot's elements,
+     * or null if no node is stored in the slot
+     */
+    public ByteBuffer read(int index) {
+        ByteBuffer segment = getSegment(index, false);
+        if (segment == null || segment.getInt(getOffset(index)) != generation) {
+            return null;
+        }
+        return getSlot(segment, index);
+    }
+
+    public static int getStartIndex(ByteBuffer slot) {
+        return slot.getInt(START_INDEX_OFFSET);
+    }
+
+    public static int getEndIndex(ByteBuffer slot) {
+        return slot.getInt(END_INDEX_OFFSET);
+    }
+
+    /**
+     * Marks the slot with the given index as unused.
+     *
+     * @param index the index of the slot
+     */
+    public void delete(int index) {
+        ByteBuffer segment = getSegment(index, false);
+        if (segment != null) {
+            segment.putInt(getOffset(index), 0);
+        }
+    }
+
+    /**
+     * Marks all slots as unused, unmaps all segments and deletes the file, if possible.
+     * Buffers that were obtained from this store before must not be used anymore.
+     */
+    public void clear() {
+        ++generation;
+        if (segments != null) {
+            for (MappedByteBuffer segment : segments) {
+                if (segment != null) {
+                    unmap(segment);
+                }
+            }
+            segments = null;
+        }
+        // may still fail if a segment could not be unmapped; stale slots are ignored due to the new generation
+        if (file.exists()) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Releases the references to all mapped segments. The segments are
+     * mapped again when needed.
+     */
+    public void release() {
+        segments = null;
+    }
+
+    /**
+     * Unmaps the given segment right away instead of waiting for it to be garbage collected.
+     * Falls back to the garbage collector if the JVM does not allow to unmap buffers.
+     *
+     * @param segment the segment to unmap; must not be accessed anymore, afterwards
+     */
+    private static void unmap(MappedByteBuffer segment) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                // Java 9 and later
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                // Java 7 and 8
+                Method cleanerMethod = segment.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(segment);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), segment);
+        } catch (Exception e) {
+            // the segment is unmapped when it is garbage collected
+        }
+    }
+
+    private int getOffset(int index) {
+        return (index % slotsPerSegment) * slotSize;
+    }
+
+    private ByteBuffer getSlot(ByteBuffer segment, int index) {
+        ByteBuffer slot = segment.duplicate();
+        int offset = getOffset(index);
+        slot.limit(offset + slotSize);
+        slot.position(offset);
+        slot = slot.slice().order(ByteOrder.nativeOrder());
+        slot.position(HEADER_SIZE);
+        return slot;
+    }
+
+    private ByteBuffer getSegment(int index, boolean create) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Negative slot index: " + index);
+        }
+        int segmentIndex = index / slotsPerSegment;
+        if (segments != null && segmentIndex < segments.length && segments[segmentIndex] != null) {
+            return segments[segmentIndex];
+        }
+        long position = (long) segmentIndex * slotsPerSegment * slotSize;
+        long size = (long) slotsPerSegment * slotSize;
+        if (!create && (!file.exists() || file.length() < position + size)) {
+            // segment was never written to
+            return null;
+        }
+        if (segments == null) {
+            segments = new MappedByteBuffer[segmentIndex + 1];
+        } else if (segmentIndex >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(2 * segments.length, segmentIndex + 1));
+        }
+        // the mapping stays valid after closing the channel, so no file handles are kept open
+        try (RandomAccessFile raFile = new RandomAccessFile(file, "rw")) {
+            try (FileChannel channel = raFile.getChannel()) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                segment.order(ByteOrder.nativeOrder());
+                segments[segmentIndex] = segment;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map segment " + segmentIndex + " of " + file, e);
+        }
+        if (deleteOnExit && !fileRegistered) {
+            file.deleteOnExit();
+            fileRegistered = true;
+        }
+        return segments[segmentIndex];
+    }
+
+}
@@ -167,6 +167,16 @@ public class DataInput {
         }
     }
 
+    public static void readFully(final InputStream in, final byte[] bytes) throws IOException {
+        int pos = 0;
+        while (pos < bytes.length) {
+            final int count = in.read(bytes, pos, bytes.length - pos);
+            if (count < 0)
+                throw new EOFException();
+            pos += count;
+        }
+    }
+
 	public static int[] readIntArray(ObjectInputStream objIn, boolean nullifyZeroLengthArrays) throws IOException {
 		int length = readInt(objIn);
 		if (length == 0 && nullifyZeroLengthArrays) {
@@ -28,7 +28,7 @@ import de.hammacher.util.LongArrayList;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -42,7 +42,7 @@ class Grammar {
         this.rules = rules;
     }
 
-    public static Grammar readFrom(final ObjectInputStream objIn, final ObjectReader objectReader)
+    public static Grammar readFrom(final InputStream objIn, final ObjectReader objectReader)
             throws IOException {
         final LongArrayList<Rule> rules = Rule.readAll(objIn, objectReader);
         final Grammar grammar = new Grammar(rules);
@@ -29,7 +29,7 @@ import gnu.trove.map.TObjectLongMap;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 import java.util.*;
 
 @CoverageIgnore
@@ -230,6 +230,74 @@ public class InputSequence {
             return (int) (this.pos - 1);
         }
 
+        /**
+         * Reads up to the given number of values into the given buffer. Repetitions of
+         * a terminal are copied in one go, without walking the grammar for each value.
+         *
+         * @param buffer the buffer to fill
+         * @param offset the first index in the buffer to write to
+         * @param length the maximum number of values to read
+         * @return the number of values that were read; 0 if there are no more values
+         */
+        public int next(final int[] buffer, final int offset, final int length) {
+            int i = 0;
+            while (i < length && hasNext()) {
+                final int depth = this.ruleStack.size() - 1;
+                final Symbol sym = this.ruleStack.get(depth).symbols[this.rulePos[depth]];
+                // remaining repetitions of the current terminal, except for the last one
+                final int repetitions = Math.min(sym.count - 1 - this.count[depth], length - i - 1);
+                if (repetitions > 0) {
+                    Arrays.fill(buffer, offset + i, offset + i + repetitions, ((Terminal) sym).getValue());
+                    i += repetitions;
+                    this.count[depth] += repetitions;
+                    this.pos += repetitions;
+                }
+                // the last value moves on to the next terminal
+                buffer[offset + i++] = next();
+            }
+            return i;
+        }
+
+    }
+
+    /**
+     * Consumes the values of a sequence (Java 7 compatible replacement for an IntConsumer).
+     */
+    public interface ValueConsumer {
+
+        void accept(int value);
+
+    }
+
+    /**
+     * Creates summaries of terminal values and grammar rules for
+     * {@link InputSequence#summarize(RuleSummarizer, Map, Map)}.
+     *
+     * @param <S> the type of the summaries
+     */
+    public interface RuleSummarizer<S> {
+
+        /**
+         * @param value a terminal value
+         * @return the summary of the value (not null)
+         */
+        S summarizeTerminal(int value);
+
+        /**
+         * @param symbolSummaries the summaries of the symbols of the rule, in order
+         * @param counts          the number of consecutive repetitions of each symbol
+         * @return the summary of the rule (not null)
+         */
+        S summarizeRule(List<S> symbolSummaries, int[] counts);
+
+        /**
+         * Called once for each distinct rule and terminal value in a sequence.
+         *
+         * @param summary    the summary of the rule or terminal value
+         * @param expansions the number of times that the rule or value occurs in the full sequence
+         */
+        void consume(S summary, long expansions);
+
     }
 
     private final Rule firstRule;
@@ -257,6 +325,160 @@ public class InputSequence {
         return new TraceIterator(position, this.firstRule);
     }
 
+    /**
+     * Passes all values of the sequence to the given consumer, in order. In contrast to
+     * the {@link TraceIterator}, this walks the grammar directly: repeated terminals are
+     * emitted in a tight loop and the position in the sequence is not tracked.
+     *
+     * @param consumer the consumer
+     */
+    public void forEach(final ValueConsumer consumer) {
+        Rule[] rules = new Rule[8];
+        int[] positions = new int[8];
+        // number of expansions of the current non-terminal at each depth
+        int[] expansions = new int[8];
+        int depth = 0;
+        rules[0] = this.firstRule;
+        while (depth >= 0) {
+            final Symbol[] symbols = rules[depth].symbols;
+            if (positions[depth] == symbols.length) {
+                --depth;
+                continue;
+            }
+            final Symbol sym = symbols[positions[depth]];
+            if (sym instanceof Terminal) {
+                final int value = ((Terminal) sym).getValue();
+                for (int i = 0; i < sym.count; ++i) {
+                    consumer.accept(value);
+                }
+                ++positions[depth];
+                continue;
+            }
+            if (expansions[depth] == sym.count) {
+                expansions[depth] = 0;
+                ++positions[depth];
+                continue;
+            }
+            ++expansions[depth];
+            if (++depth == rules.length) {
+                rules = Arrays.copyOf(rules, 2 * depth);
+                positions = Arrays.copyOf(positions, 2 * depth);
+                expansions = Arrays.copyOf(expansions, 2 * depth);
+            }
+            rules[depth] = ((NonTerminal) sym).getRule();
+            positions[depth] = 0;
+            expansions[depth] = 0;
+        }
+    }
+
+    /**
+     * Summarizes the grammar of the sequence bottom-up, such that each rule and each
+     * terminal value is processed only once, independent of how often it is expanded.
+     * Summaries are looked up in and stored to the given caches. If multiple sequences
+     * share a grammar, reusing the rule cache for all of them avoids summarizing shared
+     * rules again.
+     *
+     * <p>
+     * Afterwards, each distinct rule and terminal value that is used in this sequence
+     * is passed to {@link RuleSummarizer#consume(Object, long)}, together with the number
+     * of times that it is expanded in the full sequence.
+     *
+     * @param summarizer    creates and consumes the summaries
+     * @param terminalCache cache for summaries of terminal values
+     * @param ruleCache     cache for summaries of rules
+     * @param <S>           the type of the summaries
+     * @return the summary of the whole sequence
+     */
+    public <S> S summarize(final RuleSummarizer<S> summarizer,
+                           final Map<Integer, S> terminalCache, final Map<Object, S> ruleCache) {
+        // collect all used rules in post order (used rules before the rules that use them)
+        final Map<Rule, Integer> ruleIndices = new IdentityHashMap<Rule, Integer>();
+        final List<Rule> rules = new ArrayList<Rule>();
+        Rule[] stack = new Rule[8];
+        int[] positions = new int[8];
+        int depth = 0;
+        stack[0] = this.firstRule;
+        ruleIndices.put(this.firstRule, -1);
+        while (depth >= 0) {
+            final Rule rule = stack[depth];
+            if (positions[depth] == rule.symbols.length) {
+                ruleIndices.put(rule, rules.size());
+                rules.add(rule);
+                --depth;
+                continue;
+            }
+            final Symbol sym = rule.symbols[positions[depth]++];
+            if (sym instanceof NonTerminal) {
+                final Rule usedRule = ((NonTerminal) sym).getRule();
+                if (!ruleIndices.containsKey(usedRule)) {
+                    ruleIndices.put(usedRule, -1);
+                    if (++depth == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * depth);
+                        positions = Arrays.copyOf(positions, 2 * depth);
+                    }
+                    stack[depth] = usedRule;
+                    positions[depth] = 0;
+                }
+            }
+        }
+
+        // summarize each rule once, based on the summaries of its symbols
+        for (final Rule rule : rules) {
+            if (ruleCache.containsKey(rule)) {
+                continue;
+            }
+            final List<S> symbolSummaries = new ArrayList<S>(rule.symbols.length);
+            final int[] counts = new int[rule.symbols.length];
+            for (int i = 0; i < rule.symbols.length; ++i) {
+                final Symbol sym = rule.symbols[i];
+                counts[i] = sym.count;
+                if (sym instanceof Terminal) {
+                    symbolSummaries.add(getTerminalSummary(((Terminal) sym).getValue(), summarizer, terminalCache));
+                } else {
+                    symbolSummaries.add(ruleCache.get(((NonTerminal) sym).getRule()));
+                }
+            }
+            ruleCache.put(rule, summarizer.summarizeRule(symbolSummaries, counts));
+        }
+
+        // compute the number of expansions of each rule and terminal value, top down
+        final long[] expansions = new long[rules.size()];
+        expansions[rules.size() - 1] = 1;
+        final Map<Integer, long[]> terminalExpansions = new HashMap<Integer, long[]>();
+        for (int i = rules.size() - 1; i >= 0; --i) {
+            final Rule rule = rules.get(i);
+            summarizer.consume(ruleCache.get(rule), expansions[i]);
+            for (final Symbol sym : rule.symbols) {
+                if (sym instanceof Terminal) {
+                    final int value = ((Terminal) sym).getValue();
+                    long[] count = terminalExpansions.get(value);
+                    if (count == null) {
+                        count = new long[1];
+                        terminalExpansions.put(value, count);
+                    }
+                    count[0] += expansions[i] * sym.count;
+                } else {
+                    expansions[ruleIndices.get(((NonTerminal) sym).getRule())] += expansions[i] * sym.count;
+                }
+            }
+        }
+        for (final Map.Entry<Integer, long[]> entry : terminalExpansions.entrySet()) {
+            summarizer.consume(terminalCache.get(entry.getKey()), entry.getValue()[0]);
+        }
+
+        return ruleCache.get(this.firstRule);
+    }
+
+    private static <S> S getTerminalSummary(final int value,
+                                            final RuleSummarizer<S> summarizer, final Map<Integer, S> terminalCache) {
+        S summary = terminalCache.get(value);
+        if (summary == null) {
+            summary = summarizer.summarizeTerminal(value);
+            terminalCache.put(value, summary);
+        }
+        return summary;
+    }
+
     public long getLength() {
         return this.firstRule.getLength();
     }
@@ -312,17 +534,17 @@ public class InputSequence {
         return sb.toString();
     }
 
-    public static InputSequence readFrom(final ObjectInputStream objIn)
+    public static InputSequence readFrom(final InputStream objIn)
             throws IOException {
         return readFrom(objIn, SharedInputGrammar.readFrom(objIn));
     }
 
-    public static InputSequence readFrom(final ObjectInputStream objIn,
+    public static InputSequence readFrom(final InputStream objIn,
                                          final ObjectReader objectReader) throws IOException {
         return readFrom(objIn, SharedInputGrammar.readFrom(objIn, objectReader));
     }
 
-    public static InputSequence readFrom(final ObjectInputStream objIn, final SharedInputGrammar sharedGrammar) throws IOException {
+    public static InputSequence readFrom(final InputStream objIn, final SharedInputGrammar sharedGrammar) throws IOException {
         if (sharedGrammar == null)
             throw new NullPointerException();
         final long startRuleNr = DataInput.readLong(objIn);
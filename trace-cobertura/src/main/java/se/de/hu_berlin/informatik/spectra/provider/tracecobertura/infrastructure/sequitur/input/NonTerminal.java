@@ -25,7 +25,7 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
@@ -80,7 +80,7 @@ class NonTerminal extends Symbol {
         return sb.toString();
     }
 
-    public static NonTerminal readFrom(final ObjectInputStream objIn, final boolean counted) throws IOException {
+    public static NonTerminal readFrom(final InputStream objIn, final boolean counted) throws IOException {
         final int count = counted ? DataInput.readInt(objIn) : 1;
         final long ruleNr = DataInput.readLong(objIn);
         return new NonTerminal(new RuleReference(ruleNr), count);
@@ -25,10 +25,10 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 public interface ObjectReader {
 
-    public int readObject(ObjectInputStream inputStream) throws IOException;
+    public int readObject(InputStream inputStream) throws IOException;
 
 }
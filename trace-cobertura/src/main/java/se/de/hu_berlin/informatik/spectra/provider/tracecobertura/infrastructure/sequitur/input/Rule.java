@@ -33,7 +33,7 @@ import gnu.trove.map.hash.TObjectLongHashMap;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -111,7 +111,7 @@ class Rule {
         return sb.toString();
     }
 
-    public static LongArrayList<Rule> readAll(final ObjectInputStream objIn,
+    public static LongArrayList<Rule> readAll(final InputStream objIn,
                                               final ObjectReader objectReader) throws IOException {
 
         final LongArrayList<Rule> rules = new LongArrayList<Rule>();
@@ -145,7 +145,7 @@ class Rule {
                 if (additionalHeaderBytes > 1 << 28)
                     throw new IOException("Rule longer than 1<<30??");
                 final byte[] headerBuf = new byte[additionalHeaderBytes];
-                objIn.readFully(headerBuf);
+                DataInput.readFully(objIn, headerBuf);
                 headerInputStream = new MyByteArrayInputStream(headerBuf);
             }
 
@@ -25,7 +25,7 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
@@ -40,11 +40,11 @@ public class SharedInputGrammar {
         this.grammar = grammar;
     }
 
-    public static SharedInputGrammar readFrom(final ObjectInputStream objIn) throws IOException {
+    public static SharedInputGrammar readFrom(final InputStream objIn) throws IOException {
         return new SharedInputGrammar(Grammar.readFrom(objIn, null));
     }
 
-    public static SharedInputGrammar readFrom(final ObjectInputStream objIn,
+    public static SharedInputGrammar readFrom(final InputStream objIn,
                                               final ObjectReader objectReader) throws IOException {
         return new SharedInputGrammar(Grammar.readFrom(objIn, objectReader));
     }
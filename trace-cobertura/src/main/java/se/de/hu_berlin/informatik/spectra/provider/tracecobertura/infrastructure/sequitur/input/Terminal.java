@@ -25,7 +25,7 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
@@ -59,7 +59,7 @@ class Terminal extends Symbol {
                 .append('^').append(this.count).toString();
     }
 
-    public static Terminal readFrom(final ObjectInputStream objIn, final boolean counted,
+    public static Terminal readFrom(final InputStream objIn, final boolean counted,
                                     final ObjectReader objectReader) throws IOException {
         final int count = counted ? DataInput.readInt(objIn) : 1;
         if (objectReader == null) {
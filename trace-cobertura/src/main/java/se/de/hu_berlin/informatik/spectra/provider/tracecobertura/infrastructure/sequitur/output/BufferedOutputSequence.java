@@ -0,0 +1,366 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+
+/**
+ * Output sequence that records appended values in a small ring of primitive
+ * buffers. The recording thread only stores values in the current buffer. Full
+ * buffers are handed to the given compressor, which builds the grammar on its
+ * own thread, and are reused afterwards. If the compressor falls behind, the
+ * recording thread waits for the next free buffer. Buffers are only allocated
+ * when values are recorded, starting with a small buffer that grows up to the
+ * given buffer size.
+ * <p>
+ * Each sequence is meant to be appended to by a single thread, which owns the
+ * current buffer and stores values without taking a lock. The number of recorded
+ * values in the current buffer is kept in an atomic state, which the owner advances
+ * with a single compare-and-set per value. Other threads may hand off the current
+ * buffer with {@link #startFlush()} or {@link #close()} by atomically taking over
+ * the recorded values from that state; a value whose compare-and-set fails due to
+ * such a hand-off is recorded again by the owner. After the sequence is closed,
+ * appended values are passed on to the sequence obtained from the given
+ * {@link Successor}. The given compressor has to execute submitted tasks in order,
+ * e.g., a single thread executor obtained from a {@link CompressorPool}. Before
+ * accessing the grammar, {@link #flush()} has to be called, which waits for all
+ * pending buffers to be processed.
+ */
+@CoverageIgnore
+public class BufferedOutputSequence extends OutputSequence {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+    public static final int INITIAL_BUFFER_SIZE = 1 << 10;
+
+    // the values of the current buffer have been handed off by another thread
+    private static final int FLUSHED = -1;
+    private static final int CLOSED = -2;
+    // set while the current buffer is handed off
+    private static final int HANDING_OFF = -3;
+
+    private final ExecutorService compressor;
+    private final ProgressListener progressListener;
+    private final Successor successor;
+    private final BlockingQueue<int[]> freeBuffers;
+    private final int bufferSize;
+    private int remainingBufferCount;
+    private int nextAllocatedBufferSize;
+
+    // number of values in the current buffer, or one of the negative states
+    private final AtomicInteger state = new AtomicInteger(0);
+    private final AtomicLong recordedLength = new AtomicLong(0);
+    // set when the recorded values are not needed anymore; pending buffers are skipped
+    private volatile boolean discarded = false;
+
+    // only accessed by the appending thread; other threads only read the current
+    // buffer after taking over its values from the state
+    private int[] buffer = null;
+    private OutputSequence successorSequence = null;
+
+    public BufferedOutputSequence(final ExecutorService compressor, final ProgressListener progressListener) {
+        this(compressor, progressListener, null);
+    }
+
+    public BufferedOutputSequence(final ExecutorService compressor, final ProgressListener progressListener,
+                                  final Successor successor) {
+        this(compressor, progressListener, successor, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    public BufferedOutputSequence(final ExecutorService compressor, final ProgressListener progressListener,
+                                  final int bufferSize, final int bufferCount) {
+        this(compressor, progressListener, null, bufferSize, bufferCount);
+    }
+
+    public BufferedOutputSequence(final ExecutorService compressor, final ProgressListener progressListener,
+                                  final Successor successor, final int bufferSize, final int bufferCount) {
+        super();
+        if (bufferSize < 1 || bufferCount < 1) {
+            throw new IllegalArgumentException("Buffer size and count have to be positive.");
+        }
+        this.compressor = compressor;
+        this.progressListener = progressListener;
+        this.successor = successor;
+        this.bufferSize = bufferSize;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        // buffers are only allocated when needed
+        this.remainingBufferCount = bufferCount;
+        this.nextAllocatedBufferSize = Math.min(bufferSize, INITIAL_BUFFER_SIZE);
+    }
+
+    @Override
+    public void append(final int obj) {
+        while (true) {
+            int position = state.get();
+            if (position < 0) {
+                if (position == CLOSED) {
+                    getSuccessorSequence().append(obj);
+                    return;
+                }
+                if (position == FLUSHED) {
+                    // the values of the current buffer have been handed off by another thread
+                    buffer = null;
+                    if (!state.compareAndSet(FLUSHED, 0)) {
+                        continue;
+                    }
+                    position = 0;
+                } else {
+                    // another thread hands off the current buffer
+                    Thread.yield();
+                    continue;
+                }
+            }
+            int[] current = buffer;
+            if (current == null) {
+                current = nextFreeBuffer();
+                buffer = current;
+            }
+            current[position] = obj;
+            if (state.compareAndSet(position, position + 1)) {
+                if (position + 1 == current.length && state.compareAndSet(position + 1, HANDING_OFF)) {
+                    // other threads wait for the hand-off, which keeps the buffers in order
+                    handOffBuffer(current, position + 1);
+                    buffer = null;
+                    state.set(0);
+                }
+                return;
+            }
+            // the current buffer has been handed off by another thread in the meantime
+        }
+    }
+
+    private OutputSequence getSuccessorSequence() {
+        if (successorSequence == null) {
+            if (successor == null) {
+                throw new IllegalStateException("Sequence has been closed.");
+            }
+            successorSequence = successor.getSequence();
+        }
+        return successorSequence;
+    }
+
+    @Override
+    public void appendConcurrent(final int obj) {
+        append(obj);
+    }
+
+    private void handOffBuffer(final int[] fullBuffer, final int size) {
+        recordedLength.addAndGet(size);
+        compressor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!discarded) {
+                    for (int i = 0; i < size; ++i) {
+                        BufferedOutputSequence.super.append(fullBuffer[i]);
+                    }
+                    if (progressListener != null) {
+                        progressListener.processed(size);
+                    }
+                }
+                freeBuffers.offer(fullBuffer);
+            }
+        });
+    }
+
+    /**
+     * Atomically takes over the values of the current buffer from the appending thread
+     * and hands them to the compressor. Waits while the current buffer is handed off.
+     *
+     * @param newState the state to set, either {@link #FLUSHED} or {@link #CLOSED}
+     * @param keepValues whether the taken values should be processed
+     */
+    private void takeOver(final int newState, final boolean keepValues) {
+        while (true) {
+            int position = state.get();
+            if (position == HANDING_OFF) {
+                Thread.yield();
+            } else if (position == CLOSED || (position <= 0 && newState == FLUSHED)) {
+                return;
+            } else if (position <= 0) {
+                if (state.compareAndSet(position, newState)) {
+                    return;
+                }
+            } else if (state.compareAndSet(position, HANDING_OFF)) {
+                // the appending thread does not touch the current buffer until the state is set
+                if (keepValues) {
+                    handOffBuffer(buffer, position);
+                }
+                state.set(newState);
+                return;
+            }
+        }
+    }
+
+    private int[] nextFreeBuffer() {
+        int[] next = freeBuffers.poll();
+        if (next != null) {
+            return next;
+        }
+        if (remainingBufferCount > 0) {
+            --remainingBufferCount;
+            int[] allocated = new int[nextAllocatedBufferSize];
+            nextAllocatedBufferSize = (int) Math.min(bufferSize, 2L * nextAllocatedBufferSize);
+            return allocated;
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return freeBuffers.take();
+                } catch (InterruptedException e) {
+                    // keep waiting, but restore the interrupt flag for the recorded thread
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hands the remaining recorded values to the compressor without waiting for
+     * the grammar to be completed. This allows to process the remaining values of
+     * multiple sequences in parallel before waiting for each of them with
+     * {@link #flush()}.
+     *
+     * @return a future that completes when all values recorded so far have been processed
+     */
+    public synchronized Future<?> startFlush() {
+        takeOver(FLUSHED, true);
+        FutureTask<Void> barrier = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                // marks the end of all previously submitted buffers
+            }
+        }, null);
+        compressor.execute(barrier);
+        return barrier;
+    }
+
+    /**
+     * Closes this sequence and hands the remaining recorded values to the compressor
+     * (see {@link #startFlush()}). Values that are appended afterwards are passed on to
+     * the sequence that is obtained from the {@link Successor} of this sequence.
+     *
+     * @return a future that completes when all values recorded in this sequence have been processed
+     */
+    public synchronized Future<?> close() {
+        takeOver(CLOSED, true);
+        return startFlush();
+    }
+
+    /**
+     * Closes this sequence (see {@link #close()}) and drops all recorded values that
+     * have not been added to the grammar, yet, without waiting for the compressor.
+     * Buffers that are still pending are skipped by the compressor. The sequence must
+     * not be accessed anymore, afterwards.
+     */
+    public synchronized void discard() {
+        discarded = true;
+        takeOver(CLOSED, false);
+    }
+
+    /**
+     * Hands the remaining recorded values to the compressor and waits
+     * until all pending buffers have been processed.
+     */
+    private void drain() {
+        Future<?> barrier = startFlush();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    barrier.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public int getFirstValue() {
+        drain();
+        return super.getFirstValue();
+    }
+
+    @Override
+    public long getLength() {
+        return recordedLength.get() + Math.max(0, state.get());
+    }
+
+    @Override
+    public void writeOut(final OutputStream objOut, final boolean includeGrammar) throws IOException {
+        drain();
+        super.writeOut(objOut, includeGrammar);
+    }
+
+    @Override
+    public void writeOutGrammar(final OutputStream objOut) throws IOException {
+        drain();
+        super.writeOutGrammar(objOut);
+    }
+
+    @Override
+    public String toString() {
+        drain();
+        return super.toString();
+    }
+
+    @Override
+    public void ensureInvariants() {
+        drain();
+        super.ensureInvariants();
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        super.flush();
+    }
+
+    /**
+     * Provides the sequence to append values to after a sequence has been closed.
+     * Called by the appending thread.
+     */
+    public interface Successor {
+
+        /**
+         * @return the sequence to append values to
+         */
+        OutputSequence getSequence();
+
+    }
+
+    /**
+     * Gets notified by the compressor threads about processed values.
+     * May be called concurrently by multiple compressor threads.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param count the number of values that have been added to the grammar
+         */
+        void processed(int count);
+
+    }
+
+}
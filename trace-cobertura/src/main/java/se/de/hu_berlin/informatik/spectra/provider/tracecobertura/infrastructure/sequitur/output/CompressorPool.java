@@ -0,0 +1,81 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
+
+/**
+ * Pool of compressor threads that build the grammars of {@link BufferedOutputSequence}s.
+ * <p>
+ * Each compressor is a single thread executor, such that all buffers of a sequence
+ * are processed in order if the sequence is always assigned the same compressor.
+ * Sequences are distributed over the compressors in a round-robin fashion, which
+ * allows to build the grammars of multiple sequences in parallel.
+ */
+@CoverageIgnore
+public class CompressorPool {
+
+    private final ExecutorService[] compressors;
+    private final AtomicInteger nextCompressor = new AtomicInteger();
+
+    /**
+     * Creates a pool with the given number of compressor threads. The threads are
+     * daemon threads and do not prevent the JVM from shutting down.
+     *
+     * @param threadCount the number of compressor threads
+     * @param threadName  the base name of the compressor threads
+     */
+    public CompressorPool(int threadCount, String threadName) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count has to be positive.");
+        }
+        compressors = new ExecutorService[threadCount];
+        for (int i = 0; i < threadCount; ++i) {
+            final String name = threadName + "-" + i;
+            compressors[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the compressor to use for a new sequence
+     */
+    public ExecutorService nextCompressor() {
+        // mask the sign bit, since the counter may overflow
+        return compressors[(nextCompressor.getAndIncrement() & Integer.MAX_VALUE) % compressors.length];
+    }
+
+    /**
+     * @return the number of compressor threads
+     */
+    public int getThreadCount() {
+        return compressors.length;
+    }
+
+    /**
+     * Shuts down all compressor threads after all submitted buffers have been processed.
+     *
+     * @param timeout the maximum time to wait for each compressor
+     * @param unit    the time unit of the timeout argument
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ExecutorService compressor : compressors) {
+            compressor.shutdown();
+        }
+        for (ExecutorService compressor : compressors) {
+            compressor.awaitTermination(timeout, unit);
+        }
+    }
+
+}
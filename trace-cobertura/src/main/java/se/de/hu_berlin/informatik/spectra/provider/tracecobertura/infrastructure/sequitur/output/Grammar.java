@@ -30,7 +30,7 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.Rule.Dummy;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.locks.Lock;
@@ -292,7 +292,7 @@ class Grammar {
         return nr;
     }
 
-    public void writeOut(final ObjectOutputStream objOut, final ObjectWriter objectWriter)
+    public void writeOut(final OutputStream objOut, final ObjectWriter objectWriter)
             throws IOException {
         final Queue<Rule> ruleQueue = new SingleLinkedArrayQueue<Rule>(50);
         // first, fill in already written rules
@@ -25,10 +25,10 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 public interface ObjectWriter {
 
-    public void writeObject(int object, ObjectOutputStream outputStream) throws IOException;
+    public void writeObject(int object, OutputStream outputStream) throws IOException;
 
 }
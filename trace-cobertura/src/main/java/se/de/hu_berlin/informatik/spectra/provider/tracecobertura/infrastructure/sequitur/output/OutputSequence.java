@@ -25,7 +25,13 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
@@ -122,6 +128,94 @@ public class OutputSequence {
         }
     }
 
+    /**
+     * Appends the contents of the given sequence, with each value mapped to
+     * {@code valueMap[value]}. The rules of the given sequence's grammar are copied
+     * into this sequence's grammar instead of appending the expanded sequence value
+     * by value, such that the effort depends on the size of the given grammar and
+     * not on the length of the given sequence. The value map has to be injective
+     * on the values of the given sequence. The given sequence is flushed, but is
+     * not modified otherwise.
+     *
+     * @param sequence the sequence to append; must not use this sequence's grammar
+     * @param valueMap maps the values of the given sequence to the values to append
+     */
+    public void appendMapped(final OutputSequence sequence, final int[] valueMap) {
+        if (sequence.grammar == this.grammar)
+            throw new IllegalArgumentException("Sequence uses the same grammar.");
+        sequence.flush();
+        if (sequence.length == 0)
+            return;
+        flush();
+        if (this.length == 0)
+            this.firstValue = valueMap[sequence.firstValue];
+        this.length += sequence.length;
+
+        final Map<Rule, Rule> mappedRules = new IdentityHashMap<Rule, Rule>();
+        for (Symbol s = sequence.firstRule.dummy.next; s != sequence.firstRule.dummy; s = s.next)
+            this.firstRule.append(mapSymbol(s, valueMap, mappedRules), this.grammar);
+        // copied rules are pinned while copying, such that they are not expanded before their last use
+        for (final Rule rule : mappedRules.values())
+            rule.decUseCount();
+    }
+
+    private Symbol mapSymbol(final Symbol symbol, final int[] valueMap, final Map<Rule, Rule> mappedRules) {
+        if (symbol instanceof NonTerminal) {
+            final NonTerminal mapped = new NonTerminal(mapRule(((NonTerminal) symbol).getRule(), valueMap, mappedRules));
+            mapped.count = symbol.count;
+            return mapped;
+        }
+        return new Terminal(valueMap[((Terminal) symbol).value], symbol.count);
+    }
+
+    private Rule mapRule(final Rule rule, final int[] valueMap, final Map<Rule, Rule> mappedRules) {
+        Rule mapped = mappedRules.get(rule);
+        if (mapped != null)
+            return mapped;
+        // copy the rules bottom-up without recursion, since grammars may be deeply nested
+        final Deque<Rule> stack = new ArrayDeque<Rule>();
+        final List<Rule> unmappedRules = new ArrayList<Rule>();
+        stack.push(rule);
+        while (!stack.isEmpty()) {
+            final Rule next = stack.peek();
+            if (mappedRules.containsKey(next)) {
+                stack.pop();
+                continue;
+            }
+            unmappedRules.clear();
+            for (Symbol s = next.dummy.next; s != next.dummy; s = s.next)
+                if (s instanceof NonTerminal && !mappedRules.containsKey(((NonTerminal) s).getRule()))
+                    unmappedRules.add(((NonTerminal) s).getRule());
+            if (unmappedRules.isEmpty()) {
+                stack.pop();
+                mappedRules.put(next, copyRule(next, valueMap, mappedRules));
+            } else {
+                for (final Rule unmapped : unmappedRules)
+                    stack.push(unmapped);
+            }
+        }
+        return mappedRules.get(rule);
+    }
+
+    private Rule copyRule(final Rule rule, final int[] valueMap, final Map<Rule, Rule> mappedRules) {
+        // the copy is built like the first rule of a sequence, such that its digrams are matched
+        // with the rest of the grammar, but the incomplete copy is never reused for other digrams
+        final Rule copy = new Rule(false);
+        for (Symbol s = rule.dummy.next; s != rule.dummy; s = s.next)
+            copy.append(mapSymbol(s, valueMap, mappedRules), this.grammar);
+        final Symbol first = copy.dummy.next;
+        if (first.next == copy.dummy && first instanceof NonTerminal && first.count == 1) {
+            // the copy matches an existing rule
+            final Rule existing = ((NonTerminal) first).getRule();
+            existing.incUseCount();
+            first.remove();
+            return existing;
+        }
+        copy.makeReusable();
+        copy.incUseCount();
+        return copy;
+    }
+
     public long getLength() {
         return length;
     }
@@ -130,14 +224,14 @@ public class OutputSequence {
         return this.grammar.getRuleNr(this.firstRule);
     }
 
-    public void writeOut(final ObjectOutputStream objOut, final boolean includeGrammar) throws IOException {
+    public void writeOut(final OutputStream objOut, final boolean includeGrammar) throws IOException {
         flush();
         if (includeGrammar)
             writeOutGrammar(objOut);
         DataOutput.writeLong(objOut, getStartRuleNumber());
     }
 
-    public void writeOutGrammar(final ObjectOutputStream objOut) throws IOException {
+    public void writeOutGrammar(final OutputStream objOut) throws IOException {
         flush();
         this.grammar.writeOut(objOut, this.objectWriter);
     }
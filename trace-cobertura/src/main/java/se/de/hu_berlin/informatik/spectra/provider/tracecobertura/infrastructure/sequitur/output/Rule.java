@@ -29,7 +29,7 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageI
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.SingleLinkedArrayQueue;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.*;
 
 // package-private
@@ -77,7 +77,7 @@ class Rule {
         }
 
         @Override
-        public void writeOut(final ObjectOutputStream objOut, final Grammar grammar, final ObjectWriter objectWriter,
+        public void writeOut(final OutputStream objOut, final Grammar grammar, final ObjectWriter objectWriter,
                              final Queue<Rule> queue) {
             assert false;
         }
@@ -115,6 +115,14 @@ class Rule {
         return this.useCount >= 0;
     }
 
+    /**
+     * Allows a rule that was created as the first rule of a compressed sequence to be reused.
+     */
+    public void makeReusable() {
+        if (this.useCount == -1)
+            this.useCount = 0;
+    }
+
     public void incUseCount() {
         if (this.useCount != -1)
             ++this.useCount;
@@ -129,7 +137,7 @@ class Rule {
         return this.useCount;
     }
 
-    public void writeOut(final ObjectOutputStream objOut, final Grammar grammar,
+    public void writeOut(final OutputStream objOut, final Grammar grammar,
                          final ObjectWriter objectWriter, final Queue<Rule> ruleQueue)
             throws IOException {
         int header = 0;
@@ -227,10 +235,12 @@ class Rule {
                                 grammar.removeDigram(s.prev);
                             if (!(s.next instanceof Dummy))
                                 grammar.removeDigram(s);
+                            // remove() resets the count
+                            final int count = s.getCount();
                             s.remove();
                             final Pair<Symbol, Symbol> cloned = cloneRule(r2);
-                            if (s.getCount() > 1)
-                                cloned.getFirst().count *= s.getCount();
+                            if (count > 1)
+                                cloned.getFirst().count *= count;
                             Symbol.linkTogether(s.prev, cloned.getFirst());
                             Symbol.linkTogether(cloned.getSecond(), s.next);
                             if (!grammar.checkDigram(s.prev))
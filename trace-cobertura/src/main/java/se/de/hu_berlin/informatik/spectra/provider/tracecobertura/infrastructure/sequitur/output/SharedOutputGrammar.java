@@ -25,7 +25,7 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
 
@@ -50,7 +50,7 @@ public class SharedOutputGrammar {
         this.objectWriter = objectWriter;
     }
 
-    public void writeOut(final ObjectOutputStream objOut) throws IOException {
+    public void writeOut(final OutputStream objOut) throws IOException {
         this.grammar.writeOut(objOut, this.objectWriter);
     }
 
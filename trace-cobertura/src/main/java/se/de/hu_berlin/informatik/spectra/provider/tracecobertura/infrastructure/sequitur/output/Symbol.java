@@ -25,7 +25,7 @@
 package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.Queue;
 
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageIgnore;
@@ -144,7 +144,7 @@ abstract class Symbol implements Cloneable {
         return obj instanceof Symbol ? digramEquals((Symbol) obj) : false;
     }
 
-    public abstract void writeOut(final ObjectOutputStream objOut, Grammar grammar,
+    public abstract void writeOut(final OutputStream objOut, Grammar grammar,
                                   ObjectWriter objectWriter, Queue<Rule> queue)
             throws IOException;
 
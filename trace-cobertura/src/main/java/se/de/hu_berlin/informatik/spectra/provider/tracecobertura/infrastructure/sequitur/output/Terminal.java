@@ -28,7 +28,7 @@ import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.CoverageI
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.Rule.Dummy;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.Queue;
 
 // package-private
@@ -77,7 +77,7 @@ class Terminal extends Symbol {
     }
 
     @Override
-    public void writeOut(final ObjectOutputStream objOut, final Grammar grammar,
+    public void writeOut(final OutputStream objOut, final Grammar grammar,
                          final ObjectWriter objectWriter,
                          final Queue<Rule> queue) throws IOException {
         assert this.count >= 1;
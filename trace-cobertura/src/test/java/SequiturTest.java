@@ -27,9 +27,18 @@
 import org.junit.Test;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence.TraceIterator;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.SequiturUtils;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.BufferedOutputSequence;
 import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.OutputSequence;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.SharedOutputGrammar;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.SharedInputGrammar;
 
 import java.io.*;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -86,6 +95,281 @@ public class SequiturTest {
         assertEquals(74, bytes.length);
     }
 
+    @Test
+    public void bulkRead() throws IOException {
+        OutputSequence outSeq = new OutputSequence();
+        int[] ints = concatenateArrays(a, b, e, c, d, d, d, a, a, c, b, b, a, e, c, c, d, d, d, a, d, a, b, e, a, b, c, a, b, c, e);
+        for (int i = 0; i < ints.length; ++i) {
+            outSeq.append(ints[i]);
+        }
+        InputSequence inSeq = SequiturUtils.getInputSequenceFromByteArray(SequiturUtils.convertToByteArray(outSeq, true));
+
+        for (int bufferSize = 1; bufferSize <= ints.length + 1; ++bufferSize) {
+            int[] buffer = new int[bufferSize + 2];
+            // start in the middle of the sequence and after reading backwards
+            for (int start : new int[]{0, 7, ints.length / 2}) {
+                TraceIterator inIt = inSeq.iterator();
+                for (int i = 0; i <= start; ++i) {
+                    inIt.next();
+                }
+                inIt.previous();
+                int index = start;
+                int read;
+                while ((read = inIt.next(buffer, 1, bufferSize)) > 0) {
+                    for (int i = 0; i < read; ++i) {
+                        assertEquals("buffer size " + bufferSize + ", index " + index, ints[index++], buffer[1 + i]);
+                    }
+                    assertEquals(index, inIt.nextIndex());
+                }
+                assertEquals(ints.length, index);
+                assertFalse(inIt.hasNext());
+                // the iterator is still usable after bulk reads
+                assertEquals(ints[ints.length - 1], inIt.previous());
+            }
+        }
+    }
+
+    @Test
+    public void appendMappedPrivateGrammar() throws IOException {
+        int[] ints = concatenateArrays(a, b, e, c, d, d, d, a, a, c, b, b, a, e, c, c, d, d, d, a, d, a, b, e, a, b, c, a, b, c, e);
+        int[] valueMap = {7, 3, 100, 4, 2, 1, 0, 0, 0, 5};
+        OutputSequence localSeq = new OutputSequence();
+        OutputSequence expectedSeq = new OutputSequence();
+        for (int i = 0; i < ints.length; ++i) {
+            localSeq.append(ints[i]);
+            expectedSeq.append(valueMap[ints[i]]);
+        }
+
+        OutputSequence outSeq = new OutputSequence();
+        outSeq.appendMapped(localSeq, valueMap);
+        assertEquals(ints.length, outSeq.getLength());
+        assertEquals(valueMap[ints[0]], outSeq.getFirstValue());
+
+        InputSequence inSeq = readSequence(outSeq);
+        assertEquals(ints.length, inSeq.getLength());
+        TraceIterator inIt = inSeq.iterator();
+        for (int i = 0; i < ints.length; ++i) {
+            assertEquals(valueMap[ints[i]], inIt.next());
+        }
+        assertFalse(inIt.hasNext());
+        // the copied grammar is as small as the grammar of the mapped sequence
+        assertEquals(SequiturUtils.convertToByteArray(expectedSeq, true).length,
+                SequiturUtils.convertToByteArray(outSeq, true).length);
+    }
+
+    @Test
+    public void appendMappedSharedGrammar() throws IOException {
+        Random rand = new Random(4711);
+        int numSequences = 20;
+        SharedOutputGrammar sharedGrammar = new SharedOutputGrammar();
+        OutputSequence[] outSeqs = new OutputSequence[numSequences];
+        int[][] ints = new int[numSequences][];
+        for (int k = 0; k < numSequences; ++k) {
+            // local values are mapped to the same values in different orders
+            int[] valueMap = new int[10];
+            for (int i = 0; i < valueMap.length; ++i) {
+                valueMap[i] = (i + k) % valueMap.length;
+            }
+            ints[k] = new int[1000 + rand.nextInt(1000)];
+            OutputSequence localSeq = new OutputSequence();
+            for (int i = 0; i < ints[k].length; ++i) {
+                // repeat earlier parts of the sequence to get nested rules
+                int value = i > 20 && rand.nextInt(3) == 0 ? ints[k][rand.nextInt(20)] : rand.nextInt(valueMap.length);
+                ints[k][i] = value;
+                localSeq.append(value);
+            }
+            for (int i = 0; i < ints[k].length; ++i) {
+                ints[k][i] = valueMap[ints[k][i]];
+            }
+
+            outSeqs[k] = new OutputSequence(sharedGrammar);
+            // appending after other values and appending another sequence works, too
+            outSeqs[k].append(k);
+            outSeqs[k].appendMapped(localSeq, valueMap);
+            outSeqs[k].appendMapped(new OutputSequence(), valueMap);
+            outSeqs[k].append(k);
+            assertEquals(ints[k].length + 2, outSeqs[k].getLength());
+        }
+
+        SharedInputGrammar inGrammar = SequiturUtils.convertToInputGrammar(sharedGrammar);
+        for (int k = 0; k < numSequences; ++k) {
+            InputSequence inSeq = SequiturUtils.getInputSequenceFromByteArray(
+                    SequiturUtils.convertToByteArray(outSeqs[k], false), inGrammar);
+            assertEquals(ints[k].length + 2, inSeq.getLength());
+            TraceIterator inIt = inSeq.iterator();
+            assertEquals(k, inIt.next());
+            for (int i = 0; i < ints[k].length; ++i) {
+                assertEquals("sequence " + k + ", index " + i, ints[k][i], inIt.next());
+            }
+            assertEquals(k, inIt.next());
+            assertFalse(inIt.hasNext());
+        }
+    }
+
+    @Test
+    public void bufferedPrivateGrammar() throws IOException {
+        ExecutorService compressor = Executors.newSingleThreadExecutor();
+        try {
+            int[] ints = concatenateArrays(a, b, e, c, d, d, d, a, a, c, b, b, a, e, c, c, d, d, d, a, d, a, b, e, a, b, c, a, b, c, e);
+            OutputSequence outSeq = new OutputSequence();
+            // small buffers to force multiple hand-offs to the compressor
+            OutputSequence bufferedOutSeq = new BufferedOutputSequence(compressor, null, 4, 2);
+            for (int i = 0; i < ints.length; ++i) {
+                outSeq.append(ints[i]);
+                bufferedOutSeq.append(ints[i]);
+            }
+            assertEquals(ints.length, bufferedOutSeq.getLength());
+
+            byte[] bytes = SequiturUtils.convertToByteArray(outSeq, true);
+            byte[] bufferedBytes = SequiturUtils.convertToByteArray(bufferedOutSeq, true);
+            assertArrayEquals(bytes, bufferedBytes);
+        } finally {
+            compressor.shutdown();
+        }
+    }
+
+    @Test
+    public void bufferedSequenceClosedWhileAppending() throws Exception {
+        ExecutorService compressor = Executors.newSingleThreadExecutor();
+        try {
+            final int count = 200000;
+            final OutputSequence successorSeq = new OutputSequence();
+            final BufferedOutputSequence bufferedOutSeq = new BufferedOutputSequence(compressor, null,
+                    new BufferedOutputSequence.Successor() {
+                        @Override
+                        public OutputSequence getSequence() {
+                            return successorSeq;
+                        }
+                    }, 16, 2);
+            Thread appender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; ++i) {
+                        bufferedOutSeq.append(i);
+                    }
+                }
+            });
+            appender.start();
+            // close the sequence while the other thread is (probably) still appending
+            while (bufferedOutSeq.getLength() < count / 4) {
+                Thread.yield();
+            }
+            bufferedOutSeq.close().get();
+            appender.join();
+
+            // all values are either in the closed sequence or in its successor, in order
+            int closedLength = (int) bufferedOutSeq.getLength();
+            assertEquals(count, closedLength + successorSeq.getLength());
+            TraceIterator closedIt = readSequence(bufferedOutSeq).iterator();
+            for (int i = 0; i < closedLength; ++i) {
+                assertEquals(i, closedIt.next());
+            }
+            assertFalse(closedIt.hasNext());
+            TraceIterator successorIt = readSequence(successorSeq).iterator();
+            for (int i = closedLength; i < count; ++i) {
+                assertEquals(i, successorIt.next());
+            }
+            assertFalse(successorIt.hasNext());
+        } finally {
+            compressor.shutdown();
+        }
+    }
+
+    @Test
+    public void bufferedSequenceFlushedWhileAppending() throws Exception {
+        ExecutorService compressor = Executors.newSingleThreadExecutor();
+        try {
+            final int count = 200000;
+            final BufferedOutputSequence bufferedOutSeq = new BufferedOutputSequence(compressor, null, 16, 2);
+            Thread appender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; ++i) {
+                        bufferedOutSeq.append(i);
+                    }
+                }
+            });
+            appender.start();
+            // hand off partially filled buffers while the other thread is appending
+            while (appender.isAlive()) {
+                bufferedOutSeq.startFlush().get();
+            }
+            appender.join();
+
+            // no value is lost or recorded twice
+            assertEquals(count, bufferedOutSeq.getLength());
+            TraceIterator it = readSequence(bufferedOutSeq).iterator();
+            for (int i = 0; i < count; ++i) {
+                assertEquals(i, it.next());
+            }
+            assertFalse(it.hasNext());
+        } finally {
+            compressor.shutdown();
+        }
+    }
+
+    @Test
+    public void bufferedSequenceDiscarded() throws Exception {
+        ExecutorService compressor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch compressorBlocked = new CountDownLatch(1);
+            compressor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compressorBlocked.await();
+                    } catch (InterruptedException e) {
+                        // continue
+                    }
+                }
+            });
+            final AtomicInteger processedCount = new AtomicInteger();
+            final OutputSequence successorSeq = new OutputSequence();
+            BufferedOutputSequence bufferedOutSeq = new BufferedOutputSequence(compressor,
+                    new BufferedOutputSequence.ProgressListener() {
+                        @Override
+                        public void processed(int count) {
+                            processedCount.addAndGet(count);
+                        }
+                    },
+                    new BufferedOutputSequence.Successor() {
+                        @Override
+                        public OutputSequence getSequence() {
+                            return successorSeq;
+                        }
+                    }, 16, 8);
+            // hands off 6 buffers that remain pending
+            for (int i = 0; i < 100; ++i) {
+                bufferedOutSeq.append(i);
+            }
+            bufferedOutSeq.discard();
+            for (int i = 0; i < 5; ++i) {
+                bufferedOutSeq.append(i);
+            }
+            compressorBlocked.countDown();
+            compressor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // waits for all pending buffers
+                }
+            }).get();
+
+            // pending buffers have been skipped
+            assertEquals(0, processedCount.get());
+            assertEquals(5, successorSeq.getLength());
+        } finally {
+            compressor.shutdown();
+        }
+    }
+
+    private InputSequence readSequence(OutputSequence outSeq) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        ObjectOutputStream objOut = new ObjectOutputStream(byteOut);
+        outSeq.writeOut(objOut, true);
+        objOut.close();
+        return InputSequence.readFrom(new ObjectInputStream(new ByteArrayInputStream(byteOut.toByteArray())));
+    }
+
 //    @Test
 //    public void sharedGrammar() {
 //        try {
@@ -0,0 +1,194 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Checks that cached instrumented classes do not depend on the class ids and that
+ * parallel instrumentation assigns the same ids and produces the same classes as
+ * serial instrumentation.
+ *
+ * @author Simon Heiden
+ */
+public class CoberturaInstrumenterTest {
+
+    // the classes of this module can not be used, since they are ignored by the instrumentation
+    private static final List<Class<?>> CLASSES = Arrays.<Class<?>>asList(
+            CoberturaInstrumenterTest.class, Result.class, Assert.class, TemporaryFolder.class,
+            Description.class, TraceClassVisitor.class);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCachedClassesWithNarrowEncoding() throws IOException {
+        testCachedClasses(false);
+    }
+
+    @Test
+    public void testCachedClassesWithWideEncoding() throws IOException {
+        testCachedClasses(true);
+    }
+
+    private void testCachedClasses(boolean wide) throws IOException {
+        File cacheDir = folder.newFolder("cache");
+        List<Class<?>> reversedClasses = new ArrayList<>(CLASSES);
+        Collections.reverse(reversedClasses);
+
+        Result reference = instrument(CLASSES, null, 1, wide);
+        Result miss = instrument(CLASSES, cacheDir, 1, wide);
+        Assert.assertEquals(CLASSES.size(), countCachedClasses(cacheDir));
+        Result hit = instrument(CLASSES, cacheDir, 1, wide);
+        assertSameClasses(reference, miss);
+        assertSameClasses(reference, hit);
+
+        // different class ids (and statement bases), but the cached classes are reused
+        Result reversedReference = instrument(reversedClasses, null, 1, wide);
+        Result reversedHit = instrument(reversedClasses, cacheDir, 1, wide);
+        // no new cache entries
+        Assert.assertEquals(CLASSES.size(), countCachedClasses(cacheDir));
+        Assert.assertNotEquals(reference.classIds, reversedReference.classIds);
+        assertSameClasses(reversedReference, reversedHit);
+    }
+
+    @Test
+    public void testCachedClassesWithSkippedStatements() throws IOException {
+        // skips the counter with id 1 of all classes
+        Set<Integer> statements = new HashSet<>();
+        for (int classId = 0; classId < CLASSES.size(); ++classId) {
+            statements.add(CoberturaStatementEncoding.generateUniqueRepresentationForStatement(classId, 1));
+        }
+        File cacheDir = folder.newFolder("cache");
+        List<Class<?>> reversedClasses = new ArrayList<>(CLASSES);
+        Collections.reverse(reversedClasses);
+
+        Result reference = instrument(CLASSES, null, 1, false, statements);
+        String className = CoberturaInstrumenterTest.class.getName();
+        Assert.assertNotEquals(disassemble(instrument(CLASSES, null, 1, false).classes.get(className)),
+                disassemble(reference.classes.get(className)));
+        assertSameClasses(reference, instrument(CLASSES, cacheDir, 1, false, statements));
+        assertSameClasses(instrument(reversedClasses, null, 1, false, statements),
+                instrument(reversedClasses, cacheDir, 1, false, statements));
+        Assert.assertEquals(CLASSES.size(), countCachedClasses(cacheDir));
+        // different skipped counters are cached separately
+        instrument(CLASSES, cacheDir, 1, false);
+        Assert.assertTrue(countCachedClasses(cacheDir) > CLASSES.size());
+    }
+
+    @Test
+    public void testParallelInstrumentationIsDeterministic() throws IOException {
+        for (boolean wide : new boolean[]{false, true}) {
+            Result serial = instrument(CLASSES, null, 1, wide);
+            for (int i = 0; i < 3; ++i) {
+                Result parallel = instrument(CLASSES, null, 4, wide);
+                Assert.assertEquals(serial.classIds, parallel.classIds);
+                assertSameBytes(serial, parallel);
+            }
+
+            File cacheDir = folder.newFolder("cache" + wide);
+            assertSameBytes(instrument(CLASSES, cacheDir, 1, wide), instrument(CLASSES, cacheDir, 4, wide));
+        }
+    }
+
+    private Result instrument(List<Class<?>> classes, File cacheDir, int threadCount, boolean wide)
+            throws IOException {
+        return instrument(classes, cacheDir, threadCount, wide, null);
+    }
+
+    private Result instrument(List<Class<?>> classes, File cacheDir, int threadCount, boolean wide,
+                              Set<Integer> statementsToInstrument) throws IOException {
+        File inputDir = folder.newFolder();
+        File outputDir = folder.newFolder();
+        List<File> files = new ArrayList<>();
+        for (Class<?> clazz : classes) {
+            String fileName = clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1) + ".class";
+            File file = new File(inputDir, fileName);
+            try (InputStream input = clazz.getResourceAsStream(fileName)) {
+                Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            files.add(file);
+        }
+
+        ProjectData projectData = new ProjectData();
+        projectData.setWideStatementEncoding(wide);
+        CoberturaInstrumenter instrumenter = new CoberturaInstrumenter(true);
+        instrumenter.setProjectData(projectData);
+        instrumenter.setDestinationDirectory(outputDir);
+        instrumenter.setCacheDirectory(cacheDir);
+        instrumenter.setFailOnError(true);
+        CoberturaInstrumenter.resetClassIds();
+        instrumenter.addInstrumentationToClasses(files, statementsToInstrument, threadCount);
+
+        Result result = new Result();
+        for (Class<?> clazz : classes) {
+            String className = clazz.getName();
+            result.classes.put(className, Files.readAllBytes(
+                    new File(outputDir, className.replace('.', File.separatorChar) + ".class").toPath()));
+        }
+        for (ClassData classData : projectData.getClasses()) {
+            result.classIds.put(classData.getName(), classData.getClassId());
+        }
+        return result;
+    }
+
+    private static void assertSameClasses(Result expected, Result actual) {
+        Assert.assertEquals(expected.classIds, actual.classIds);
+        for (Map.Entry<String, byte[]> entry : expected.classes.entrySet()) {
+            Assert.assertEquals(entry.getKey(), disassemble(entry.getValue()),
+                    disassemble(actual.classes.get(entry.getKey())));
+        }
+    }
+
+    private static void assertSameBytes(Result expected, Result actual) {
+        Assert.assertEquals(expected.classes.keySet(), actual.classes.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.classes.entrySet()) {
+            Assert.assertArrayEquals(entry.getKey(), entry.getValue(), actual.classes.get(entry.getKey()));
+        }
+    }
+
+    private static String disassemble(byte[] bytes) {
+        StringWriter writer = new StringWriter();
+        new ClassReader(bytes).accept(new TraceClassVisitor(new PrintWriter(writer)), 0);
+        return writer.toString();
+    }
+
+    private static int countCachedClasses(File cacheDir) {
+        File[] files = cacheDir.listFiles();
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(".class")) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static class Result {
+        private final Map<String, byte[]> classes = new TreeMap<>();
+        private final Map<String, Integer> classIds = new TreeMap<>();
+    }
+
+}
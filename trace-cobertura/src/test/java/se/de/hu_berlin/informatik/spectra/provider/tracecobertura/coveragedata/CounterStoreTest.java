@@ -0,0 +1,152 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Simon
+ *
+ */
+public class CounterStoreTest {
+
+    @Test
+    public void testUnregisteredClass() {
+        CounterStore store = new CounterStore(16);
+        Assert.assertNull(store.getAndReset(3));
+    }
+
+    @Test
+    public void testClassIdAboveInitialCapacity() {
+        CounterStore store = new CounterStore(4);
+        store.initializeClass(0, 1);
+        store.initializeClass(5000, 2);
+        store.increment(5000, 1);
+        store.increment(5000, 1);
+        Assert.assertNull(store.getAndReset(4999));
+        Assert.assertNull(store.getAndReset(10000));
+        Assert.assertArrayEquals(new int[] { 0, 2 }, store.getAndReset(5000));
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws InterruptedException {
+        final CounterStore store = new CounterStore(16);
+        store.initializeClass(1, 3);
+        store.initializeClass(2, 5);
+
+        final int threadCount = 8;
+        final int increments = 100000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; ++i) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < increments; ++j) {
+                        store.increment(1, 0);
+                        store.increment(1, j % 3);
+                        store.increment(2, 4);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        // counts of the main thread have to be merged, too
+        store.increment(2, 0);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int[] counters = store.getAndReset(1);
+        Assert.assertEquals(3, counters.length);
+        Assert.assertEquals(threadCount * (increments + 33334), counters[0]);
+        Assert.assertEquals(threadCount * 33333, counters[1]);
+        Assert.assertEquals(threadCount * 33333, counters[2]);
+
+        counters = store.getAndReset(2);
+        Assert.assertEquals(5, counters.length);
+        Assert.assertEquals(1, counters[0]);
+        Assert.assertEquals(threadCount * increments, counters[4]);
+
+        // everything has been reset
+        Assert.assertArrayEquals(new int[3], store.getAndReset(1));
+        Assert.assertArrayEquals(new int[5], store.getAndReset(2));
+    }
+
+    @Test
+    public void testResetWhileIncrementing() throws InterruptedException {
+        final CounterStore store = new CounterStore(4);
+        store.initializeClass(1, 2);
+
+        final int threadCount = 4;
+        final int increments = 1000000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; ++i) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < increments; ++j) {
+                        store.increment(1, 1);
+                        // also forces the thread's table to grow while resetting
+                        if (j == increments / 2) {
+                            store.increment(100, 0);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        store.initializeClass(100, 1);
+
+        long sum = 0;
+        int resets = 0;
+        while (resets < 10 || isAnyAlive(threads)) {
+            int[] counters = store.getAndReset(1);
+            Assert.assertEquals(0, counters[0]);
+            sum += counters[1];
+            ++resets;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sum += store.getAndReset(1)[1];
+
+        // no hit gets lost or is counted twice while resetting
+        Assert.assertEquals((long) threadCount * increments, sum);
+        Assert.assertTrue(resets >= 10);
+        Assert.assertArrayEquals(new int[2], store.getAndReset(1));
+    }
+
+    @Test
+    public void testInitializeClassDropsCountersOfOtherThreads() throws InterruptedException {
+        final CounterStore store = new CounterStore(4);
+        store.initializeClass(2, 1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                store.increment(2, 0);
+            }
+        });
+        thread.start();
+        thread.join();
+        store.increment(2, 0);
+
+        store.initializeClass(2, 1);
+        Assert.assertArrayEquals(new int[1], store.getAndReset(2));
+        store.increment(2, 0);
+        Assert.assertArrayEquals(new int[] { 1 }, store.getAndReset(2));
+    }
+
+    private static boolean isAnyAlive(List<Thread> threads) {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
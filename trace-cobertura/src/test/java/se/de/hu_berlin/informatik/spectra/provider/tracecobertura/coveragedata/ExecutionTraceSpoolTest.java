@@ -0,0 +1,86 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.input.InputSequence.TraceIterator;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.OutputSequence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Simon Heiden
+ *
+ */
+public class ExecutionTraceSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSpoolRoundTrip() throws IOException {
+        int[] trace1 = new int[]{1, 2, 3, 1, 2, 3, 1, 2, 3, 4, 5, 4, 5, 4, 5};
+        int[] trace2 = new int[5000];
+        for (int i = 0; i < trace2.length; ++i) {
+            trace2[i] = i % 17 + (i / 1000);
+        }
+        Map<Long, OutputSequence> traces = new LinkedHashMap<>();
+        traces.put(7L, toOutputSequence(trace1));
+        traces.put(3L, toOutputSequence(trace2));
+
+        File spoolFile = folder.newFile("trace.spool");
+        ExecutionTraceSpool spool = ExecutionTraceSpool.write(spoolFile, traces);
+        Assert.assertEquals(2, spool.size());
+        Assert.assertEquals(spool.getOffset(0) + spool.getLength(0), spool.getOffset(1));
+        Assert.assertEquals(spoolFile.length(), spool.getOffset(1) + spool.getLength(1));
+
+        Assert.assertEquals(7L, spool.getThreadId(0));
+        assertTrace(trace1, spool.readTrace(0));
+        Assert.assertEquals(3L, spool.getThreadId(1));
+        assertTrace(trace2, spool.readTrace(1));
+        // traces can be read repeatedly and in any order
+        assertTrace(trace1, spool.readTrace(0));
+
+        Assert.assertTrue(spool.delete());
+        Assert.assertFalse(spoolFile.exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRegionMismatchIsDetected() throws IOException {
+        Map<Long, OutputSequence> traces = new LinkedHashMap<>();
+        traces.put(1L, toOutputSequence(new int[]{1, 2, 3}));
+        traces.put(2L, toOutputSequence(new int[]{4, 5, 6}));
+
+        File spoolFile = folder.newFile("trace.spool");
+        ExecutionTraceSpool spool = ExecutionTraceSpool.write(spoolFile, traces);
+        // a region that covers two traces is corrupted
+        ExecutionTraceSpool wrongSpool = new ExecutionTraceSpool(spool.getSpoolFile(), 1);
+        wrongSpool.add(1L, spool.getOffset(0), spool.getLength(0) + spool.getLength(1));
+        wrongSpool.readTrace(0);
+    }
+
+    private static OutputSequence toOutputSequence(int[] trace) {
+        OutputSequence sequence = new OutputSequence();
+        for (int element : trace) {
+            sequence.append(element);
+        }
+        return sequence;
+    }
+
+    private static void assertTrace(int[] expected, InputSequence actual) {
+        Assert.assertEquals(expected.length, actual.getLength());
+        TraceIterator iterator = actual.iterator();
+        for (int element : expected) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(element, iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+}
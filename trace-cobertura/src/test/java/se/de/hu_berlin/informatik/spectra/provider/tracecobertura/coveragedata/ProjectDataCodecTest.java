@@ -0,0 +1,169 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.data.LightClassmapListener;
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.sequitur.output.OutputSequence;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * @author Simon
+ *
+ */
+public class ProjectDataCodecTest {
+
+    private static final int CLASS_A = 17;
+    private static final int CLASS_B = 42;
+
+    @Test
+    public void testStringsAndInts() {
+        // start with a small buffer to force growing it
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        buffer = ProjectDataCodec.putString(buffer, "testä");
+        buffer = ProjectDataCodec.putString(buffer, null);
+        buffer = ProjectDataCodec.putInts(buffer, new int[]{1, -2, 3, 4}, 3);
+        buffer.flip();
+
+        Assert.assertEquals("testä", ProjectDataCodec.getString(buffer));
+        Assert.assertNull(ProjectDataCodec.getString(buffer));
+        Assert.assertArrayEquals(new int[]{1, -2, 3}, ProjectDataCodec.getInts(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testLayoutRoundTrip() {
+        ClassTouchPointLayout layout = new ClassTouchPointLayout("some.pkg.SomeClass");
+        reportTouchPoints(layout);
+
+        ByteBuffer buffer = layout.writeTo(ByteBuffer.allocate(4));
+        buffer.flip();
+        ClassTouchPointLayout readLayout = ClassTouchPointLayout.readFrom(buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(layout.getClassName(), readLayout.getClassName());
+
+        int[] counters = new int[]{2, 1, 0, 4, 0, 3, 1, 0, 5, 6};
+        Assert.assertTrue(ClassTouchPointLayout.hasHits(counters));
+        // reference: replaying the touch points with the listener that is used for the classmap method
+        ClassData expected = new ClassData(layout.getClassName(), 1);
+        reportTouchPoints(new TouchCollector.ApplyToClassDataLightClassmapListener(expected, counters));
+        ClassData actual = new ClassData(readLayout.getClassName(), 1);
+        readLayout.applyOnClassData(actual, counters);
+
+        Assert.assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+        for (int line : new int[]{5, 7, 9}) {
+            LineData expectedLine = expected.getLineData(line);
+            LineData actualLine = actual.getLineData(line);
+            Assert.assertEquals(expectedLine.getHits(), actualLine.getHits());
+            Assert.assertEquals(expectedLine.getMethodName(), actualLine.getMethodName());
+            Assert.assertEquals(expectedLine.getMethodDescriptor(), actualLine.getMethodDescriptor());
+            Assert.assertEquals(expectedLine.getNumberOfValidBranches(), actualLine.getNumberOfValidBranches());
+            Assert.assertEquals(expectedLine.getNumberOfCoveredBranches(), actualLine.getNumberOfCoveredBranches());
+        }
+        Assert.assertEquals(2, actual.getLineData(5).getHits());
+        Assert.assertEquals(0, actual.getLineData(9).getHits());
+    }
+
+    @Test
+    public void testHasHits() {
+        Assert.assertFalse(ClassTouchPointLayout.hasHits(null));
+        Assert.assertFalse(ClassTouchPointLayout.hasHits(new int[3]));
+        Assert.assertTrue(ClassTouchPointLayout.hasHits(new int[]{0, 0, 1}));
+    }
+
+    @Test
+    public void testProjectDataRoundTrip() {
+        TouchCollector.registerClass(InstrumentedClassA.class, CLASS_A, 10);
+        TouchCollector.registerClass(InstrumentedClassB.class, CLASS_B, 10);
+        // drops hits and traces of other tests
+        TouchCollector.applyTouchesOnProjectData(new ProjectData());
+
+        ProjectDataCodec.Encoder encoder = new ProjectDataCodec.Encoder();
+        ProjectDataCodec.Decoder decoder = new ProjectDataCodec.Decoder();
+        // the layouts are only encoded in the first round
+        for (int round = 0; round < 3; ++round) {
+            executeStatements(round);
+            ProjectData expected = new ProjectData();
+            TouchCollector.applyTouchesOnProjectData(expected);
+
+            executeStatements(round);
+            ByteBuffer buffer = encoder.encode(ByteBuffer.allocate(16));
+            buffer.flip();
+            ProjectData actual = decoder.decode(buffer);
+            Assert.assertFalse(buffer.hasRemaining());
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static void executeStatements(int round) {
+        OutputSequence trace = ExecutionTraceCollector.getOutputSequence();
+        if (round != 1) {
+            ExecutionTraceCollector.addStatementToExecutionTraceAndIncrementCounter(CLASS_A, 0, trace);
+            ExecutionTraceCollector.jumpAddStatementToExecutionTraceAndIncrementCounter(CLASS_A, 1, trace);
+            ExecutionTraceCollector.addStatementToExecutionTraceAndIncrementCounter(CLASS_A, 0, trace);
+        }
+        for (int i = 0; i <= round; ++i) {
+            ExecutionTraceCollector.addStatementToExecutionTraceAndIncrementCounter(CLASS_B, 3, trace);
+            ExecutionTraceCollector.switchAddStatementToExecutionTraceAndIncrementCounter(CLASS_B, 5, trace);
+            ExecutionTraceCollector.addStatementToExecutionTraceAndIncrementCounter(CLASS_B, 7, trace);
+        }
+    }
+
+    private static void assertEquals(ProjectData expected, ProjectData actual) {
+        Assert.assertEquals(expected.getNumberOfClasses(), actual.getNumberOfClasses());
+        for (int classId : new int[]{CLASS_A, CLASS_B}) {
+            ClassData expectedClass = expected.getClassData(classId);
+            ClassData actualClass = actual.getClassData(classId);
+            if (expectedClass == null) {
+                Assert.assertNull(actualClass);
+                continue;
+            }
+            Assert.assertEquals(expectedClass.getName(), actualClass.getName());
+            Assert.assertEquals(expectedClass.getSourceFileName(), actualClass.getSourceFileName());
+            for (int line : new int[]{5, 7, 9}) {
+                LineData expectedLine = expectedClass.getLineData(line);
+                LineData actualLine = actualClass.getLineData(line);
+                Assert.assertEquals(expectedLine.getHits(), actualLine.getHits());
+                Assert.assertEquals(expectedLine.getMethodName(), actualLine.getMethodName());
+                Assert.assertEquals(expectedLine.getNumberOfValidBranches(), actualLine.getNumberOfValidBranches());
+                Assert.assertEquals(expectedLine.getNumberOfCoveredBranches(), actualLine.getNumberOfCoveredBranches());
+            }
+        }
+
+        List<Pair<Long, byte[]>> expectedTraces = expected.getExecutionTraces();
+        List<Pair<Long, byte[]>> actualTraces = actual.getExecutionTraces();
+        Assert.assertEquals(1, expectedTraces.size());
+        Assert.assertEquals(expectedTraces.size(), actualTraces.size());
+        for (int i = 0; i < expectedTraces.size(); ++i) {
+            Assert.assertEquals(expectedTraces.get(i).getFirst(), actualTraces.get(i).getFirst());
+            Assert.assertArrayEquals(expectedTraces.get(i).getSecond(), actualTraces.get(i).getSecond());
+        }
+    }
+
+    private static void reportTouchPoints(LightClassmapListener listener) {
+        listener.setSource("some/pkg/SomeClass.java");
+        listener.putLineTouchPoint(5, 0, "foo", "()V");
+        listener.putJumpTouchPoint(5, 1, 2);
+        listener.putLineTouchPoint(7, 3, "bar", "(I)I");
+        listener.putSwitchTouchPoint(7, 3, 4, 5, 6);
+        listener.putJumpTouchPoint(7, 8, 9);
+        listener.putLineTouchPoint(9, 7, "foo", "()V");
+    }
+
+    // pretend to be instrumented, i.e., provide a classmap method
+    public static class InstrumentedClassA {
+        public static void __tracecobertura_classmap(LightClassmapListener listener) {
+            reportTouchPoints(listener);
+        }
+    }
+
+    public static class InstrumentedClassB {
+        public static void __tracecobertura_classmap(LightClassmapListener listener) {
+            reportTouchPoints(listener);
+        }
+    }
+
+}
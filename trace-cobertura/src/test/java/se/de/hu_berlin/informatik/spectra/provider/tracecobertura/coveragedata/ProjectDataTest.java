@@ -0,0 +1,53 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.coveragedata;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure.CoberturaStatementEncoding;
+
+/**
+ * @author Simon Heiden
+ */
+public class ProjectDataTest {
+
+    @Test
+    public void testWideStatementEncodingWithManyClasses() {
+        // more classes than the narrow encoding can represent
+        int classCount = (1 << CoberturaStatementEncoding.CLASS_ID_BITS) + 1000;
+        int[] statementBases = new int[classCount];
+        int[] counterCounts = new int[classCount];
+
+        ProjectData projectData = new ProjectData();
+        projectData.setWideStatementEncoding(true);
+        int nextStatementBase = 0;
+        for (int i = 0; i < classCount; ++i) {
+            // statement bases are assigned in a different order than the class ids
+            int classId = (i * 7919) % classCount;
+            ClassData classData = new ClassData("some.pkg" + (classId % 13) + ".SomeClass" + classId, classId);
+            counterCounts[classId] = 1 + (classId % 5);
+            statementBases[classId] = nextStatementBase;
+            classData.setStatementBase(nextStatementBase);
+            nextStatementBase += counterCounts[classId];
+            projectData.addClassData(classData);
+        }
+        Assert.assertEquals(classCount, projectData.getNumberOfClasses());
+
+        for (int classId = 0; classId < classCount; ++classId) {
+            for (int counterId = 0; counterId < counterCounts[classId]; ++counterId) {
+                int statement = CoberturaStatementEncoding
+                        .generateWideRepresentationForStatement(statementBases[classId], counterId);
+                Assert.assertEquals(classId, projectData.getClassIdOfStatement(statement));
+                Assert.assertEquals(counterId, projectData.getCounterIdOfStatement(statement));
+            }
+        }
+    }
+
+    @Test
+    public void testNarrowStatementEncoding() {
+        ProjectData projectData = new ProjectData();
+        int statement = CoberturaStatementEncoding.generateUniqueRepresentationForStatement(4095, 42);
+        Assert.assertEquals(4095, projectData.getClassIdOfStatement(statement));
+        Assert.assertEquals(42, projectData.getCounterIdOfStatement(statement));
+    }
+
+}
@@ -0,0 +1,144 @@
+package se.de.hu_berlin.informatik.spectra.provider.tracecobertura.infrastructure;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * @author Simon Heiden
+ *
+ */
+public class MappedSegmentStoreTest {
+
+    // header (16 bytes) and 4 ints per slot
+    private static final int ELEMENT_COUNT = 4;
+    private static final int SLOT_SIZE = 16 + 4 * ELEMENT_COUNT;
+    // 3 slots per segment
+    private static final int SEGMENT_SIZE = 3 * SLOT_SIZE + 5;
+    private static final int SLOT_COUNT = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndReadAcrossSegments() throws IOException {
+        MappedSegmentStore store = newStore(folder.newFile("store.bin"));
+        for (int i = 0; i < SLOT_COUNT; ++i) {
+            Assert.assertFalse(store.exists(i));
+            write(store, i);
+        }
+        // the file covers 4 segments of 3 slots
+        Assert.assertEquals(4L * 3 * SLOT_SIZE, store.getFile().length());
+        for (int i = 0; i < SLOT_COUNT; ++i) {
+            assertSlot(store, i);
+        }
+        Assert.assertFalse(store.exists(SLOT_COUNT));
+        Assert.assertNull(store.read(4 * 3));
+
+        store.delete(4);
+        Assert.assertFalse(store.exists(4));
+        Assert.assertNull(store.read(4));
+        assertSlot(store, 3);
+        assertSlot(store, 5);
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        File file = folder.newFile("store.bin");
+        MappedSegmentStore store = newStore(file);
+        for (int i = 0; i < SLOT_COUNT; ++i) {
+            write(store, i);
+        }
+        store.clear();
+        // the segments have been unmapped, so the file can be deleted
+        Assert.assertFalse(file.exists());
+        for (int i = 0; i < SLOT_COUNT; ++i) {
+            Assert.assertFalse(store.exists(i));
+            Assert.assertNull(store.read(i));
+        }
+
+        // the store can be used again after clearing
+        write(store, 7);
+        assertSlot(store, 7);
+        Assert.assertFalse(store.exists(1));
+        Assert.assertFalse(store.exists(6));
+    }
+
+    @Test
+    public void testReopen() throws IOException, ClassNotFoundException {
+        MappedSegmentStore store = newStore(folder.newFile("store.bin"));
+        for (int i = 0; i < SLOT_COUNT; ++i) {
+            write(store, i);
+        }
+        store.clear();
+        for (int i = 0; i < SLOT_COUNT; i += 2) {
+            write(store, i);
+        }
+
+        // segments are mapped again after releasing them
+        store.release();
+        assertReopenedStore(store);
+
+        // the segments are not serialized, but mapped again from the file
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        try (ObjectOutputStream objOut = new ObjectOutputStream(byteOut)) {
+            objOut.writeObject(store);
+        }
+        try (ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(byteOut.toByteArray()))) {
+            assertReopenedStore((MappedSegmentStore) objIn.readObject());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSegmentSizeIsRejected() throws IOException {
+        new MappedSegmentStore(folder.newFile("store.bin"), ELEMENT_COUNT, 4, 0, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSegmentSizeIsRejected() throws IOException {
+        new MappedSegmentStore(folder.newFile("store.bin"), ELEMENT_COUNT, 4, -SEGMENT_SIZE, false);
+    }
+
+    private void assertReopenedStore(MappedSegmentStore store) {
+        for (int i = 0; i < SLOT_COUNT; ++i) {
+            if (i % 2 == 0) {
+                assertSlot(store, i);
+            } else {
+                // slots of the previous generation stay invalid
+                Assert.assertFalse(store.exists(i));
+            }
+        }
+    }
+
+    private static MappedSegmentStore newStore(File file) {
+        return new MappedSegmentStore(file, ELEMENT_COUNT, 4, SEGMENT_SIZE, false);
+    }
+
+    private static void write(MappedSegmentStore store, int index) {
+        ByteBuffer slot = store.write(index, 10 * index, 10 * index + ELEMENT_COUNT);
+        for (int i = 0; i < ELEMENT_COUNT; ++i) {
+            slot.putInt(100 * index + i);
+        }
+    }
+
+    private static void assertSlot(MappedSegmentStore store, int index) {
+        Assert.assertTrue(store.exists(index));
+        ByteBuffer slot = store.read(index);
+        Assert.assertNotNull(slot);
+        Assert.assertEquals(10 * index, MappedSegmentStore.getStartIndex(slot));
+        Assert.assertEquals(10 * index + ELEMENT_COUNT, MappedSegmentStore.getEndIndex(slot));
+        for (int i = 0; i < ELEMENT_COUNT; ++i) {
+            Assert.assertEquals(100 * index + i, slot.getInt());
+        }
+    }
+
+}